@@ -2,11 +2,18 @@ package sqlancer;
 import com.sun.jna.*;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
-import static sqlancer.BaseConfigurationGenerator.allParameterCombos;
 import static sqlancer.Main.nrQueries;
+import static sqlancer.MainOptions.AFL_BASE_PORT;
+import static sqlancer.MainOptions.AFL_DATA_DIR;
 import static sqlancer.MainOptions.AFL_MAP_SIZE;
 import static sqlancer.MainOptions.DBMS_PATH;
 
@@ -29,10 +36,41 @@ public class AFLMonitor implements AutoCloseable {
     private static final int IPC_CREAT = 01000;
     private static final int IPC_RMID = 0;
     private final double alpha = 0.4; // 用于权重更新的学习率
-    private static long allNewEdges=0;
-    public static long testCount=0;
+    private static final AtomicLong allNewEdges = new AtomicLong();
+    public static final AtomicLong testCount = new AtomicLong();
     private BufferedWriter processWriter;
 
+    // hasNewBits() 的返回值，与 AFL 的 has_new_bits 保持一致
+    public static final int NO_NEW_BITS = 0;
+    public static final int NEW_HIT_COUNT = 1;
+    public static final int NEW_EDGE = 2;
+
+    // AFL 的 count_class_lookup8：将命中次数归入 8 个桶，每个桶占一个 bit
+    private static final byte[] COUNT_CLASS = new byte[256];
+    static {
+        for (int i = 1; i < 256; i++) {
+            int bucket;
+            if (i == 1) {
+                bucket = 1;
+            } else if (i == 2) {
+                bucket = 2;
+            } else if (i == 3) {
+                bucket = 4;
+            } else if (i < 8) {
+                bucket = 8;
+            } else if (i < 16) {
+                bucket = 16;
+            } else if (i < 32) {
+                bucket = 32;
+            } else if (i < 128) {
+                bucket = 64;
+            } else {
+                bucket = 128;
+            }
+            COUNT_CLASS[i] = (byte) bucket;
+        }
+    }
+
 
 
     // JNA 接口
@@ -48,19 +86,45 @@ public class AFLMonitor implements AutoCloseable {
 
     private int shmId = -1;
     private Pointer shmPtr = null;
-    public final static byte[] coverageBuf = new byte[AFL_MAP_SIZE];
-    private static volatile AFLMonitor INSTANCE;
+    // 最近一次 hasNewBits() 扫描到的命中边（下标与命中次数），供训练阶段统计特性与边的关系，数组会被复用
+    private int[] hitEdges = new int[1 << 12];
+    private byte[] hitCounts = new byte[1 << 12];
+    private int nrHitEdges = 0;
+    private static final boolean LITTLE_ENDIAN = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN;
+    // 共享内存的直接视图：按 8 字节一组读取，尾部不足 8 字节的部分单独处理
+    private ByteBuffer traceBytes;
+    private LongBuffer traceWords;
+    // 所有实例共享的 AFL 风格 virgin bits：某一位为 1 表示该边的该命中桶尚未出现过。
+    // 各实例通过 CAS 无锁地合并新发现的位，因此同一条边只会被计数一次。
+    private static final AtomicLongArray VIRGIN_BITS = createVirginBits();
+    private static final AtomicLong COVERED_EDGES = new AtomicLong();
+    private int lastNewEdges = 0;
+    private int lastNewHitCounts = 0;
+    // 实例池：实例 0 即原来的单例，沿用命令行中的端口和 DBMS 默认数据目录
+    private static final Map<Integer, AFLMonitor> INSTANCES = new ConcurrentHashMap<>();
+    private final int instanceId;
     private Process dbmsProcess = null;
     private final AtomicBoolean closed = new AtomicBoolean(false);
     public static int testcaseNum=0;
 
+    // 不创建共享内存、也不启动 DBMS 的实例，见 disabled()
+    private static final AFLMonitor DISABLED = new AFLMonitor();
+
     private AFLMonitor() {
+        this.instanceId = 0;
+        closed.set(true);
+    }
+
+    private AFLMonitor(int instanceId, boolean waitForStartup) {
+        this.instanceId = instanceId;
         if (!createSharedMemory()) {
             throw new IllegalStateException("共享内存初始化失败");
         }
         try {
             dbmsProcess = startDBMS();
-            Thread.sleep(5000);
+            if (waitForStartup) {
+                Thread.sleep(5000);
+            }
         } catch (Exception e) {
             cleanup();
             throw new RuntimeException(e);
@@ -68,6 +132,14 @@ public class AFLMonitor implements AutoCloseable {
 
     }
 
+    private static AtomicLongArray createVirginBits() {
+        AtomicLongArray virginBits = new AtomicLongArray((AFL_MAP_SIZE + Long.BYTES - 1) / Long.BYTES);
+        for (int i = 0; i < virginBits.length(); i++) {
+            virginBits.set(i, -1L);
+        }
+        return virginBits;
+    }
+
     private void silentClose() {
         try {
             close();
@@ -89,7 +161,7 @@ public class AFLMonitor implements AutoCloseable {
     public void restartDBMS() throws InterruptedException {
         System.out.println("正在重启 DBMS 进程...");
         if (isDBMSAlive()) {
-            close();
+            stopDBMS();
         }
         try {
             dbmsProcess = startDBMS();
@@ -106,6 +178,15 @@ public class AFLMonitor implements AutoCloseable {
     @Override
     public void close() throws InterruptedException {
         if (!closed.compareAndSet(false, true)) return;
+        stopDBMS();
+        INSTANCES.remove(instanceId, this);
+        cleanup();
+    }
+
+    /**
+     * 停止 DBMS 进程，但保留共享内存，以便 restartDBMS() 之后继续使用同一块覆盖率映射。
+     */
+    private void stopDBMS() {
         try {
             if (processWriter != null) {
                 processWriter.write(".quit\n");
@@ -128,17 +209,85 @@ public class AFLMonitor implements AutoCloseable {
                 Thread.currentThread().interrupt();
             }
         }
-        cleanup();
+        processWriter = null;
     }
+
     public static AFLMonitor getInstance() {
-        if (INSTANCE == null) {
+        return getInstance(0);
+    }
+
+    /**
+     * 获取指定编号的监控实例；每个实例拥有独立的共享内存、DBMS 进程、端口和数据目录。
+     */
+    public static AFLMonitor getInstance(int instanceId) {
+        AFLMonitor monitor = INSTANCES.get(instanceId);
+        if (monitor == null) {
             synchronized (AFLMonitor.class) {
-                if (INSTANCE == null) {
-                    INSTANCE = new AFLMonitor();
+                monitor = INSTANCES.get(instanceId);
+                if (monitor == null) {
+                    monitor = new AFLMonitor(instanceId, true);
+                    INSTANCES.put(instanceId, monitor);
                 }
             }
         }
-        return INSTANCE;
+        return monitor;
+    }
+
+    /**
+     * 返回不启动 DBMS、也不收集覆盖率的实例，供连接已在运行的 DBMS 且不需要覆盖率反馈的执行器（--concurrent-executors）
+     * 使用；该实例可被多个线程共享，执行的语句不会被转发。
+     */
+    public static AFLMonitor disabled() {
+        return DISABLED;
+    }
+
+    /**
+     * 一次性启动编号为 0..size-1 的实例，所有进程并行启动，只等待一次初始化时间。
+     */
+    public static synchronized void startPool(int size) throws InterruptedException {
+        boolean started = false;
+        for (int i = 0; i < size; i++) {
+            if (!INSTANCES.containsKey(i)) {
+                INSTANCES.put(i, new AFLMonitor(i, false));
+                started = true;
+            }
+        }
+        if (started) {
+            Thread.sleep(5000);
+        }
+    }
+
+    /**
+     * 关闭所有实例及其共享内存。
+     */
+    public static void closeAll() throws InterruptedException {
+        for (AFLMonitor monitor : new ArrayList<>(INSTANCES.values())) {
+            monitor.close();
+        }
+    }
+
+    public int getInstanceId() {
+        return instanceId;
+    }
+
+    /**
+     * @return 该实例 DBMS 监听的端口；实例 0 返回 MainOptions.NO_SET_PORT，表示沿用命令行中的端口
+     */
+    public int getPort() {
+        if (instanceId == 0) {
+            return MainOptions.NO_SET_PORT;
+        }
+        return AFL_BASE_PORT + instanceId;
+    }
+
+    /**
+     * @return 该实例的数据目录；为 null 时使用 DBMS 的默认数据目录
+     */
+    public String getDataDirectory() {
+        if (instanceId == 0 || AFL_DATA_DIR == null) {
+            return null;
+        }
+        return new File(AFL_DATA_DIR, "instance" + instanceId).getAbsolutePath();
     }
 
     public boolean createSharedMemory() {
@@ -152,11 +301,15 @@ public class AFLMonitor implements AutoCloseable {
             System.err.println("附加共享内存失败");
             return false;
         }
+        traceBytes = shmPtr.getByteBuffer(0, AFL_MAP_SIZE).order(ByteOrder.nativeOrder());
+        traceWords = traceBytes.asLongBuffer();
         // 初始化置零
         clearCoverage();
-        CLib.INSTANCE.setenv(AFL_SHM_ENV_VAR, String.valueOf(shmId), 1);
+        if (instanceId == 0) {
+            CLib.INSTANCE.setenv(AFL_SHM_ENV_VAR, String.valueOf(shmId), 1);
+        }
 
-        System.out.println("=== MySQL AFL Coverage Monitor ===");
+        System.out.println("=== MySQL AFL Coverage Monitor #" + instanceId + " ===");
         System.out.println("Shared Memory ID: " + shmId);
         System.out.println("Environment Variable: " + AFL_SHM_ENV_VAR + "=" + shmId);
         System.out.println("Coverage Map Size: " + AFL_MAP_SIZE + " bytes");
@@ -174,14 +327,15 @@ public class AFLMonitor implements AutoCloseable {
         java.util.List<String> cmd = new java.util.ArrayList<>();
 
         cmd.add(DBMS_PATH);
-//        if (args != null && args.length > 0) {
-//            cmd.addAll(java.util.Arrays.asList(args));
-//        }
+        if (instanceId != 0) {
+            cmd.addAll(getInstanceArguments());
+        }
 
         ProcessBuilder pb = new ProcessBuilder(cmd);
         java.util.Map<String,String> env = pb.environment();
         if(DBMS_PATH.contains("postgres")){
-            env.put("PGDATA", "/usr/local/pgsql/data");
+            String dataDirectory = getDataDirectory();
+            env.put("PGDATA", dataDirectory == null ? "/usr/local/pgsql/data" : dataDirectory);
         }
         env.put(AFL_SHM_ENV_VAR, String.valueOf(shmId));
         env.put("AFL_MAP_SIZE", String.valueOf(AFL_MAP_SIZE));
@@ -206,7 +360,34 @@ public class AFLMonitor implements AutoCloseable {
         return process;
     }
 
-//    .
+    /**
+     * 非 0 号实例的启动参数：独立的端口、socket 和数据目录，避免与其他实例冲突。
+     * 数据目录需要事先初始化（例如复制 0 号实例的数据目录）。
+     */
+    private List<String> getInstanceArguments() {
+        List<String> args = new ArrayList<>();
+        String dataDirectory = getDataDirectory();
+        if (DBMS_PATH.contains("postgres")) {
+            args.add("-p");
+            args.add(String.valueOf(getPort()));
+        } else if (DBMS_PATH.contains("mysqld") || DBMS_PATH.contains("mariadbd")) {
+            args.add("--port=" + getPort());
+            args.add("--socket=/tmp/sqlancer_afl_" + instanceId + ".sock");
+            if (!DBMS_PATH.contains("mariadb")) {
+                args.add("--mysqlx=OFF");
+            }
+            if (dataDirectory != null) {
+                args.add("--datadir=" + dataDirectory);
+            }
+        } else {
+            // SQLite 通过标准输入交互，无需端口和数据目录
+            return args;
+        }
+        if (dataDirectory == null) {
+            System.err.println("警告: 未指定 --afl-data-dir，实例 " + instanceId + " 将与其他实例共用默认数据目录");
+        }
+        return args;
+    }
 
     public void executeSQLStatement(String sql) throws IOException {
 
@@ -254,54 +435,154 @@ public class AFLMonitor implements AutoCloseable {
 //        return result;
     }
 
-        public void refreshBuffer() {
-        if (shmPtr == null) return;
-        shmPtr.read(0, coverageBuf, 0, AFL_MAP_SIZE);
+
+
+    /**
+     * 返回所有实例目前为止发现的边数。该值由 hasNewBits() 维护，不再重新扫描共享内存。
+     * 该方法是静态的，读取覆盖率不会创建 AFL 实例，也不会启动被插桩的 DBMS（例如进度输出和 --concurrent-executors 模式）。
+     */
+    public static Integer getCoverageEdges() {
+        return (int) COVERED_EDGES.get();
     }
 
-    public  Integer getCoverageEdges(){
-        byte[] buf = new byte[AFL_MAP_SIZE];
-        shmPtr.read(0, buf, 0, AFL_MAP_SIZE);
-        int hitEdges = 0;
-        for (int i = 0; i < AFL_MAP_SIZE; i++) {
-            int v = buf[i] & 0xFF;
-            if (v != 0) {
-                hitEdges++;
+    /**
+     * 将本实例的共享内存与全局 virgin bits 按 8 字节一组比较（同 AFL 的 has_new_bits），并把新出现的边/命中桶合并进
+     * 全局 virgin bits。全零的字以及所有桶都已出现过的字会被直接跳过，整个过程不分配内存。
+     * 同一次扫描中还会提取命中的边，之后可通过 getHitEdges() 等方法读取，无需再次扫描共享内存。
+     *
+     * @return NEW_EDGE 表示出现了新的边，NEW_HIT_COUNT 表示只出现了新的命中桶，否则为 NO_NEW_BITS
+     */
+    public int hasNewBits() {
+        lastNewEdges = 0;
+        lastNewHitCounts = 0;
+        nrHitEdges = 0;
+        if (traceWords == null) {
+            return NO_NEW_BITS;
+        }
+        int fullWords = traceWords.capacity();
+        for (int i = 0; i < fullWords; i++) {
+            long cur = traceWords.get(i);
+            if (cur != 0) {
+                collectWord(i, cur, LITTLE_ENDIAN);
+                mergeWord(i, cur);
+            }
+        }
+        int tailStart = fullWords * Long.BYTES;
+        if (tailStart < AFL_MAP_SIZE) {
+            long cur = 0;
+            for (int j = 0; tailStart + j < AFL_MAP_SIZE; j++) {
+                cur |= (long) (traceBytes.get(tailStart + j) & 0xFF) << (j * Byte.SIZE);
+            }
+            if (cur != 0) {
+                collectWord(fullWords, cur, true);
+                mergeWord(fullWords, cur);
+            }
+        }
+        COVERED_EDGES.addAndGet(lastNewEdges);
+        if (lastNewEdges != 0) {
+            return NEW_EDGE;
+        }
+        return lastNewHitCounts != 0 ? NEW_HIT_COUNT : NO_NEW_BITS;
+    }
+
+    private void collectWord(int index, long cur, boolean littleEndian) {
+        if (nrHitEdges + Long.BYTES > hitEdges.length) {
+            hitEdges = Arrays.copyOf(hitEdges, hitEdges.length * 2);
+            hitCounts = Arrays.copyOf(hitCounts, hitCounts.length * 2);
+        }
+        for (int j = 0; j < Long.BYTES; j++) {
+            int shift = (littleEndian ? j : Long.BYTES - 1 - j) * Byte.SIZE;
+            byte count = (byte) (cur >>> shift);
+            if (count != 0) {
+                hitEdges[nrHitEdges] = index * Long.BYTES + j;
+                hitCounts[nrHitEdges] = count;
+                nrHitEdges++;
             }
         }
+    }
+
+    /**
+     * @return 最近一次 hasNewBits() 命中的边的下标，按下标升序排列；只有前 getNrHitEdges() 个元素有效
+     */
+    public int[] getHitEdges() {
         return hitEdges;
     }
 
+    /**
+     * @return 与 getHitEdges() 一一对应的原始命中次数（无符号字节）
+     */
+    public byte[] getHitCounts() {
+        return hitCounts;
+    }
 
-    public void updateComWeight(List<BaseConfigurationGenerator.ConfigurationAction> actions){
-        byte[] oldCoverageBuf = coverageBuf.clone();
-        refreshBuffer();
-        int newEdges=0;
-        for (int i = 0; i < AFL_MAP_SIZE; i++) {
-            // 如果一个位置在执行前是0，而执行后非0，说明这是一条新发现的边
-            if(coverageBuf[i]!=0&&oldCoverageBuf[i]==0){
-                    newEdges++;
+    public int getNrHitEdges() {
+        return nrHitEdges;
+    }
+
+    private void mergeWord(int index, long cur) {
+        while (true) {
+            long vir = VIRGIN_BITS.get(index);
+            if (vir == 0) {
+                return;
+            }
+            long updated = vir;
+            int newEdges = 0;
+            int newHitCounts = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+                int count = (int) (cur >>> shift) & 0xFF;
+                if (count == 0) {
+                    continue;
+                }
+                int virginByte = (int) (vir >>> shift) & 0xFF;
+                int bucket = COUNT_CLASS[count] & 0xFF;
+                if ((bucket & virginByte) != 0) {
+                    if (virginByte == 0xFF) {
+                        newEdges++;
+                    } else {
+                        newHitCounts++;
+                    }
+                    updated &= ~((long) bucket << shift);
+                }
+            }
+            if (updated == vir) {
+                return;
+            }
+            // 其他实例可能同时合并了同一个字，失败时基于最新值重新计算
+            if (VIRGIN_BITS.compareAndSet(index, vir, updated)) {
+                lastNewEdges += newEdges;
+                lastNewHitCounts += newHitCounts;
+                return;
             }
         }
+    }
 
-        allNewEdges+=newEdges;
-        // 1. 正确地从 List 创建 Set 作为键
-        Set<BaseConfigurationGenerator.ConfigurationAction> key = new HashSet<>(actions);
+    /**
+     * @return 最近一次 hasNewBits() 发现的新边数
+     */
+    public int getLastNewEdges() {
+        return lastNewEdges;
+    }
 
-        // 2. 使用这个键来获取 weight
-        Double weight = allParameterCombos.get(key);
+    /**
+     * @return 最近一次 hasNewBits() 发现的、已知边上的新命中桶数
+     */
+    public int getLastNewHitCounts() {
+        return lastNewHitCounts;
+    }
 
-        // 3. 检查 weight 是否为 null，避免 NullPointerException
-        if (weight != null) {
-            double value = ((newEdges + 1.0) * (testCount+1)*10)
-                    / (allNewEdges + 1.0);
-            weight *= Math.pow(value, 0.6);  // GAMMA 建议 0.5 ~ 1.0
-            // 4. 使用相同的键来更新 Map
-            allParameterCombos.replace(key, weight);
-        } else {
-            // (可选) 处理键不存在的情况，例如打印日志
-            System.err.println("警告: 在 allParameterCombos 中未找到键: " + key);
-        }
+
+    public void updateComWeight(int comboId){
+        hasNewBits();
+        int newEdges = lastNewEdges;
+
+        long totalNewEdges = allNewEdges.addAndGet(newEdges);
+
+        // 多个实例会并发更新权重，multiplyWeight 以 CAS 原子地完成读-改-写
+        double value = ((newEdges + 1.0) * (testCount.get()+1)*10)
+                / (totalNewEdges + 1.0);
+        double weight = BaseConfigurationGenerator.comboIndex.multiplyWeight(comboId,
+                Math.pow(value, 0.6));  // GAMMA 建议 0.5 ~ 1.0
+        BaseConfigurationGenerator.recordComboWeight(comboId, weight);
 
     }
 
@@ -421,6 +702,8 @@ public class AFLMonitor implements AutoCloseable {
 //    }
 
     public void cleanup() {
+        traceWords = null;
+        traceBytes = null;
         if (shmPtr != null) {
             CLib.INSTANCE.shmdt(shmPtr);
             shmPtr = null;
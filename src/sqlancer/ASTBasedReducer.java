@@ -4,9 +4,19 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import sqlancer.common.query.Query;
 import sqlancer.common.query.SQLQueryAdapter;
+import sqlancer.transformations.JSQLParserBasedTransformation;
+import sqlancer.transformations.ParsedStatementCache;
 import sqlancer.transformations.RemoveClausesOfSelect;
 import sqlancer.transformations.RemoveColumnsOfSelect;
 import sqlancer.transformations.RemoveElementsOfExpressionList;
@@ -20,6 +30,11 @@ import sqlancer.transformations.Transformation;
 public class ASTBasedReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpecificOptions<?>, C extends SQLancerDBConnection>
         implements Reducer<G> {
 
+    private static final List<Supplier<Transformation>> TRANSFORMATIONS = List.of(RemoveUnions::new,
+            RemoveClausesOfSelect::new, RemoveRowsOfInsert::new, RemoveColumnsOfSelect::new,
+            RemoveElementsOfExpressionList::new, SimplifyExpressions::new, SimplifyConstant::new,
+            RoundDoubleConstant::new);
+
     private final DatabaseProvider<G, O, C> provider;
 
     @SuppressWarnings("unused")
@@ -30,14 +45,40 @@ public class ASTBasedReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpeci
     private List<Query<C>> reducedStatements;
     // statement after reduction.
 
+    private ReplayCache<G, O, C> replayCache;
+    // index of the statement that is currently transformed; the statements before it do not change
+    private int currentStatementIndex;
+
+    private Instant startTime;
+    private long maxReduceTime;
+    private long maxReduceSteps;
+
+    // parsed statements that the next transformation of the same statement can reuse
+    private ParsedStatementCache parsedStatements;
+
+    private final int nrThreads;
+    private ExecutorService executor;
+    private BlockingQueue<ReplayCache<G, O, C>> workerCaches;
+
     public ASTBasedReducer(DatabaseProvider<G, O, C> provider) {
+        this(provider, 1);
+    }
+
+    /**
+     * @param nrThreads
+     *            the number of transformations that are applied concurrently; with more than one thread, all
+     *            transformations are applied to a statement at the same time, each on its own database, and the one
+     *            that reduces the statement the most is kept
+     */
+    public ASTBasedReducer(DatabaseProvider<G, O, C> provider, int nrThreads) {
         this.provider = provider;
+        this.nrThreads = Math.max(1, nrThreads);
     }
 
     @SuppressWarnings("unchecked")
-    private void updateStatements(String queryString, int index) {
+    private Query<C> toQuery(String queryString) {
         boolean couldAffectSchema = queryString.contains("CREATE TABLE") || queryString.contains("EXPLAIN");
-        reducedStatements.set(index, (Query<C>) new SQLQueryAdapter(queryString, couldAffectSchema));
+        return (Query<C>) new SQLQueryAdapter(queryString, couldAffectSchema);
     }
 
     @SuppressWarnings("unchecked")
@@ -47,23 +88,12 @@ public class ASTBasedReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpeci
         this.newGlobalState = newGlobalState;
         this.reproducer = reproducer;
 
-        long maxReduceTime = state.getOptions().getMaxStatementReduceTime();
-        long maxReduceSteps = state.getOptions().getMaxStatementReduceSteps();
+        maxReduceTime = state.getOptions().getMaxStatementReduceTime();
+        maxReduceSteps = state.getOptions().getMaxStatementReduceSteps();
 
         List<Query<?>> initialBugInducingStatements = state.getState().getStatements();
         newGlobalState.getState().setStatements(new ArrayList<>(initialBugInducingStatements));
 
-        List<Transformation> transformations = new ArrayList<>();
-
-        transformations.add(new RemoveUnions());
-        transformations.add(new RemoveClausesOfSelect());
-        transformations.add(new RemoveRowsOfInsert());
-        transformations.add(new RemoveColumnsOfSelect());
-        transformations.add(new RemoveElementsOfExpressionList());
-        transformations.add(new SimplifyExpressions());
-        transformations.add(new SimplifyConstant());
-        transformations.add(new RoundDoubleConstant());
-
         Transformation.setBugJudgement(() -> {
             try {
                 return this.bugStillTriggers();
@@ -72,26 +102,63 @@ public class ASTBasedReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpeci
             return false;
         });
 
-        boolean observeChange;
         reducedStatements = new ArrayList<>();
         for (Query<?> query : initialBugInducingStatements) {
             reducedStatements.add((Query<C>) query);
         }
 
-        Instant startTime = Instant.now();
+        parsedStatements = new ParsedStatementCache();
+        startTime = Instant.now();
+        replayCache = new ReplayCache<>(provider, newGlobalState);
+        try {
+            if (nrThreads > 1) {
+                startWorkers(newGlobalState);
+                reduceStatementsInParallel();
+            } else {
+                List<Transformation> transformations = new ArrayList<>();
+                for (Supplier<Transformation> transformation : TRANSFORMATIONS) {
+                    transformations.add(transformation.get());
+                }
+                reduceStatements(transformations);
+            }
+        } finally {
+            replayCache.close();
+            if (executor != null) {
+                executor.shutdownNow();
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+                for (ReplayCache<G, O, C> workerCache : workerCaches) {
+                    workerCache.close();
+                }
+                executor = null;
+                workerCaches = null;
+            }
+        }
+
+        newGlobalState.getState().setStatements(new ArrayList<>(reducedStatements));
+        newGlobalState.getLogger().logReduced(newGlobalState.getState());
+    }
+
+    private boolean hasReachedLimit() {
+        if (maxReduceTime != MainOptions.NO_REDUCE_LIMIT
+                && Duration.between(startTime, Instant.now()).getSeconds() >= maxReduceTime) {
+            return true;
+        }
+        return maxReduceSteps != MainOptions.NO_REDUCE_LIMIT && Transformation.getReduceSteps() >= maxReduceSteps;
+    }
+
+    private void reduceStatements(List<Transformation> transformations) {
+        for (Transformation t : transformations) {
+            if (t instanceof JSQLParserBasedTransformation) {
+                ((JSQLParserBasedTransformation) t).setParser(parsedStatements::take);
+            }
+        }
+        boolean observeChange;
         reduceProcess: do {
             observeChange = false;
             for (Transformation t : transformations) {
                 for (int i = 0; i < reducedStatements.size(); i++) {
 
-                    Instant currentTime = Instant.now();
-                    if (maxReduceTime != MainOptions.NO_REDUCE_LIMIT
-                            && Duration.between(startTime, currentTime).getSeconds() >= maxReduceTime) {
-                        break reduceProcess;
-                    }
-
-                    if (maxReduceSteps != MainOptions.NO_REDUCE_LIMIT
-                            && Transformation.getReduceSteps() >= maxReduceSteps) {
+                    if (hasReachedLimit()) {
                         break reduceProcess;
                     }
 
@@ -99,7 +166,7 @@ public class ASTBasedReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpeci
                     boolean initFlag = t.init(query.getQueryString());
                     int index = i;
                     t.setStatementChangedCallBack((statementString) -> {
-                        updateStatements(statementString, index);
+                        reducedStatements.set(index, toQuery(statementString));
                     });
 
                     if (!initFlag) {
@@ -107,29 +174,142 @@ public class ASTBasedReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpeci
                                 .logReducer("warning: failed parsing the statement at transformer : " + t);
                         continue;
                     }
+                    currentStatementIndex = i;
                     t.apply();
                     observeChange |= t.changed();
+                    if (t instanceof JSQLParserBasedTransformation) {
+                        parsedStatements.put(reducedStatements.get(i).getQueryString(),
+                                ((JSQLParserBasedTransformation) t).getStatement());
+                    }
                 }
             }
         } while (observeChange);
-
-        newGlobalState.getState().setStatements(new ArrayList<>(reducedStatements));
-        newGlobalState.getLogger().logReduced(newGlobalState.getState());
     }
 
-    public boolean bugStillTriggers() throws Exception {
-        try (C con2 = provider.createDatabase(newGlobalState)) {
-            newGlobalState.setConnection(con2);
-            List<Query<C>> candidateStatements = new ArrayList<>(reducedStatements);
-            newGlobalState.getState().setStatements(new ArrayList<>(candidateStatements));
+    /**
+     * Applies all transformations to a statement concurrently, each to its own copy of the statements and on its own
+     * database, and keeps the shortest result (preferring earlier transformations on ties). Transformations that do
+     * not win are discarded, but are tried again in the next pass if any statement changed.
+     */
+    private void reduceStatementsInParallel() throws Exception {
+        boolean observeChange;
+        reduceProcess: do {
+            observeChange = false;
+            for (int i = 0; i < reducedStatements.size(); i++) {
+                if (hasReachedLimit()) {
+                    break reduceProcess;
+                }
+                List<Query<C>> statements = new ArrayList<>(reducedStatements);
+                int index = i;
+                List<Transformation> transformations = new ArrayList<>();
+                List<Future<Query<C>>> results = new ArrayList<>();
+                for (Supplier<Transformation> transformation : TRANSFORMATIONS) {
+                    Transformation t = transformation.get();
+                    transformations.add(t);
+                    results.add(executor.submit(() -> applyOnWorker(t, statements, index)));
+                }
+
+                Transformation best = null;
+                Query<C> bestStatement = null;
+                for (int j = 0; j < results.size(); j++) {
+                    Query<C> result;
+                    try {
+                        result = results.get(j).get();
+                    } catch (ExecutionException e) {
+                        e.printStackTrace();
+                        result = null;
+                    }
+                    if (result != null && (bestStatement == null
+                            || result.getQueryString().length() < bestStatement.getQueryString().length())) {
+                        best = transformations.get(j);
+                        bestStatement = result;
+                    }
+                }
+                if (bestStatement != null) {
+                    observeChange = true;
+                    reducedStatements.set(i, bestStatement);
+                    if (best instanceof JSQLParserBasedTransformation) {
+                        parsedStatements.put(bestStatement.getQueryString(),
+                                ((JSQLParserBasedTransformation) best).getStatement());
+                    }
+                    newGlobalState.getState().setStatements(new ArrayList<>(reducedStatements));
+                    newGlobalState.getLogger().logReduced(newGlobalState.getState());
+                }
+            }
+        } while (observeChange);
+    }
 
-            for (Query<C> s : candidateStatements) {
+    /**
+     * @return the transformed statement, or null if the transformation did not change it
+     */
+    private Query<C> applyOnWorker(Transformation t, List<Query<C>> statements, int index) throws Exception {
+        List<Query<C>> local = new ArrayList<>(statements);
+        if (t instanceof JSQLParserBasedTransformation) {
+            ((JSQLParserBasedTransformation) t).setParser(parsedStatements::take);
+        }
+        if (!t.init(local.get(index).getQueryString())) {
+            return null;
+        }
+        t.setStatementChangedCallBack((statementString) -> {
+            local.set(index, toQuery(statementString));
+        });
+        ReplayCache<G, O, C> workerCache = workerCaches.take();
+        try {
+            t.setJudgement(() -> {
                 try {
-                    s.execute(newGlobalState);
-                } catch (Throwable ignoredException) {
-                    // ignore
+                    return bugStillTriggersOnWorker(workerCache, local, index);
+                } catch (Exception ignored) {
                 }
+                return false;
+            });
+            t.apply();
+        } finally {
+            workerCaches.add(workerCache);
+        }
+        return t.changed() ? local.get(index) : null;
+    }
+
+    private boolean bugStillTriggersOnWorker(ReplayCache<G, O, C> workerCache, List<Query<C>> statements, int index)
+            throws Exception {
+        if (hasReachedLimit()) {
+            return false;
+        }
+        List<Query<C>> candidateStatements = new ArrayList<>(statements);
+        G workerState = workerCache.getState();
+        try (C con = workerCache.replay(candidateStatements, index)) {
+            workerState.getState().setStatements(new ArrayList<>(candidateStatements));
+            try {
+                return reproducer.bugStillTriggers(workerState);
+            } catch (Throwable ignoredException) {
+                return false;
             }
+        }
+    }
+
+    private void startWorkers(G newGlobalState) throws Exception {
+        workerCaches = new ArrayBlockingQueue<>(nrThreads);
+        for (int i = 0; i < nrThreads; i++) {
+            workerCaches.add(new ReplayCache<>(provider, createWorkerState(newGlobalState, i)));
+        }
+        executor = Executors.newFixedThreadPool(nrThreads, r -> {
+            Thread t = new Thread(ConnectionPool.closingIdleConnections(r), "ast-reducer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Creates the state on which a worker applies transformations. Each worker uses its own database, named after the
+     * database of the given state.
+     */
+    protected G createWorkerState(G template, int workerId) throws Exception {
+        return ReplayCache.createIsolatedState(provider, template, template.getDatabaseName() + "_a" + workerId);
+    }
+
+    public boolean bugStillTriggers() throws Exception {
+        List<Query<C>> candidateStatements = new ArrayList<>(reducedStatements);
+        try (C con2 = replayCache.replay(candidateStatements, currentStatementIndex)) {
+            newGlobalState.getState().setStatements(new ArrayList<>(candidateStatements));
             try {
                 if (reproducer.bugStillTriggers(newGlobalState)) {
                     newGlobalState.getLogger().logReduced(newGlobalState.getState());
@@ -0,0 +1,102 @@
+package sqlancer;
+
+/**
+ * Walker 别名表：构建 O(n)，之后每次按权重抽样 O(1) 且不分配内存。
+ *
+ * 有无穷大权重时只在这些元素中均匀抽样；权重全为 0 或含 NaN、负数时在全部元素中均匀抽样。
+ */
+public final class AliasTable {
+
+    private final double[] probability;
+    private final int[] alias;
+
+    public AliasTable(double[] weights, int n) {
+        probability = new double[n];
+        alias = new int[n];
+        if (n == 0) {
+            return;
+        }
+        double[] scaled = normalize(weights, n);
+        // Vose 算法：small/large 两个栈共用一个数组，small 从头部增长，large 从尾部增长
+        int[] work = new int[n];
+        int nrSmall = 0;
+        int large = n;
+        for (int i = 0; i < n; i++) {
+            if (scaled[i] < 1.0) {
+                work[nrSmall++] = i;
+            } else {
+                work[--large] = i;
+            }
+        }
+        while (nrSmall > 0 && large < n) {
+            int s = work[--nrSmall];
+            int l = work[large];
+            probability[s] = scaled[s];
+            alias[s] = l;
+            scaled[l] = scaled[l] + scaled[s] - 1.0;
+            if (scaled[l] < 1.0) {
+                large++;
+                work[nrSmall++] = l;
+            }
+        }
+        while (large < n) {
+            probability[work[large++]] = 1.0;
+        }
+        // 浮点误差残留在 small 中的元素
+        while (nrSmall > 0) {
+            probability[work[--nrSmall]] = 1.0;
+        }
+    }
+
+    private static double[] normalize(double[] weights, int n) {
+        double max = 0;
+        int nrInfinite = 0;
+        boolean valid = true;
+        for (int i = 0; i < n; i++) {
+            double w = weights[i];
+            if (Double.isNaN(w) || w < 0) {
+                valid = false;
+            } else if (Double.isInfinite(w)) {
+                nrInfinite++;
+            } else {
+                max = Math.max(max, w);
+            }
+        }
+        double[] scaled = new double[n];
+        if (nrInfinite > 0) {
+            for (int i = 0; i < n; i++) {
+                scaled[i] = Double.isInfinite(weights[i]) ? (double) n / nrInfinite : 0;
+            }
+        } else if (!valid || max == 0) {
+            for (int i = 0; i < n; i++) {
+                scaled[i] = 1.0;
+            }
+        } else {
+            // 先除以最大值，避免权重很大时求和溢出
+            double sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += weights[i] / max;
+            }
+            for (int i = 0; i < n; i++) {
+                scaled[i] = weights[i] / max / sum * n;
+            }
+        }
+        return scaled;
+    }
+
+    public int size() {
+        return probability.length;
+    }
+
+    /**
+     * @return 按权重抽取的下标，表为空时返回 -1
+     */
+    public int sample() {
+        int n = probability.length;
+        if (n == 0) {
+            return -1;
+        }
+        int i = (int) Randomly.getNotCachedInteger(0, n);
+        return Randomly.getPercentage() < probability[i] ? i : alias[i];
+    }
+}
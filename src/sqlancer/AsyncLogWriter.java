@@ -0,0 +1,180 @@
+package sqlancer;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * A file writer for the logs that are written for every statement (e.g., with --log-each-select). Writes only append
+ * to an in-memory buffer; a single background thread drains the buffers of all writers, writing each buffer in one
+ * batch and flushing the file once per batch. {@link #flush()} only schedules such a batch, so that logging does not
+ * issue a system call per statement.
+ *
+ * {@link #sync()} and {@link #close()} write the pending output on the calling thread before returning, so a log is
+ * complete when a bug is reported. Writers that are still open when the JVM exits are synced by a shutdown hook.
+ */
+public final class AsyncLogWriter extends Writer {
+
+    // writers block once this many characters are waiting to be written
+    private static final int MAX_PENDING_CHARS = 1 << 22;
+
+    private static final BlockingQueue<AsyncLogWriter> SCHEDULED = new LinkedBlockingQueue<>();
+    private static final Set<AsyncLogWriter> OPEN_WRITERS = ConcurrentHashMap.newKeySet();
+
+    static {
+        Thread drainer = new Thread(AsyncLogWriter::drainScheduled, "async-log-writer");
+        drainer.setDaemon(true);
+        drainer.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (AsyncLogWriter writer : OPEN_WRITERS) {
+                try {
+                    writer.sync();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }));
+    }
+
+    private final Writer out;
+    // serializes the writes to out, so that batches are written in order
+    private final Object ioLock = new Object();
+    // guarded by this
+    private StringBuilder pending = new StringBuilder();
+    private StringBuilder spare = new StringBuilder();
+    private boolean scheduled;
+    private boolean closed;
+
+    public AsyncLogWriter(File file, boolean append) throws IOException {
+        this(new BufferedWriter(new FileWriter(file, append), 1 << 16));
+    }
+
+    AsyncLogWriter(Writer out) {
+        this.out = out;
+        OPEN_WRITERS.add(this);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        append(len, () -> pending.append(cbuf, off, len));
+    }
+
+    @Override
+    public void write(String str, int off, int len) throws IOException {
+        append(len, () -> pending.append(str, off, off + len));
+    }
+
+    @Override
+    public Writer append(CharSequence csq) throws IOException {
+        CharSequence s = csq == null ? "null" : csq;
+        append(s.length(), () -> pending.append(s));
+        return this;
+    }
+
+    private synchronized void append(int len, Runnable appender) throws IOException {
+        if (closed) {
+            throw new IOException("writer closed");
+        }
+        while (pending.length() > 0 && pending.length() + len > MAX_PENDING_CHARS) {
+            schedule();
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+        }
+        appender.run();
+    }
+
+    /**
+     * Schedules the pending output to be written by the background thread, without waiting for it.
+     */
+    @Override
+    public synchronized void flush() {
+        schedule();
+    }
+
+    // must hold the monitor of this
+    private void schedule() {
+        if (!scheduled && pending.length() > 0) {
+            scheduled = true;
+            SCHEDULED.add(this);
+        }
+    }
+
+    /**
+     * Writes and flushes all output written so far.
+     */
+    public void sync() throws IOException {
+        synchronized (ioLock) {
+            StringBuilder batch;
+            synchronized (this) {
+                scheduled = false;
+                if (pending.length() == 0) {
+                    return;
+                }
+                batch = pending;
+                pending = spare;
+                spare = null;
+                notifyAll();
+            }
+            try {
+                out.append(batch);
+                out.flush();
+            } finally {
+                batch.setLength(0);
+                synchronized (this) {
+                    spare = batch;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        OPEN_WRITERS.remove(this);
+        try {
+            sync();
+        } finally {
+            synchronized (ioLock) {
+                out.close();
+            }
+        }
+    }
+
+    private static void drainScheduled() {
+        List<AsyncLogWriter> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(SCHEDULED.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            // group commit: write everything that was scheduled in the meantime
+            SCHEDULED.drainTo(batch);
+            for (AsyncLogWriter writer : batch) {
+                try {
+                    writer.sync();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+            batch.clear();
+        }
+    }
+}
@@ -3,7 +3,10 @@ package sqlancer;
 import sqlancer.common.query.SQLQueryAdapter;
 
 import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -14,13 +17,27 @@ public abstract class BaseConfigurationGenerator  {
 
 
     // 训练相关的静态变量
-    public static Map<ConfigurationAction, double[]>  parameterFeatureProbabilities = new HashMap<>(500);
-    public static Map<Set<ConfigurationAction>, Double> allParameterCombos= new HashMap<>(50000);
-    public static Map<Set<ConfigurationAction>, Double> proParameterCombos= new HashMap<>(500);
+    // 并行训练时各线程分别写入自己负责的参数
+    public static Map<ConfigurationAction, double[]>  parameterFeatureProbabilities = new ConcurrentHashMap<>(500);
+    // 所有参数组合及其权重；多个测试线程并发更新权重，topKSnapshot() 会加入扩展出的新组合
+    public static volatile ComboIndex comboIndex = new ComboIndex();
+    // 每次快照最多从 Top-K 中扩展出的新组合数
+    private static final int GROWTH_PER_SNAPSHOT = 4;
+    // Top-K 组合的编号，topKSnapshot() 整体替换
+    private static volatile TopKSnapshot topK = new TopKSnapshot(new int[0], new double[0], new boolean[0]);
+    // Top-K 组合的展示视图，仅供 Web 界面读取
+    public static volatile Map<Set<ConfigurationAction>, Double> proParameterCombos= new ConcurrentHashMap<>(500);
+    // 组合权重的持久化日志，测试过程中的每次权重更新都会追加到其中
+    private static volatile ConfigurationWeightStore weightStore;
+    private static boolean weightStoreHookInstalled;
     public static boolean isTrainingPhase = false;
     public static final int TRAINING_SAMPLES = 4;
     private double weightSum = 0.0;
-    public static List<ConfigurationAction> currentGeneratedActions = new ArrayList<>();
+    // topKSnapshot() 的工作区，避免每次快照重新分配
+    private double[] weightBuffer;
+    private int[] heapBuffer;
+    // 最近一次生成的组合，仅用于展示；各线程使用 generateActions() 的返回值
+    public static volatile List<ConfigurationAction> currentGeneratedActions = new ArrayList<>();
 
     public abstract ConfigurationAction[] getAllActions();
     public  ConfigurationAction getActionByName(String name) {
@@ -43,72 +60,120 @@ public abstract class BaseConfigurationGenerator  {
         filePath =filePath+ "_feature_weights.txt";
         try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath))) {
             for (Map.Entry<ConfigurationAction, double[]> entry : parameterFeatureProbabilities.entrySet()) {
-                ConfigurationAction action = entry.getKey();
-                double[] probabilities = entry.getValue();
-
-                // 将 double 数组转换为逗号分隔的字符串
-                String probabilitiesString = Arrays.stream(probabilities)
-                        .mapToObj(String::valueOf)
-                        .collect(Collectors.joining(","));
-
-                // 写入文件
-                writer.write(action.getName() + ":" + probabilitiesString);
+                writer.write(formatFeatureProbabilities(entry.getKey(), entry.getValue()));
                 writer.newLine();
             }
         }
         System.out.println("成功将 " + parameterFeatureProbabilities.size() + " 个参数特性概率保存到 '" + filePath + "'。");
     }
 
+    private static String formatFeatureProbabilities(ConfigurationAction action, double[] probabilities) {
+        // 将 double 数组转换为逗号分隔的字符串
+        String probabilitiesString = Arrays.stream(probabilities)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.joining(","));
+        return action.getName() + ":" + probabilitiesString;
+    }
+
     /**
-     * 从文件中加载参数特性概率。
-     * 文件格式应为: actionName:prob1,prob2,prob3...
+     * 训练完一个参数后立即将其特性概率追加到检查点文件，训练中断后可从检查点继续。
+     * 文件格式与 _feature_weights.txt 相同。
      *
-     * @param filePath 权重文件的路径
+     * @param filePath 数据库类型前缀
+     * @throws IOException 如果文件写入失败
+     */
+    public synchronized void appendParameterFeatureProbabilitiesCheckpoint(String filePath, ConfigurationAction action,
+            double[] probabilities) throws IOException {
+        filePath = filePath + "_feature_weights.checkpoint";
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath, true))) {
+            writer.write(formatFeatureProbabilities(action, probabilities));
+            writer.newLine();
+        }
+    }
+
+    /**
+     * 加载检查点文件中已训练完成的参数特性概率（不清空当前的 Map）。
+     * 最后一行可能因中断而不完整，解析失败的行会被忽略。
+     *
+     * @param filePath 数据库类型前缀
+     * @return 恢复的参数个数
      * @throws IOException 如果文件读取失败
      */
-    public boolean loadParameterFeatureProbabilitiesFromFile(String filePath) throws IOException {
-        // 加载前清空当前的 Map
-        parameterFeatureProbabilities.clear();
-        filePath =filePath+ "_feature_weights.txt";
+    public int loadParameterFeatureProbabilitiesCheckpoint(String filePath) throws IOException {
+        filePath = filePath + "_feature_weights.checkpoint";
+        int restored = 0;
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
             String line;
             while ((line = reader.readLine()) != null) {
-                line = line.trim();
-                if (line.isEmpty() || line.startsWith("#")) { // 忽略空行和注释
-                    continue;
+                if (parseFeatureProbabilities(line.trim())) {
+                    restored++;
                 }
+            }
+        } catch (FileNotFoundException e) {
+            return 0;
+        }
+        System.out.println("从检查点 '" + filePath + "' 恢复了 " + restored + " 个参数特性概率。");
+        return restored;
+    }
 
-                String[] parts = line.split(":");
-                if (parts.length != 2) {
-                    System.err.println("警告: 格式错误的行将被忽略: " + line);
-                    continue;
-                }
+    public void deleteParameterFeatureProbabilitiesCheckpoint(String filePath) throws IOException {
+        Files.deleteIfExists(Paths.get(filePath + "_feature_weights.checkpoint"));
+    }
 
-                String actionName = parts[0].trim();
-                String probabilitiesPart = parts[1];
+    private boolean parseFeatureProbabilities(String line) {
+        if (line.isEmpty() || line.startsWith("#")) { // 忽略空行和注释
+            return false;
+        }
 
-                try {
-                    // 1. 根据名称查找 ConfigurationAction 对象
-                    ConfigurationAction action = getActionByName(actionName);
-                    if (action == null) {
-                        System.err.println("警告: 未找到名为 '" + actionName + "' 的 Action，该行将被忽略。");
-                        continue;
-                    }
+        String[] parts = line.split(":");
+        if (parts.length != 2) {
+            System.err.println("警告: 格式错误的行将被忽略: " + line);
+            return false;
+        }
 
-                    // 2. 解析概率字符串为 double 数组
-                    double[] probabilities = Arrays.stream(probabilitiesPart.split(","))
-                            .map(String::trim)
-                            .mapToDouble(Double::parseDouble)
-                            .toArray();
+        String actionName = parts[0].trim();
+        String probabilitiesPart = parts[1];
 
-                    // 3. 存入 parameterFeatureProbabilities
-                    parameterFeatureProbabilities.put(action, probabilities);
+        try {
+            // 1. 根据名称查找 ConfigurationAction 对象
+            ConfigurationAction action = getActionByName(actionName);
+            if (action == null) {
+                System.err.println("警告: 未找到名为 '" + actionName + "' 的 Action，该行将被忽略。");
+                return false;
+            }
 
-                } catch (NumberFormatException e) {
-                    System.err.println("警告: 概率值格式错误，该行将被忽略: " + line);
-                } catch (Exception e) {
-                    System.err.println("警告: 处理行时发生未知错误，将被忽略: " + line + " - " + e.getMessage());
-                }
+            // 2. 解析概率字符串为 double 数组
+            double[] probabilities = Arrays.stream(probabilitiesPart.split(","))
+                    .map(String::trim)
+                    .mapToDouble(Double::parseDouble)
+                    .toArray();
+
+            // 3. 存入 parameterFeatureProbabilities
+            parameterFeatureProbabilities.put(action, probabilities);
+            return true;
+        } catch (NumberFormatException e) {
+            System.err.println("警告: 概率值格式错误，该行将被忽略: " + line);
+        } catch (Exception e) {
+            System.err.println("警告: 处理行时发生未知错误，将被忽略: " + line + " - " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * 从文件中加载参数特性概率。
+     * 文件格式应为: actionName:prob1,prob2,prob3...
+     *
+     * @param filePath 权重文件的路径
+     * @throws IOException 如果文件读取失败
+     */
+    public boolean loadParameterFeatureProbabilitiesFromFile(String filePath) throws IOException {
+        // 加载前清空当前的 Map
+        parameterFeatureProbabilities.clear();
+        filePath =filePath+ "_feature_weights.txt";
+        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                parseFeatureProbabilities(line.trim());
             }
         }catch(FileNotFoundException e){
             System.err.println("警告: 未找到文件 '" + filePath + "'，无法加载参数特性概率。");
@@ -139,8 +204,9 @@ public abstract class BaseConfigurationGenerator  {
      */
 
     public  void loadWeightsFromFile(String filePath) throws IOException {
-        // 在加载新权重前，清空当前的 Map
-        allParameterCombos.clear();
+        String prefix = filePath;
+        // 在加载新权重前，重新建立组合索引
+        ComboIndex index = new ComboIndex(getAllActions());
         filePath =filePath+ "_config_weights.txt";
         try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
             String line;
@@ -180,8 +246,8 @@ public abstract class BaseConfigurationGenerator  {
                         continue;
                     }
 
-                    // 3. 存入 allParameterCombos
-                    allParameterCombos.put(actionSet, weight);
+                    // 3. 存入组合索引
+                    index.add(actionSet, weight);
 
                 } catch (NumberFormatException e) {
                     System.err.println("警告: 权重值格式错误，该行将被忽略: " + line);
@@ -192,18 +258,64 @@ public abstract class BaseConfigurationGenerator  {
         }catch(FileNotFoundException e){
             System.err.println("警告: 未找到文件 '" + filePath + "'，无法加载参数特性概率。");
         }
-        System.out.println("成功从 '" + filePath + "' 加载了 " + allParameterCombos.size() + " 个参数组合权重。");
+        if (index.size() == 0) {
+            // 没有预先生成的组合文件时，在 Java 端生成初始组合
+            int seeded = MainOptions.COMBO_SEED_SIZE <= 2 ? ComboEngine.seedPairs(index)
+                    : ComboEngine.seedCovering(index, MainOptions.COMBO_SEED_SIZE);
+            System.out.println("生成了 " + seeded + " 个初始参数组合。");
+        }
+        comboIndex = index;
+        topK = new TopKSnapshot(new int[0], new double[0], new boolean[index.size()]);
+        System.out.println("成功从 '" + filePath + "' 加载了 " + index.size() + " 个参数组合权重。");
+        openWeightStore(prefix + "_config_weights.log");
+    }
+
+    /**
+     * 重放组合权重日志，用上次运行学到的权重覆盖文本文件中的初始权重。
+     */
+    private void openWeightStore(String logPath) throws IOException {
+        closeWeightStore();
+        ConfigurationWeightStore store = new ConfigurationWeightStore(logPath);
+        long start = System.currentTimeMillis();
+        int restored = store.load(comboIndex, this::getActionByName);
+        weightStore = store;
+        if (!weightStoreHookInstalled) {
+            weightStoreHookInstalled = true;
+            // 进程退出（包括 Ctrl-C）时刷新尚未写入的权重更新
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    closeWeightStore();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }));
+        }
+        System.out.println("从 '" + logPath + "' 恢复了 " + restored + " 个参数组合权重，耗时 "
+                + (System.currentTimeMillis() - start) + " ms。");
     }
-    /** 判断 a 是否比 b 更应该留在 Top-K（更大权重更好）。 */
-    private boolean isBetter(Map.Entry<?,Double> a, Map.Entry<?,Double> b) {
-        int cmp = Double.compare(a.getValue(), b.getValue());
-        if (cmp != 0) {
-            return cmp > 0;
+
+    /**
+     * 记录一次组合权重更新。
+     */
+    public static void recordComboWeight(int comboId, double weight) {
+        ConfigurationWeightStore store = weightStore;
+        if (store == null) {
+            return;
+        }
+        try {
+            store.append(comboId, weight, comboIndex);
+        } catch (IOException e) {
+            System.err.println("警告: 写入组合权重日志失败: " + e.getMessage());
         }
-        // 权重相同：tieBreaker 更大者当作更好（只为稳定）
-        return proParameterCombos.containsKey(b.getKey()) ;
     }
 
+    public static void closeWeightStore() throws IOException {
+        ConfigurationWeightStore store = weightStore;
+        weightStore = null;
+        if (store != null) {
+            store.close();
+        }
+    }
     public enum Scope {
         GLOBAL, SESSION
     }
@@ -344,98 +456,159 @@ public abstract class BaseConfigurationGenerator  {
 //        return generateConfigForAction(selectedAction);
 //    }
 
-    private List<ConfigurationAction> selectActionsByWeight() {
-
-//        double random = Randomly.getPercentage() * weightSum;
-//        double cumulativeProbability = 0.0;
-//
-//        for (Set<ConfigurationAction> actions : proParameterCombos.keySet()) {
-//
-//            double probability = proParameterCombos
-//                    .getOrDefault(actions, 1.0 / proParameterCombos.size());
-//            cumulativeProbability += probability;
-//
-//            if (random <= cumulativeProbability) {
-//                return new ArrayList<>(actions);
-//            }
-//        }
-        Set randomActionSet = Randomly.fromOptions(proParameterCombos.keySet().toArray(new Set[0]));
-        return new ArrayList<>(randomActionSet);
+    /**
+     * 按 topKSnapshot() 时的权重从 Top-K 中抽取一个组合，O(1) 且不分配内存。
+     */
+    private int selectComboByWeight() {
+        TopKSnapshot snapshot = topK;
+        return snapshot.ids[snapshot.sampler.sample()];
     }
 
-    public void generateActions() {
-        if(Randomly.getPercentage()<0.35) {
-            Set randomActionSet = Randomly.fromOptions(allParameterCombos.keySet().toArray(new Set[0]));
-            while (proParameterCombos.containsKey(randomActionSet)) {
-                randomActionSet = Randomly.fromOptions(allParameterCombos.keySet().toArray(new Set[0]));
-            }
-            currentGeneratedActions= new ArrayList<>(randomActionSet);
+    /**
+     * 选择下一个要测试的组合：35% 的概率从 Top-K 之外均匀探索，其余从 Top-K 中选择。
+     *
+     * @return 组合在 {@link #comboIndex} 中的编号
+     */
+    public int generateCombo() {
+        ComboIndex index = comboIndex;
+        TopKSnapshot snapshot = topK;
+        int id;
+        if (snapshot.ids.length == 0 || Randomly.getPercentage()<0.35 && snapshot.ids.length < index.size()) {
+            // 拒绝采样：Top-K 只占全部组合的一小部分，期望常数次即可选中
+            do {
+                id = (int) Randomly.getNotCachedInteger(0, index.size());
+            } while (id < snapshot.selected.length && snapshot.selected[id]);
         } else {
-            currentGeneratedActions= selectActionsByWeight();
+            id = selectComboByWeight();
         }
+        currentGeneratedActions = index.getActions(id);
+        return id;
     }
 
-    public void topKSnapshot() {
+    public List<ConfigurationAction> getComboActions(int comboId) {
+        return comboIndex.getActions(comboId);
+    }
+
+    public synchronized void topKSnapshot() {
         weightSum = 0.0;
         int k = parameterFeatureProbabilities.size();
+        ComboIndex index = comboIndex;
+        int n = index.size();
 
         // ── 计算 Per-Parameter Quota ──────────────────────────────────────────
         // 每个参数在最终集合 S 中最多出现 quota 次，防止强势参数霸占名额
         int delta = 1;
         int quota = k/20 + delta;
         // 记录每个参数已被选中的次数
-        Map<ConfigurationAction, Integer> actionCount = new HashMap<>();
-        for (ConfigurationAction a : parameterFeatureProbabilities.keySet()) {
-            actionCount.put(a, 0);
-        }
+        int[] actionCount = new int[index.getNumberOfActions()];
 
-        Set<Set<ConfigurationAction>> selected = new LinkedHashSet<>();
+        int[] selected = new int[Math.min(k, n)];
+        boolean[] isSelected = new boolean[n];
+        int nrSelected = 0;
 
 
         // ── Phase 2: 带 Quota 约束的贪心补全 ─────────────────────────────────
 
-            List<Map.Entry<Set<ConfigurationAction>, Double>> remaining = new ArrayList<>(allParameterCombos.entrySet());
-            // 按权重降序排列
-            remaining.sort((a, b) -> Double.compare(b.getValue(), a.getValue()));
-
-            for (Map.Entry<Set<ConfigurationAction>, Double> e : remaining) {
-                if (selected.size() >= k) break;
+            // 按权重降序依次取出：先固定一份权重快照，再用最大堆代替整表排序
+            weightBuffer = index.snapshotWeights(weightBuffer, n);
+            double[] w = weightBuffer;
+            if (heapBuffer == null || heapBuffer.length < n) {
+                heapBuffer = new int[n];
+            }
+            int[] heap = heapBuffer;
+            for (int i = 0; i < n; i++) {
+                heap[i] = i;
+            }
+            for (int i = n / 2 - 1; i >= 0; i--) {
+                siftDown(heap, i, n, w);
+            }
+            // 因 quota 被跳过的组合按权重降序排在 heap 尾部，供放宽时使用
+            int heapSize = n;
+            int skipped = 0;
+            while (heapSize > 0 && nrSelected < selected.length) {
+                int id = heap[0];
+                heap[0] = heap[--heapSize];
+                siftDown(heap, 0, heapSize, w);
 
                 // ── Quota 检查：组合中任何一个参数超出 quota 则跳过 ──
                 boolean quotaExceeded = false;
-                for (ConfigurationAction a : e.getKey()) {
-                    if (actionCount.getOrDefault(a, 0) >= quota) {
+                List<ConfigurationAction> actions = index.getActions(id);
+                for (int i = 0; i < actions.size(); i++) {
+                    if (actionCount[index.getOrdinal(actions.get(i))] >= quota) {
                         quotaExceeded = true;
                         break;
                     }
                 }
-                if (quotaExceeded) continue;
+                if (quotaExceeded) {
+                    heap[n - 1 - skipped++] = id;
+                    continue;
+                }
 
-                selected.add(e.getKey());
-                for (ConfigurationAction a : e.getKey()) {
-                    actionCount.merge(a, 1, Integer::sum);
+                selected[nrSelected++] = id;
+                isSelected[id] = true;
+                for (int i = 0; i < actions.size(); i++) {
+                    actionCount[index.getOrdinal(actions.get(i))]++;
                 }
             }
 
             // ── Quota 放宽兜底：若因约束导致 selected 不足 k，放开限制补全 ──
-            if (selected.size() < k) {
-                for (Map.Entry<Set<ConfigurationAction>, Double> e : remaining) {
-                    if (selected.size() >= k) break;
-                    selected.add(e.getKey());
-                }
+            for (int i = 0; i < skipped && nrSelected < selected.length; i++) {
+                int id = heap[n - 1 - i];
+                selected[nrSelected++] = id;
+                isSelected[id] = true;
             }
 
 
         // ── 汇总结果 ──────────────────────────────────────────────────────────
-        Map<Set<ConfigurationAction>, Double> top = new HashMap<>(selected.size());
-        for (Set<ConfigurationAction> s : selected) {
-            double w = allParameterCombos.getOrDefault(s, 0.0);
-            weightSum += w;
-            top.put(s, w);
+        double[] selectedWeights = new double[nrSelected];
+        for (int i = 0; i < nrSelected; i++) {
+            selectedWeights[i] = w[selected[i]];
+            weightSum += selectedWeights[i];
         }
+        topK = new TopKSnapshot(Arrays.copyOf(selected, nrSelected), selectedWeights, isSelected);
+        proParameterCombos = index.toMap(selected, nrSelected);
 
-        proParameterCombos.clear();
-        proParameterCombos.putAll(top);
+        // ── 将高权重组合扩展为更高阶的组合，下一次快照时参与竞争 ─────────────
+        for (int id : ComboEngine.grow(index, selected, nrSelected, MainOptions.MAX_COMBO_SIZE, GROWTH_PER_SNAPSHOT)) {
+            recordComboWeight(id, index.getWeight(id));
+        }
+    }
+
+    /** 最大堆下沉：权重大者在上，权重相同时编号小者在上（只为稳定）。 */
+    private static void siftDown(int[] heap, int i, int size, double[] w) {
+        int id = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && isHeavier(heap[child + 1], heap[child], w)) {
+                child++;
+            }
+            if (!isHeavier(heap[child], id, w)) {
+                break;
+            }
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = id;
     }
-}
 
+    private static boolean isHeavier(int a, int b, double[] w) {
+        int cmp = Double.compare(w[a], w[b]);
+        return cmp > 0 || cmp == 0 && a < b;
+    }
+
+    private static final class TopKSnapshot {
+        private final int[] ids;
+        // 与 ids 一一对应的别名表，只在快照时重建
+        private final AliasTable sampler;
+        private final boolean[] selected;
+
+        TopKSnapshot(int[] ids, double[] weights, boolean[] selected) {
+            this.ids = ids;
+            this.sampler = new AliasTable(weights, ids.length);
+            this.selected = selected;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package sqlancer;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates the checks of a {@link sqlancer.common.oracle.PipelinedTestOracle} up to a given number of checks ahead
+ * of the one that is currently executed. The checks are generated from their own random number stream, which is
+ * seeded once, so the generated sequence only depends on the seed and not on the depth: with a depth of 0, each check
+ * is generated on the calling thread when it is requested, and otherwise on a separate thread.
+ *
+ * @param <Q>
+ *            the generated queries of a single check
+ */
+final class CheckPipeline<Q> implements AutoCloseable {
+
+    private final Callable<Q> generator;
+    private final int depth;
+    private final int nrChecks;
+    private final Xoshiro256Random random;
+    private final ExecutorService thread;
+    private final Deque<Future<Q>> pending = new ArrayDeque<>();
+    private int nrGenerated;
+
+    /**
+     * @param depth
+     *            the number of checks that are generated ahead of the current one
+     * @param nrChecks
+     *            the number of checks that are requested, after which no more are generated
+     */
+    CheckPipeline(Callable<Q> generator, int depth, int nrChecks, long seed) {
+        this.generator = generator;
+        this.depth = Math.max(0, depth);
+        this.nrChecks = nrChecks;
+        if (this.depth == 0) {
+            random = new Xoshiro256Random(seed);
+            thread = null;
+        } else {
+            random = null;
+            thread = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, Thread.currentThread().getName() + "-generator");
+                t.setDaemon(true);
+                return t;
+            });
+            thread.execute(() -> Randomly.setThreadSeed(seed));
+        }
+    }
+
+    /**
+     * @return the next check, after starting to generate the checks that follow it
+     */
+    Q next() throws Exception {
+        if (thread == null) {
+            Xoshiro256Random callerRandom = Randomly.replaceThreadRandom(random);
+            try {
+                return generator.call();
+            } finally {
+                Randomly.replaceThreadRandom(callerRandom);
+            }
+        }
+        if (pending.isEmpty()) {
+            submit();
+        }
+        Future<Q> next = pending.remove();
+        while (pending.size() < depth && nrGenerated < nrChecks) {
+            submit();
+        }
+        try {
+            return next.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw (Error) e.getCause();
+        }
+    }
+
+    private void submit() {
+        pending.add(thread.submit(generator));
+        nrGenerated++;
+    }
+
+    @Override
+    public void close() {
+        if (thread != null) {
+            thread.shutdownNow();
+        }
+    }
+}
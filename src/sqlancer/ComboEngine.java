@@ -0,0 +1,196 @@
+package sqlancer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import sqlancer.BaseConfigurationGenerator.ConfigurationAction;
+
+/**
+ * 参数组合的生成与扩展，取代预先生成的 configComb.py 组合文件：
+ * <ul>
+ * <li>初始组合：全部两两组合，或者覆盖所有参数对的 k 元组合（贪心构造的 pairwise 覆盖）；</li>
+ * <li>运行时扩展：把两个共享 k-1 个参数的高权重组合合并为一个 k+1 元组合。</li>
+ * </ul>
+ */
+public final class ComboEngine {
+
+    private ComboEngine() {
+    }
+
+    /**
+     * 生成所有两两组合，权重与 configComb.py 一致，取 [1, 100] 中的随机整数。
+     *
+     * @return 生成的组合数
+     */
+    public static int seedPairs(ComboIndex index) {
+        int n = index.getNumberOfActions();
+        int added = 0;
+        List<ConfigurationAction> combo = new ArrayList<>(2);
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                combo.clear();
+                combo.add(index.getAction(i));
+                combo.add(index.getAction(j));
+                if (index.add(combo, initialWeight()) != -1) {
+                    added++;
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * 贪心地生成 k 元组合，使每一对参数至少在一个组合中同时出现。组合数约为 n(n-1)/(k(k-1))，
+     * 远少于全部 k 元组合。
+     *
+     * @return 生成的组合数
+     */
+    public static int seedCovering(ComboIndex index, int k) {
+        int n = index.getNumberOfActions();
+        if (k <= 2 || n <= k) {
+            return k <= 2 ? seedPairs(index) : seedAll(index);
+        }
+        boolean[][] covered = new boolean[n][n];
+        int uncovered = n * (n - 1) / 2;
+        int[] members = new int[k];
+        boolean[] inCombo = new boolean[n];
+        List<ConfigurationAction> combo = new ArrayList<>(k);
+        int added = 0;
+        int first = 0;
+        while (uncovered > 0) {
+            // 以第一个仍未被覆盖的参数对作为起点
+            int a = -1;
+            int b = -1;
+            for (int i = first; i < n && a == -1; i++) {
+                for (int j = i + 1; j < n; j++) {
+                    if (!covered[i][j]) {
+                        a = i;
+                        b = j;
+                        break;
+                    }
+                }
+                if (a == -1) {
+                    first = i + 1;
+                }
+            }
+            members[0] = a;
+            members[1] = b;
+            inCombo[a] = true;
+            inCombo[b] = true;
+            // 依次加入能覆盖最多新参数对的参数
+            for (int size = 2; size < k; size++) {
+                int best = -1;
+                int bestGain = -1;
+                for (int c = 0; c < n; c++) {
+                    if (inCombo[c]) {
+                        continue;
+                    }
+                    int gain = 0;
+                    for (int m = 0; m < size; m++) {
+                        if (!covered[Math.min(c, members[m])][Math.max(c, members[m])]) {
+                            gain++;
+                        }
+                    }
+                    if (gain > bestGain) {
+                        best = c;
+                        bestGain = gain;
+                    }
+                }
+                members[size] = best;
+                inCombo[best] = true;
+            }
+            combo.clear();
+            for (int m = 0; m < k; m++) {
+                for (int o = m + 1; o < k; o++) {
+                    int x = Math.min(members[m], members[o]);
+                    int y = Math.max(members[m], members[o]);
+                    if (!covered[x][y]) {
+                        covered[x][y] = true;
+                        uncovered--;
+                    }
+                }
+                combo.add(index.getAction(members[m]));
+                inCombo[members[m]] = false;
+            }
+            if (index.add(combo, initialWeight()) != -1) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private static int seedAll(ComboIndex index) {
+        List<ConfigurationAction> combo = new ArrayList<>();
+        for (int i = 0; i < index.getNumberOfActions(); i++) {
+            combo.add(index.getAction(i));
+        }
+        return index.add(combo, initialWeight()) == -1 ? 0 : 1;
+    }
+
+    private static double initialWeight() {
+        return Randomly.getNotCachedInteger(1, 101);
+    }
+
+    /**
+     * 从高权重组合中扩展出更大的组合：对按权重降序排列的组合 A，寻找权重最高的另一个组合 B，
+     * 使 B 中恰好有一个参数不在 A 中，加入 A ∪ B，初始权重取两者的平均值。
+     *
+     * @param topIds 按权重降序排列的候选组合
+     * @param count 候选组合个数
+     * @param maxSize 扩展后组合的最大参数个数
+     * @param limit 最多新加入的组合数
+     * @return 新加入的组合编号
+     */
+    public static int[] grow(ComboIndex index, int[] topIds, int count, int maxSize, int limit) {
+        int[] grown = new int[limit];
+        int nrGrown = 0;
+        List<ConfigurationAction> union = new ArrayList<>(maxSize);
+        for (int i = 0; i < count && nrGrown < limit; i++) {
+            int a = topIds[i];
+            List<ConfigurationAction> actionsA = index.getActions(a);
+            if (actionsA.size() >= maxSize) {
+                continue;
+            }
+            for (int j = 0; j < count; j++) {
+                int b = topIds[j];
+                if (b == a) {
+                    continue;
+                }
+                ConfigurationAction extra = singleExtraAction(index, a, index.getActions(b));
+                if (extra == null) {
+                    continue;
+                }
+                union.clear();
+                union.addAll(actionsA);
+                union.add(extra);
+                if (index.indexOf(union) != -1) {
+                    continue;
+                }
+                int id = index.add(union, (index.getWeight(a) + index.getWeight(b)) / 2);
+                if (id != -1) {
+                    grown[nrGrown++] = id;
+                }
+                break;
+            }
+        }
+        return Arrays.copyOf(grown, nrGrown);
+    }
+
+    /**
+     * @return 若 actionsB 中恰好有一个参数不在组合 a 中则返回该参数，否则返回 null
+     */
+    private static ConfigurationAction singleExtraAction(ComboIndex index, int a, List<ConfigurationAction> actionsB) {
+        ConfigurationAction extra = null;
+        for (int i = 0; i < actionsB.size(); i++) {
+            ConfigurationAction action = actionsB.get(i);
+            if (!index.containsAction(a, index.getOrdinal(action))) {
+                if (extra != null) {
+                    return null;
+                }
+                extra = action;
+            }
+        }
+        return extra;
+    }
+}
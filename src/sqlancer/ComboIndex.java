@@ -0,0 +1,219 @@
+package sqlancer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import sqlancer.BaseConfigurationGenerator.ConfigurationAction;
+
+/**
+ * 参数组合索引：每个组合映射为一个稠密的整数编号，组合本身用参数序号上的位图表示，
+ * 权重存放在原子 double 数组中。测试过程中通过编号访问组合和权重，不再为每个测试用例构造 HashSet。
+ *
+ * 存储按块分配，新组合可以在测试过程中加入（例如由两元组合扩展出的三元组合）；
+ * 已有组合的编号、参数和位图不会改变，权重可以并发更新。
+ */
+public class ComboIndex {
+
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private final ConfigurationAction[] actions;
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final int words;
+    private final Map<MaskKey, Integer> ids = new ConcurrentHashMap<>();
+    private volatile Chunk[] chunks = new Chunk[0];
+    // 在组合的所有数据写入之后才递增，读者只访问小于 size 的编号
+    private volatile int size;
+
+    private final class Chunk {
+        // 第 i 个组合的位图位于 masks[i * words, (i + 1) * words)
+        private final long[] masks = new long[CHUNK_SIZE * words];
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        private final List<ConfigurationAction>[] actions = new List[CHUNK_SIZE];
+        private final AtomicLongArray weights = new AtomicLongArray(CHUNK_SIZE);
+    }
+
+    public ComboIndex(ConfigurationAction... actions) {
+        this.actions = actions.clone();
+        for (int i = 0; i < actions.length; i++) {
+            ordinals.put(actions[i].getName(), i);
+        }
+        this.words = Math.max(1, (actions.length + Long.SIZE - 1) / Long.SIZE);
+    }
+
+    /**
+     * 加入一个组合；组合已存在时只更新其权重。
+     *
+     * @return 组合编号，组合为空或含有未知参数时返回 -1
+     */
+    public synchronized int add(Collection<ConfigurationAction> combo, double weight) {
+        long[] mask = toMask(combo);
+        if (mask == null || combo.isEmpty()) {
+            return -1;
+        }
+        MaskKey key = new MaskKey(mask);
+        Integer existing = ids.get(key);
+        if (existing != null) {
+            setWeight(existing, weight);
+            return existing;
+        }
+        int id = size;
+        if ((id >>> CHUNK_BITS) == chunks.length) {
+            Chunk[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+            grown[chunks.length] = new Chunk();
+            chunks = grown;
+        }
+        Chunk chunk = chunks[id >>> CHUNK_BITS];
+        int offset = id & CHUNK_MASK;
+        System.arraycopy(mask, 0, chunk.masks, offset * words, words);
+        List<ConfigurationAction> list = new ArrayList<>(combo.size());
+        for (int i = 0; i < actions.length; i++) {
+            if ((mask[i / Long.SIZE] & (1L << i)) != 0) {
+                list.add(actions[i]);
+            }
+        }
+        chunk.actions[offset] = Collections.unmodifiableList(list);
+        chunk.weights.set(offset, Double.doubleToRawLongBits(weight));
+        ids.put(key, id);
+        size = id + 1;
+        return id;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getNumberOfActions() {
+        return actions.length;
+    }
+
+    public ConfigurationAction getAction(int ordinal) {
+        return actions[ordinal];
+    }
+
+    /**
+     * @return 参数在位图中的序号，未知参数返回 -1
+     */
+    public int getOrdinal(ConfigurationAction action) {
+        Integer ordinal = ordinals.get(action.getName());
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    /**
+     * @return 组合编号，不存在时返回 -1
+     */
+    public int indexOf(Collection<ConfigurationAction> combo) {
+        long[] mask = toMask(combo);
+        if (mask == null) {
+            return -1;
+        }
+        Integer id = ids.get(new MaskKey(mask));
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * 返回组合中的参数（按参数序号排序，不可修改）。
+     */
+    public List<ConfigurationAction> getActions(int id) {
+        return chunks[id >>> CHUNK_BITS].actions[id & CHUNK_MASK];
+    }
+
+    public int getComboSize(int id) {
+        return getActions(id).size();
+    }
+
+    public boolean containsAction(int id, int ordinal) {
+        return (chunks[id >>> CHUNK_BITS].masks[(id & CHUNK_MASK) * words + ordinal / Long.SIZE]
+                & (1L << ordinal)) != 0;
+    }
+
+    public double getWeight(int id) {
+        return Double.longBitsToDouble(chunks[id >>> CHUNK_BITS].weights.get(id & CHUNK_MASK));
+    }
+
+    public void setWeight(int id, double weight) {
+        chunks[id >>> CHUNK_BITS].weights.set(id & CHUNK_MASK, Double.doubleToRawLongBits(weight));
+    }
+
+    /**
+     * 原子地将组合权重乘以 factor。
+     *
+     * @return 更新后的权重
+     */
+    public double multiplyWeight(int id, double factor) {
+        AtomicLongArray weights = chunks[id >>> CHUNK_BITS].weights;
+        int offset = id & CHUNK_MASK;
+        while (true) {
+            long current = weights.get(offset);
+            double updated = Double.longBitsToDouble(current) * factor;
+            if (weights.compareAndSet(offset, current, Double.doubleToRawLongBits(updated))) {
+                return updated;
+            }
+        }
+    }
+
+    /**
+     * 复制前 count 个组合的权重，供排序等需要一致视图的操作使用。
+     */
+    public double[] snapshotWeights(double[] target, int count) {
+        double[] result = target != null && target.length >= count ? target : new double[count];
+        for (int i = 0; i < count; i++) {
+            result[i] = getWeight(i);
+        }
+        return result;
+    }
+
+    /**
+     * 将给定的组合转换为 Map 形式，仅用于展示。
+     */
+    public Map<Set<ConfigurationAction>, Double> toMap(int[] comboIds, int count) {
+        Map<Set<ConfigurationAction>, Double> map = new LinkedHashMap<>(count * 2);
+        for (int i = 0; i < count; i++) {
+            map.put(new HashSet<>(getActions(comboIds[i])), getWeight(comboIds[i]));
+        }
+        return map;
+    }
+
+    private long[] toMask(Collection<ConfigurationAction> combo) {
+        long[] mask = new long[words];
+        for (ConfigurationAction action : combo) {
+            int ordinal = getOrdinal(action);
+            if (ordinal < 0) {
+                return null;
+            }
+            mask[ordinal / Long.SIZE] |= 1L << ordinal;
+        }
+        return mask;
+    }
+
+    private static final class MaskKey {
+        private final long[] mask;
+        private final int hash;
+
+        MaskKey(long[] mask) {
+            this.mask = mask;
+            this.hash = Arrays.hashCode(mask);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof MaskKey && Arrays.equals(mask, ((MaskKey) o).mask);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -1,11 +1,16 @@
 package sqlancer;
 
-import java.io.IOException;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
@@ -38,19 +43,35 @@ public final class ComparatorHelper {
 
     public static List<String> getResultSetFirstColumnAsString(String queryString, ExpectedErrors errors,
             SQLGlobalState<?, ?> state) throws SQLException {
+        List<String> resultSet = new ArrayList<>();
+        readFirstColumn(queryString, errors, state, value -> resultSet.add(removeTrailingZeros(value)));
+        return resultSet;
+    }
+
+    /**
+     * Computes the digest of the values that {@link #getResultSetFirstColumnAsString} would return, without keeping
+     * them in memory.
+     */
+    public static ResultSetDigest getResultSetFirstColumnDigest(String queryString, ExpectedErrors errors,
+            SQLGlobalState<?, ?> state) throws SQLException {
+        return getResultSetFirstColumnDigest(queryString, errors, state, null);
+    }
+
+    public static ResultSetDigest getResultSetFirstColumnDigest(String queryString, ExpectedErrors errors,
+            SQLGlobalState<?, ?> state, UnaryOperator<String> canonicalizationRule) throws SQLException {
+        ResultSetDigest digest = new ResultSetDigest(canonicalizationRule);
+        readFirstColumn(queryString, errors, state, digest::add);
+        digest.addQuery(queryString);
+        return digest;
+    }
+
+    private static void readFirstColumn(String queryString, ExpectedErrors errors, SQLGlobalState<?, ?> state,
+            Consumer<String> consumer) throws SQLException {
         if (state.getOptions().logEachSelect()) {
-            // TODO: refactor me
             state.getLogger().writeCurrent(queryString);
-            try {
-                state.getLogger().getCurrentFileWriter().flush();
-            } catch (IOException e) {
-                // TODO Auto-generated catch block
-                e.printStackTrace();
-            }
         }
         boolean canonicalizeString = state.getOptions().canonicalizeSqlString();
         SQLQueryAdapter q = new SQLQueryAdapter(queryString, errors, true, canonicalizeString);
-        List<String> resultSet = new ArrayList<>();
         SQLancerResultSet result = null;
         try {
             result = q.executeAndGet(state);
@@ -58,50 +79,139 @@ public final class ComparatorHelper {
                 throw new IgnoreMeException();
             }
             while (result.next()) {
-                String resultTemp = result.getString(1);
-                if (resultTemp != null) {
-                    resultTemp = resultTemp.replaceAll("[\\.]0+$", ""); // Remove the trailing zeros as many DBMS treat
-                    // it as non-bugs
-                }
-                resultSet.add(resultTemp);
+                consumer.accept(result.getString(1));
             }
         } catch (Exception e) {
-            if (e instanceof IgnoreMeException) {
-                throw e;
+            handleQueryException(e, queryString, errors);
+        } finally {
+            if (result != null && !result.isClosed()) {
+                result.close();
             }
+        }
+    }
+
+    private static void handleQueryException(Exception e, String queryString, ExpectedErrors errors) {
+        if (e instanceof IgnoreMeException) {
+            throw (IgnoreMeException) e;
+        }
+        if (e.getMessage() == null) {
+            throw new AssertionError(queryString, e);
+        }
+        // ignore the same errors as when the query is executed on its own, which includes errors in the causes
+        new SQLQueryAdapter(queryString, errors, true, false).checkException(e);
+        throw new IgnoreMeException();
+    }
 
-            if (e.getMessage() == null) {
-                throw new AssertionError(queryString, e);
+    /**
+     * Whether {@link #getPipelinedResultSetDigests} can send the queries of an oracle check in a single round trip.
+     */
+    public static boolean canPipelineQueries(SQLGlobalState<?, ?> state) {
+        return state.getOptions().pipelineTLPQueries() && state.getConnection().supportsMultipleStatements();
+    }
+
+    /**
+     * Computes the digests of the original query and of the combined result set of the three partitioning queries like
+     * {@link #getResultSetFirstColumnDigest} and {@link #getCombinedResultSetDigest}, but sends all queries to the
+     * DBMS in a single round trip, see {@link #canPipelineQueries}. Queries that cannot be separated by a semicolon
+     * without changing them (i.e., if {@link MainOptions#canonicalizeSqlString} is disabled or a query contains a
+     * comment) are sent one after another instead.
+     *
+     * @return the digest of the original query followed by the digest of the combined result set
+     */
+    public static List<ResultSetDigest> getPipelinedResultSetDigests(String originalQueryString,
+            String firstQueryString, String secondQueryString, String thirdQueryString, List<String> combinedString,
+            boolean asUnion, SQLGlobalState<?, ?> state, ExpectedErrors errors,
+            UnaryOperator<String> canonicalizationRule) throws SQLException {
+        List<String> queries = new ArrayList<>();
+        queries.add(originalQueryString);
+        if (asUnion) {
+            queries.add(firstQueryString + " UNION ALL " + secondQueryString + " UNION ALL " + thirdQueryString);
+        } else {
+            queries.add(firstQueryString);
+            queries.add(secondQueryString);
+            queries.add(thirdQueryString);
+        }
+        combinedString.addAll(queries.subList(1, queries.size()));
+        List<ResultSetDigest> digests = readFirstColumns(queries, errors, state, canonicalizationRule);
+        ResultSetDigest combined = new ResultSetDigest(canonicalizationRule);
+        for (ResultSetDigest digest : digests.subList(1, digests.size())) {
+            combined.addAll(digest);
+        }
+        return List.of(digests.get(0), combined);
+    }
+
+    private static List<ResultSetDigest> readFirstColumns(List<String> queries, ExpectedErrors errors,
+            SQLGlobalState<?, ?> state, UnaryOperator<String> canonicalizationRule) throws SQLException {
+        boolean canonicalizeString = state.getOptions().canonicalizeSqlString();
+        List<String> statements = new ArrayList<>();
+        for (String query : queries) {
+            statements.add(new SQLQueryAdapter(query, errors, true, canonicalizeString).getQueryString());
+        }
+        List<ResultSetDigest> digests = new ArrayList<>();
+        if (statements.stream().anyMatch(statement -> !statement.endsWith(";"))) {
+            for (String query : queries) {
+                digests.add(getResultSetFirstColumnDigest(query, errors, state, canonicalizationRule));
             }
-            if (errors.errorIsExpected(e.getMessage())) {
-                throw new IgnoreMeException();
+            return digests;
+        }
+        if (state.getOptions().logEachSelect()) {
+            for (String query : queries) {
+                state.getLogger().writeCurrent(query);
             }
-            throw new AssertionError(queryString, e);
-        } finally {
-            if (result != null && !result.isClosed()) {
-                result.close();
+        }
+        String batch = String.join("\n", statements);
+        try (Statement s = state.getConnection().createStatement()) {
+            boolean isResultSet = s.execute(batch);
+            for (String query : queries) {
+                if (!isResultSet) {
+                    throw new IgnoreMeException();
+                }
+                ResultSetDigest digest = new ResultSetDigest(canonicalizationRule);
+                try (ResultSet rs = s.getResultSet()) {
+                    while (rs.next()) {
+                        digest.add(rs.getString(1));
+                    }
+                }
+                digest.addQuery(query);
+                digests.add(digest);
+                isResultSet = s.getMoreResults();
             }
+            Main.nrSuccessfulActions.addAndGet(queries.size());
+        } catch (Exception e) {
+            Main.nrUnsuccessfulActions.addAndGet(1);
+            // the driver does not necessarily tell which of the queries failed
+            handleQueryException(e, batch, errors);
         }
-        return resultSet;
+        return digests;
+    }
+
+    /**
+     * Removes a trailing decimal point that is only followed by zeros (e.g., 1.00 becomes 1), as many DBMSs treat such
+     * differences as non-bugs.
+     */
+    static String removeTrailingZeros(String value) {
+        if (value == null) {
+            return null;
+        }
+        int length = getLengthWithoutTrailingZeros(value);
+        return length == value.length() ? value : value.substring(0, length);
+    }
+
+    static int getLengthWithoutTrailingZeros(String value) {
+        int end = value.length();
+        while (end > 0 && value.charAt(end - 1) == '0') {
+            end--;
+        }
+        if (end != value.length() && end > 0 && value.charAt(end - 1) == '.') {
+            return end - 1;
+        }
+        return value.length();
     }
 
     public static void assumeResultSetsAreEqual(List<String> resultSet, List<String> secondResultSet,
             String originalQueryString, List<String> combinedString, SQLGlobalState<?, ?> state) {
         if (resultSet.size() != secondResultSet.size()) {
-            String queryFormatString = "-- %s;" + System.lineSeparator() + "-- cardinality: %d"
-                    + System.lineSeparator();
-            String firstQueryString = String.format(queryFormatString, originalQueryString, resultSet.size());
-            String combinedQueryString = String.join(";", combinedString);
-            String secondQueryString = String.format(queryFormatString, combinedQueryString, secondResultSet.size());
-            state.getState().getLocalState()
-                    .log(String.format("%s" + System.lineSeparator() + "%s", firstQueryString, secondQueryString));
-            String assertionMessage = String.format(
-                    "The size of the result sets mismatch (%d and %d)!" + System.lineSeparator()
-                            + "First query: \"%s\", whose cardinality is: %d" + System.lineSeparator()
-                            + "Second query:\"%s\", whose cardinality is: %d",
-                    resultSet.size(), secondResultSet.size(), originalQueryString, resultSet.size(),
-                    combinedQueryString, secondResultSet.size());
-            throw new AssertionError(assertionMessage);
+            throw sizeMismatch(resultSet.size(), secondResultSet.size(), originalQueryString, combinedString, state);
         }
 
         Set<String> firstHashSet = new HashSet<>(resultSet);
@@ -113,19 +223,106 @@ public final class ComparatorHelper {
             firstResultSetMisses.removeAll(secondHashSet);
             Set<String> secondResultSetMisses = new HashSet<>(secondHashSet);
             secondResultSetMisses.removeAll(firstHashSet);
+            throw contentMismatch(firstResultSetMisses, secondResultSetMisses, originalQueryString, combinedString,
+                    state);
+        }
+    }
 
-            String queryFormatString = "-- Query: \"%s\"; It misses: \"%s\"";
-            String firstQueryString = String.format(queryFormatString, originalQueryString, firstResultSetMisses);
-            String secondQueryString = String.format(queryFormatString, String.join(";", combinedString),
-                    secondResultSetMisses);
-            // update the SELECT queries to be logged at the bottom of the error log file
-            state.getState().getLocalState()
-                    .log(String.format("%s" + System.lineSeparator() + "%s", firstQueryString, secondQueryString));
-            String assertionMessage = String.format("The content of the result sets mismatch!" + System.lineSeparator()
-                    + "First query : \"%s\"" + System.lineSeparator() + "Second query: \"%s\"", originalQueryString,
-                    secondQueryString);
-            throw new AssertionError(assertionMessage);
+    /**
+     * Compares two result sets by their digests. Only if the digests differ, the queries are executed again to report
+     * which values differ.
+     *
+     * @param errors
+     *            the errors that are expected when the queries are executed again, as when they were executed first
+     */
+    public static void assumeResultSetsAreEqual(ResultSetDigest resultSet, ResultSetDigest secondResultSet,
+            String originalQueryString, List<String> combinedString, SQLGlobalState<?, ?> state,
+            ExpectedErrors errors) throws SQLException {
+        if (resultSet.size() != secondResultSet.size()) {
+            throw sizeMismatch(resultSet.size(), secondResultSet.size(), originalQueryString, combinedString, state);
+        }
+        if (state.getOptions().validateResultSizeOnly() || resultSet.hasSameValues(secondResultSet)) {
+            return;
+        }
+        Map<String, Integer> difference = new HashMap<>();
+        for (String value : materialize(resultSet, state, errors)) {
+            difference.merge(value, 1, Integer::sum);
+        }
+        for (String value : materialize(secondResultSet, state, errors)) {
+            difference.merge(value, -1, Integer::sum);
         }
+        // values that occur more often in the other result set
+        List<String> firstResultSetMisses = new ArrayList<>();
+        List<String> secondResultSetMisses = new ArrayList<>();
+        difference.forEach((value, count) -> {
+            for (int i = 0; i < Math.abs(count); i++) {
+                (count < 0 ? firstResultSetMisses : secondResultSetMisses).add(value);
+            }
+        });
+        if (firstResultSetMisses.isEmpty() && secondResultSetMisses.isEmpty()) {
+            // the queries are not deterministic (e.g., LIMIT without ORDER BY), so only the digests can be reported
+            throw digestMismatch(resultSet, secondResultSet, originalQueryString, combinedString, state);
+        }
+        throw contentMismatch(firstResultSetMisses, secondResultSetMisses, originalQueryString, combinedString, state);
+    }
+
+    private static List<String> materialize(ResultSetDigest digest, SQLGlobalState<?, ?> state,
+            ExpectedErrors errors) throws SQLException {
+        List<String> values = new ArrayList<>();
+        for (String query : digest.getQueries()) {
+            for (String value : getResultSetFirstColumnAsString(query, errors, state)) {
+                values.add(digest.getCanonicalizationRule() == null ? value
+                        : digest.getCanonicalizationRule().apply(value));
+            }
+        }
+        return values;
+    }
+
+    private static AssertionError sizeMismatch(long size, long secondSize, String originalQueryString,
+            List<String> combinedString, SQLGlobalState<?, ?> state) {
+        String queryFormatString = "-- %s;" + System.lineSeparator() + "-- cardinality: %d" + System.lineSeparator();
+        String firstQueryString = String.format(queryFormatString, originalQueryString, size);
+        String combinedQueryString = String.join(";", combinedString);
+        String secondQueryString = String.format(queryFormatString, combinedQueryString, secondSize);
+        state.getState().getLocalState()
+                .log(String.format("%s" + System.lineSeparator() + "%s", firstQueryString, secondQueryString));
+        String assertionMessage = String.format(
+                "The size of the result sets mismatch (%d and %d)!" + System.lineSeparator()
+                        + "First query: \"%s\", whose cardinality is: %d" + System.lineSeparator()
+                        + "Second query:\"%s\", whose cardinality is: %d",
+                size, secondSize, originalQueryString, size, combinedQueryString, secondSize);
+        return new AssertionError(assertionMessage);
+    }
+
+    private static AssertionError digestMismatch(ResultSetDigest resultSet, ResultSetDigest secondResultSet,
+            String originalQueryString, List<String> combinedString, SQLGlobalState<?, ?> state) {
+        String queryFormatString = "-- %s;" + System.lineSeparator() + "-- digest: %s" + System.lineSeparator();
+        String firstQueryString = String.format(queryFormatString, originalQueryString, resultSet);
+        String combinedQueryString = String.join(";", combinedString);
+        String secondQueryString = String.format(queryFormatString, combinedQueryString, secondResultSet);
+        state.getState().getLocalState()
+                .log(String.format("%s" + System.lineSeparator() + "%s", firstQueryString, secondQueryString));
+        String assertionMessage = String.format("The content of the result sets mismatch (%s and %s)!"
+                + System.lineSeparator() + "First query: \"%s\", whose cardinality is: %d" + System.lineSeparator()
+                + "Second query:\"%s\", whose cardinality is: %d", resultSet, secondResultSet, originalQueryString,
+                resultSet.size(), combinedQueryString, secondResultSet.size());
+        return new AssertionError(assertionMessage);
+    }
+
+    private static AssertionError contentMismatch(Collection<String> firstResultSetMisses,
+            Collection<String> secondResultSetMisses, String originalQueryString, List<String> combinedString,
+            SQLGlobalState<?, ?> state) {
+        String queryFormatString = "-- Query: \"%s\"; It misses: \"%s\"";
+        String firstQueryString = String.format(queryFormatString, originalQueryString, firstResultSetMisses);
+        String secondQueryString = String.format(queryFormatString, String.join(";", combinedString),
+                secondResultSetMisses);
+        // update the SELECT queries to be logged at the bottom of the error log file
+        state.getState().getLocalState()
+                .log(String.format("%s" + System.lineSeparator() + "%s", firstQueryString, secondQueryString));
+        String assertionMessage = String.format("The content of the result sets mismatch!" + System.lineSeparator()
+                + "First query : \"%s\"" + System.lineSeparator() + "Second query: \"%s\"", originalQueryString,
+                secondQueryString);
+        return new AssertionError(assertionMessage);
     }
 
     public static void assumeResultSetsAreEqual(List<String> resultSet, List<String> secondResultSet,
@@ -161,6 +358,29 @@ public final class ComparatorHelper {
         return secondResultSet;
     }
 
+    /**
+     * Computes the digest of the values that {@link #getCombinedResultSet} would return.
+     */
+    public static ResultSetDigest getCombinedResultSetDigest(String firstQueryString, String secondQueryString,
+            String thirdQueryString, List<String> combinedString, boolean asUnion, SQLGlobalState<?, ?> state,
+            ExpectedErrors errors, UnaryOperator<String> canonicalizationRule) throws SQLException {
+        if (asUnion) {
+            String unionString = firstQueryString + " UNION ALL " + secondQueryString + " UNION ALL "
+                    + thirdQueryString;
+            combinedString.add(unionString);
+            return getResultSetFirstColumnDigest(unionString, errors, state, canonicalizationRule);
+        } else {
+            ResultSetDigest digest = new ResultSetDigest(canonicalizationRule);
+            digest.addAll(getResultSetFirstColumnDigest(firstQueryString, errors, state, canonicalizationRule));
+            digest.addAll(getResultSetFirstColumnDigest(secondQueryString, errors, state, canonicalizationRule));
+            digest.addAll(getResultSetFirstColumnDigest(thirdQueryString, errors, state, canonicalizationRule));
+            combinedString.add(firstQueryString);
+            combinedString.add(secondQueryString);
+            combinedString.add(thirdQueryString);
+            return digest;
+        }
+    }
+
     public static List<String> getCombinedResultSetNoDuplicates(String firstQueryString, String secondQueryString,
             String thirdQueryString, List<String> combinedString, boolean asUnion, SQLGlobalState<?, ?> state,
             ExpectedErrors errors) throws SQLException{
@@ -0,0 +1,123 @@
+package sqlancer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs many independent executors, each of which tests one database after another, on a bounded number of threads.
+ * An executor occupies a thread, and thus a connection, only while it tests a database; its next database is then
+ * queued behind the databases of the other executors. Each executor thus has at most one database in flight, and at
+ * most as many connections are open as there are threads, no matter how many executors there are.
+ *
+ * {@link #await} returns once all executors are done, that is, when they have tested their maximum number of
+ * databases or when a database run requested to stop. A database run that is in progress when testing stops is
+ * completed or, after a timeout, interrupted.
+ */
+public final class ConcurrentExecutors {
+
+    /**
+     * Tests a single database.
+     */
+    @FunctionalInterface
+    public interface DatabaseRun {
+        /**
+         * @return whether testing should continue
+         */
+        boolean run(int executorId, long databaseIndex) throws Exception;
+    }
+
+    private final DatabaseRun run;
+    private final long maxDatabasesPerExecutor;
+    private final ExecutorService threads;
+    private final AtomicInteger nrActiveExecutors;
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile boolean stopped;
+
+    /**
+     * @param maxDatabasesPerExecutor
+     *            the number of databases each executor tests, or -1 for no limit
+     */
+    public ConcurrentExecutors(int nrExecutors, int nrThreads, long maxDatabasesPerExecutor, DatabaseRun run) {
+        if (nrExecutors <= 0 || nrThreads <= 0) {
+            throw new IllegalArgumentException();
+        }
+        this.run = run;
+        this.maxDatabasesPerExecutor = maxDatabasesPerExecutor;
+        this.nrActiveExecutors = new AtomicInteger(nrExecutors);
+        AtomicInteger nrThreadsCreated = new AtomicInteger();
+        this.threads = Executors.newFixedThreadPool(Math.min(nrExecutors, nrThreads), r -> {
+            Thread t = new Thread(ConnectionPool.closingIdleConnections(r),
+                    "executor-" + nrThreadsCreated.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < nrExecutors; i++) {
+            schedule(i, 0);
+        }
+    }
+
+    private void schedule(int executorId, long databaseIndex) {
+        if (stopped || maxDatabasesPerExecutor != -1 && databaseIndex >= maxDatabasesPerExecutor) {
+            executorDone();
+            return;
+        }
+        try {
+            threads.execute(() -> runDatabase(executorId, databaseIndex));
+        } catch (RejectedExecutionException e) {
+            // shut down after a timeout
+            executorDone();
+        }
+    }
+
+    private void runDatabase(int executorId, long databaseIndex) {
+        if (stopped) {
+            // queued before testing was stopped
+            executorDone();
+            return;
+        }
+        boolean continueTesting = false;
+        try {
+            continueTesting = run.run(executorId, databaseIndex) && !Thread.currentThread().isInterrupted();
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            if (!continueTesting) {
+                stopped = true;
+            }
+            schedule(executorId, databaseIndex + 1);
+        }
+    }
+
+    private void executorDone() {
+        if (nrActiveExecutors.decrementAndGet() == 0) {
+            done.countDown();
+        }
+    }
+
+    /**
+     * Lets the executors finish the databases they are currently testing, but not start new ones.
+     */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Waits until all executors are done, or until the timeout has elapsed, in which case testing is stopped and the
+     * database runs in progress are interrupted.
+     *
+     * @return whether all executors were done before the timeout
+     */
+    public boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        try {
+            return done.await(timeout, unit);
+        } finally {
+            stop();
+            threads.shutdownNow();
+            threads.awaitTermination(3, TimeUnit.SECONDS);
+        }
+    }
+}
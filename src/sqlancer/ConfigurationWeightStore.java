@@ -0,0 +1,209 @@
+package sqlancer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 参数组合权重的持久化存储：权重更新以追加方式写入二进制日志，日志过长时压缩为当前快照。
+ *
+ * 日志由两种记录组成：
+ * <pre>
+ *   ACTION  id(int) name(UTF)                    为参数分配一个编号
+ *   WEIGHT  size(byte) id(int)*size weight(double) 某个组合的最新权重
+ * </pre>
+ * 重放时后出现的 WEIGHT 覆盖先出现的；因中断而不完整的尾部记录会被忽略。
+ */
+public class ConfigurationWeightStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x53514357; // "SQCW"
+    private static final byte ACTION_RECORD = 1;
+    private static final byte WEIGHT_RECORD = 2;
+    // 每写入这么多条记录刷新一次缓冲区，崩溃时最多丢失这些更新
+    private static final int FLUSH_INTERVAL = 64;
+    // 日志中的权重记录数超过存活组合数的该倍数时进行压缩
+    private static final int COMPACTION_FACTOR = 4;
+    private static final int MIN_RECORDS_BEFORE_COMPACTION = 10000;
+
+    private final Path logPath;
+    private final Map<String, Integer> actionIds = new HashMap<>();
+    private DataOutputStream out;
+    private int weightRecords;
+    private int unflushedRecords;
+
+    public ConfigurationWeightStore(String logPath) {
+        this.logPath = Paths.get(logPath);
+    }
+
+    /**
+     * 重放日志，将其中记录的权重写入 combos，并打开日志以便继续追加。
+     * 日志中不在 combos 里的组合（运行时扩展出的组合）会被加入；含有未知参数的组合会被忽略。
+     *
+     * @param combos 组合索引，日志中的权重会覆盖其中的初始值
+     * @param actionByName 根据名称查找参数，找不到时返回 null
+     * @return 恢复的组合个数
+     * @throws IOException 如果日志读取或打开失败
+     */
+    public synchronized int load(ComboIndex combos,
+            Function<String, BaseConfigurationGenerator.ConfigurationAction> actionByName) throws IOException {
+        Map<Integer, BaseConfigurationGenerator.ConfigurationAction> actionsById = new HashMap<>();
+        Set<Integer> restored = new HashSet<>();
+        boolean needsRewrite = false;
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(new FileInputStream(logPath.toFile())))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("not a configuration weight log: " + logPath);
+            }
+            int type;
+            while ((type = in.read()) != -1) {
+                if (type == ACTION_RECORD) {
+                    int id = in.readInt();
+                    String name = in.readUTF();
+                    actionIds.put(name, id);
+                    BaseConfigurationGenerator.ConfigurationAction action = actionByName.apply(name);
+                    if (action != null) {
+                        actionsById.put(id, action);
+                    }
+                } else if (type == WEIGHT_RECORD) {
+                    int size = in.readUnsignedByte();
+                    Set<BaseConfigurationGenerator.ConfigurationAction> combo = new HashSet<>();
+                    boolean known = true;
+                    for (int i = 0; i < size; i++) {
+                        BaseConfigurationGenerator.ConfigurationAction action = actionsById.get(in.readInt());
+                        if (action == null) {
+                            known = false;
+                        } else {
+                            combo.add(action);
+                        }
+                    }
+                    double weight = in.readDouble();
+                    weightRecords++;
+                    // 运行时扩展出的组合不在组合文件中，重放时重新加入
+                    int id = known ? combos.add(combo, weight) : -1;
+                    if (id != -1) {
+                        restored.add(id);
+                    }
+                } else {
+                    throw new IOException("corrupt configuration weight log: " + logPath);
+                }
+            }
+        } catch (FileNotFoundException e) {
+            needsRewrite = true;
+        } catch (EOFException e) {
+            // 最后一条记录只写了一半：通过压缩将其丢弃，避免后续追加的记录错位
+            needsRewrite = true;
+        }
+        if (needsRewrite || shouldCompact(combos.size())) {
+            compact(combos);
+        } else {
+            openForAppend();
+        }
+        return restored.size();
+    }
+
+    /**
+     * 追加一条权重更新。
+     */
+    public synchronized void append(int comboId, double weight, ComboIndex combos) throws IOException {
+        if (out == null) {
+            return;
+        }
+        writeWeight(out, combos.getActions(comboId), weight);
+        weightRecords++;
+        if (++unflushedRecords >= FLUSH_INTERVAL) {
+            out.flush();
+            unflushedRecords = 0;
+        }
+        if (shouldCompact(combos.size())) {
+            compact(combos);
+        }
+    }
+
+    /**
+     * 将当前所有组合的权重写入新日志并原子地替换旧日志。
+     */
+    public synchronized void compact(ComboIndex combos) throws IOException {
+        closeStream();
+        actionIds.clear();
+        weightRecords = 0;
+        Path tmp = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+        try (DataOutputStream tmpOut = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp.toFile())))) {
+            tmpOut.writeInt(MAGIC);
+            for (int id = 0; id < combos.size(); id++) {
+                writeWeight(tmpOut, combos.getActions(id), combos.getWeight(id));
+                weightRecords++;
+            }
+        }
+        Files.move(tmp, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        openForAppend();
+    }
+
+    public synchronized void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+            unflushedRecords = 0;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closeStream();
+    }
+
+    private boolean shouldCompact(int liveCombos) {
+        return weightRecords > MIN_RECORDS_BEFORE_COMPACTION && weightRecords > COMPACTION_FACTOR * liveCombos;
+    }
+
+    private void openForAppend() throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logPath.toFile(), true)));
+        unflushedRecords = 0;
+    }
+
+    private void closeStream() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    private void writeWeight(DataOutputStream stream, List<BaseConfigurationGenerator.ConfigurationAction> combo,
+            double weight) throws IOException {
+        if (combo.size() > 0xFF) {
+            throw new IllegalArgumentException("combo too large: " + combo.size());
+        }
+        // 先为新出现的参数写入定义记录，再写权重记录
+        for (int i = 0; i < combo.size(); i++) {
+            String name = combo.get(i).getName();
+            if (!actionIds.containsKey(name)) {
+                int id = actionIds.size();
+                actionIds.put(name, id);
+                stream.writeByte(ACTION_RECORD);
+                stream.writeInt(id);
+                stream.writeUTF(name);
+            }
+        }
+        stream.writeByte(WEIGHT_RECORD);
+        stream.writeByte(combo.size());
+        for (int i = 0; i < combo.size(); i++) {
+            stream.writeInt(actionIds.get(combo.get(i).getName()));
+        }
+        stream.writeDouble(weight);
+    }
+}
@@ -0,0 +1,137 @@
+package sqlancer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps the connections that a thread no longer needs open, so that the databases the thread creates next (e.g., for
+ * the next executor iteration or reducer probe) can reuse them instead of connecting again (--pool-connections). The
+ * connections are kept per thread, so no synchronization is needed and a connection is never shared between threads.
+ * Idle connections are validated before they are reused, and their session state is reset when they are released.
+ */
+public final class ConnectionPool {
+
+    // per thread and URL
+    static final int MAX_IDLE_CONNECTIONS = 2;
+
+    private static final ThreadLocal<Map<String, Deque<Connection>>> IDLE = ThreadLocal.withInitial(HashMap::new);
+
+    /**
+     * Resets the session state of a connection (e.g., session variables and temporary tables), so that testing a new
+     * database on it behaves as on a new connection.
+     */
+    @FunctionalInterface
+    public interface SessionReset {
+        void reset(Connection connection) throws SQLException;
+    }
+
+    private ConnectionPool() {
+    }
+
+    /**
+     * @return an idle connection of the current thread, or a new one if there is no valid idle connection
+     */
+    public static Connection getConnection(String url, String user, String password) throws SQLException {
+        Deque<Connection> idle = IDLE.get().get(key(url, user));
+        while (idle != null && !idle.isEmpty()) {
+            Connection connection = idle.pop();
+            if (isValid(connection)) {
+                return connection;
+            }
+            closeQuietly(connection);
+        }
+        return DriverManager.getConnection(url, user, password);
+    }
+
+    /**
+     * Makes a connection that was obtained by {@link #getConnection} available to the current thread again. The
+     * connection is closed instead if it cannot be reset or if enough connections are idle. Releasing a connection
+     * that is already idle has no effect, so that it is not handed out twice.
+     *
+     * @param reset
+     *            resets the session state, or null if the session state does not need to be reset
+     */
+    public static void release(String url, String user, Connection connection, SessionReset reset) {
+        Deque<Connection> idle = IDLE.get().computeIfAbsent(key(url, user), k -> new ArrayDeque<>());
+        for (Connection idleConnection : idle) {
+            if (idleConnection == connection) {
+                return;
+            }
+        }
+        try {
+            if (connection.isClosed()) {
+                return;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            if (reset != null) {
+                reset.reset(connection);
+            }
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            return;
+        }
+        if (idle.size() < MAX_IDLE_CONNECTIONS) {
+            idle.push(connection);
+        } else {
+            closeQuietly(connection);
+        }
+    }
+
+    /**
+     * Closes the idle connections of the current thread.
+     */
+    public static void closeIdleConnections() {
+        for (Deque<Connection> idle : IDLE.get().values()) {
+            while (!idle.isEmpty()) {
+                closeQuietly(idle.pop());
+            }
+        }
+    }
+
+    /**
+     * Wraps the task of a pooled thread, so that the idle connections of the thread are closed when the task ends.
+     * Threads that run many tasks should wrap the runnable in their thread factory, so that their tasks can reuse
+     * each other's connections.
+     */
+    public static Runnable closingIdleConnections(Runnable task) {
+        return () -> {
+            try {
+                task.run();
+            } finally {
+                closeIdleConnections();
+            }
+        };
+    }
+
+    static int getNrIdleConnections(String url, String user) {
+        Deque<Connection> idle = IDLE.get().get(key(url, user));
+        return idle == null ? 0 : idle.size();
+    }
+
+    private static String key(String url, String user) {
+        return user + "@" + url;
+    }
+
+    private static boolean isValid(Connection connection) {
+        try {
+            return connection.isValid(1);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
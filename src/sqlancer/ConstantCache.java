@@ -0,0 +1,258 @@
+package sqlancer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A fixed-capacity cache of previously generated constants, used by {@link Randomly} to reuse interesting values.
+ *
+ * Membership tests and insertions take constant time. When the cache is full, the CLOCK algorithm picks the entry to
+ * replace: every entry has a small priority that is set when it is inserted or handed out and decremented when the
+ * clock hand passes it, so entries that keep being reused survive while the rest of the cache keeps learning new
+ * values. Entries that were recently inserted or handed out can be rewarded (e.g., after they led to new coverage or
+ * to a bug); rewarded entries get the highest priority and are preferred when sampling.
+ *
+ * The backing arrays are allocated on the first insertion, since many short-lived {@link Randomly} instances never
+ * cache anything. Instances are not thread safe.
+ */
+abstract class ConstantCache {
+
+    static final byte REWARDED = 3;
+    private static final int NR_RECENT = 64;
+
+    private final int capacity;
+    private byte[] priorities;
+    private int size;
+    private int hand;
+    private final int[] recent = new int[NR_RECENT];
+    private int nrRecent;
+    private int recentPos;
+
+    ConstantCache(int capacity) {
+        this.capacity = Math.max(0, capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Raises the priority of the entries that were inserted or handed out most recently, so that they are kept longer
+     * and sampled more often.
+     */
+    public void rewardRecent() {
+        for (int i = 0; i < nrRecent; i++) {
+            int slot = recent[i];
+            if (slot < size) {
+                priorities[slot] = REWARDED;
+            }
+        }
+        nrRecent = 0;
+    }
+
+    byte getPriority(int slot) {
+        return priorities[slot];
+    }
+
+    /**
+     * Picks a random slot. If the first pick has not been rewarded, a second slot is drawn and used instead if it has
+     * been rewarded; without rewarded entries, sampling is uniform.
+     */
+    final int sampleSlot() {
+        int slot = (int) Randomly.getNotCachedInteger(0, size);
+        if (priorities[slot] != REWARDED) {
+            int other = (int) Randomly.getNotCachedInteger(0, size);
+            if (priorities[other] == REWARDED) {
+                slot = other;
+            }
+        }
+        touch(slot);
+        return slot;
+    }
+
+    final void touch(int slot) {
+        if (priorities[slot] == 0) {
+            priorities[slot] = 1;
+        }
+        recent[recentPos] = slot;
+        recentPos = (recentPos + 1) % NR_RECENT;
+        nrRecent = Math.min(nrRecent + 1, NR_RECENT);
+    }
+
+    /**
+     * @return the slot for a new entry; if the cache is full, the entry in the returned slot has been evicted
+     */
+    final int allocateSlot() {
+        if (priorities == null) {
+            priorities = new byte[capacity];
+            allocate(capacity);
+        }
+        if (size < capacity) {
+            return size++;
+        }
+        while (priorities[hand] > 0) {
+            priorities[hand]--;
+            hand = (hand + 1) % capacity;
+        }
+        int victim = hand;
+        hand = (hand + 1) % capacity;
+        evict(victim);
+        return victim;
+    }
+
+    abstract void allocate(int capacity);
+
+    abstract void evict(int slot);
+
+    /**
+     * Caches long values, or other primitives encoded as longs, in an open-addressing hash table.
+     */
+    static final class OfLong extends ConstantCache {
+
+        private long[] values;
+        // slot + 1 of the entry stored at each position, 0 for empty positions
+        private int[] table;
+        private int tableMask;
+
+        OfLong(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        void allocate(int capacity) {
+            values = new long[capacity];
+            table = new int[Integer.highestOneBit(Math.max(1, capacity) * 2 - 1) << 1];
+            tableMask = table.length - 1;
+        }
+
+        /**
+         * @return whether the value was added; values that are already cached are only marked as used
+         */
+        public boolean add(long value) {
+            if (getCapacity() == 0) {
+                return false;
+            }
+            if (table != null) {
+                int slot = find(value);
+                if (slot != -1) {
+                    touch(slot);
+                    return false;
+                }
+            }
+            int slot = allocateSlot();
+            values[slot] = value;
+            int pos = hash(value);
+            while (table[pos] != 0) {
+                pos = (pos + 1) & tableMask;
+            }
+            table[pos] = slot + 1;
+            touch(slot);
+            return true;
+        }
+
+        public boolean contains(long value) {
+            return table != null && find(value) != -1;
+        }
+
+        /**
+         * Returns a cached value; the cache must not be empty.
+         */
+        public long sample() {
+            return values[sampleSlot()];
+        }
+
+        private int find(long value) {
+            int pos = hash(value);
+            int entry;
+            while ((entry = table[pos]) != 0) {
+                if (values[entry - 1] == value) {
+                    return entry - 1;
+                }
+                pos = (pos + 1) & tableMask;
+            }
+            return -1;
+        }
+
+        private int hash(long value) {
+            return (int) Xoshiro256Random.mix64(value) & tableMask;
+        }
+
+        @Override
+        void evict(int slot) {
+            int pos = hash(values[slot]);
+            while (table[pos] != slot + 1) {
+                pos = (pos + 1) & tableMask;
+            }
+            // backward-shift deletion keeps every probe sequence free of holes
+            int next = (pos + 1) & tableMask;
+            while (table[next] != 0) {
+                int home = hash(values[table[next] - 1]);
+                if (((next - home) & tableMask) >= ((next - pos) & tableMask)) {
+                    table[pos] = table[next];
+                    pos = next;
+                }
+                next = (next + 1) & tableMask;
+            }
+            table[pos] = 0;
+        }
+    }
+
+    /**
+     * Caches strings; the cache keeps one instance per distinct string and always hands out that instance.
+     */
+    static final class OfString extends ConstantCache {
+
+        private String[] values;
+        private Map<String, Integer> slots;
+
+        OfString(int capacity) {
+            super(capacity);
+        }
+
+        @Override
+        void allocate(int capacity) {
+            values = new String[capacity];
+            slots = new HashMap<>(capacity * 4 / 3 + 1);
+        }
+
+        public boolean add(String value) {
+            if (getCapacity() == 0) {
+                return false;
+            }
+            if (slots != null) {
+                Integer slot = slots.get(value);
+                if (slot != null) {
+                    touch(slot);
+                    return false;
+                }
+            }
+            int slot = allocateSlot();
+            values[slot] = value;
+            slots.put(value, slot);
+            touch(slot);
+            return true;
+        }
+
+        public boolean contains(String value) {
+            return slots != null && slots.containsKey(value);
+        }
+
+        public String sample() {
+            return values[sampleSlot()];
+        }
+
+        @Override
+        void evict(int slot) {
+            slots.remove(values[slot]);
+            values[slot] = null;
+        }
+    }
+}
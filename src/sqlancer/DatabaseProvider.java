@@ -1,6 +1,7 @@
 package sqlancer;
 
 import sqlancer.common.log.LoggableFactory;
+import sqlancer.common.query.Query;
 
 import java.util.List;
 
@@ -15,9 +15,12 @@ public final class ExecutionTimer {
         return this;
     }
 
+    public long getMillis() {
+        return endTime - startTime;
+    }
+
     public String asString() {
-        long timeMillis = endTime - startTime;
-        return timeMillis + "ms";
+        return getMillis() + "ms";
     }
 
 }
@@ -0,0 +1,48 @@
+package sqlancer;
+
+/**
+ * 参数感知生成的特性状态，每个 GlobalState 一份：
+ * <ul>
+ * <li>训练阶段记录当前查询用到的特性，以 ExpressionAction 序号上的位图表示；</li>
+ * <li>测试阶段保存当前参数组合对应的特性生成概率。概率数组发布后不再修改，更新时整体替换。</li>
+ * </ul>
+ * 不同线程使用不同的 GlobalState，因此多个生成器可以并发运行而不互相干扰。
+ */
+public final class FeatureTracker {
+
+    private long featureMask;
+    private volatile double[] probabilities;
+
+    /**
+     * 记录一次特性的使用。
+     */
+    public void record(ExpressionAction action) {
+        int ordinal = action.ordinal();
+        if (ordinal >= Long.SIZE) {
+            throw new IllegalArgumentException("at most " + Long.SIZE + " expression actions are supported: " + action);
+        }
+        featureMask |= 1L << ordinal;
+    }
+
+    public long getFeatureMask() {
+        return featureMask;
+    }
+
+    public void clearFeatures() {
+        featureMask = 0;
+    }
+
+    /**
+     * @return 当前的特性概率（不可修改），未设置时返回 null
+     */
+    public double[] getProbabilities() {
+        return probabilities;
+    }
+
+    /**
+     * 发布新的特性概率；调用者之后不得再修改该数组。
+     */
+    public void setProbabilities(double[] probabilities) {
+        this.probabilities = probabilities;
+    }
+}
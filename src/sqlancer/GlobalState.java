@@ -19,6 +19,10 @@ public abstract class GlobalState<O extends DBMSSpecificOptions<?>, S extends Ab
     private Main.QueryManager<C> manager;
     private String databaseName;
     private BaseConfigurationGenerator configurationGenerator;
+    private AFLMonitor aflMonitor;
+    private final FeatureTracker featureTracker = new FeatureTracker();
+    // schema changes applied by applySchemaChange since the schema was last read from the database
+    private int nrUnvalidatedSchemaChanges;
 
     public void setConnection(C con) {
         this.databaseConnection = con;
@@ -108,7 +112,15 @@ public abstract class GlobalState<O extends DBMSSpecificOptions<?>, S extends Ab
 
     public boolean executeStatement(Query<C> q, String... fills) throws Exception {
         ExecutionTimer timer = executePrologue(q);
-        boolean success = manager.execute(q, fills);
+        boolean success;
+        try {
+            success = manager.execute(q, fills);
+        } catch (AssertionError e) {
+            if (isCausedByOutdatedSchema(q, e)) {
+                throw new IgnoreMeException();
+            }
+            throw e;
+        }
 
         executeEpilogue(q, success, timer);
         return success;
@@ -116,7 +128,15 @@ public abstract class GlobalState<O extends DBMSSpecificOptions<?>, S extends Ab
 
     public SQLancerResultSet executeStatementAndGet(Query<C> q, String... fills) throws Exception {
         ExecutionTimer timer = executePrologue(q);
-        SQLancerResultSet result = manager.executeAndGet(q, fills);
+        SQLancerResultSet result;
+        try {
+            result = manager.executeAndGet(q, fills);
+        } catch (AssertionError e) {
+            if (isCausedByOutdatedSchema(q, e)) {
+                throw new IgnoreMeException();
+            }
+            throw e;
+        }
         boolean success = result != null;
         if (success) {
             result.registerEpilogue(() -> {
@@ -130,6 +150,42 @@ public abstract class GlobalState<O extends DBMSSpecificOptions<?>, S extends Ab
         return result;
     }
 
+    /**
+     * Checks whether a statement might have failed because it was generated for an outdated schema, that is, whether
+     * the statement could have changed the schema or incremental schema changes have not been validated yet, and the
+     * schema differs from the one in the database. If reading the schema fails, the failure is added to the original
+     * error, which is then reported as is.
+     *
+     * An ignored error is logged and counted, as it might also hide a wrong incremental schema update (see
+     * {@link #applySchemaChange}). Note that the comparison of the schemas is based on
+     * {@link AbstractSchema#getStructure()}, which does not detect all differences.
+     */
+    private boolean isCausedByOutdatedSchema(Query<?> q, AssertionError e) {
+        if (schema == null || !q.couldAffectSchema() && nrUnvalidatedSchemaChanges == 0) {
+            return false;
+        }
+        boolean outdated;
+        try {
+            outdated = replaceSchemaIfOutdated();
+        } catch (Exception validationError) {
+            e.addSuppressed(validationError);
+            return false;
+        }
+        if (outdated) {
+            Main.nrOutdatedSchemaErrors.incrementAndGet();
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            String note = "-- ignored the error of a statement that was generated for an outdated schema: "
+                    + (q.getLogString() + " (" + cause.getMessage() + ")").replaceAll("\\s+", " ");
+            if (getState() != null) {
+                getState().logStatement(note);
+            }
+            if (getOptions().logEachSelect() && getLogger() != null) {
+                getLogger().writeCurrent(note);
+            }
+        }
+        return outdated;
+    }
+
     public S getSchema() {
         if (schema == null) {
             try {
@@ -147,11 +203,77 @@ public abstract class GlobalState<O extends DBMSSpecificOptions<?>, S extends Ab
 
     public void updateSchema() throws Exception {
         setSchema(readSchema());
+        nrUnvalidatedSchemaChanges = 0;
         for (AbstractTable<?, ?, ?> table : schema.getDatabaseTables()) {
             table.recomputeCount();
         }
     }
 
+    /**
+     * Updates the schema after a statement that could have changed it. If --incremental-schema is enabled and the DBMS
+     * supports it, the effect of the statement is applied to the current schema (see
+     * {@link #applySchemaChange(AbstractSchema, Query, boolean)}) instead of reading the whole schema again.
+     *
+     * @param q
+     *            the statement, for which {@link Query#couldAffectSchema()} holds
+     * @param success
+     *            whether the statement was executed successfully
+     */
+    public void updateSchema(Query<?> q, boolean success) throws Exception {
+        S changedSchema = null;
+        if (schema != null && options.useIncrementalSchema()) {
+            changedSchema = applySchemaChange(schema, q, success);
+        }
+        if (changedSchema == null) {
+            updateSchema();
+        } else if (changedSchema != schema) {
+            setSchema(changedSchema);
+            if (++nrUnvalidatedSchemaChanges >= options.getSchemaRevalidationInterval()) {
+                validateSchema();
+            }
+        }
+    }
+
+    /**
+     * Applies the effect of a statement to the schema. Tables that the statement does not change should be kept, so
+     * that their row counts do not need to be recomputed.
+     *
+     * @param currentSchema
+     *            the schema before the statement was executed
+     * @param q
+     *            the statement, for which {@link Query#couldAffectSchema()} holds
+     * @param success
+     *            whether the statement was executed successfully
+     *
+     * @return the schema after the statement, currentSchema if the statement did not change it, or null if the
+     *         schema has to be read from the database
+     */
+    protected S applySchemaChange(S currentSchema, Query<?> q, boolean success) throws Exception {
+        return null;
+    }
+
+    /**
+     * Compares a schema that was changed incrementally with the one in the database and replaces it if they differ.
+     *
+     * @return whether the schema differed from the one in the database
+     */
+    public boolean validateSchema() throws Exception {
+        if (nrUnvalidatedSchemaChanges == 0) {
+            return false;
+        }
+        return replaceSchemaIfOutdated();
+    }
+
+    private boolean replaceSchemaIfOutdated() throws Exception {
+        S actualSchema = readSchema();
+        nrUnvalidatedSchemaChanges = 0;
+        if (actualSchema.getStructure().equals(schema.getStructure())) {
+            return false;
+        }
+        setSchema(actualSchema);
+        return true;
+    }
+
     public void clearSchema() throws Exception {
         schema.getDatabaseTables().clear();
     }
@@ -166,4 +288,32 @@ public abstract class GlobalState<O extends DBMSSpecificOptions<?>, S extends Ab
     public void setConfigurationGenerator(BaseConfigurationGenerator configGenerator) {
         configurationGenerator = configGenerator;
     }
+
+    /**
+     * 返回该状态绑定的 AFL 监控实例；未绑定时退回到共享的 0 号实例。
+     */
+    public AFLMonitor getAflMonitor() {
+        if (aflMonitor == null) {
+            return AFLMonitor.getInstance();
+        }
+        return aflMonitor;
+    }
+
+    public void setAflMonitor(AFLMonitor aflMonitor) {
+        this.aflMonitor = aflMonitor;
+    }
+
+    public FeatureTracker getFeatureTracker() {
+        return featureTracker;
+    }
+
+    /**
+     * @return 绑定的 AFL 实例所监听的端口；未绑定实例或使用命令行端口时返回 MainOptions.NO_SET_PORT
+     */
+    public int getAflMonitorPort() {
+        if (aflMonitor == null) {
+            return MainOptions.NO_SET_PORT;
+        }
+        return aflMonitor.getPort();
+    }
 }
@@ -13,9 +13,12 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -50,7 +53,6 @@ import sqlancer.yugabyte.ysql.YSQLProvider;
 
 import static java.lang.Thread.sleep;
 import static sqlancer.AFLMonitor.testCount;
-import static sqlancer.BaseConfigurationGenerator.currentGeneratedActions;
 
 public final class Main {
 
@@ -59,6 +61,8 @@ public final class Main {
     public static volatile AtomicLong nrDatabases = new AtomicLong();
     public static volatile AtomicLong nrSuccessfulActions = new AtomicLong();
     public static volatile AtomicLong nrUnsuccessfulActions = new AtomicLong();
+    // errors that were ignored, as the statement was generated for an incrementally updated schema that was outdated
+    public static volatile AtomicLong nrOutdatedSchemaErrors = new AtomicLong();
     public static volatile AtomicLong threadsShutdown = new AtomicLong();
     public static volatile AtomicLong throughout = new AtomicLong();
     public static volatile AtomicLong bugs = new AtomicLong();
@@ -81,14 +85,17 @@ public final class Main {
         private File queryPlanFile;
         private File reduceFile;
         private FileWriter logFileWriter;
-        public FileWriter currentFileWriter;
-        private FileWriter queryPlanFileWriter;
+        public Writer currentFileWriter;
+        private Writer queryPlanFileWriter;
         private FileWriter reduceFileWriter;
         private Path reproduceFilePath;
 
         private static final List<String> INITIALIZED_PROVIDER_NAMES = new ArrayList<>();
         private final boolean logEachSelect;
         private final boolean logQueryPlan;
+        private final boolean asyncLog;
+        private final boolean binaryLogs;
+        private final String databaseName;
 
         private final boolean useReducer;
         private final DatabaseProvider<?, ?, ?> databaseProvider;
@@ -119,10 +126,13 @@ public final class Main {
             }
             ensureExistsAndIsEmpty(dir, provider);
             loggerFile = new File(dir, databaseName + ".log");
+            this.databaseName = databaseName;
+            binaryLogs = options.useBinaryLogs();
             logEachSelect = options.logEachSelect();
             if (logEachSelect) {
-                curFile = new File(dir, databaseName + "-cur.log");
+                curFile = new File(dir, databaseName + (binaryLogs ? "-cur" + StatementLog.FILE_EXTENSION : "-cur.log"));
             }
+            asyncLog = options.logAsync();
             logQueryPlan = options.logQueryPlan();
             if (logQueryPlan) {
                 queryPlanFile = new File(dir, databaseName + "-plan.log");
@@ -140,7 +150,8 @@ public final class Main {
                 if (!reproduceFileDir.exists()) {
                     reproduceFileDir.mkdir();
                 }
-                reproduceFilePath = new File(reproduceFileDir, databaseName + ".ser").toPath();
+                reproduceFilePath = new File(reproduceFileDir,
+                        databaseName + (binaryLogs ? StatementLog.FILE_EXTENSION : ".ser")).toPath();
             }
             this.databaseProvider = provider;
         }
@@ -179,13 +190,25 @@ public final class Main {
             return logFileWriter;
         }
 
-        public FileWriter getCurrentFileWriter() {
+        private Writer createCurrentFileWriter() throws IOException {
+            if (binaryLogs) {
+                return new StatementLogWriter(curFile.toPath(), databaseProvider.getDBMSName(), databaseName, null, 0,
+                        null).asWriter();
+            }
+            return createWriter(curFile, false);
+        }
+
+        private Writer createWriter(File file, boolean append) throws IOException {
+            return asyncLog ? new AsyncLogWriter(file, append) : new FileWriter(file, append);
+        }
+
+        public Writer getCurrentFileWriter() {
             if (!logEachSelect) {
                 throw new UnsupportedOperationException();
             }
             if (currentFileWriter == null) {
                 try {
-                    currentFileWriter = new FileWriter(curFile, false);
+                    currentFileWriter = createCurrentFileWriter();
                 } catch (IOException e) {
                     throw new AssertionError(e);
                 }
@@ -193,13 +216,24 @@ public final class Main {
             return currentFileWriter;
         }
 
-        public FileWriter getQueryPlanFileWriter() {
+        /**
+         * Closes the query plan log of the current database, which is reopened in append mode if more query plans
+         * are logged.
+         */
+        public void closeQueryPlanFileWriter() throws IOException {
+            if (queryPlanFileWriter != null) {
+                queryPlanFileWriter.close();
+                queryPlanFileWriter = null;
+            }
+        }
+
+        public Writer getQueryPlanFileWriter() {
             if (!logQueryPlan) {
                 throw new UnsupportedOperationException();
             }
             if (queryPlanFileWriter == null) {
                 try {
-                    queryPlanFileWriter = new FileWriter(queryPlanFile, true);
+                    queryPlanFileWriter = createWriter(queryPlanFile, true);
                 } catch (IOException e) {
                     throw new AssertionError(e);
                 }
@@ -225,6 +259,21 @@ public final class Main {
             if (!logEachSelect) {
                 throw new UnsupportedOperationException();
             }
+            if (binaryLogs) {
+                try {
+                    StatementLogWriter.LineWriter log = getStatementLogWriter();
+                    log.writeInfo(databaseProvider.getLoggableFactory()
+                            .getInfo(state.getDatabaseName(), state.getDatabaseVersion(), state.getSeedValue())
+                            .getLogString());
+                    for (Query<?> s : state.getStatements()) {
+                        log.writeStatement(s.getLogString());
+                    }
+                    log.sync();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                return;
+            }
             printState(getCurrentFileWriter(), state);
             try {
                 currentFileWriter.flush();
@@ -234,14 +283,51 @@ public final class Main {
             }
         }
 
+        private StatementLogWriter.LineWriter getStatementLogWriter() {
+            return (StatementLogWriter.LineWriter) getCurrentFileWriter();
+        }
+
         public void writeCurrent(String input) {
+            if (binaryLogs) {
+                try {
+                    getStatementLogWriter().writeStatement(input);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+                return;
+            }
             write(databaseProvider.getLoggableFactory().createLoggable(input));
         }
 
         public void writeCurrentNoLineBreak(String input) {
+            if (binaryLogs) {
+                try {
+                    getStatementLogWriter().startStatement(input);
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+                return;
+            }
             write(databaseProvider.getLoggableFactory().createLoggableWithNoLinebreak(input));
         }
 
+        /**
+         * Completes the statement started by {@link #writeCurrentNoLineBreak(String)} with its execution time.
+         */
+        public void writeExecutionTime(boolean success, ExecutionTimer timer) {
+            if (binaryLogs) {
+                try {
+                    getStatementLogWriter().endStatement(
+                            StatementLog.HAS_SUCCESS | StatementLog.HAS_TIME | (success ? StatementLog.SUCCESS : 0),
+                            timer.getMillis());
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+                return;
+            }
+            writeCurrent(" -- " + timer.asString());
+        }
+
         private void write(Loggable loggable) {
             if (!logEachSelect) {
                 throw new UnsupportedOperationException();
@@ -311,6 +397,7 @@ public final class Main {
         }
 
         public void logException(Throwable reduce, StateToReproduce state) {
+            syncCurrentFileWriter();
             Loggable stackTrace = getStackTrace(reduce);
             FileWriter logFileWriter2 = getLogFileWriter();
             try {
@@ -331,7 +418,22 @@ public final class Main {
             return databaseProvider.getLoggableFactory().convertStacktraceToLoggable(e1);
         }
 
-        private void printState(FileWriter writer, StateToReproduce state) {
+        /**
+         * Writes the statements that were logged asynchronously, so that the log is complete when a bug is reported.
+         */
+        private void syncCurrentFileWriter() {
+            try {
+                if (currentFileWriter instanceof AsyncLogWriter) {
+                    ((AsyncLogWriter) currentFileWriter).sync();
+                } else if (currentFileWriter instanceof StatementLogWriter.LineWriter) {
+                    ((StatementLogWriter.LineWriter) currentFileWriter).sync();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        private void printState(Writer writer, StateToReproduce state) {
             StringBuilder sb = new StringBuilder();
 
             sb.append(databaseProvider.getLoggableFactory()
@@ -413,6 +515,7 @@ public final class Main {
         private StateLogger logger;
         private StateToReproduce stateToRepro;
         private final Randomly r;
+        private AFLMonitor aflMonitor;
 
         public DBMSExecutor(DatabaseProvider<G, O, C> provider, MainOptions options, O dbmsSpecificOptions,
                             String databaseName, Randomly r) {
@@ -435,6 +538,10 @@ public final class Main {
             return command;
         }
 
+        public void setAflMonitor(AFLMonitor aflMonitor) {
+            this.aflMonitor = aflMonitor;
+        }
+
         public void testConnection() throws Exception {
             G state = getInitializedGlobalState(options.getRandomSeed());
             try (SQLancerDBConnection con = provider.createDatabase(state)) {
@@ -461,33 +568,108 @@ public final class Main {
                 System.out.println("Successfully loaded parameter weights from file.");
                 return;
             }
+            // 从上次中断的训练中恢复：检查点中已有的参数不再重复训练
+            configGenerator.loadParameterFeatureProbabilitiesCheckpoint(configGenerator.getDatabaseType());
+            BaseConfigurationGenerator.ConfigurationAction[] allActions = configGenerator.getAllActions();
+            Queue<Integer> pending = new ConcurrentLinkedQueue<>();
+            for (int i = 0; i < allActions.length; i++) {
+                if (!BaseConfigurationGenerator.parameterFeatureProbabilities.containsKey(allActions[i])) {
+                    pending.add(i);
+                }
+            }
+            // 按参数分片：每个线程使用独立的 AFL 实例（独立的覆盖率映射和 DBMS 进程），从队列中领取下一个参数
+            int nrWorkers = Math.min(options.getNumberConcurrentThreads(), pending.size());
+            try {
+                if (nrWorkers <= 1) {
+                    runConfigurationTrainingWorker(state, configGenerator, allActions, pending);
+                } else {
+                    AFLMonitor.startPool(nrWorkers);
+                    ExecutorService trainingService = Executors.newFixedThreadPool(nrWorkers);
+                    List<Future<?>> workers = new ArrayList<>();
+                    for (int workerId = 0; workerId < nrWorkers; workerId++) {
+                        G workerState = workerId == 0 ? state : createTrainingState(workerId);
+                        workers.add(trainingService.submit(() -> {
+                            try {
+                                runConfigurationTrainingWorker(workerState, configGenerator, allActions, pending);
+                            } finally {
+                                ConnectionPool.closeIdleConnections();
+                            }
+                            return null;
+                        }));
+                    }
+                    trainingService.shutdown();
+                    try {
+                        for (Future<?> worker : workers) {
+                            worker.get();
+                        }
+                    } finally {
+                        trainingService.shutdownNow();
+                    }
+                }
+            } finally {
+                // 即使部分参数未训练完成也保存已学到的权重；加载时参数数量不匹配的文件会被忽略，之后仍从检查点继续训练
+                configGenerator.saveParameterFeatureProbabilitiesToFile(configGenerator.getDatabaseType());
+                if (BaseConfigurationGenerator.parameterFeatureProbabilities.size() == allActions.length) {
+                    configGenerator.deleteParameterFeatureProbabilitiesCheckpoint(configGenerator.getDatabaseType());
+                }
+            }
+//            configGenerator.calculateParameterWeights();
+        }
+
+        private G createTrainingState(int workerId) {
+            G state = createGlobalState();
+            String workerDatabaseName = databaseName + "w" + workerId;
+            StateToReproduce workerStateToRepro = provider.getStateToReproduce(workerDatabaseName);
+            Randomly workerRandomly = new Randomly(Randomly.splitSeed(r.getSeed(), workerId));
+            workerStateToRepro.seedValue = workerRandomly.getSeed();
+            state.setState(workerStateToRepro);
+            state.setRandomly(workerRandomly);
+            state.setDatabaseName(workerDatabaseName);
+            state.setMainOptions(options);
+            state.setDbmsSpecificOptions(command);
+            state.setAflMonitor(AFLMonitor.getInstance(workerId));
+            return state;
+        }
+
+        private void runConfigurationTrainingWorker(G state, BaseConfigurationGenerator configGenerator,
+                BaseConfigurationGenerator.ConfigurationAction[] allActions, Queue<Integer> pending) throws Exception {
             state.setConfigurationGenerator(configGenerator);
-            int i=0;
-            for (BaseConfigurationGenerator.ConfigurationAction action :configGenerator.getAllActions()) {
-                logger = new StateLogger(databaseName+(i++), provider, options);
-                state.setStateLogger(logger);
+            Integer i;
+            while ((i = pending.poll()) != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                BaseConfigurationGenerator.ConfigurationAction action = allActions[i];
+                StateLogger actionLogger = new StateLogger(state.getDatabaseName() + i, provider, options);
+                if (state.getState() == stateToRepro) {
+                    logger = actionLogger;
+                }
+                state.setStateLogger(actionLogger);
                 state.getState().setStatements(new ArrayList<>());
                 try (C con = provider.createDatabase(state)) {
                     QueryManager<C> manager = new QueryManager<>(state);
                     state.setManager(manager);
                     state.setConnection(con);
                     if (options.logEachSelect()) {
-                        logger.writeCurrent(state.getState());
+                        actionLogger.writeCurrent(state.getState());
                     }
-//                    state.getAflMonitor().clearCoverage();
                     provider.generateDatabaseWithConfigurationTraining(state,action);
-//                    AFLMonitor.getInstance().refreshBuffer();
-//                    byte[] coverageBuf = AFLMonitor.getInstance().getCoverageBuf();
                 }catch (IgnoreMeException ignored) {
                 } catch (Throwable reduce) {
                     reduce.printStackTrace();
                     state.getState().exception = reduce.getMessage();
                     state.getLogger().logFileWriter = null;
                     state.getLogger().logException(reduce,state.getState());
+                    if (!state.getAflMonitor().isDBMSAlive()) {
+                        state.getAflMonitor().restartDBMS();
+                    }
+                }
+                double[] probabilities = BaseConfigurationGenerator.parameterFeatureProbabilities.get(action);
+                if (probabilities != null) {
+                    configGenerator.appendParameterFeatureProbabilitiesCheckpoint(configGenerator.getDatabaseType(),
+                            action, probabilities);
                 }
             }
-            configGenerator.saveParameterFeatureProbabilitiesToFile(configGenerator.getDatabaseType());
-//            configGenerator.calculateParameterWeights();
         }
 
         //Tang:
@@ -497,25 +679,32 @@ public final class Main {
             stateToRepro.seedValue = r.getSeed();
             state.setState(stateToRepro);
             logger = new StateLogger(databaseName, provider, options);
+            AFLMonitor monitor = aflMonitor == null ? AFLMonitor.getInstance() : aflMonitor;
+            state.setAflMonitor(monitor);
             state.setRandomly(r);
-            state.setDatabaseName("fuzzDatabase");
+            // 每个实例有独立的 DBMS，但 SQLite 的数据库文件位于本地目录，因此非 0 号实例使用不同的库名
+            state.setDatabaseName(monitor.getInstanceId() == 0 ? "fuzzDatabase" : "fuzzDatabase" + monitor.getInstanceId());
             state.setMainOptions(options);
             state.setDbmsSpecificOptions(command);
             state.setStateLogger(logger);
 
-            if (configGenerator==null){
-                configGenerator = GeneralConfigurationGenerator
-                        .createGenerator(state.getDbmsSpecificOptions().getClass(), state);
-                configGenerator.loadWeightsFromFile(configGenerator.getDatabaseType());
-                configGenerator.loadParameterFeatureProbabilitiesFromFile(configGenerator.getDatabaseType());
+            synchronized (Main.class) {
+                if (configGenerator == null) {
+                    BaseConfigurationGenerator generator = GeneralConfigurationGenerator
+                            .createGenerator(state.getDbmsSpecificOptions().getClass(), state);
+                    generator.loadWeightsFromFile(generator.getDatabaseType());
+                    generator.loadParameterFeatureProbabilitiesFromFile(generator.getDatabaseType());
+                    configGenerator = generator;
+                }
             }
 
             state.setConfigurationGenerator(configGenerator);
-            while (testCount<1000000) {
-                if(testCount%configGenerator.getAllActions().length==0) {
+            while (testCount.get()<1000000) {
+                if(testCount.get()%configGenerator.getAllActions().length==0) {
                     configGenerator.topKSnapshot();
                 }
-                configGenerator.generateActions();
+                int comboId = configGenerator.generateCombo();
+                List<BaseConfigurationGenerator.ConfigurationAction> currentGeneratedActions = configGenerator.getComboActions(comboId);
                 AFLMonitor.testcaseNum =0;
 
                 state.getState().setStatements(new ArrayList<>());
@@ -525,7 +714,6 @@ public final class Main {
                         } catch (Exception e) {
 
                         }
-                        AFLMonitor.getInstance().refreshBuffer();
                         QueryManager<C> manager = new QueryManager<>(state);
                         state.setManager(manager);
                         state.setConnection(con);
@@ -535,8 +723,11 @@ public final class Main {
                         //AFLMonitor.getInstance().refreshBuffer();
                         provider.generateDatabaseWithConfigurationTest(state, currentGeneratedActions);
                 }finally {
-                    AFLMonitor.getInstance().updateComWeight(currentGeneratedActions);
-                    testCount++;
+                    monitor.updateComWeight(comboId);
+                    if (monitor.getLastNewEdges() > 0) {
+                        state.getRandomly().rewardRecentConstants();
+                    }
+                    testCount.incrementAndGet();
                 }
 
 
@@ -561,6 +752,9 @@ public final class Main {
             state.setDatabaseName(databaseName);
             state.setMainOptions(options);
             state.setDbmsSpecificOptions(command);
+            if (aflMonitor != null) {
+                state.setAflMonitor(aflMonitor);
+            }
 
 
             try (C con = provider.createDatabase(state)) {
@@ -610,11 +804,11 @@ public final class Main {
                     newGlobalState.setStateLogger(new StateLogger(databaseName, provider, options));
                     newGlobalState.setManager(newManager);
 
-                    Reducer<G> reducer = new StatementReducer<>(provider);
+                    Reducer<G> reducer = new StatementReducer<>(provider, options.getNrStatementReducerThreads());
                     reducer.reduce(state, reproducer, newGlobalState);
 
                     if (options.reduceAST()) {
-                        Reducer<G> astBasedReducer = new ASTBasedReducer<>(provider);
+                        Reducer<G> astBasedReducer = new ASTBasedReducer<>(provider, options.getNrASTReducerThreads());
                         astBasedReducer.reduce(state, reproducer, newGlobalState);
                     }
 
@@ -730,7 +924,7 @@ public final class Main {
                         }
                         //Tang:close AFLMonitor
                         try {
-                            AFLMonitor.getInstance().close();
+                            AFLMonitor.closeAll();
                             sleep(2000);
                         } catch (InterruptedException e) {
                             throw new RuntimeException(e);
@@ -743,6 +937,13 @@ public final class Main {
                                 formatInteger(nrSuccessfulActions.get()) + " successfully-executed statements");
                         System.out.println(
                                 formatInteger(nrUnsuccessfulActions.get()) + " unsuccessfully-executed statements");
+                        if (nrOutdatedSchemaErrors.get() != 0) {
+                            System.out.println(formatInteger(nrOutdatedSchemaErrors.get())
+                                    + " errors ignored due to an outdated schema");
+                        }
+                        if (options.enableQPG()) {
+                            MutatorBandit.printAllStatistics(System.out);
+                        }
                     }
 
                     private String formatInteger(long intValue) {
@@ -761,7 +962,9 @@ public final class Main {
 
         if (options.performConnectionTest()) {
             try {
-                AFLMonitor.getInstance();
+                if (options.getNrConcurrentExecutors() == 0) {
+                    AFLMonitor.getInstance();
+                }
                 executorFactory.getDBMSExecutor(options.getDatabasePrefix() + "connectiontest", new Randomly())
                         .testConnection();
             } catch (Exception e) {
@@ -773,6 +976,11 @@ public final class Main {
         }
         final AtomicBoolean someOneFails = new AtomicBoolean(false);
 
+        if (options.getNrConcurrentExecutors() > 0) {
+            runConcurrentExecutors(executorFactory, options, someOneFails);
+            return someOneFails.get() ? options.getErrorExitCode() : 0;
+        }
+
         //Tang: 1.SQL优先级训练
         DBMSExecutor<?, ?, ?> executor = executorFactory.getDBMSExecutor(options.getDatabasePrefix() + 0, new Randomly(System.currentTimeMillis()));
         try {
@@ -796,22 +1004,109 @@ public final class Main {
                     }
                     executor.getLogger().currentFileWriter = null;
                 }
+                if (executor.getLogger() != null) {
+                    executor.getLogger().closeQueryPlanFileWriter();
+                }
             } catch (IOException e) {
                 e.printStackTrace();
             }
         }
 
         //Tang: 2.Testing
+        // 每个线程拥有独立的 AFL 实例（共享内存、DBMS 进程、端口和数据目录），覆盖率合并到全局 virgin bits
+        int nrWorkers = options.getNumberConcurrentThreads();
+        if (nrWorkers > 1) {
+            try {
+                AFLMonitor.startPool(nrWorkers);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return options.getErrorExitCode();
+            }
+        }
+        for (int workerId = 0; workerId < nrWorkers; workerId++) {
+            final int id = workerId;
+            execService.execute(ConnectionPool
+                    .closingIdleConnections(() -> runConfigurationTestingWorker(executorFactory, options, id)));
+        }
+        execService.shutdown();
+        try {
+            if (options.getTimeoutSeconds() == -1) {
+                execService.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
+            } else {
+                execService.awaitTermination(options.getTimeoutSeconds(), TimeUnit.SECONDS);
+            }
+            AFLMonitor.closeAll();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+
+        return someOneFails.get() ? options.getErrorExitCode() : 0;
+    }
+
+    // runs the executors of --concurrent-executors until they are done or the timeout has elapsed
+    private static void runConcurrentExecutors(DBMSExecutorFactory<?, ?, ?> executorFactory, MainOptions options,
+            AtomicBoolean someOneFails) {
+        int nrExecutors = options.getNrConcurrentExecutors();
+        int nrConnections = options.getMaxConnections() > 0 ? options.getMaxConnections() : nrExecutors;
+        ConcurrentExecutors executors = new ConcurrentExecutors(nrExecutors, nrConnections,
+                options.getMaxGeneratedDatabases(), (executorId, databaseIndex) -> {
+                    // the database is recreated for each run of the same executor
+                    String databaseName = options.getDatabasePrefix() + executorId;
+                    long seed;
+                    if (options.getRandomSeed() == -1) {
+                        // executors start in the same millisecond, so the time alone would give them the same seed
+                        seed = Randomly.splitSeed(System.currentTimeMillis() + databaseIndex, executorId);
+                    } else {
+                        seed = Randomly.splitSeed(options.getRandomSeed() + databaseIndex, executorId);
+                    }
+                    DBMSExecutor<?, ?, ?> executor = executorFactory.getDBMSExecutor(databaseName, new Randomly(seed));
+                    executor.setAflMonitor(AFLMonitor.disabled());
+                    try {
+                        executor.run();
+                    } catch (IgnoreMeException e) {
+                        // try another database
+                    } catch (Throwable reduce) {
+                        someOneFails.set(true);
+                        reduce.printStackTrace();
+                        executor.getStateToReproduce().exception = reduce.getMessage();
+                        executor.getLogger().logFileWriter = null;
+                        executor.getLogger().logException(reduce, executor.getStateToReproduce());
+                        return bugs.incrementAndGet() < options.getTotalNumberTries();
+                    } finally {
+                        if (options.logEachSelect() && executor.getLogger().currentFileWriter != null) {
+                            executor.getLogger().currentFileWriter.close();
+                            executor.getLogger().currentFileWriter = null;
+                        }
+                        executor.getLogger().closeQueryPlanFileWriter();
+                    }
+                    return true;
+                });
+        try {
+            if (options.getTimeoutSeconds() == -1) {
+                executors.await(Long.MAX_VALUE, TimeUnit.DAYS);
+            } else {
+                executors.await(options.getTimeoutSeconds(), TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void runConfigurationTestingWorker(DBMSExecutorFactory<?, ?, ?> executorFactory,
+            MainOptions options, int workerId) {
+        AFLMonitor monitor = AFLMonitor.getInstance(workerId);
         for (int i = 0; i >-1;i++) {
-            final String databaseName = options.getDatabasePrefix() + i;
+            final String databaseName = options.getDatabasePrefix() + (workerId == 0 ? "" : "w" + workerId + "_") + i;
             final long seed;
             if (options.getRandomSeed() == -1) {
-                seed = System.currentTimeMillis() + i;
+                // workers start in the same millisecond, so the time alone would give them the same seed
+                seed = Randomly.splitSeed(System.currentTimeMillis() + i, workerId);
             } else {
-                seed = options.getRandomSeed() + i;
+                seed = Randomly.splitSeed(options.getRandomSeed() + i, workerId);
             }
             Randomly r = new Randomly(seed);
-           executor = executorFactory.getDBMSExecutor(databaseName, r);
+            DBMSExecutor<?, ?, ?> executor = executorFactory.getDBMSExecutor(databaseName, r);
+            executor.setAflMonitor(monitor);
             try {
                 executor.runConfigurationTesting();
                 i--;
@@ -828,11 +1123,14 @@ public final class Main {
                     executor.getStateToReproduce().logStatement(reduce.getMessage()); // add the error statement
                     executor.getStateToReproduce().serialize(executor.getLogger().getReproduceFilePath());
                 }
-                if(!AFLMonitor.getInstance().isDBMSAlive()){
+                if(!monitor.isDBMSAlive()){
                     try {
                         executor.getLogger().getLogFileWriter().write("This is a crush! \n");
                         executor.getLogger().getLogFileWriter().flush();
-                        AFLMonitor.getInstance().restartDBMS();
+                        monitor.restartDBMS();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
                     } catch (Exception e) {
                         e.printStackTrace();
                     }
@@ -845,23 +1143,15 @@ public final class Main {
                         }
                         executor.getLogger().currentFileWriter = null;
                     }
+                    executor.getLogger().closeQueryPlanFileWriter();
                 } catch (IOException e) {
                     e.printStackTrace();
                 }
             }
-        }
-        try {
-            if (options.getTimeoutSeconds() == -1) {
-                execService.awaitTermination(Long.MAX_VALUE, TimeUnit.DAYS);
-            } else {
-                execService.awaitTermination(options.getTimeoutSeconds(), TimeUnit.SECONDS);
+            if (Thread.currentThread().isInterrupted()) {
+                return;
             }
-            AFLMonitor.getInstance().close();
-        } catch (InterruptedException e) {
-            e.printStackTrace();
         }
-
-        return someOneFails.get() ? options.getErrorExitCode() : 0;
     }
 
     //Tang: for web version
@@ -902,7 +1192,7 @@ public final class Main {
                         }
                         //Tang:close AFLMonitor
                         try {
-                            AFLMonitor.getInstance().close();
+                            AFLMonitor.closeAll();
                             sleep(2000);
                         } catch (InterruptedException e) {
                             throw new RuntimeException(e);
@@ -915,6 +1205,13 @@ public final class Main {
                                 formatInteger(nrSuccessfulActions.get()) + " successfully-executed statements");
                         System.out.println(
                                 formatInteger(nrUnsuccessfulActions.get()) + " unsuccessfully-executed statements");
+                        if (nrOutdatedSchemaErrors.get() != 0) {
+                            System.out.println(formatInteger(nrOutdatedSchemaErrors.get())
+                                    + " errors ignored due to an outdated schema");
+                        }
+                        if (options.enableQPG()) {
+                            MutatorBandit.printAllStatistics(System.out);
+                        }
                     }
 
                     private String formatInteger(long intValue) {
@@ -989,6 +1286,7 @@ public final class Main {
                         }
                         executor.getLogger().currentFileWriter = null;
                     }
+                    executor.getLogger().closeQueryPlanFileWriter();
                 } catch (IOException e) {
                     e.printStackTrace();
                 }
@@ -1020,6 +1318,7 @@ public final class Main {
                     }
                     executor.getLogger().currentFileWriter = null;
                 }
+                executor.getLogger().closeQueryPlanFileWriter();
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -1123,7 +1422,7 @@ public final class Main {
                 System.out.printf(
                         "[%s] Executed %d queries (%d queries/s; %.2f/s dbs, successful statements: %2d%%). Threads shut down: %d. Coverage Edges: %d.%n",
                         dateFormat.format(date), currentNrQueries,  throughout.get(), throughputDbs,
-                        successfulStatementsRatio, threadsShutdown.get(),AFLMonitor.getInstance().getCoverageEdges());
+                        successfulStatementsRatio, threadsShutdown.get(),AFLMonitor.getCoverageEdges());
                 timeMillis = System.currentTimeMillis();
                 lastNrQueries = currentNrQueries;
                 lastNrDbs = currentNrDbs;
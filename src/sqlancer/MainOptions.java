@@ -42,9 +42,21 @@ public class MainOptions {
             "--num-statement-kind-retries" }, description = "Specifies the number of times a specific statement kind (e.g., INSERT) should be retried when the DBMS indicates that it failed")
     private int nrStatementRetryCount = 1000; // NOPMD
 
+    @Parameter(names = "--incremental-schema", description = "Applies the effect of CREATE, ALTER and DROP statements to the schema instead of reading the whole schema from the DBMS after each of them (not yet implemented for all DBMSs); the schema is re-validated after the database has been generated and when a statement fails unexpectedly", arity = 1)
+    private boolean incrementalSchema = true; // NOPMD
+
+    @Parameter(names = "--schema-revalidation-interval", description = "The number of incremental schema changes after which the schema is compared with the one in the DBMS (requires --incremental-schema)")
+    private int schemaRevalidationInterval = 50; // NOPMD
+
     @Parameter(names = "--log-each-select", description = "Logs every statement issued", arity = 1)
     private boolean logEachSelect = true; // NOPMD
 
+    @Parameter(names = "--log-async", description = "Writes the logs of --log-each-select and --qpg-log-query-plan on a background thread; they are completed before a bug is reported", arity = 1)
+    private boolean logAsync = true; // NOPMD
+
+    @Parameter(names = "--binary-logs", description = "Writes the statement logs of --log-each-select and the reproduction files of --serialize-reproduce-state in the compressed binary format (see StatementLogConverter)", arity = 1)
+    private boolean binaryLogs; // NOPMD
+
     @Parameter(names = "--log-execution-time", description = "Logs the execution time of each statement (requires --log-each-select to be enabled)", arity = 1)
     private boolean logExecutionTime = true; // NOPMD
 
@@ -66,6 +78,15 @@ public class MainOptions {
     @Parameter(names = "--qpg-selection-probability", description = "The probability (0-1) of the random selection of mutators. A higher value (>0.5) favors exploration over exploitation. (requires --qpg-enable)")
     private static double qpgProbability = 0.7;
 
+    @Parameter(names = "--qpg-policy", description = "The policy for choosing table mutators: EPSILON_GREEDY (uses --qpg-selection-probability), UCB1 or THOMPSON (requires --qpg-enable)")
+    private static MutatorBandit.Policy qpgPolicy = MutatorBandit.Policy.EPSILON_GREEDY;
+
+    @Parameter(names = "--qpg-pool-size", description = "The maximum number of query plans kept in the query plan pool; the least recently seen plans are evicted first (requires --qpg-enable)")
+    private static int qpgPoolSize = 10000;
+
+    @Parameter(names = "--qpg-recheck-batch-size", description = "The maximum number of queries in the query plan pool that are re-planned after a mutation (requires --qpg-enable)")
+    private static int qpgRecheckBatchSize = 100;
+
     @Parameter(names = "--username", description = "The user name used to log into the DBMS")
     private String userName = "root"; // NOPMD
 
@@ -87,6 +108,15 @@ public class MainOptions {
     @Parameter(names = "--timeout-seconds", description = "The timeout in seconds")
     private int timeoutSeconds = -1; // NOPMD
 
+    @Parameter(names = "--concurrent-executors", description = "Instead of the coverage-guided configuration testing, runs this many independent executors that each generate and test one database after another with the selected oracles, without starting an instrumented DBMS (0 disables this mode); intended for network DBMSs, where the executors mostly wait for the server")
+    private int nrConcurrentExecutors; // NOPMD
+
+    @Parameter(names = "--max-connections", description = "The maximum number of connections that the executors of --concurrent-executors keep open at the same time, which is also the number of threads they run on; executors whose next database does not get a connection wait (0 uses one connection per executor)")
+    private int maxConnections; // NOPMD
+
+    @Parameter(names = "--pool-connections", description = "Reuses the connections of a thread for the next databases it creates, instead of connecting to the DBMS for each database; the session state of a connection is reset before it is reused (currently only MySQL and PostgreSQL)", arity = 1)
+    private boolean poolConnections; // NOPMD
+
     @Parameter(names = "--max-generated-databases", description = "The maximum number of databases that are generated by each thread")
     private int maxGeneratedDatabases = -1; // NOPMD
 
@@ -117,7 +147,7 @@ public class MainOptions {
     @Parameter(names = "--use-connection-test", description = "Test whether the DBMS is accessible before trying to connect using multiple threads", arity = 1)
     private boolean useConnectionTest = true; // NOPMD
 
-    @Parameter(names = "--constant-cache-size", description = "Specifies the size of the constant cache. This option only takes effect when constant caching is enabled")
+    @Parameter(names = "--constant-cache-size", description = "Specifies the size of the constant cache; once it is full, constants that are rarely reused are replaced. This option only takes effect when constant caching is enabled")
     private int constantCacheSize = 100; // NOPMD
 
     @Parameter(names = "--database-prefix", description = "The prefix used for each database created")
@@ -135,9 +165,15 @@ public class MainOptions {
     @Parameter(names = "--statement-reducer-max-steps", description = "EXPERIMENTAL Maximum steps the statement reducer will do")
     private long maxStatementReduceSteps = NO_REDUCE_LIMIT; // NOPMD
 
+    @Parameter(names = "--statement-reducer-threads", description = "EXPERIMENTAL Number of reduction candidates the statement reducer checks in parallel, each on a separate database")
+    private int nrStatementReducerThreads = 1; // NOPMD
+
     @Parameter(names = "--statement-reducer-max-time", description = "EXPERIMENTAL Maximum time duration (secs) the AST-based reducer will do")
     private long maxASTReduceTime = NO_REDUCE_LIMIT; // NOPMD
 
+    @Parameter(names = "--ast-reducer-threads", description = "EXPERIMENTAL Number of transformations the AST-based reducer applies in parallel, each on a separate database")
+    private int nrASTReducerThreads = 1; // NOPMD
+
     @Parameter(names = "--ast-reducer-max-steps", description = "EXPERIMENTAL Maximum steps the AST-based reducer will do")
     private long maxASTReduceSteps = NO_REDUCE_LIMIT; // NOPMD
 
@@ -147,6 +183,12 @@ public class MainOptions {
     @Parameter(names = "--validate-result-size-only", description = "Should validate result size only and skip comparing content of the result set ", arity = 1)
     private boolean validateResultSizeOnly = true; // NOPMD
 
+    @Parameter(names = "--oracle-pipeline-depth", description = "The number of oracle checks that are generated ahead on a separate thread while the DBMS executes the current check (0 generates each check only after the previous one has been executed; currently supported by the generic TLP WHERE and NoREC oracles)")
+    private int oraclePipelineDepth; // NOPMD
+
+    @Parameter(names = "--pipeline-tlp-queries", description = "Sends the queries of a TLP WHERE check to the DBMS in a single round trip and compares their results while they are streamed (only for DBMSs whose connection supports multiple statements, currently MySQL and PostgreSQL)", arity = 1)
+    private boolean pipelineTLPQueries; // NOPMD
+
     @Parameter(names = "--canonicalize-sql-strings", description = "Should canonicalize query string (add ';' at the end", arity = 1)
     private boolean canonicalizeSqlString = true; // NOPMD
 
@@ -156,6 +198,18 @@ public class MainOptions {
     @Parameter(names = "--map-size", description = "The initial size of the map used for afl")
     static public int  AFL_MAP_SIZE = 1533718; // NOPMD
 
+    @Parameter(names = "--afl-base-port", description = "When --num-threads > 1, the instrumented DBMS instance i (i > 0) listens on this port plus i")
+    static public int AFL_BASE_PORT = 13306; // NOPMD
+
+    @Parameter(names = "--afl-data-dir", description = "When --num-threads > 1, the instrumented DBMS instance i (i > 0) uses the pre-initialized data directory <afl-data-dir>/instance<i>")
+    static public String AFL_DATA_DIR = null; // NOPMD
+
+    @Parameter(names = "--max-combo-size", description = "The maximum number of configuration parameters in a combination; promising combinations are grown up to this size during testing")
+    static public int MAX_COMBO_SIZE = 3; // NOPMD
+
+    @Parameter(names = "--combo-seed-size", description = "The size of the initial combinations generated when no <dbms>_config_weights.txt exists (2 generates all pairs, larger values generate a greedy pairwise covering)")
+    static public int COMBO_SEED_SIZE = 2; // NOPMD
+
     public int getMaxExpressionDepth() {
         return maxExpressionDepth;
     }
@@ -172,6 +226,14 @@ public class MainOptions {
         return logEachSelect;
     }
 
+    public boolean logAsync() {
+        return logAsync;
+    }
+
+    public boolean useBinaryLogs() {
+        return binaryLogs;
+    }
+
     public boolean printAllStatements() {
         if (printSucceedingStatements && printStatements) {
             throw new AssertionError();
@@ -214,6 +276,18 @@ public class MainOptions {
         return qpgProbability;
     }
 
+    public MutatorBandit.Policy getQPGPolicy() {
+        return qpgPolicy;
+    }
+
+    public int getQPGPoolSize() {
+        return qpgPoolSize;
+    }
+
+    public int getQPGRecheckBatchSize() {
+        return qpgRecheckBatchSize;
+    }
+
     public int getNrQueries() {
         return nrQueries;
     }
@@ -226,6 +300,14 @@ public class MainOptions {
         return nrStatementRetryCount;
     }
 
+    public boolean useIncrementalSchema() {
+        return incrementalSchema;
+    }
+
+    public int getSchemaRevalidationInterval() {
+        return schemaRevalidationInterval;
+    }
+
     public String getUserName() {
         return userName;
     }
@@ -254,6 +336,18 @@ public class MainOptions {
         return timeoutSeconds;
     }
 
+    public int getNrConcurrentExecutors() {
+        return nrConcurrentExecutors;
+    }
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public boolean poolConnections() {
+        return poolConnections;
+    }
+
     public int getMaxGeneratedDatabases() {
         return maxGeneratedDatabases;
     }
@@ -326,10 +420,18 @@ public class MainOptions {
         return maxStatementReduceSteps;
     }
 
+    public int getNrStatementReducerThreads() {
+        return nrStatementReducerThreads;
+    }
+
     public long getMaxStatementReduceTime() {
         return maxStatementReduceTime;
     }
 
+    public int getNrASTReducerThreads() {
+        return nrASTReducerThreads;
+    }
+
     public long getMaxASTReduceSteps() {
         return maxASTReduceSteps;
     }
@@ -342,6 +444,14 @@ public class MainOptions {
         return validateResultSizeOnly;
     }
 
+    public int getOraclePipelineDepth() {
+        return oraclePipelineDepth;
+    }
+
+    public boolean pipelineTLPQueries() {
+        return pipelineTLPQueries;
+    }
+
     public boolean canonicalizeSqlString() {
         return canonicalizeSqlString;
     }
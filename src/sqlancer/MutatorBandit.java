@@ -0,0 +1,259 @@
+package sqlancer;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+import sqlancer.common.DBMSCommon;
+
+/**
+ * Chooses the table mutators of Query Plan Guidance (QPG) as a multi-armed bandit. One instance is shared by all
+ * threads that test the same DBMS; all updates are lock free, so that the threads do not contend on it.
+ *
+ * Besides the weighted average reward used by the original QPG policy, the bandit counts for each mutator how often it
+ * was chosen, the sum of its rewards, the time spent executing it and re-checking the query plans afterwards, and the
+ * number of queries that were re-planned.
+ */
+public final class MutatorBandit {
+
+    public enum Policy {
+        /**
+         * Picks a random mutator with the probability given by --qpg-selection-probability, and otherwise the mutator
+         * with the highest weighted average reward.
+         */
+        EPSILON_GREEDY,
+        /**
+         * Picks the mutator with the highest upper confidence bound of its mean reward.
+         */
+        UCB1,
+        /**
+         * Picks the mutator with the highest sample from a Beta posterior of its reward.
+         */
+        THOMPSON
+    }
+
+    private static final ConcurrentMap<String, MutatorBandit> BANDITS = new ConcurrentHashMap<>();
+
+    private final int nrMutators;
+    // the weighted average rewards, stored as the bits of doubles
+    private final AtomicLongArray weightedRewards;
+    private final LongAdder[] selections;
+    private final LongAdder[] completions;
+    private final DoubleAdder[] rewardSums;
+    private final LongAdder[] nanos;
+    private final LongAdder[] replannedQueries;
+
+    MutatorBandit(int nrMutators) {
+        this.nrMutators = nrMutators;
+        weightedRewards = new AtomicLongArray(nrMutators);
+        selections = new LongAdder[nrMutators];
+        completions = new LongAdder[nrMutators];
+        rewardSums = new DoubleAdder[nrMutators];
+        nanos = new LongAdder[nrMutators];
+        replannedQueries = new LongAdder[nrMutators];
+        for (int i = 0; i < nrMutators; i++) {
+            selections[i] = new LongAdder();
+            completions[i] = new LongAdder();
+            rewardSums[i] = new DoubleAdder();
+            nanos[i] = new LongAdder();
+            replannedQueries[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Returns the bandit of the given DBMS, creating it on the first call.
+     */
+    public static MutatorBandit forDBMS(String dbmsName, int nrMutators) {
+        return BANDITS.computeIfAbsent(dbmsName, name -> new MutatorBandit(nrMutators));
+    }
+
+    public int getNrMutators() {
+        return nrMutators;
+    }
+
+    /**
+     * Chooses the next mutator. All random choices are drawn from the given {@link Randomly}, so that the choices
+     * of a thread are reproducible from its seed.
+     */
+    public int select(Policy policy, double explorationProbability, Randomly r) {
+        switch (policy) {
+        case UCB1:
+            return selectUCB1();
+        case THOMPSON:
+            return selectThompson(r);
+        case EPSILON_GREEDY:
+        default:
+            int mutator;
+            if (uniform(r) < explorationProbability) {
+                mutator = r.getInteger(0, nrMutators);
+            } else {
+                mutator = DBMSCommon.getMaxIndexInDoubleArray(getWeightedRewards());
+            }
+            selections[mutator].increment();
+            return mutator;
+        }
+    }
+
+    private int selectUCB1() {
+        long total = 0;
+        long[] counts = new long[nrMutators];
+        for (int i = 0; i < nrMutators; i++) {
+            counts[i] = selections[i].sum();
+            if (counts[i] == 0) {
+                selections[i].increment();
+                return i;
+            }
+            total += counts[i];
+        }
+        double[] bounds = new double[nrMutators];
+        for (int i = 0; i < nrMutators; i++) {
+            bounds[i] = getMeanReward(i) + Math.sqrt(2 * Math.log(total) / counts[i]);
+        }
+        int mutator = DBMSCommon.getMaxIndexInDoubleArray(bounds);
+        selections[mutator].increment();
+        return mutator;
+    }
+
+    private int selectThompson(Randomly r) {
+        double[] samples = new double[nrMutators];
+        for (int i = 0; i < nrMutators; i++) {
+            double successes = Math.max(0, rewardSums[i].sum());
+            double failures = Math.max(0, completions[i].sum() - successes);
+            samples[i] = sampleBeta(1 + successes, 1 + failures, r);
+        }
+        int mutator = DBMSCommon.getMaxIndexInDoubleArray(samples);
+        selections[mutator].increment();
+        return mutator;
+    }
+
+    /**
+     * Adds a reward to the weighted average reward of a mutator.
+     */
+    public void addReward(int mutator, double reward) {
+        long prev;
+        long next;
+        do {
+            prev = weightedRewards.get(mutator);
+            next = Double.doubleToRawLongBits(Double.longBitsToDouble(prev) + reward);
+        } while (!weightedRewards.compareAndSet(mutator, prev, next));
+    }
+
+    /**
+     * Moves the weighted average reward of a mutator towards the given reward by the given weight, and records the
+     * execution of the mutator.
+     *
+     * @param reward
+     *            the reward, between 0 and 1
+     * @param nanoTime
+     *            the time spent executing the mutator and re-checking the query plans
+     * @param nrReplannedQueries
+     *            the number of queries that were re-planned
+     */
+    public void update(int mutator, double reward, double weight, long nanoTime, int nrReplannedQueries) {
+        long prev;
+        long next;
+        do {
+            prev = weightedRewards.get(mutator);
+            double average = Double.longBitsToDouble(prev);
+            next = Double.doubleToRawLongBits(average + (reward - average) * weight);
+        } while (!weightedRewards.compareAndSet(mutator, prev, next));
+        completions[mutator].increment();
+        rewardSums[mutator].add(Math.min(1, Math.max(0, reward)));
+        nanos[mutator].add(nanoTime);
+        replannedQueries[mutator].add(nrReplannedQueries);
+    }
+
+    /**
+     * @return a snapshot of the weighted average rewards
+     */
+    public double[] getWeightedRewards() {
+        double[] rewards = new double[nrMutators];
+        for (int i = 0; i < nrMutators; i++) {
+            rewards[i] = Double.longBitsToDouble(weightedRewards.get(i));
+        }
+        return rewards;
+    }
+
+    public double getMeanReward(int mutator) {
+        long count = completions[mutator].sum();
+        return count == 0 ? 0 : rewardSums[mutator].sum() / count;
+    }
+
+    public long getNrSelections(int mutator) {
+        return selections[mutator].sum();
+    }
+
+    public long getNrCompletions(int mutator) {
+        return completions[mutator].sum();
+    }
+
+    public long getNanoTime(int mutator) {
+        return nanos[mutator].sum();
+    }
+
+    public long getNrReplannedQueries(int mutator) {
+        return replannedQueries[mutator].sum();
+    }
+
+    public void printStatistics(PrintStream out) {
+        out.println(String.format("%8s %10s %10s %10s %12s %10s", "mutator", "selected", "weighted", "mean",
+                "avg ms", "replanned"));
+        for (int i = 0; i < nrMutators; i++) {
+            long count = getNrCompletions(i);
+            out.println(String.format("%8d %10d %10.4f %10.4f %12.2f %10d", i, getNrSelections(i),
+                    Double.longBitsToDouble(weightedRewards.get(i)), getMeanReward(i),
+                    count == 0 ? 0 : getNanoTime(i) / 1e6 / count, getNrReplannedQueries(i)));
+        }
+    }
+
+    /**
+     * Prints the statistics of the bandits of all DBMSs that used QPG.
+     */
+    public static void printAllStatistics(PrintStream out) {
+        for (Map.Entry<String, MutatorBandit> bandit : BANDITS.entrySet()) {
+            out.println("QPG mutators of " + bandit.getKey());
+            bandit.getValue().printStatistics(out);
+        }
+    }
+
+    // Marsaglia and Tsang's method; both parameters are at least 1
+    private static double sampleBeta(double alpha, double beta, Randomly r) {
+        double x = sampleGamma(alpha, r);
+        double y = sampleGamma(beta, r);
+        return x / (x + y);
+    }
+
+    private static double sampleGamma(double shape, Randomly r) {
+        double d = shape - 1.0 / 3;
+        double c = 1 / Math.sqrt(9 * d);
+        while (true) {
+            double x;
+            double v;
+            do {
+                x = sampleGaussian(r);
+                v = 1 + c * x;
+            } while (v <= 0);
+            v = v * v * v;
+            double u = uniform(r);
+            if (u < 1 - 0.0331 * x * x * x * x || Math.log(u) < 0.5 * x * x + d * (1 - v + Math.log(v))) {
+                return d * v;
+            }
+        }
+    }
+
+    // Box-Muller transform
+    private static double sampleGaussian(Randomly r) {
+        double u1 = 1 - uniform(r);
+        double u2 = uniform(r);
+        return Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    // uniform in [0, 1); Randomly.getDouble() is biased towards boundary and cached values
+    private static double uniform(Randomly r) {
+        return r.getLong(0, 1L << 53) * 0x1.0p-53;
+    }
+}
@@ -2,12 +2,9 @@ package sqlancer;
 
 import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 
 
-import static sqlancer.AFLMonitor.coverageBuf;
 import static sqlancer.BaseConfigurationGenerator.parameterFeatureProbabilities;
-import static sqlancer.MainOptions.AFL_MAP_SIZE;
 
 /**
  * Implements Parameter-Aware Test Case Synthesis.
@@ -22,17 +19,20 @@ public class ParameteraAwareGenerator {
     // For this example, we'll use placeholder data.
     // Map<ParameterConfig, Map<GeneratorNode, Integer>>
 
-    public static Set<ExpressionAction> featureSet = new java.util.HashSet<>();
     private final ExpressionAction[] actions;
+    private final int numActions;
     private int testCounts = 0;
-    private final long[] featureCounts;
-    //
-    private final long[] edgeCounts = new long[AFL_MAP_SIZE];
-    // Map<ParameterConfig, Map<GeneratorNode, Map<Edge, Integer>>>
-    private final long[][] featureEdgeCounts;
-    // Map<Edge, Integer>
-    private final long[] totalEdgeHitCounts = new long[AFL_MAP_SIZE];
-    public static double[] comActionProbabilities;
+    private final int[] featureCounts;
+    // 只为出现过的边分配计数：edgeSlots 把边号映射为槽位，以下数组均按槽位索引。
+    // 一次训练通常只触及覆盖率映射中很小的一部分边，原来按 AFL_MAP_SIZE 分配的
+    // long[numActions][AFL_MAP_SIZE] 对 MySQL 需要约 130 MB。
+    private final EdgeSlots edgeSlots = new EdgeSlots();
+    private int[] edgeCounts = new int[INITIAL_SLOTS];
+    private long[] totalEdgeHitCounts = new long[INITIAL_SLOTS];
+    // 第 slot 条边与第 f 个特性同时出现的次数位于 featureEdgeCounts[slot * numActions + f]
+    private int[] featureEdgeCounts;
+    private static final int INITIAL_SLOTS = 1 << 12;
+    private static final double LN2 = Math.log(2);
 
 
     /**
@@ -44,18 +44,17 @@ public class ParameteraAwareGenerator {
         if (this.actions == null || this.actions.length == 0) {
             throw new IllegalArgumentException("Action enum class cannot be empty: " + actionClass.getName());
         }
-        int numActions = this.actions.length;
-        this.featureCounts = new long[numActions];
-        this.featureEdgeCounts = new long[numActions][AFL_MAP_SIZE];
-        comActionProbabilities = new double[numActions];
+        this.numActions = this.actions.length;
+        this.featureCounts = new int[numActions];
+        this.featureEdgeCounts = new int[INITIAL_SLOTS * numActions];
     }
     /**
      * Calculates the novelty score for an edge.
-     * @param edge The edge identifier.
+     * @param slot The slot of the edge.
      * @return The novelty score.
      */
-    private double getNovelty(int edge) {
-        long hitCount = totalEdgeHitCounts[edge];
+    private double getNovelty(int slot) {
+        long hitCount = totalEdgeHitCounts[slot];
         return 1.0 / Math.sqrt(1.0 + hitCount);
     }
 
@@ -64,51 +63,46 @@ public class ParameteraAwareGenerator {
     /**
      * Calculates the mutual information between a feature and an edge for a given parameter configuration.
      * MI(f, e | c) = Σ P(f, e | c) * log2( P(f, e | c) / (P(f | c) * P(e | c)) )
+     *
+     * 每一项 log(c(x,y) * N / (c(x) * c(y))) 展开为 log 表的加减，整个计算不再调用 Math.log。
      * @param feature The SQL feature (GeneratorNode).
-     * @param edge The edge identifier.
-     * @return The mutual information value.
+     * @param countE1 The number of tests that hit the edge.
+     * @param countF1E1 The number of tests that contain the feature and hit the edge.
+     * @param log log[c] = ln(c)，下标覆盖 0..testCounts
+     * @return The mutual information value in nats multiplied by testCounts.
      */
-    private double calculateMutualInformation(int feature, int edge) {
-        // 从数组中获取计数
-        long countF1 = featureCounts[feature];
-        long countE1 = edgeCounts[edge];
-        long countF1E1 = featureEdgeCounts[feature][edge];
-
-
+    private double calculateMutualInformation(int feature, int countE1, int countF1E1, double[] log) {
+        int countF1 = featureCounts[feature];
 
         // 计算联合事件和边缘事件的计数
-        long countF0 = testCounts - countF1;
-        long countE0 = testCounts - countE1;
-        long countF1E0 = countF1 - countF1E1;
-        long countF0E1 = countE1 - countF1E1;
-        long countF0E0 = countF0 - countF0E1;
-
-        // 如果总测试次数、特征计数或边计数为零，则互信息为零，提前返回
-        if (testCounts == 0 || countF1 == 0 || countE1 == 0||countE0==0||countF0==0) {
+        int countF0 = testCounts - countF1;
+        int countE0 = testCounts - countE1;
+        int countF1E0 = countF1 - countF1E1;
+        int countF0E1 = countE1 - countF1E1;
+        int countF0E0 = countF0 - countF0E1;
+
+        // 如果特征计数或边计数为零（或等于总数），则互信息为零，提前返回
+        if (countF1 == 0 || countE0 == 0 || countF0 == 0) {
             return 0.0;
         }
+        double logN = log[testCounts];
         double mi = 0.0;
-        // 根据互信息公式，逐项计算
-        // MI = Σ p(x,y) * log2( p(x,y) / (p(x)*p(y)) )
+        // 根据互信息公式，逐项计算；count 为 0 的项贡献为 0
+        // N * MI = Σ c(x,y) * ( ln c(x,y) + ln N - ln c(x) - ln c(y) )
         if (countF1E1 > 0) {
-            double pF1E1 = (double) countF1E1 / testCounts;
-            mi += pF1E1 * Math.log((double) (countF1E1 * testCounts) / (countF1 * countE1));
+            mi += countF1E1 * (log[countF1E1] + logN - log[countF1] - log[countE1]);
         }
         if (countF1E0 > 0) {
-            double pF1E0 = (double) countF1E0 / testCounts;
-            mi += pF1E0 * Math.log((double) (countF1E0 * testCounts)/ (countF1  * countE0 ));
+            mi += countF1E0 * (log[countF1E0] + logN - log[countF1] - log[countE0]);
         }
         if (countF0E1 > 0) {
-            double pF0E1 = (double) countF0E1 / testCounts;
-            mi += pF0E1 * Math.log((double) (countF0E1 * testCounts) / (countF0 * countE1));
-
+            mi += countF0E1 * (log[countF0E1] + logN - log[countF0] - log[countE1]);
         }
         if (countF0E0 > 0) {
-            double pF0E0 = (double) countF0E0 / testCounts;
-            mi += pF0E0 * Math.log((double) (countF0E0 * testCounts) / ( countF0  * countE0 ));
+            mi += countF0E0 * (log[countF0E0] + logN - log[countF0] - log[countE0]);
         }
-        // 将对数底从自然对数e转换为2
-        return mi / Math.log(2);
+        // 舍入误差可能产生极小的负数
+        return Math.max(mi, 0.0);
     }
 
     /**
@@ -116,23 +110,25 @@ public class ParameteraAwareGenerator {
      * @return A map from GeneratorNode to its calculated weight.
      */
     private double[] getFeatureWeights() {
-        double[] weights = new double[featureCounts.length];
-
-        // 优化：交换内外循环，外层遍历边，内层遍历特征
-        for (int j = 0; j < edgeCounts.length; j++) {
-            // 优化：如果一个边从未被触发，它对任何特征的权重贡献都为0，跳过
-            if (edgeCounts[j] == 0) {
-                continue;
-            }
-
-            // 优化：在内层循环外计算一次 novelty
-            // 修正：getNovelty应该使用边的索引j，而不是特征的索引i
-            double novelty = getNovelty(j);
-
-            for (int i = 0; i < featureCounts.length; i++) {
-                double mi = calculateMutualInformation(i, j);
-                assert mi>=0:"MI should be non-negative";
-                weights[i] += mi * novelty;
+        double[] weights = new double[numActions];
+        if (testCounts == 0) {
+            return weights;
+        }
+        double[] log = new double[testCounts + 1];
+        for (int c = 1; c <= testCounts; c++) {
+            log[c] = Math.log(c);
+        }
+        // 统一的换算系数：除以 testCounts 得到概率，除以 ln2 换成以 2 为底
+        double scale = 1.0 / (testCounts * LN2);
+
+        // 外层遍历出现过的边，内层遍历特征；同一条边的特征计数在数组中连续存放
+        int slots = edgeSlots.size();
+        for (int slot = 0; slot < slots; slot++) {
+            double novelty = getNovelty(slot) * scale;
+            int countE1 = edgeCounts[slot];
+            int base = slot * numActions;
+            for (int i = 0; i < numActions; i++) {
+                weights[i] += calculateMutualInformation(i, countE1, featureEdgeCounts[base + i], log) * novelty;
             }
         }
         return weights;
@@ -163,49 +159,144 @@ public class ParameteraAwareGenerator {
         return probabilities;
     }
 
-    public void updateCounts() {
+    /**
+     * 用一次查询命中的边更新计数，开销与命中边数成正比，与覆盖率映射的大小无关。
+     *
+     * @param featureMask 该查询用到的特性，见 {@link FeatureTracker#getFeatureMask()}
+     * @param edges 命中边的下标，只有前 nrEdges 个元素有效
+     * @param hits 与 edges 一一对应的命中次数（无符号字节）
+     */
+    public void updateCounts(long featureMask, int[] edges, byte[] hits, int nrEdges) {
         testCounts++;
 
-        // 将对 featureCounts 的更新移到循环外，因为它与 coverageBuf 的内容无关
-        for (ExpressionAction feature : featureSet) {
-            featureCounts[feature.ordinal()] += 1;
+        // 将对 featureCounts 的更新移到循环外，因为它与命中的边无关
+        for (long m = featureMask; m != 0; m &= m - 1) {
+            featureCounts[Long.numberOfTrailingZeros(m)] += 1;
         }
 
-        // 只遍历一次 coverageBuf
-        for (int i = 0; i < AFL_MAP_SIZE; i++) {
-            // 仅在覆盖信息不为零时处理
-            if (coverageBuf[i] != 0) {
+        for (int k = 0; k < nrEdges; k++) {
+            int slot = slotOf(edges[k]);
 
-                // 更新基本边计数
-                edgeCounts[i] += 1;
-                totalEdgeHitCounts[i] +=(coverageBuf[i]& 0xFF);
+            // 更新基本边计数
+            edgeCounts[slot] += 1;
+            totalEdgeHitCounts[slot] += (hits[k] & 0xFF);
 
-                // 一次性更新所有 feature 相关的边计数
-                for (ExpressionAction feature : featureSet) {
-                    featureEdgeCounts[feature.ordinal()][i] += 1;
-                }
+            // 一次性更新所有 feature 相关的边计数
+            int base = slot * numActions;
+            for (long m = featureMask; m != 0; m &= m - 1) {
+                featureEdgeCounts[base + Long.numberOfTrailingZeros(m)] += 1;
             }
         }
     }
 
-    public void chooseFeature(List<BaseConfigurationGenerator.ConfigurationAction> configurationActions) {
+    private int slotOf(int edge) {
+        int slot = edgeSlots.getOrAdd(edge);
+        if (slot == edgeCounts.length) {
+            int capacity = edgeCounts.length * 2;
+            edgeCounts = Arrays.copyOf(edgeCounts, capacity);
+            totalEdgeHitCounts = Arrays.copyOf(totalEdgeHitCounts, capacity);
+            featureEdgeCounts = Arrays.copyOf(featureEdgeCounts, capacity * numActions);
+        }
+        return slot;
+    }
+
+    /**
+     * 边号到槽位的开放寻址哈希表（线性探测），槽位按首次出现的顺序依次分配。
+     */
+    private static final class EdgeSlots {
+        private static final int EMPTY = -1;
+        private int[] keys = newKeys(INITIAL_SLOTS * 2);
+        private int[] values = new int[INITIAL_SLOTS * 2];
+        private int size;
+
+        private static int[] newKeys(int capacity) {
+            int[] keys = new int[capacity];
+            Arrays.fill(keys, EMPTY);
+            return keys;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int getOrAdd(int edge) {
+            int mask = keys.length - 1;
+            int i = mix(edge) & mask;
+            while (keys[i] != EMPTY) {
+                if (keys[i] == edge) {
+                    return values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = edge;
+            values[i] = size;
+            if (++size * 2 > keys.length) {
+                rehash(keys.length * 2);
+            }
+            return size - 1;
+        }
+
+        private void rehash(int capacity) {
+            int[] oldKeys = keys;
+            int[] oldValues = values;
+            keys = newKeys(capacity);
+            values = new int[capacity];
+            int mask = capacity - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] != EMPTY) {
+                    int i = mix(oldKeys[j]) & mask;
+                    while (keys[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
 
+        private static int mix(int edge) {
+            int h = edge * 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+    }
+
+    /**
+     * 计算参数组合对应的特性概率。返回新数组，可直接通过 {@link FeatureTracker#setProbabilities(double[])} 发布。
+     *
+     * @param actionClass 具体的 Action 枚举的 Class 对象
+     */
+    public static double[] chooseFeature(Class<? extends ExpressionAction> actionClass,
+            List<BaseConfigurationGenerator.ConfigurationAction> configurationActions) {
+        int numActions = actionClass.getEnumConstants().length;
+        double[] comActionProbabilities = new double[numActions];
         if (Randomly.getBooleanWithSmallProbability()) {
             // 随机选择特性
-            for (int i = 0; i < actions.length; i++) {
-                comActionProbabilities[i] = 1.0 / actions.length;
+            for (int i = 0; i < numActions; i++) {
+                comActionProbabilities[i] = 1.0 / numActions;
             }
         }else {
-            computeComProbabilities(configurationActions);
+            computeComProbabilities(configurationActions, comActionProbabilities);
         }
-
+        return comActionProbabilities;
     }
 
-    private void computeComProbabilities(List<BaseConfigurationGenerator.ConfigurationAction> configurationActions ) {
-        double[] pro1 = parameterFeatureProbabilities.get(configurationActions.get(0));
-        double[] pro2 = parameterFeatureProbabilities.get(configurationActions.get(1));
-        for (int i = 0; i < actions.length; i++) {
-            comActionProbabilities[i] = (pro1[i] + pro2[i])/2;
+    private static void computeComProbabilities(List<BaseConfigurationGenerator.ConfigurationAction> configurationActions,
+            double[] comActionProbabilities) {
+        // 组合中各参数的特性概率取平均；没有训练结果的参数不参与平均
+        int numActions = comActionProbabilities.length;
+        int n = 0;
+        for (BaseConfigurationGenerator.ConfigurationAction action : configurationActions) {
+            double[] pro = parameterFeatureProbabilities.get(action);
+            if (pro == null) {
+                continue;
+            }
+            for (int i = 0; i < numActions; i++) {
+                comActionProbabilities[i] += pro[i];
+            }
+            n++;
+        }
+        for (int i = 0; i < numActions; i++) {
+            comActionProbabilities[i] = n == 0 ? 1.0 / numActions : comActionProbabilities[i] / n;
         }
     }
 }
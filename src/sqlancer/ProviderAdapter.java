@@ -5,13 +5,12 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import sqlancer.StateToReproduce.OracleRunReproductionState;
-import sqlancer.common.DBMSCommon;
 import sqlancer.common.oracle.CompositeTestOracle;
+import sqlancer.common.oracle.PipelinedTestOracle;
 import sqlancer.common.oracle.TestOracle;
 import sqlancer.common.schema.AbstractSchema;
 
 import static java.lang.Thread.sleep;
-import static sqlancer.ParameteraAwareGenerator.featureSet;
 
 public abstract class ProviderAdapter<G extends GlobalState<O, ? extends AbstractSchema<G, ?>, C>, O extends DBMSSpecificOptions<? extends OracleFactory<G>>, C extends SQLancerDBConnection>
         implements DatabaseProvider<G, O, C> {
@@ -20,8 +19,8 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
     private final Class<O> optionClass;
 
     // Variables for QPG
-    Map<String, String> queryPlanPool = new HashMap<>();
-    static double[] weightedAverageReward; // static variable for sharing across all threads
+    QueryPlanPool queryPlanPool;
+    MutatorBandit mutatorBandit; // shared across all threads that test the same DBMS
     int currentSelectRewards;
     int currentSelectCounts;
     int currentMutationOperator = -1;
@@ -52,20 +51,21 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
     //Tang: 生成配置参数并进行测试
     public Reproducer<G> generateDatabaseWithConfigurationTest(G globalState, List<BaseConfigurationGenerator.ConfigurationAction> actions) throws Exception{
 
-        ParameteraAwareGenerator parameterAwareGenerator = new ParameteraAwareGenerator(getActionClass());
         List<? extends OracleFactory<G>> testOracleFactory = globalState.getDbmsSpecificOptions()
                 .getTestOracleFactory();
-        parameterAwareGenerator.chooseFeature(actions);
+        globalState.getFeatureTracker().setProbabilities(ParameteraAwareGenerator.chooseFeature(getActionClass(), actions));
 
         try {
             checkViewsAreValid(globalState);
             globalState.getManager().incrementCreateDatabase();
             TestOracle<G> testOracle = testOracleFactory.get(0).create(globalState);
             for (int i = 0; i < BaseConfigurationGenerator.TRAINING_SAMPLES; i++) {
-                generateConfiguration(globalState, actions.get(0));
-                generateConfiguration(globalState, actions.get(1));
+                for (BaseConfigurationGenerator.ConfigurationAction action : actions) {
+                    generateConfiguration(globalState, action);
+                }
                 if(i==0){
                     generateDatabase(globalState);
+                    globalState.validateSchema();
                 }
 
                 long startTime = System.currentTimeMillis();
@@ -80,6 +80,7 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
                             Main.nrSuccessfulActions.addAndGet(1);
                         } catch (IgnoreMeException ignored) {
                         } catch (AssertionError e) {
+                            globalState.getRandomly().rewardRecentConstants();
                             Reproducer<G> reproducer = testOracle.getLastReproducer();
                             if (reproducer != null) {
                                 return reproducer;
@@ -95,8 +96,9 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
         }
         finally {
             if(globalState.getConnection().isValid()) {
-                generateDefaultConfiguration(globalState, actions.get(0));
-                generateDefaultConfiguration(globalState, actions.get(1));
+                for (BaseConfigurationGenerator.ConfigurationAction action : actions) {
+                    generateDefaultConfiguration(globalState, action);
+                }
             }else{
                 sleep(3000);
             }
@@ -115,6 +117,7 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
         try {
             System.out.println("prepare generating training database with configuration: " + action);
                 generateDatabase(globalState);
+                globalState.validateSchema();
             for (int i = 0; i < BaseConfigurationGenerator.TRAINING_SAMPLES; i++) {
 
                 System.out.println("Training sample " + (i + 1) + " / " + BaseConfigurationGenerator.TRAINING_SAMPLES);
@@ -129,13 +132,15 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
                         assert localState != null;
                         try {
                             globalState.getManager().incrementSelectQueryCount();
-                            featureSet.clear();
-                            AFLMonitor.getInstance().clearCoverage();
+                            globalState.getFeatureTracker().clearFeatures();
+                            globalState.getAflMonitor().clearCoverage();
                             //System.out.println("select"); // reset hashcode
                             testOracle.genSelect();
                             //System.out.println("out select");
-                            AFLMonitor.getInstance().refreshBuffer();
-                            parameterAwareGenerator.updateCounts();
+                            AFLMonitor monitor = globalState.getAflMonitor();
+                            monitor.hasNewBits();
+                            parameterAwareGenerator.updateCounts(globalState.getFeatureTracker().getFeatureMask(),
+                                    monitor.getHitEdges(), monitor.getHitCounts(), monitor.getNrHitEdges());
 
                             Main.nrSuccessfulActions.addAndGet(1);
                         } catch (IgnoreMeException ignored) {
@@ -172,10 +177,14 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
     public Reproducer<G> generateAndTestDatabase(G globalState) throws Exception {
         try {
             generateDatabase(globalState);
+            globalState.validateSchema();
             checkViewsAreValid(globalState);
             globalState.getManager().incrementCreateDatabase();
 
             TestOracle<G> oracle = getTestOracle(globalState);
+            if (oracle instanceof PipelinedTestOracle) {
+                return testPipelined(globalState, (PipelinedTestOracle<G, ?>) oracle);
+            }
             for (int i = 0; i < globalState.getOptions().getNrQueries(); i++) {
                 try (OracleRunReproductionState localState = globalState.getState().createLocalState()) {
                     assert localState != null;
@@ -199,6 +208,32 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
         return null;
     }
 
+    // generates the checks at most getOraclePipelineDepth() ahead of their execution, see CheckPipeline
+    private <Q> Reproducer<G> testPipelined(G globalState, PipelinedTestOracle<G, Q> oracle) throws Exception {
+        int nrQueries = globalState.getOptions().getNrQueries();
+        try (CheckPipeline<Q> checks = new CheckPipeline<>(oracle::generate,
+                globalState.getOptions().getOraclePipelineDepth(), nrQueries, Randomly.getNonCachedInteger())) {
+            for (int i = 0; i < nrQueries; i++) {
+                try (OracleRunReproductionState localState = globalState.getState().createLocalState()) {
+                    assert localState != null;
+                    try {
+                        oracle.execute(checks.next());
+                        globalState.getManager().incrementSelectQueryCount();
+                    } catch (IgnoreMeException ignored) {
+                    } catch (AssertionError e) {
+                        Reproducer<G> reproducer = oracle.getLastReproducer();
+                        if (reproducer != null) {
+                            return reproducer;
+                        }
+                        throw e;
+                    }
+                    localState.executedWithoutError();
+                }
+            }
+            return null;
+        }
+    }
+
     protected abstract void checkViewsAreValid(G globalState) throws SQLException;
 
     protected TestOracle<G> getTestOracle(G globalState) throws Exception {
@@ -236,11 +271,16 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
     // QPG: entry function
     @Override
     public void generateAndTestDatabaseWithQueryPlanGuidance(G globalState) throws Exception {
-        if (weightedAverageReward == null) {
-            weightedAverageReward = initializeWeightedAverageReward(); // Same length as the list of mutators
+        if (mutatorBandit == null) {
+            // Same length as the list of mutators
+            mutatorBandit = MutatorBandit.forDBMS(getDBMSName(), initializeWeightedAverageReward().length);
+        }
+        if (queryPlanPool == null) {
+            queryPlanPool = new QueryPlanPool(globalState.getOptions().getQPGPoolSize());
         }
         try {
             generateDatabase(globalState);
+            globalState.validateSchema();
             checkViewsAreValid(globalState);
             globalState.getManager().incrementCreateDatabase();
 
@@ -279,22 +319,20 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
     }
 
     // QPG: mutate tables for a new database state
-    private synchronized boolean mutateTables(G globalState) throws Exception {
+    private boolean mutateTables(G globalState) throws Exception {
         // Update rewards based on a set of newly generated queries in last iteration
         if (currentMutationOperator != -1) {
-            weightedAverageReward[currentMutationOperator] += ((double) currentSelectRewards
-                    / (double) currentSelectCounts) * globalState.getOptions().getQPGk();
+            mutatorBandit.addReward(currentMutationOperator, ((double) currentSelectRewards
+                    / (double) currentSelectCounts) * globalState.getOptions().getQPGk());
         }
         currentMutationOperator = -1;
 
         // Choose mutator based on the rewards
-        int selectedActionIndex = 0;
-        if (Randomly.getPercentage() < globalState.getOptions().getQPGProbability()) {
-            selectedActionIndex = globalState.getRandomly().getInteger(0, weightedAverageReward.length);
-        } else {
-            selectedActionIndex = DBMSCommon.getMaxIndexInDoubleArray(weightedAverageReward);
-        }
+        int selectedActionIndex = mutatorBandit.select(globalState.getOptions().getQPGPolicy(),
+                globalState.getOptions().getQPGProbability(), globalState.getRandomly());
         int reward = 0;
+        int checked = Math.min(queryPlanPool.size(), globalState.getOptions().getQPGRecheckBatchSize());
+        long startTime = System.nanoTime();
 
         try {
             executeMutator(selectedActionIndex, globalState);
@@ -303,7 +341,8 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
         } catch (IgnoreMeException | AssertionError e) {
         } finally {
             // Update rewards based on existing queries associated with the query plan pool
-            updateReward(selectedActionIndex, (double) reward / (double) queryPlanPool.size(), globalState);
+            mutatorBandit.update(selectedActionIndex, (double) reward / (double) Math.max(1, checked),
+                    globalState.getOptions().getQPGk(), System.nanoTime() - startTime, checked);
             currentMutationOperator = selectedActionIndex;
         }
 
@@ -322,42 +361,17 @@ public abstract class ProviderAdapter<G extends GlobalState<O, ? extends Abstrac
         }
 
         currentSelectCounts += 1;
-        if (queryPlanPool.containsKey(queryPlan)) {
-            return false;
-        } else {
-            queryPlanPool.put(queryPlan, selectStr);
+        if (queryPlanPool.add(queryPlan, selectStr)) {
             currentSelectRewards += 1;
             return true;
         }
+        return false;
     }
 
-    // Obtain the reward of the current action based on the queries associated with the query plan pool
+    // Obtain the reward of the current action based on a batch of the queries associated with the query plan pool
     private int checkQueryPlan(G globalState) throws Exception {
-        int newQueryPlanFound = 0;
-        HashMap<String, String> modifiedQueryPlan = new HashMap<>();
-        for (Iterator<Map.Entry<String, String>> it = queryPlanPool.entrySet().iterator(); it.hasNext();) {
-            Map.Entry<String, String> item = it.next();
-            String queryPlan = item.getKey();
-            String selectStr = item.getValue();
-            String newQueryPlan = getQueryPlan(selectStr, globalState);
-            if (newQueryPlan.isEmpty()) { // Invalid query
-                it.remove();
-            } else if (!queryPlan.equals(newQueryPlan)) { // A query plan has been changed
-                it.remove();
-                modifiedQueryPlan.put(newQueryPlan, selectStr);
-                if (!queryPlanPool.containsKey(newQueryPlan)) { // A new query plan is found
-                    newQueryPlanFound++;
-                }
-            }
-        }
-        queryPlanPool.putAll(modifiedQueryPlan);
-        return newQueryPlanFound;
-    }
-
-    // QPG: update the reward of current action
-    private void updateReward(int actionIndex, double reward, G globalState) {
-        weightedAverageReward[actionIndex] += (reward - weightedAverageReward[actionIndex])
-                * globalState.getOptions().getQPGk();
+        return queryPlanPool.recheck(globalState.getOptions().getQPGRecheckBatchSize(),
+                selectStr -> getQueryPlan(selectStr, globalState));
     }
 
     // QPG: initialize the weighted average reward of all mutation operators (required implementation in specific DBMS)
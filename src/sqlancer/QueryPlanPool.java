@@ -0,0 +1,163 @@
+package sqlancer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The query plans that Query Plan Guidance (QPG) has observed, each with a query that produces it.
+ *
+ * Plans are stored as 128-bit fingerprints of their whitespace-normalized text rather than as the (often long) plan
+ * text itself. The pool holds at most a fixed number of plans and evicts the least recently used one (plans are used
+ * when a query produces them again or when they are re-checked). Re-checking after a mutation only re-plans a batch of
+ * the least recently used queries, so its cost does not grow with the pool.
+ */
+public class QueryPlanPool {
+
+    private final int capacity;
+    private final Map<Fingerprint, String> queries;
+
+    public QueryPlanPool(int capacity) {
+        this.capacity = Math.max(1, capacity);
+        this.queries = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Fingerprint, String> eldest) {
+                return size() > QueryPlanPool.this.capacity;
+            }
+        };
+    }
+
+    @FunctionalInterface
+    public interface QueryPlanner {
+        /**
+         * @return the query plan of the query, or an empty string if the query is invalid
+         */
+        String getQueryPlan(String query) throws Exception;
+    }
+
+    public int size() {
+        return queries.size();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public boolean contains(String queryPlan) {
+        return queries.containsKey(fingerprint(queryPlan));
+    }
+
+    /**
+     * @return whether the query plan is new; the query is only kept for new plans
+     */
+    public boolean add(String queryPlan, String query) {
+        Fingerprint fingerprint = fingerprint(queryPlan);
+        if (queries.get(fingerprint) != null) {
+            return false;
+        }
+        queries.put(fingerprint, query);
+        return true;
+    }
+
+    /**
+     * Re-plans the queries of the least recently used plans, e.g., after the database has been mutated. Queries that
+     * became invalid are removed, and queries whose plan changed are kept under their new plan.
+     *
+     * @param batchSize
+     *            the maximum number of queries to re-plan
+     *
+     * @return the number of new query plans found
+     */
+    public int recheck(int batchSize, QueryPlanner planner) throws Exception {
+        List<Map.Entry<Fingerprint, String>> batch = new ArrayList<>();
+        for (Iterator<Map.Entry<Fingerprint, String>> it = queries.entrySet().iterator(); it.hasNext()
+                && batch.size() < batchSize;) {
+            Map.Entry<Fingerprint, String> entry = it.next();
+            batch.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        int newQueryPlanFound = 0;
+        for (Map.Entry<Fingerprint, String> entry : batch) {
+            String selectStr = entry.getValue();
+            String newQueryPlan = planner.getQueryPlan(selectStr);
+            if (newQueryPlan.isEmpty()) { // Invalid query
+                queries.remove(entry.getKey());
+                continue;
+            }
+            Fingerprint newFingerprint = fingerprint(newQueryPlan);
+            if (newFingerprint.equals(entry.getKey())) {
+                queries.get(newFingerprint); // mark as used, so that the next batch continues with other queries
+            } else { // A query plan has been changed
+                queries.remove(entry.getKey());
+                if (!queries.containsKey(newFingerprint)) { // A new query plan is found
+                    queries.put(newFingerprint, selectStr);
+                    newQueryPlanFound++;
+                }
+            }
+        }
+        return newQueryPlanFound;
+    }
+
+    /**
+     * Computes two independent 64-bit hashes over the plan text, treating each run of whitespace as a single space and
+     * ignoring leading and trailing whitespace.
+     */
+    static Fingerprint fingerprint(String queryPlan) {
+        long h1 = 0xcbf29ce484222325L;
+        long h2 = 0x9e3779b97f4a7c15L;
+        boolean pendingSpace = false;
+        boolean started = false;
+        int length = 0;
+        for (int i = 0; i < queryPlan.length(); i++) {
+            char c = queryPlan.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = started;
+                continue;
+            }
+            if (pendingSpace) {
+                h1 = (h1 ^ ' ') * 0x100000001b3L;
+                h2 = (h2 + ' ') * 0xff51afd7ed558ccdL;
+                length++;
+                pendingSpace = false;
+            }
+            h1 = (h1 ^ c) * 0x100000001b3L;
+            h2 = (h2 + c) * 0xff51afd7ed558ccdL;
+            length++;
+            started = true;
+        }
+        return new Fingerprint(Xoshiro256Random.mix64(h1 ^ length), Xoshiro256Random.mix64(h2 + length));
+    }
+
+    static final class Fingerprint {
+
+        private final long high;
+        private final long low;
+
+        Fingerprint(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Fingerprint)) {
+                return false;
+            }
+            Fingerprint other = (Fingerprint) obj;
+            return high == other.high && low == other.low;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (low ^ (low >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%016x%016x", high, low);
+        }
+    }
+}
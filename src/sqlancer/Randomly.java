@@ -6,7 +6,6 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
-import java.util.Random;
 import java.util.function.Supplier;
 
 public final class Randomly {
@@ -16,36 +15,37 @@ public final class Randomly {
     private static boolean useCaching = true;
     private static int cacheSize = 100;
 
-    private final List<Long> cachedLongs = new ArrayList<>();
-    private final List<Integer> cachedIntegers = new ArrayList<>();
-    private final List<String> cachedStrings = new ArrayList<>();
-    private final List<Double> cachedDoubles = new ArrayList<>();
+    private final ConstantCache.OfLong cachedLongs = new ConstantCache.OfLong(cacheSize);
+    private final ConstantCache.OfLong cachedIntegers = new ConstantCache.OfLong(cacheSize);
+    private final ConstantCache.OfString cachedStrings = new ConstantCache.OfString(cacheSize);
+    // doubles are stored as their bit patterns, so that NaN and -0.0 are cached like any other value
+    private final ConstantCache.OfLong cachedDoubles = new ConstantCache.OfLong(cacheSize);
     private final List<byte[]> cachedBytes = new ArrayList<>();
     private Supplier<String> provider;
 
-    private static final ThreadLocal<Random> THREAD_RANDOM = new ThreadLocal<>();
+    private static final ThreadLocal<Xoshiro256Random> THREAD_RANDOM = new ThreadLocal<>();
     private long seed;
 
     private void addToCache(long val) {
-        if (useCaching && cachedLongs.size() < cacheSize && !cachedLongs.contains(val)) {
+        if (useCaching) {
             cachedLongs.add(val);
         }
     }
 
     private void addToCache(int val) {
-        if (useCaching && cachedIntegers.size() < cacheSize && !cachedIntegers.contains(val)) {
+        if (useCaching) {
             cachedIntegers.add(val);
         }
     }
 
     private void addToCache(double val) {
-        if (useCaching && cachedDoubles.size() < cacheSize && !cachedDoubles.contains(val)) {
-            cachedDoubles.add(val);
+        if (useCaching) {
+            cachedDoubles.add(Double.doubleToLongBits(val));
         }
     }
 
     private void addToCache(String val) {
-        if (useCaching && cachedStrings.size() < cacheSize && !cachedStrings.contains(val)) {
+        if (useCaching) {
             cachedStrings.add(val);
         }
     }
@@ -54,7 +54,7 @@ public final class Randomly {
         if (!useCaching || cachedLongs.isEmpty()) {
             return null;
         } else {
-            return Randomly.fromList(cachedLongs);
+            return cachedLongs.sample();
         }
     }
 
@@ -62,7 +62,7 @@ public final class Randomly {
         if (!useCaching || cachedIntegers.isEmpty()) {
             return null;
         } else {
-            return Randomly.fromList(cachedIntegers);
+            return (int) cachedIntegers.sample();
         }
     }
 
@@ -71,9 +71,9 @@ public final class Randomly {
             return null;
         }
         if (Randomly.getBoolean() && !cachedLongs.isEmpty()) {
-            return (double) Randomly.fromList(cachedLongs);
+            return (double) cachedLongs.sample();
         } else if (!cachedDoubles.isEmpty()) {
-            return Randomly.fromList(cachedDoubles);
+            return Double.longBitsToDouble(cachedDoubles.sample());
         } else {
             return null;
         }
@@ -84,14 +84,14 @@ public final class Randomly {
             return null;
         }
         if (Randomly.getBoolean() && !cachedLongs.isEmpty()) {
-            return String.valueOf(Randomly.fromList(cachedLongs));
+            return String.valueOf(cachedLongs.sample());
         } else if (Randomly.getBoolean() && !cachedDoubles.isEmpty()) {
-            return String.valueOf(Randomly.fromList(cachedDoubles));
+            return String.valueOf(Double.longBitsToDouble(cachedDoubles.sample()));
         } else if (Randomly.getBoolean() && !cachedBytes.isEmpty()
                 && stringGenerationStrategy == StringGenerationStrategy.SOPHISTICATED) {
             return new String(Randomly.fromList(cachedBytes));
         } else if (!cachedStrings.isEmpty()) {
-            String randomString = Randomly.fromList(cachedStrings);
+            String randomString = cachedStrings.sample();
             if (Randomly.getBoolean()) {
                 return randomString;
             } else {
@@ -102,6 +102,18 @@ public final class Randomly {
         }
     }
 
+    /**
+     * Marks the constants that were most recently generated or taken from the cache as interesting, for example
+     * because the statements using them reached new coverage or triggered a bug. These constants are kept longer and
+     * are preferred when values are taken from the cache.
+     */
+    public void rewardRecentConstants() {
+        cachedLongs.rewardRecent();
+        cachedIntegers.rewardRecent();
+        cachedStrings.rewardRecent();
+        cachedDoubles.rewardRecent();
+    }
+
     private static boolean cacheProbability() {
         return useCaching && getNextLong(0, 3) == 1;
     }
@@ -188,10 +200,10 @@ public final class Randomly {
         return getThreadRandom().get().nextDouble();
     }
 
-    private static ThreadLocal<Random> getThreadRandom() {
+    private static ThreadLocal<Xoshiro256Random> getThreadRandom() {
         if (THREAD_RANDOM.get() == null) {
             // a static method has been called, before Randomly was instantiated
-            THREAD_RANDOM.set(new Random());
+            THREAD_RANDOM.set(new Xoshiro256Random());
         }
         return THREAD_RANDOM;
     }
@@ -543,12 +555,39 @@ public final class Randomly {
     }
 
     public Randomly() {
-        THREAD_RANDOM.set(new Random());
+        THREAD_RANDOM.set(new Xoshiro256Random());
     }
 
     public Randomly(long seed) {
         this.seed = seed;
-        THREAD_RANDOM.set(new Random(seed));
+        THREAD_RANDOM.set(new Xoshiro256Random(seed));
+    }
+
+    /**
+     * Seeds the random number generator of the current thread, which continues generating for another thread (e.g.,
+     * to generate queries ahead), so that the generated values do not depend on thread scheduling.
+     */
+    public static void setThreadSeed(long seed) {
+        THREAD_RANDOM.set(new Xoshiro256Random(seed));
+    }
+
+    /**
+     * Replaces the random number generator of the current thread.
+     *
+     * @return the previous generator of the current thread
+     */
+    static Xoshiro256Random replaceThreadRandom(Xoshiro256Random random) {
+        Xoshiro256Random previous = getThreadRandom().get();
+        THREAD_RANDOM.set(random);
+        return previous;
+    }
+
+    /**
+     * Derives a seed for the {@code index}-th worker from a run seed. Adjacent indices yield unrelated streams, and
+     * index 0 yields the run seed itself.
+     */
+    public static long splitSeed(long seed, int index) {
+        return Xoshiro256Random.split(seed, index);
     }
 
     public static double getUncachedDouble() {
@@ -573,9 +612,8 @@ public final class Randomly {
         }
     }
 
-    // see https://stackoverflow.com/a/2546158
-    // uniformity does not seem to be important for us
-    // SQLancer previously used ThreadLocalRandom.current().nextLong(lower, upper)
+    // SQLancer previously used ThreadLocalRandom.current().nextLong(lower, upper) and then
+    // Random.longs(lower, upper).findFirst(), which allocated a stream for every call
     private static long getNextLong(long lower, long upper) {
         if (lower > upper) {
             throw new IllegalArgumentException(lower + " " + upper);
@@ -583,11 +621,17 @@ public final class Randomly {
         if (lower == upper) {
             return lower;
         }
-        return getThreadRandom().get().longs(lower, upper).findFirst().getAsLong();
+        return getThreadRandom().get().nextLong(lower, upper);
     }
 
     private static int getNextInt(int lower, int upper) {
-        return (int) getNextLong(lower, upper);
+        if (lower > upper) {
+            throw new IllegalArgumentException(lower + " " + upper);
+        }
+        if (lower == upper) {
+            return lower;
+        }
+        return (int) getThreadRandom().get().nextLong(lower, upper);
     }
 
     public long getSeed() {
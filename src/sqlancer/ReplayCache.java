@@ -0,0 +1,163 @@
+package sqlancer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import sqlancer.Main.QueryManager;
+import sqlancer.common.query.Query;
+
+/**
+ * Replays candidate statement lists for the reducers. Candidates usually share a long prefix with the statements that
+ * are known to trigger the bug, so after executing such a prefix, the database is snapshotted (if the provider
+ * implements {@link SnapshotCapableProvider}). A later candidate that starts with the same prefix
+ * restores the snapshot and only executes the remaining statements.
+ *
+ * Each instance manages one snapshot and must only be used for one state at a time.
+ */
+public class ReplayCache<G extends GlobalState<O, ?, C>, O extends DBMSSpecificOptions<?>, C extends SQLancerDBConnection> {
+
+    // snapshots that save fewer statements than this are not worth their cost
+    private static final int MIN_SNAPSHOT_GAIN = 8;
+
+    private final DatabaseProvider<G, O, C> provider;
+    private final SnapshotCapableProvider<G, C> snapshots;
+    private final G state;
+    private final String snapshotName;
+    private List<Query<C>> snapshotPrefix;
+    private boolean snapshotsEnabled;
+
+    @SuppressWarnings("unchecked")
+    public ReplayCache(DatabaseProvider<G, O, C> provider, G state) {
+        this.provider = provider;
+        this.snapshots = provider instanceof SnapshotCapableProvider ? (SnapshotCapableProvider<G, C>) provider : null;
+        this.snapshotsEnabled = snapshots != null;
+        this.state = state;
+        this.snapshotName = state.getDatabaseName() + "_snapshot";
+    }
+
+    public G getState() {
+        return state;
+    }
+
+    /**
+     * Creates a state for replaying candidates concurrently to the given state. The new state shares the options,
+     * randomness and logger of the template, but uses its own database and {@link StateToReproduce}.
+     */
+    public static <G extends GlobalState<O, ?, C>, O extends DBMSSpecificOptions<?>, C extends SQLancerDBConnection> G createIsolatedState(
+            DatabaseProvider<G, O, C> provider, G template, String databaseName) throws Exception {
+        G isolated = provider.getGlobalStateClass().getDeclaredConstructor().newInstance();
+        isolated.setState(provider.getStateToReproduce(databaseName));
+        isolated.setRandomly(template.getRandomly());
+        isolated.setDatabaseName(databaseName);
+        isolated.setMainOptions(template.getOptions());
+        isolated.setDbmsSpecificOptions(template.getDbmsSpecificOptions());
+        isolated.setStateLogger(template.getLogger());
+        isolated.setManager(new QueryManager<>(isolated));
+        return isolated;
+    }
+
+    /**
+     * Creates the database of the state and executes the statements on it, ignoring errors. The returned connection
+     * is set on the state and has to be closed by the caller.
+     *
+     * @param statements
+     *            the statements to execute
+     * @param stablePrefix
+     *            the number of leading statements that later candidates are likely to share, and after which a
+     *            snapshot is taken
+     */
+    public C replay(List<Query<C>> statements, int stablePrefix) throws Exception {
+        int executed = 0;
+        C con = null;
+        if (snapshotPrefix != null && isPrefix(snapshotPrefix, statements)) {
+            try {
+                con = withProvider(() -> snapshots.restoreSnapshot(state, snapshotName));
+                executed = snapshotPrefix.size();
+            } catch (Exception e) {
+                disableSnapshots();
+            }
+        }
+        if (con == null) {
+            con = withProvider(() -> provider.createDatabase(state));
+        }
+        state.setConnection(con);
+
+        int snapshotAt = snapshotsEnabled && stablePrefix - executed >= MIN_SNAPSHOT_GAIN
+                ? Math.min(stablePrefix, statements.size()) : -1;
+        for (int i = executed; i <= statements.size(); i++) {
+            if (i == snapshotAt) {
+                List<Query<C>> prefix = statements.subList(0, i);
+                try {
+                    if (withProvider(() -> snapshots.createSnapshot(state, snapshotName, prefix))) {
+                        snapshotPrefix = new ArrayList<>(prefix);
+                        // the provider may have reconnected
+                        con = state.getConnection();
+                    }
+                } catch (Exception e) {
+                    // the database may be left in an unknown state, so start over without snapshots
+                    disableSnapshots();
+                    con.close();
+                    return replay(statements, 0);
+                }
+            }
+            if (i < statements.size()) {
+                try {
+                    statements.get(i).execute(state);
+                } catch (Throwable ignoredException) {
+                    // ignore
+                }
+            }
+        }
+        return con;
+    }
+
+    private void disableSnapshots() {
+        snapshotsEnabled = false;
+        snapshotPrefix = null;
+    }
+
+    /**
+     * Removes the snapshot, if one was taken.
+     */
+    public void close() {
+        if (snapshots != null && (snapshotPrefix != null || !snapshotsEnabled)) {
+            try {
+                withProvider(() -> {
+                    snapshots.dropSnapshot(state, snapshotName);
+                    return null;
+                });
+            } catch (Exception ignored) {
+                // the snapshot is overwritten by the next reduction
+            }
+        }
+        snapshotPrefix = null;
+    }
+
+    private static <C extends SQLancerDBConnection> boolean isPrefix(List<Query<C>> prefix, List<Query<C>> statements) {
+        if (prefix.size() > statements.size()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.size(); i++) {
+            Query<C> a = prefix.get(i);
+            Query<C> b = statements.get(i);
+            if (a != b && !a.getQueryString().equals(b.getQueryString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private interface ProviderCall<T> {
+        T call() throws Exception;
+    }
+
+    /**
+     * Providers keep per-database connection details in fields, so calls of states that share a provider (e.g., the
+     * workers of the parallel statement reducer) are serialized.
+     */
+    private <T> T withProvider(ProviderCall<T> call) throws Exception {
+        synchronized (provider) {
+            return call.call();
+        }
+    }
+}
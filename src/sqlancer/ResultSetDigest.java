@@ -0,0 +1,116 @@
+package sqlancer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * An order-independent digest of the multiset of values in a result set: the number of values and the sum (modulo
+ * 2^128) of a 128-bit hash of each value. Unlike a set, the digest distinguishes result sets that differ only in how
+ * often a value occurs. Digests are computed while the result set is read, so the values do not need to be kept in
+ * memory; {@link ComparatorHelper} only materializes the result sets when two digests differ and the difference has to
+ * be reported.
+ */
+public final class ResultSetDigest {
+
+    private static final long NULL_HASH_HIGH = 0x6a09e667f3bcc908L;
+    private static final long NULL_HASH_LOW = 0xbb67ae8584caa73bL;
+
+    private final List<String> queries = new ArrayList<>();
+    private final UnaryOperator<String> canonicalizationRule;
+    private long count;
+    private long sumHigh;
+    private long sumLow;
+
+    public ResultSetDigest() {
+        this(null);
+    }
+
+    /**
+     * @param canonicalizationRule
+     *            applied to each value before it is added, or null
+     */
+    public ResultSetDigest(UnaryOperator<String> canonicalizationRule) {
+        this.canonicalizationRule = canonicalizationRule;
+    }
+
+    /**
+     * Adds a value as {@link ComparatorHelper#getResultSetFirstColumnAsString} would return it, that is, without a
+     * trailing decimal point followed only by zeros.
+     */
+    public void add(String value) {
+        if (value == null || canonicalizationRule != null) {
+            String canonicalValue = canonicalizationRule == null ? null
+                    : canonicalizationRule.apply(value == null ? null : ComparatorHelper.removeTrailingZeros(value));
+            if (canonicalValue == null) {
+                add(NULL_HASH_HIGH, NULL_HASH_LOW);
+            } else {
+                addHash(canonicalValue, canonicalValue.length());
+            }
+        } else {
+            addHash(value, ComparatorHelper.getLengthWithoutTrailingZeros(value));
+        }
+    }
+
+    // hashes the first length characters without creating a substring
+    private void addHash(String value, int length) {
+        long h1 = 0xcbf29ce484222325L;
+        long h2 = 0x9e3779b97f4a7c15L;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            h1 = (h1 ^ c) * 0x100000001b3L;
+            h2 = (h2 + c) * 0xff51afd7ed558ccdL;
+        }
+        add(Xoshiro256Random.mix64(h1 ^ length), Xoshiro256Random.mix64(h2 + length));
+    }
+
+    private void add(long high, long low) {
+        long newLow = sumLow + low;
+        sumHigh += high + (Long.compareUnsigned(newLow, sumLow) < 0 ? 1 : 0);
+        sumLow = newLow;
+        count++;
+    }
+
+    /**
+     * Adds the values of another digest, which corresponds to a UNION ALL of the result sets.
+     */
+    public void addAll(ResultSetDigest other) {
+        long newLow = sumLow + other.sumLow;
+        sumHigh += other.sumHigh + (Long.compareUnsigned(newLow, sumLow) < 0 ? 1 : 0);
+        sumLow = newLow;
+        count += other.count;
+        queries.addAll(other.queries);
+    }
+
+    void addQuery(String query) {
+        queries.add(query);
+    }
+
+    /**
+     * @return the queries whose results were added, which are executed again if the values are needed
+     */
+    public List<String> getQueries() {
+        return Collections.unmodifiableList(queries);
+    }
+
+    UnaryOperator<String> getCanonicalizationRule() {
+        return canonicalizationRule;
+    }
+
+    public long size() {
+        return count;
+    }
+
+    /**
+     * @return whether both digests (most likely) stem from the same multiset of values
+     */
+    public boolean hasSameValues(ResultSetDigest other) {
+        return count == other.count && sumHigh == other.sumHigh && sumLow == other.sumLow;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d values, %016x%016x", count, sumHigh, sumLow);
+    }
+}
@@ -8,9 +8,44 @@ import java.sql.Statement;
 public class SQLConnection implements SQLancerDBConnection {
 
     private final Connection connection;
+    private final boolean supportsMultipleStatements;
+    // set for connections from ConnectionPool, which are returned to the pool when closed
+    private String poolURL;
+    private String poolUser;
+    private ConnectionPool.SessionReset sessionReset;
+    // a pooled connection must only be returned once, as it may be handed out again afterwards
+    private boolean released;
 
     public SQLConnection(Connection connection) {
+        this(connection, false);
+    }
+
+    /**
+     * @param supportsMultipleStatements
+     *            whether the driver executes several statements separated by semicolons in a single round trip and
+     *            returns their results one after another
+     */
+    public SQLConnection(Connection connection, boolean supportsMultipleStatements) {
         this.connection = connection;
+        this.supportsMultipleStatements = supportsMultipleStatements;
+    }
+
+    /**
+     * Obtains a connection from the {@link ConnectionPool} of the current thread. Closing the returned connection
+     * resets its session state and returns it to the pool.
+     */
+    public static SQLConnection fromPool(String url, String user, String password, boolean supportsMultipleStatements,
+            ConnectionPool.SessionReset sessionReset) throws SQLException {
+        SQLConnection connection = new SQLConnection(ConnectionPool.getConnection(url, user, password),
+                supportsMultipleStatements);
+        connection.poolURL = url;
+        connection.poolUser = user;
+        connection.sessionReset = sessionReset;
+        return connection;
+    }
+
+    public boolean supportsMultipleStatements() {
+        return supportsMultipleStatements;
     }
 
     @Override
@@ -21,7 +56,12 @@ public class SQLConnection implements SQLancerDBConnection {
 
     @Override
     public void close() throws SQLException {
-        connection.close();
+        if (poolURL == null) {
+            connection.close();
+        } else if (!released) {
+            released = true;
+            ConnectionPool.release(poolURL, poolUser, connection, sessionReset);
+        }
     }
 
     @Override
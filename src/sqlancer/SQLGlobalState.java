@@ -21,10 +21,10 @@ public abstract class SQLGlobalState<O extends DBMSSpecificOptions<?>, S extends
             System.out.println(q.getQueryString());
         }
         if (logExecutionTime) {
-            getLogger().writeCurrent(" -- " + timer.end().asString());
+            getLogger().writeExecutionTime(success, timer.end());
         }
         if (q.couldAffectSchema()) {
-            updateSchema();
+            updateSchema(q, success);
         }
     }
 }
@@ -0,0 +1,50 @@
+package sqlancer;
+
+import java.util.List;
+
+import sqlancer.common.query.Query;
+
+/**
+ * Implemented by {@link DatabaseProvider}s that can snapshot a database, so that {@link ReplayCache} can continue a
+ * replay from a snapshot instead of an empty database. Replays of other providers always start from a new database.
+ */
+public interface SnapshotCapableProvider<G extends GlobalState<?, ?, C>, C extends SQLancerDBConnection> {
+
+    /**
+     * Saves the current content of the database of the given state, so that a later replay of statements that start
+     * with {@code prefix} can continue from the snapshot instead of an empty database. The connection of the state
+     * may be replaced.
+     *
+     * @param globalState
+     *            the state whose database has just executed {@code prefix}
+     * @param snapshotName
+     *            the name of the snapshot, distinct from any database name used for testing
+     * @param prefix
+     *            the statements that were executed on the database
+     *
+     * @return whether a snapshot was taken, which is not the case if the prefix contains statements whose effects the
+     *         snapshot would not preserve
+     *
+     * @throws Exception
+     *             if taking the snapshot fails
+     */
+    boolean createSnapshot(G globalState, String snapshotName, List<Query<C>> prefix) throws Exception;
+
+    /**
+     * Recreates the database of the given state from a snapshot taken by {@link #createSnapshot}.
+     *
+     * @return a connection to the restored database
+     *
+     * @throws Exception
+     *             if restoring the snapshot fails
+     */
+    C restoreSnapshot(G globalState, String snapshotName) throws Exception;
+
+    /**
+     * Removes a snapshot taken by {@link #createSnapshot}.
+     *
+     * @throws Exception
+     *             if removing the snapshot fails
+     */
+    void dropSnapshot(G globalState, String snapshotName) throws Exception;
+}
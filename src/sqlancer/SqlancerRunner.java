@@ -51,7 +51,7 @@ public class SqlancerRunner {
                 configGenerator.loadWeightsFromFile(targetDbms);
 
                 // 验证加载结果
-                int comboSize = BaseConfigurationGenerator.allParameterCombos.size();
+                int comboSize = BaseConfigurationGenerator.comboIndex.size();
                 System.out.println("参数组合总数: " + comboSize);
                 log.info("✅ 权重文件加载完成，参数组合总数：{}", comboSize);
 
@@ -120,7 +120,7 @@ public class SqlancerRunner {
         // 覆盖率计算（兼容非Linux环境）
 
 
-        Integer coverageRate = AFLMonitor.getInstance().getCoverageEdges();
+        Integer coverageRate = AFLMonitor.getCoverageEdges();
 
         status.put("coverage", coverageRate);
 
@@ -22,10 +22,10 @@ public class StandaloneReducer {
         this.originalState = StateToReproduce.deserialize(inputPath);
         this.databaseProvider = originalState.getDatabaseProvider();
         if (this.databaseProvider == null) {
-            throw new IllegalStateException("Failed to get database provider from .ser file");
+            throw new IllegalStateException("Failed to get database provider from the reproduction file");
         }
         this.outputPath = outputPath != null ? outputPath
-                : Paths.get(inputPath.toString().replaceAll("\\.ser$", ".sql"));
+                : Paths.get(inputPath.toString().replaceAll("\\.(ser|sqlog)$", ".sql"));
     }
 
     /**
@@ -123,7 +123,7 @@ public class StandaloneReducer {
         try {
             if (args.length == 0) {
                 System.err.println(
-                        "Usage: java -cp target/sqlancer-2.0.0.jar sqlancer.StandaloneReducer <path-to-ser-file> [output-file]");
+                        "Usage: java -cp target/sqlancer-2.0.0.jar sqlancer.StandaloneReducer <path-to-ser-or-sqlog-file> [output-file]");
                 System.exit(1);
             }
             Path inputPath = Paths.get(args[0]);
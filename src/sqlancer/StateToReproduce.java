@@ -142,7 +142,23 @@ public class StateToReproduce implements Serializable {
         return new OracleRunReproductionState();
     }
 
+    /**
+     * Saves the state; paths that end with {@link StatementLog#FILE_EXTENSION} are written in the binary statement log
+     * format, which only keeps the statement strings, and other paths use Java serialization.
+     */
     public void serialize(Path path) {
+        if (path.toString().endsWith(StatementLog.FILE_EXTENSION)) {
+            try (StatementLogWriter log = new StatementLogWriter(path,
+                    databaseProvider != null ? databaseProvider.getDBMSName() : null, databaseName, databaseVersion,
+                    seedValue, exception)) {
+                for (Query<?> statement : statements) {
+                    log.write(statement.getLogString());
+                }
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+            return;
+        }
         try (ObjectOutputStream oos = new ObjectOutputStream(Files.newOutputStream(path))) {
             oos.writeObject(this);
         } catch (IOException e) {
@@ -151,6 +167,24 @@ public class StateToReproduce implements Serializable {
     }
 
     public static StateToReproduce deserialize(Path path) {
+        if (StatementLogReader.isStatementLog(path)) {
+            try (StatementLogReader log = new StatementLogReader(path)) {
+                DatabaseProvider<?, ?, ?> provider = getDatabaseProvider(log.getDBMSName());
+                if (provider == null) {
+                    throw new IllegalStateException("unknown DBMS " + log.getDBMSName() + " in " + path);
+                }
+                StateToReproduce state = new StateToReproduce(log.getDatabaseName(), provider);
+                state.databaseVersion = log.getDatabaseVersion();
+                state.seedValue = log.getSeed();
+                state.exception = log.getException();
+                for (String statement : log.readStatements()) {
+                    state.logStatement(statement);
+                }
+                return state;
+            } catch (IOException e) {
+                throw new AssertionError(e);
+            }
+        }
         try (ObjectInputStream ois = new ObjectInputStream(Files.newInputStream(path))) {
             return (StateToReproduce) ois.readObject();
         } catch (IOException | ClassNotFoundException e) {
@@ -167,18 +201,19 @@ public class StateToReproduce implements Serializable {
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
         String dbmsName = (String) in.readObject();
+        this.databaseProvider = getDatabaseProvider(dbmsName);
+    }
 
-        DatabaseProvider<?, ?, ?> provider = null;
+    private static DatabaseProvider<?, ?, ?> getDatabaseProvider(String dbmsName) {
         if (dbmsName != null) {
             List<DatabaseProvider<?, ?, ?>> providers = Main.getDBMSProviders();
             for (DatabaseProvider<?, ?, ?> p : providers) {
                 if (p.getDBMSName().equals(dbmsName)) {
-                    provider = p;
-                    break;
+                    return p;
                 }
             }
         }
-        this.databaseProvider = provider;
+        return null;
     }
 
     public void setStatements(List<Query<?>> statements) {
@@ -62,19 +62,25 @@ public class StatementExecutor<G extends GlobalState<?, ?, ?>, A extends Abstrac
             nrRemaining[i]--;
             @SuppressWarnings("rawtypes")
             Query query = null;
+            // executeStatement already updates the schema after statements that could affect it
+            boolean executed = false;
             try {
                 boolean success;
                 int nrTries = 0;
                 do {
+                    executed = false;
                     query = nextAction.getQuery(globalState);
                     success = globalState.executeStatement(query);
+                    executed = true;
                 } while (nextAction.canBeRetried() && !success
                         && nrTries++ < globalState.getOptions().getNrStatementRetryCount());
             } catch (IgnoreMeException ignored) {
 
             }
             if (query != null && query.couldAffectSchema()) {
-                globalState.updateSchema();
+                if (!executed) {
+                    globalState.updateSchema();
+                }
                 queryConsumer.notify(query);
             }
             total--;
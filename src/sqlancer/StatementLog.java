@@ -0,0 +1,132 @@
+package sqlancer;
+
+import java.util.Locale;
+
+/**
+ * The binary statement log format, a compact alternative to the text logs of --log-each-select and to the Java
+ * serialization of {@link StateToReproduce}.
+ *
+ * A log consists of a header, a sequence of blocks and a footer:
+ *
+ * <pre>
+ * header: int MAGIC, byte VERSION, string dbms, string database, string version, long seed, string exception
+ * block:  int uncompressed length, int compressed length, int number of records, deflated records
+ * footer: int 0, int number of blocks, long number of records, (long offset, long first record)*,
+ *         long footer offset, int MAGIC
+ * </pre>
+ *
+ * A record is a kind, a flag byte, the execution time in milliseconds (if {@link #HAS_TIME} is set), and the
+ * statement. Integers in records are unsigned varints. Strings are a varint of their UTF-8 length plus one (0 for
+ * missing strings) followed by the UTF-8 bytes. Statements are interned per block: a reference of 0 is followed by a
+ * new string, which then has the next id, starting at 1. Blocks are compressed and interned independently, so readers
+ * can start at any block. Logs that were not closed (e.g., after a crash) lack the footer and are indexed by scanning
+ * the block headers.
+ */
+public final class StatementLog {
+
+    public static final int MAGIC = 0x53514C42; // "SQLB"
+    public static final byte VERSION = 1;
+    public static final String FILE_EXTENSION = ".sqlog";
+
+    public static final int SUCCESS = 1;
+    public static final int HAS_SUCCESS = 2;
+    public static final int HAS_TIME = 4;
+
+    static final int BLOCK_SIZE = 1 << 16;
+
+    private StatementLog() {
+    }
+
+    public enum Kind {
+        QUERY, DML, DDL, COMMENT, INFO, OTHER;
+
+        /**
+         * Classifies a statement by its first keyword.
+         */
+        public static Kind of(String statement) {
+            String s = statement.stripLeading();
+            if (s.startsWith("--") || s.startsWith("/*")) {
+                return COMMENT;
+            }
+            int end = 0;
+            while (end < s.length() && Character.isLetter(s.charAt(end))) {
+                end++;
+            }
+            switch (s.substring(0, end).toUpperCase(Locale.ROOT)) {
+            case "SELECT":
+            case "WITH":
+            case "VALUES":
+            case "EXPLAIN":
+                return QUERY;
+            case "INSERT":
+            case "UPDATE":
+            case "DELETE":
+            case "REPLACE":
+            case "MERGE":
+                return DML;
+            case "CREATE":
+            case "ALTER":
+            case "DROP":
+            case "TRUNCATE":
+            case "RENAME":
+                return DDL;
+            default:
+                return OTHER;
+            }
+        }
+    }
+
+    public static final class Record {
+
+        private final Kind kind;
+        private final int flags;
+        private final long millis;
+        private final String statement;
+
+        public Record(Kind kind, int flags, long millis, String statement) {
+            this.kind = kind;
+            this.flags = flags;
+            this.millis = millis;
+            this.statement = statement;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public int getFlags() {
+            return flags;
+        }
+
+        public boolean hasSuccess() {
+            return (flags & HAS_SUCCESS) != 0;
+        }
+
+        public boolean isSuccess() {
+            return (flags & SUCCESS) != 0;
+        }
+
+        public boolean hasTime() {
+            return (flags & HAS_TIME) != 0;
+        }
+
+        /**
+         * @return the execution time in milliseconds, or -1 if it was not logged
+         */
+        public long getMillis() {
+            return hasTime() ? millis : -1;
+        }
+
+        public String getStatement() {
+            return statement;
+        }
+
+        /**
+         * @return the statement as it appears in the text logs
+         */
+        @Override
+        public String toString() {
+            return hasTime() ? statement + " -- " + millis + "ms" : statement;
+        }
+    }
+}
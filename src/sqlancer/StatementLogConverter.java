@@ -0,0 +1,68 @@
+package sqlancer;
+
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import sqlancer.StatementLog.Record;
+
+/**
+ * Exports a binary statement log (see {@link StatementLog}) as SQL, in the format of the text logs.
+ */
+public final class StatementLogConverter {
+
+    private StatementLogConverter() {
+    }
+
+    /**
+     * Writes the records with an index in [from, to).
+     */
+    public static void convert(Path input, PrintWriter out, long from, long to) throws Exception {
+        try (StatementLogReader reader = new StatementLogReader(input)) {
+            if (reader.getException() != null) {
+                out.println("-- " + reader.getException().replace("\n", "\n-- "));
+            }
+            reader.seek(Math.min(from, reader.getNrRecords()));
+            Record record;
+            for (long i = from; i < to && (record = reader.next()) != null; i++) {
+                out.println(record);
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            if (args.length == 0) {
+                System.err.println(
+                        "Usage: java -cp target/sqlancer-2.0.0.jar sqlancer.StatementLogConverter <path-to-sqlog-file> [output-file] [--from record] [--to record]");
+                System.exit(1);
+            }
+            Path input = Paths.get(args[0]);
+            Path output = null;
+            long from = 0;
+            long to = Long.MAX_VALUE;
+            for (int i = 1; i < args.length; i++) {
+                if ("--from".equals(args[i])) {
+                    from = Long.parseLong(args[++i]);
+                } else if ("--to".equals(args[i])) {
+                    to = Long.parseLong(args[++i]);
+                } else {
+                    output = Paths.get(args[i]);
+                }
+            }
+            try (PrintWriter out = new PrintWriter(output == null
+                    ? new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8))
+                    : Files.newBufferedWriter(output))) {
+                convert(input, out, from, to);
+            }
+        } catch (Throwable e) {
+            System.err.println("ERROR: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+}
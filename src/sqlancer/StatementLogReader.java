@@ -0,0 +1,295 @@
+package sqlancer;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import sqlancer.StatementLog.Kind;
+import sqlancer.StatementLog.Record;
+
+/**
+ * Reads a log in the {@link StatementLog} format one record at a time, decompressing one block at a time.
+ */
+public final class StatementLogReader implements Closeable {
+
+    private static final int BLOCK_HEADER_SIZE = 12;
+
+    private final RandomAccessFile file;
+    private final Inflater inflater = new Inflater();
+
+    private final String dbmsName;
+    private final String databaseName;
+    private final String databaseVersion;
+    private final long seed;
+    private final String exception;
+
+    private long[] blockOffsets;
+    private long[] blockFirstRecords;
+    private long nrRecords;
+
+    // the decompressed current block
+    private byte[] block = new byte[0];
+    private int blockLength;
+    private int pos;
+    private int currentBlock = -1;
+    private final List<String> strings = new ArrayList<>();
+    private long nextRecord;
+
+    public StatementLogReader(Path path) throws IOException {
+        file = new RandomAccessFile(path.toFile(), "r");
+        try {
+            if (file.readInt() != StatementLog.MAGIC) {
+                throw new IOException(path + " is not a statement log");
+            }
+            int version = file.readByte();
+            if (version != StatementLog.VERSION) {
+                throw new IOException("unsupported statement log version " + version);
+            }
+            dbmsName = readString(file);
+            databaseName = readString(file);
+            databaseVersion = readString(file);
+            seed = file.readLong();
+            exception = readString(file);
+            if (!readFooter()) {
+                scanBlocks(file.getFilePointer());
+            }
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return whether the file starts like a statement log
+     */
+    public static boolean isStatementLog(Path path) {
+        try (InputStream in = Files.newInputStream(path)) {
+            byte[] magic = in.readNBytes(4);
+            return magic.length == 4 && ((magic[0] & 0xFF) << 24 | (magic[1] & 0xFF) << 16 | (magic[2] & 0xFF) << 8
+                    | magic[3] & 0xFF) == StatementLog.MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean readFooter() throws IOException {
+        long length = file.length();
+        long headerEnd = file.getFilePointer();
+        if (length - headerEnd < 12 + 16) {
+            return false;
+        }
+        file.seek(length - 12);
+        long footerOffset = file.readLong();
+        if (file.readInt() != StatementLog.MAGIC || footerOffset < headerEnd || footerOffset > length - 12) {
+            file.seek(headerEnd);
+            return false;
+        }
+        file.seek(footerOffset);
+        if (file.readInt() != 0) {
+            file.seek(headerEnd);
+            return false;
+        }
+        int nrBlocks = file.readInt();
+        nrRecords = file.readLong();
+        blockOffsets = new long[nrBlocks];
+        blockFirstRecords = new long[nrBlocks];
+        for (int i = 0; i < nrBlocks; i++) {
+            blockOffsets[i] = file.readLong();
+            blockFirstRecords[i] = file.readLong();
+        }
+        return true;
+    }
+
+    // indexes a log without footer; a truncated last block is ignored
+    private void scanBlocks(long start) throws IOException {
+        List<long[]> index = new ArrayList<>();
+        long offset = start;
+        long length = file.length();
+        nrRecords = 0;
+        while (offset + BLOCK_HEADER_SIZE <= length) {
+            file.seek(offset);
+            if (file.readInt() <= 0) { // the start of the footer
+                break;
+            }
+            int compressedLength = file.readInt();
+            int records = file.readInt();
+            if (compressedLength <= 0 || offset + BLOCK_HEADER_SIZE + compressedLength > length) {
+                break;
+            }
+            index.add(new long[] { offset, nrRecords });
+            nrRecords += records;
+            offset += BLOCK_HEADER_SIZE + compressedLength;
+        }
+        blockOffsets = new long[index.size()];
+        blockFirstRecords = new long[index.size()];
+        for (int i = 0; i < index.size(); i++) {
+            blockOffsets[i] = index.get(i)[0];
+            blockFirstRecords[i] = index.get(i)[1];
+        }
+    }
+
+    public String getDBMSName() {
+        return dbmsName;
+    }
+
+    public String getDatabaseName() {
+        return databaseName;
+    }
+
+    public String getDatabaseVersion() {
+        return databaseVersion;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public String getException() {
+        return exception;
+    }
+
+    public long getNrRecords() {
+        return nrRecords;
+    }
+
+    /**
+     * Positions the reader so that {@link #next()} returns the record with the given index, decompressing only the
+     * block that contains it.
+     */
+    public void seek(long record) throws IOException {
+        if (record < 0 || record > nrRecords) {
+            throw new IllegalArgumentException(String.valueOf(record));
+        }
+        int blockIndex = Arrays.binarySearch(blockFirstRecords, record);
+        if (blockIndex < 0) {
+            blockIndex = -blockIndex - 2;
+        }
+        if (blockIndex < 0 || blockIndex >= blockOffsets.length) {
+            currentBlock = blockOffsets.length;
+            nextRecord = nrRecords;
+            return;
+        }
+        // empty blocks do not exist, so the binary search finds the first block with the record
+        loadBlock(blockIndex);
+        while (nextRecord < record) {
+            next();
+        }
+    }
+
+    /**
+     * @return the next record, or null if all records have been read
+     */
+    public Record next() throws IOException {
+        if (nextRecord >= nrRecords) {
+            return null;
+        }
+        if (pos >= blockLength) {
+            loadBlock(currentBlock + 1);
+        }
+        Kind kind = Kind.values()[block[pos++]];
+        int flags = block[pos++];
+        long millis = 0;
+        if ((flags & StatementLog.HAS_TIME) != 0) {
+            millis = readVarLong();
+        }
+        int id = (int) readVarLong();
+        String statement;
+        if (id == 0) {
+            int length = (int) readVarLong() - 1;
+            statement = new String(block, pos, length, StandardCharsets.UTF_8);
+            pos += length;
+            strings.add(statement);
+        } else {
+            statement = strings.get(id - 1);
+        }
+        nextRecord++;
+        return new Record(kind, flags, millis, statement);
+    }
+
+    /**
+     * @return the statements of all remaining records
+     */
+    public List<String> readStatements() throws IOException {
+        List<String> statements = new ArrayList<>();
+        Record record;
+        while ((record = next()) != null) {
+            statements.add(record.getStatement());
+        }
+        return statements;
+    }
+
+    private void loadBlock(int blockIndex) throws IOException {
+        file.seek(blockOffsets[blockIndex]);
+        int uncompressedLength = file.readInt();
+        int compressedLength = file.readInt();
+        file.readInt();
+        byte[] compressed = new byte[compressedLength];
+        file.readFully(compressed);
+        if (block.length < uncompressedLength) {
+            block = new byte[uncompressedLength];
+        }
+        inflater.reset();
+        inflater.setInput(compressed);
+        try {
+            int n = 0;
+            while (n < uncompressedLength) {
+                int inflated = inflater.inflate(block, n, uncompressedLength - n);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    throw new EOFException("truncated block " + blockIndex);
+                }
+                n += inflated;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException(e);
+        }
+        blockLength = uncompressedLength;
+        pos = 0;
+        currentBlock = blockIndex;
+        strings.clear();
+        nextRecord = blockFirstRecords[blockIndex];
+    }
+
+    private long readVarLong() {
+        long result = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = block[pos++];
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+        }
+    }
+
+    private static String readString(RandomAccessFile in) throws IOException {
+        long length = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = in.readByte();
+            length |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                break;
+            }
+        }
+        if (length == 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[(int) length - 1];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        file.close();
+    }
+}
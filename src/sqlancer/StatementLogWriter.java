@@ -0,0 +1,293 @@
+package sqlancer;
+
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import sqlancer.StatementLog.Kind;
+
+/**
+ * Writes a log in the {@link StatementLog} format. Records are collected in a block, which is compressed and written
+ * when it is full or when the log is flushed.
+ */
+public final class StatementLogWriter implements Closeable, Flushable {
+
+    private final OutputStream out;
+    private final Deflater deflater = new Deflater();
+    private final Bytes block = new Bytes(StatementLog.BLOCK_SIZE + 1024);
+    private final Bytes scratch = new Bytes(1024);
+    private byte[] compressed = new byte[StatementLog.BLOCK_SIZE];
+    private final Map<String, Integer> strings = new HashMap<>();
+    private int blockRecords;
+    private long nrRecords;
+    private long position;
+    // offset and first record of each block
+    private final List<long[]> index = new ArrayList<>();
+    private boolean closed;
+
+    public StatementLogWriter(Path path, String dbmsName, String databaseName, String databaseVersion, long seed,
+            String exception) throws IOException {
+        out = new FileOutputStream(path.toFile());
+        scratch.writeInt(StatementLog.MAGIC);
+        scratch.write(StatementLog.VERSION);
+        scratch.writeString(dbmsName);
+        scratch.writeString(databaseName);
+        scratch.writeString(databaseVersion);
+        scratch.writeLong(seed);
+        scratch.writeString(exception);
+        writeScratch();
+    }
+
+    public void write(String statement) throws IOException {
+        write(Kind.of(statement), 0, 0, statement);
+    }
+
+    /**
+     * @param flags
+     *            a combination of {@link StatementLog#SUCCESS}, {@link StatementLog#HAS_SUCCESS} and
+     *            {@link StatementLog#HAS_TIME}
+     * @param millis
+     *            the execution time, which is only stored if {@link StatementLog#HAS_TIME} is set
+     */
+    public synchronized void write(Kind kind, int flags, long millis, String statement) throws IOException {
+        if (closed) {
+            throw new IOException("log closed");
+        }
+        block.write(kind.ordinal());
+        block.write(flags);
+        if ((flags & StatementLog.HAS_TIME) != 0) {
+            block.writeVarLong(millis);
+        }
+        Integer id = strings.get(statement);
+        if (id == null) {
+            block.writeVarLong(0);
+            block.writeString(statement);
+            strings.put(statement, strings.size() + 1);
+        } else {
+            block.writeVarLong(id);
+        }
+        blockRecords++;
+        nrRecords++;
+        if (block.length >= StatementLog.BLOCK_SIZE) {
+            writeBlock();
+        }
+    }
+
+    public synchronized long getNrRecords() {
+        return nrRecords;
+    }
+
+    private void writeBlock() throws IOException {
+        if (blockRecords == 0) {
+            return;
+        }
+        deflater.reset();
+        deflater.setInput(block.bytes, 0, block.length);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+        index.add(new long[] { position, nrRecords - blockRecords });
+        scratch.writeInt(block.length);
+        scratch.writeInt(compressedLength);
+        scratch.writeInt(blockRecords);
+        writeScratch();
+        out.write(compressed, 0, compressedLength);
+        position += compressedLength;
+        block.length = 0;
+        blockRecords = 0;
+        strings.clear();
+    }
+
+    private void writeScratch() throws IOException {
+        out.write(scratch.bytes, 0, scratch.length);
+        position += scratch.length;
+        scratch.length = 0;
+    }
+
+    /**
+     * Writes the current block, so that all records written so far can be read.
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        if (!closed) {
+            writeBlock();
+            out.flush();
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            writeBlock();
+            long footerOffset = position;
+            scratch.writeInt(0);
+            scratch.writeInt(index.size());
+            scratch.writeLong(nrRecords);
+            for (long[] entry : index) {
+                scratch.writeLong(entry[0]);
+                scratch.writeLong(entry[1]);
+            }
+            scratch.writeLong(footerOffset);
+            scratch.writeInt(StatementLog.MAGIC);
+            writeScratch();
+        } finally {
+            closed = true;
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /**
+     * Returns a writer for the text-based logging of {@link Main.StateLogger}: each line written to it becomes a
+     * record. Closing the writer closes the log.
+     */
+    public LineWriter asWriter() {
+        return new LineWriter();
+    }
+
+    public final class LineWriter extends Writer {
+
+        private final StringBuilder line = new StringBuilder();
+
+        private LineWriter() {
+        }
+
+        @Override
+        public void write(char[] cbuf, int off, int len) throws IOException {
+            for (int i = off; i < off + len; i++) {
+                if (cbuf[i] == '\n') {
+                    endStatement(0, 0);
+                } else {
+                    line.append(cbuf[i]);
+                }
+            }
+        }
+
+        /**
+         * Writes a statement, which may span several lines, as a single record.
+         */
+        public void writeStatement(String statement) throws IOException {
+            endLine();
+            StatementLogWriter.this.write(statement);
+        }
+
+        /**
+         * Starts a statement, whose record is written by {@link #endStatement(int, long)} once it has been executed.
+         */
+        public void startStatement(String statement) throws IOException {
+            endLine();
+            line.append(statement);
+        }
+
+        public void endStatement(int flags, long millis) throws IOException {
+            String statement = line.toString();
+            line.setLength(0);
+            StatementLogWriter.this.write(Kind.of(statement), flags, millis, statement);
+        }
+
+        private void endLine() throws IOException {
+            if (line.length() != 0) {
+                endStatement(0, 0);
+            }
+        }
+
+        public void writeInfo(String info) throws IOException {
+            endLine();
+            StatementLogWriter.this.write(Kind.INFO, 0, 0, info);
+        }
+
+        /**
+         * Records are written in blocks, so flushing the writer does nothing; see {@link #sync()}.
+         */
+        @Override
+        public void flush() {
+        }
+
+        /**
+         * Writes all records written so far to the file.
+         */
+        public void sync() throws IOException {
+            StatementLogWriter.this.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                endLine();
+            } finally {
+                StatementLogWriter.this.close();
+            }
+        }
+    }
+
+    /**
+     * A growable byte buffer with the encodings of the format.
+     */
+    private static final class Bytes {
+
+        private byte[] bytes;
+        private int length;
+
+        Bytes(int capacity) {
+            bytes = new byte[capacity];
+        }
+
+        void write(int b) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = (byte) b;
+        }
+
+        void writeInt(int v) {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                write(v >>> shift);
+            }
+        }
+
+        void writeLong(long v) {
+            writeInt((int) (v >>> 32));
+            writeInt((int) v);
+        }
+
+        void writeVarLong(long v) {
+            long rest = v;
+            while ((rest & ~0x7FL) != 0) {
+                write((int) (rest & 0x7F) | 0x80);
+                rest >>>= 7;
+            }
+            write((int) rest);
+        }
+
+        void writeString(String s) {
+            if (s == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            for (byte b : utf8) {
+                write(b);
+            }
+        }
+    }
+}
@@ -4,6 +4,13 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import sqlancer.common.query.Query;
 
@@ -21,8 +28,25 @@ public class StatementReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpec
 
     Instant timeOfReductionBegins;
 
+    private final int nrThreads;
+    private ReplayCache<G, O, C> replayCache;
+    private ExecutorService executor;
+    // replay caches of isolated states (each with its own database) that are handed out to the parallel candidate
+    // checks
+    private BlockingQueue<ReplayCache<G, O, C>> workerCaches;
+
     public StatementReducer(DatabaseProvider<G, O, C> provider) {
+        this(provider, 1);
+    }
+
+    /**
+     * @param nrThreads
+     *            the number of candidates that are checked concurrently; with more than one thread, all candidates
+     *            of a delta debugging round are replayed in parallel, each on its own database
+     */
+    public StatementReducer(DatabaseProvider<G, O, C> provider, int nrThreads) {
         this.provider = provider;
+        this.nrThreads = Math.max(1, nrThreads);
     }
 
     private boolean hasNotReachedLimit(long curr, long limit) {
@@ -58,12 +82,47 @@ public class StatementReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpec
         currentReduceTime = 0;
         partitionNum = 2;
 
+        replayCache = new ReplayCache<>(provider, newGlobalState);
+        if (nrThreads > 1) {
+            startWorkers(newGlobalState);
+        }
+        try {
+            knownToReproduceBugStatements = reduceStatements(state, reproducer, newGlobalState,
+                    knownToReproduceBugStatements);
+        } finally {
+            replayCache.close();
+            if (executor != null) {
+                executor.shutdownNow();
+                executor.awaitTermination(1, TimeUnit.MINUTES);
+                for (ReplayCache<G, O, C> workerCache : workerCaches) {
+                    workerCache.close();
+                }
+                executor = null;
+                workerCaches = null;
+            }
+        }
+
+        // System.out.println("Reduced query:");
+        // printQueries(knownToReproduceBugStatements);
+        newGlobalState.getState().setStatements(new ArrayList<>(knownToReproduceBugStatements));
+        newGlobalState.getLogger().logReduced(newGlobalState.getState());
+
+    }
+
+    private List<Query<C>> reduceStatements(G state, Reproducer<G> reproducer, G newGlobalState,
+            List<Query<C>> statements) throws Exception {
+        List<Query<C>> knownToReproduceBugStatements = statements;
         while (knownToReproduceBugStatements.size() >= 2 && hasNotReachedLimit(currentReduceSteps, maxReduceSteps)
                 && hasNotReachedLimit(currentReduceTime, maxReduceTime)) {
             observedChange = false;
 
-            knownToReproduceBugStatements = tryReduction(state, reproducer, newGlobalState,
-                    knownToReproduceBugStatements);
+            if (executor == null) {
+                knownToReproduceBugStatements = tryReduction(state, reproducer, newGlobalState,
+                        knownToReproduceBugStatements);
+            } else {
+                knownToReproduceBugStatements = tryReductionInParallel(reproducer, newGlobalState,
+                        knownToReproduceBugStatements);
+            }
 
             if (!observedChange) {
                 if (partitionNum == knownToReproduceBugStatements.size()) {
@@ -73,12 +132,7 @@ public class StatementReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpec
                 partitionNum = Math.min(partitionNum * 2, knownToReproduceBugStatements.size());
             }
         }
-
-        // System.out.println("Reduced query:");
-        // printQueries(knownToReproduceBugStatements);
-        newGlobalState.getState().setStatements(new ArrayList<>(knownToReproduceBugStatements));
-        newGlobalState.getLogger().logReduced(newGlobalState.getState());
-
+        return knownToReproduceBugStatements;
     }
 
     private List<Query<C>> tryReduction(G state, // NOPMD
@@ -91,20 +145,12 @@ public class StatementReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpec
         while (start < statements.size()) {
             // newStatements = candidate[:start] + candidate[start+subLength:]
             // in other word, remove [start, start+subLength) from candidates
-            try (C con2 = provider.createDatabase(newGlobalState)) {
-                newGlobalState.setConnection(con2);
-                List<Query<C>> candidateStatements = new ArrayList<>(statements);
-                int endPoint = Math.min(start + subLength, candidateStatements.size());
-                candidateStatements.subList(start, endPoint).clear();
+            List<Query<C>> candidateStatements = new ArrayList<>(statements);
+            int endPoint = Math.min(start + subLength, candidateStatements.size());
+            candidateStatements.subList(start, endPoint).clear();
+            // the statements before start are shared with all following candidates of this round
+            try (C con2 = replayCache.replay(candidateStatements, start)) {
                 newGlobalState.getState().setStatements(new ArrayList<>(candidateStatements));
-
-                for (Query<C> s : candidateStatements) {
-                    try {
-                        s.execute(newGlobalState);
-                    } catch (Throwable ignoredException) {
-                        // ignore
-                    }
-                }
                 try {
                     if (reproducer.bugStillTriggers(newGlobalState)) {
                         observedChange = true;
@@ -135,6 +181,94 @@ public class StatementReducer<G extends GlobalState<O, ?, C>, O extends DBMSSpec
         return statements;
     }
 
+    /**
+     * Checks all candidates of a round concurrently and picks the first one (in the order of the serial search) that
+     * still triggers the bug, so that the result is the same as with {@link #tryReduction}. Candidates after a
+     * successful one are cancelled; the round waits only for the candidates before it.
+     */
+    private List<Query<C>> tryReductionInParallel(Reproducer<G> reproducer, G newGlobalState,
+            List<Query<C>> statements) throws Exception {
+        int subLength = statements.size() / partitionNum;
+        List<Future<Boolean>> results = new ArrayList<>();
+        List<List<Query<C>>> candidates = new ArrayList<>();
+        long remainingSteps = maxReduceSteps == MainOptions.NO_REDUCE_LIMIT ? Long.MAX_VALUE
+                : maxReduceSteps - currentReduceSteps;
+        for (int start = 0; start < statements.size() && candidates.size() < remainingSteps; start += subLength) {
+            List<Query<C>> candidateStatements = new ArrayList<>(statements);
+            candidateStatements.subList(start, Math.min(start + subLength, candidateStatements.size())).clear();
+            candidates.add(candidateStatements);
+            int stablePrefix = start;
+            results.add(executor.submit(() -> checkCandidate(reproducer, candidateStatements, stablePrefix)));
+        }
+
+        List<Query<C>> reduced = statements;
+        for (int i = 0; i < results.size(); i++) {
+            boolean triggers;
+            try {
+                triggers = results.get(i).get();
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+                triggers = false;
+            }
+            if (triggers) {
+                for (int j = i + 1; j < results.size(); j++) {
+                    results.get(j).cancel(true);
+                }
+                observedChange = true;
+                reduced = candidates.get(i);
+                partitionNum = Math.max(partitionNum - 1, 2);
+                newGlobalState.getState().setStatements(new ArrayList<>(reduced));
+                newGlobalState.getLogger().logReduced(newGlobalState.getState());
+                break;
+            }
+            currentReduceSteps++;
+        }
+        currentReduceTime = Duration.between(timeOfReductionBegins, Instant.now()).getSeconds();
+        return reduced;
+    }
+
+    private boolean checkCandidate(Reproducer<G> reproducer, List<Query<C>> candidateStatements, int stablePrefix)
+            throws Exception {
+        if (!hasNotReachedLimit(Duration.between(timeOfReductionBegins, Instant.now()).getSeconds(), maxReduceTime)) {
+            return false;
+        }
+        ReplayCache<G, O, C> workerCache = workerCaches.take();
+        G workerState = workerCache.getState();
+        try (C con = workerCache.replay(candidateStatements, stablePrefix)) {
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            workerState.getState().setStatements(new ArrayList<>(candidateStatements));
+            try {
+                return reproducer.bugStillTriggers(workerState);
+            } catch (Throwable ignoredException) {
+                return false;
+            }
+        } finally {
+            workerCaches.add(workerCache);
+        }
+    }
+
+    private void startWorkers(G newGlobalState) throws Exception {
+        workerCaches = new ArrayBlockingQueue<>(nrThreads);
+        for (int i = 0; i < nrThreads; i++) {
+            workerCaches.add(new ReplayCache<>(provider, createWorkerState(newGlobalState, i)));
+        }
+        executor = Executors.newFixedThreadPool(nrThreads, r -> {
+            Thread t = new Thread(ConnectionPool.closingIdleConnections(r), "statement-reducer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Creates the state that a parallel worker uses to replay candidates. Each worker uses its own database, named
+     * after the database of the given state.
+     */
+    protected G createWorkerState(G template, int workerId) throws Exception {
+        return ReplayCache.createIsolatedState(provider, template, template.getDatabaseName() + "_r" + workerId);
+    }
+
     @SuppressWarnings("unused")
     private void printQueries(List<Query<C>> statements) {
         System.out.println("===============================");
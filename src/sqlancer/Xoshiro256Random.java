@@ -0,0 +1,173 @@
+package sqlancer;
+
+import java.util.Random;
+
+/**
+ * A xoshiro256** generator (Blackman and Vigna) whose state is expanded from a 64-bit seed with SplitMix64.
+ *
+ * The class extends {@link Random} so that it can be used wherever a {@link Random} is expected, but it does not share
+ * any state with the superclass: all methods that SQLancer uses are overridden so that they draw from the 256-bit
+ * state without synchronization and without allocation. Instances are not thread safe; {@link Randomly} keeps one
+ * instance per thread.
+ */
+public final class Xoshiro256Random extends Random {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    private long s0;
+    private long s1;
+    private long s2;
+    private long s3;
+
+    public Xoshiro256Random() {
+        super();
+    }
+
+    public Xoshiro256Random(long seed) {
+        super(seed);
+    }
+
+    /**
+     * Resets the state so that the generator produces the same sequence as a newly created
+     * {@code Xoshiro256Random(seed)}. Called by the {@link Random} constructors.
+     */
+    @Override
+    public synchronized void setSeed(long seed) {
+        long x = seed;
+        x += GOLDEN_GAMMA;
+        s0 = mix64(x);
+        x += GOLDEN_GAMMA;
+        s1 = mix64(x);
+        x += GOLDEN_GAMMA;
+        s2 = mix64(x);
+        x += GOLDEN_GAMMA;
+        s3 = mix64(x);
+    }
+
+    /**
+     * The SplitMix64 finalizer; a bijection on 64-bit values that spreads every input bit over the output.
+     */
+    static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Derives the seed of the {@code index}-th child stream from {@code seed}. Index 0 returns the seed itself, so a
+     * single-threaded run and the first worker of a multi-threaded run are seeded identically.
+     */
+    public static long split(long seed, int index) {
+        if (index == 0) {
+            return seed;
+        }
+        return mix64(seed + GOLDEN_GAMMA * index) ^ mix64(index);
+    }
+
+    @Override
+    public long nextLong() {
+        long result = Long.rotateLeft(s1 * 5, 7) * 9;
+        long t = s1 << 17;
+        s2 ^= s0;
+        s3 ^= s1;
+        s1 ^= s2;
+        s0 ^= s3;
+        s2 ^= t;
+        s3 = Long.rotateLeft(s3, 45);
+        return result;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (Long.SIZE - bits));
+    }
+
+    @Override
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    /**
+     * Returns a value in [0, bound) using Lemire's multiply-shift method, which needs a division only in the rare case
+     * that a sample has to be rejected.
+     */
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("bound must be positive: " + bound);
+        }
+        long m = (nextLong() >>> 32) * bound;
+        long low = m & 0xffffffffL;
+        if (low < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+            while (low < threshold) {
+                m = (nextLong() >>> 32) * bound;
+                low = m & 0xffffffffL;
+            }
+        }
+        return (int) (m >>> 32);
+    }
+
+    /**
+     * Returns a value in [lower, upper). Ranges wider than {@link Long#MAX_VALUE} are handled by rejection.
+     */
+    public long nextLong(long lower, long upper) {
+        if (lower >= upper) {
+            throw new IllegalArgumentException(lower + " " + upper);
+        }
+        long range = upper - lower;
+        if (range > 0) {
+            if (range <= Integer.MAX_VALUE) {
+                return lower + nextInt((int) range);
+            }
+            long mask = range - 1;
+            if ((range & mask) == 0) {
+                return lower + (nextLong() & mask);
+            }
+            long u = nextLong() >>> 1;
+            long r = u % range;
+            while (u + mask - r < 0) {
+                u = nextLong() >>> 1;
+                r = u % range;
+            }
+            return lower + r;
+        }
+        // the range overflows, so more than half of all values are inside it
+        while (true) {
+            long r = nextLong();
+            if (r >= lower && r < upper) {
+                return r;
+            }
+        }
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    @Override
+    public float nextFloat() {
+        return (nextLong() >>> 40) * 0x1.0p-24f;
+    }
+
+    @Override
+    public void nextBytes(byte[] bytes) {
+        int i = 0;
+        while (i < bytes.length) {
+            long r = nextLong();
+            for (int n = Math.min(bytes.length - i, Long.BYTES); n > 0; n--) {
+                bytes[i++] = (byte) r;
+                r >>>= Byte.SIZE;
+            }
+        }
+    }
+}
@@ -2,7 +2,9 @@ package sqlancer.citus;
 
 import java.sql.SQLException;
 
+import sqlancer.common.query.Query;
 import sqlancer.postgres.PostgresGlobalState;
+import sqlancer.postgres.PostgresSchema;
 
 public class CitusGlobalState extends PostgresGlobalState {
 
@@ -21,4 +23,10 @@ public class CitusGlobalState extends PostgresGlobalState {
         return CitusSchema.fromConnection(getConnection(), getDatabaseName());
     }
 
+    @Override
+    protected PostgresSchema applySchemaChange(PostgresSchema currentSchema, Query<?> q, boolean success) {
+        // the distribution of the tables is not derived from the statements
+        return null;
+    }
+
 }
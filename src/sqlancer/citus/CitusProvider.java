@@ -31,6 +31,7 @@ import sqlancer.common.DBMSCommon;
 import sqlancer.common.oracle.CompositeTestOracle;
 import sqlancer.common.oracle.TestOracle;
 import sqlancer.common.query.ExpectedErrors;
+import sqlancer.common.query.Query;
 import sqlancer.common.query.SQLQueryAdapter;
 import sqlancer.common.query.SQLQueryProvider;
 import sqlancer.common.query.SQLancerResultSet;
@@ -407,6 +408,13 @@ public class CitusProvider extends PostgresProvider {
         }
     }
 
+    @Override
+    public boolean createSnapshot(PostgresGlobalState globalState, String snapshotName,
+            List<Query<SQLConnection>> prefix) {
+        // a template database on the coordinator does not include the shards on the worker nodes
+        return false;
+    }
+
     @SuppressWarnings("deprecation")
     @Override
     public SQLConnection createDatabase(PostgresGlobalState globalState) throws SQLException {
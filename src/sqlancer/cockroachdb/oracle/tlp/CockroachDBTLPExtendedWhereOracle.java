@@ -6,6 +6,7 @@ import java.util.List;
 
 import sqlancer.ComparatorHelper;
 import sqlancer.Randomly;
+import sqlancer.ResultSetDigest;
 import sqlancer.cockroachdb.CockroachDBErrors;
 import sqlancer.cockroachdb.CockroachDBProvider.CockroachDBGlobalState;
 import sqlancer.cockroachdb.CockroachDBVisitor;
@@ -34,7 +35,7 @@ public class CockroachDBTLPExtendedWhereOracle extends CockroachDBTLPBase {
         select.setWhereClause(originalPredicate);
         String originalQueryString = CockroachDBVisitor.asString(select);
         generatedQueryString = originalQueryString;
-        List<String> resultSet = ComparatorHelper.getResultSetFirstColumnAsString(originalQueryString, errors, state);
+        ResultSetDigest resultSet = ComparatorHelper.getResultSetFirstColumnDigest(originalQueryString, errors, state);
 
         boolean allowOrderBy = Randomly.getBoolean();
         if (allowOrderBy) {
@@ -48,10 +49,10 @@ public class CockroachDBTLPExtendedWhereOracle extends CockroachDBTLPBase {
                 new CockroachDBUnaryPostfixOperation(predicate, CockroachDBUnaryPostfixOperator.IS_NULL)));
         String thirdQueryString = CockroachDBVisitor.asString(select);
         List<String> combinedString = new ArrayList<>();
-        List<String> secondResultSet = ComparatorHelper.getCombinedResultSet(firstQueryString, secondQueryString,
-                thirdQueryString, combinedString, !allowOrderBy, state, errors);
+        ResultSetDigest secondResultSet = ComparatorHelper.getCombinedResultSetDigest(firstQueryString,
+                secondQueryString, thirdQueryString, combinedString, !allowOrderBy, state, errors, null);
         ComparatorHelper.assumeResultSetsAreEqual(resultSet, secondResultSet, originalQueryString, combinedString,
-                state);
+                state, errors);
     }
 
     public CockroachDBExpression combinePredicate(CockroachDBExpression expr) {
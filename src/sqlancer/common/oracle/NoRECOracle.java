@@ -21,7 +21,7 @@ import sqlancer.common.schema.AbstractTableColumn;
 import sqlancer.common.schema.AbstractTables;
 
 public class NoRECOracle<Z extends Select<J, E, T, C>, J extends Join<E, T, C>, E extends Expression<C>, S extends AbstractSchema<?, T>, T extends AbstractTable<C, ?, ?>, C extends AbstractTableColumn<?, ?>, G extends SQLGlobalState<?, S>>
-        implements TestOracle<G> {
+        implements PipelinedTestOracle<G, NoRECOracle.NoRECCheck> {
 
     private final G state;
 
@@ -31,6 +31,21 @@ public class NoRECOracle<Z extends Select<J, E, T, C>, J extends Join<E, T, C>,
     private Reproducer<G> reproducer;
     private String lastQueryString;
 
+    /**
+     * The queries of a single check, see {@link #generate()}.
+     */
+    public static final class NoRECCheck {
+        final String optimizedQueryString;
+        final String unoptimizedQueryString;
+        final boolean shouldUseAggregate;
+
+        NoRECCheck(String optimizedQueryString, String unoptimizedQueryString, boolean shouldUseAggregate) {
+            this.optimizedQueryString = optimizedQueryString;
+            this.unoptimizedQueryString = unoptimizedQueryString;
+            this.shouldUseAggregate = shouldUseAggregate;
+        }
+    }
+
     private static class NoRECReproducer<G extends SQLGlobalState<?, ?>> implements Reproducer<G> {
         private final Function<G, Integer> optimizedQuery;
         private final Function<G, Integer> unoptimizedQuery;
@@ -59,8 +74,7 @@ public class NoRECOracle<Z extends Select<J, E, T, C>, J extends Join<E, T, C>,
 
 
     @Override
-    public void check() throws SQLException {
-        reproducer = null;
+    public NoRECCheck generate() {
         S schema = state.getSchema();
         AbstractTables<T, C> targetTables = TestOracleUtils.getRandomTableNonEmptyTables(schema);
         gen = gen.setTablesAndColumns(targetTables);
@@ -74,13 +88,19 @@ public class NoRECOracle<Z extends Select<J, E, T, C>, J extends Join<E, T, C>,
         boolean shouldUseAggregate = Randomly.getBoolean();
         String optimizedQueryString = gen.generateOptimizedQueryString(select, randomWhereCondition,
                 shouldUseAggregate);
+        String unoptimizedQueryString = gen.generateUnoptimizedQueryString(select, randomWhereCondition);
+        return new NoRECCheck(optimizedQueryString, unoptimizedQueryString, shouldUseAggregate);
+    }
+
+    @Override
+    public void execute(NoRECCheck check) throws SQLException {
+        reproducer = null;
+        String optimizedQueryString = check.optimizedQueryString;
+        String unoptimizedQueryString = check.unoptimizedQueryString;
+        boolean shouldUseAggregate = check.shouldUseAggregate;
         lastQueryString = optimizedQueryString;
         if (state.getOptions().logEachSelect()) {
             state.getLogger().writeCurrent(optimizedQueryString);
-        }
-
-        String unoptimizedQueryString = gen.generateUnoptimizedQueryString(select, randomWhereCondition);
-        if (state.getOptions().logEachSelect()) {
             state.getLogger().writeCurrent(unoptimizedQueryString);
         }
 
@@ -0,0 +1,29 @@
+package sqlancer.common.oracle;
+
+import sqlancer.GlobalState;
+
+/**
+ * A test oracle whose checks consist of a generation phase, which only uses the schema and the random number
+ * generator, and an execution phase, which sends the generated queries to the DBMS and compares their results. This
+ * allows {@link sqlancer.ProviderAdapter} to generate the next checks on a separate thread while the DBMS executes the
+ * current one.
+ *
+ * @param <Q>
+ *            the generated queries of a single check
+ */
+public interface PipelinedTestOracle<G extends GlobalState<?, ?, ?>, Q> extends TestOracle<G> {
+
+    /**
+     * Generates the queries of the next check. This method is called on a different thread than
+     * {@link #execute(Object)}, so it must not use the connection, the logger or fields that {@link #execute(Object)}
+     * uses.
+     */
+    Q generate() throws Exception;
+
+    void execute(Q check) throws Exception;
+
+    @Override
+    default void check() throws Exception {
+        execute(generate());
+    }
+}
@@ -19,7 +19,7 @@ import sqlancer.common.schema.AbstractTableColumn;
 import sqlancer.common.schema.AbstractTables;
 
 public class TLPWhereOracle<Z extends Select<J, E, T, C>, J extends Join<E, T, C>, E extends Expression<C>, S extends AbstractSchema<?, T>, T extends AbstractTable<C, ?, ?>, C extends AbstractTableColumn<?, ?>, G extends SQLGlobalState<?, S>>
-        implements TestOracle<G> {
+        implements PipelinedTestOracle<G, TLPWhereOracle.TLPWhereCheck> {
 
     private final G state;
 
@@ -29,16 +29,36 @@ public class TLPWhereOracle<Z extends Select<J, E, T, C>, J extends Join<E, T, C
     private Reproducer<G> reproducer;
     private String generatedQueryString;
 
+    /**
+     * The queries of a single check, see {@link #generate()}.
+     */
+    public static final class TLPWhereCheck {
+        final String originalQueryString;
+        final String firstQueryString;
+        final String secondQueryString;
+        final String thirdQueryString;
+        final boolean orderBy;
+
+        TLPWhereCheck(String originalQueryString, String firstQueryString, String secondQueryString,
+                String thirdQueryString, boolean orderBy) {
+            this.originalQueryString = originalQueryString;
+            this.firstQueryString = firstQueryString;
+            this.secondQueryString = secondQueryString;
+            this.thirdQueryString = thirdQueryString;
+            this.orderBy = orderBy;
+        }
+    }
+
     private class TLPWhereReproducer implements Reproducer<G> {
         final String firstQueryString;
         final String secondQueryString;
         final String thirdQueryString;
         final String originalQueryString;
-        final List<String> resultSet;
+        final ResultSetDigest resultSet;
         final boolean orderBy;
 
         TLPWhereReproducer(String firstQueryString, String secondQueryString, String thirdQueryString,
-                String originalQueryString, List<String> resultSet, boolean orderBy) {
+                String originalQueryString, ResultSetDigest resultSet, boolean orderBy) {
             this.firstQueryString = firstQueryString;
             this.secondQueryString = secondQueryString;
             this.thirdQueryString = thirdQueryString;
@@ -51,10 +71,10 @@ public class TLPWhereOracle<Z extends Select<J, E, T, C>, J extends Join<E, T, C
         public boolean bugStillTriggers(G globalState) {
             try {
                 List<String> combinedString1 = new ArrayList<>();
-                List<String> secondResultSet1 = ComparatorHelper.getCombinedResultSet(firstQueryString,
-                        secondQueryString, thirdQueryString, combinedString1, !orderBy, globalState, errors);
+                ResultSetDigest secondResultSet1 = ComparatorHelper.getCombinedResultSetDigest(firstQueryString,
+                        secondQueryString, thirdQueryString, combinedString1, !orderBy, globalState, errors, null);
                 ComparatorHelper.assumeResultSetsAreEqual(resultSet, secondResultSet1, originalQueryString,
-                        combinedString1, globalState);
+                        combinedString1, globalState, errors);
             } catch (AssertionError triggeredError) {
                 return true;
             } catch (SQLException ignored) {
@@ -100,7 +120,7 @@ public class TLPWhereOracle<Z extends Select<J, E, T, C>, J extends Join<E, T, C
 
         SQLancerResultSet result = null;
         try {
-            AFLMonitor.getInstance().executeSQLStatement(optimizedQueryString);
+            state.getAflMonitor().executeSQLStatement(optimizedQueryString);
              result = q.executeAndGet(state);
             if (result == null) {
                 throw new IgnoreMeException();
@@ -130,9 +150,15 @@ public class TLPWhereOracle<Z extends Select<J, E, T, C>, J extends Join<E, T, C
 
     }
 
+    // only narrows the throws clause of the default method, as PrestoQueryPartitioningWhereTester.check() delegates
+    // to this method and only throws SQLException
     @Override
     public void check() throws SQLException {
-        reproducer = null;
+        execute(generate());
+    }
+
+    @Override
+    public TLPWhereCheck generate() {
         S s = state.getSchema();
         AbstractTables<T, C> targetTables = TestOracleUtils.getRandomTableNonEmptyTables(s);
         gen = gen.setTablesAndColumns(targetTables);
@@ -146,10 +172,6 @@ public class TLPWhereOracle<Z extends Select<J, E, T, C>, J extends Join<E, T, C
         select.setWhereClause(null);
 
         String originalQueryString = select.asString();
-        generatedQueryString = originalQueryString;
-
-        List<String> firstResultSet = ComparatorHelper.getResultSetFirstColumnAsString(originalQueryString, errors,
-                state);
 
         boolean orderBy = Randomly.getBooleanWithSmallProbability();
         if (orderBy) {
@@ -164,29 +186,45 @@ public class TLPWhereOracle<Z extends Select<J, E, T, C>, J extends Join<E, T, C
         String secondQueryString = select.asString();
         select.setWhereClause(predicates.isNullPredicate);
         String thirdQueryString = select.asString();
+        return new TLPWhereCheck(originalQueryString, firstQueryString, secondQueryString, thirdQueryString, orderBy);
+    }
 
-        List<String> combinedString = new ArrayList<>();
-        List<String> secondResultSet = ComparatorHelper.getCombinedResultSet(firstQueryString, secondQueryString,
-                thirdQueryString, combinedString, !orderBy, state, errors);
-
+    @Override
+    public void execute(TLPWhereCheck check) throws SQLException {
+        reproducer = null;
+        String originalQueryString = check.originalQueryString;
+        generatedQueryString = originalQueryString;
 
+        List<String> combinedString = new ArrayList<>();
+        ResultSetDigest firstResultSet;
+        ResultSetDigest secondResultSet;
+        if (ComparatorHelper.canPipelineQueries(state)) {
+            // the original query is sent together with the partitioning queries
+            List<ResultSetDigest> resultSets = ComparatorHelper.getPipelinedResultSetDigests(originalQueryString,
+                    check.firstQueryString, check.secondQueryString, check.thirdQueryString, combinedString,
+                    !check.orderBy, state, errors, null);
+            firstResultSet = resultSets.get(0);
+            secondResultSet = resultSets.get(1);
+        } else {
+            firstResultSet = ComparatorHelper.getResultSetFirstColumnDigest(originalQueryString, errors, state);
+            secondResultSet = ComparatorHelper.getCombinedResultSetDigest(check.firstQueryString,
+                    check.secondQueryString, check.thirdQueryString, combinedString, !check.orderBy, state, errors,
+                    null);
+        }
 
         try {
-            AFLMonitor.getInstance().executeSQLStatement(generatedQueryString);
-            AFLMonitor.getInstance().executeSQLStatement(combinedString.get(0));
+            state.getAflMonitor().executeSQLStatement(generatedQueryString);
+            state.getAflMonitor().executeSQLStatement(combinedString.get(0));
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
         ComparatorHelper.assumeResultSetsAreEqual(firstResultSet, secondResultSet, originalQueryString, combinedString,
-                state);
-
-        reproducer = new TLPWhereReproducer(firstQueryString, secondQueryString, thirdQueryString, originalQueryString,
-                firstResultSet, orderBy);
+                state, errors);
 
+        reproducer = new TLPWhereReproducer(check.firstQueryString, check.secondQueryString, check.thirdQueryString,
+                originalQueryString, firstResultSet, check.orderBy);
     }
 
-
-
     @Override
     public Reproducer<G> getLastReproducer() {
         return reproducer;
@@ -1,6 +1,7 @@
 package sqlancer.common.schema;
 
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -28,6 +29,27 @@ public class AbstractSchema<G extends GlobalState<?, ?, ?>, A extends AbstractTa
         return sb.toString();
     }
 
+    /**
+     * Describes the tables, columns and indexes independently of their order, so that two schemas can be compared.
+     * Other properties, such as whether a column is part of the primary key or the storage engine of a table, are not
+     * included, so an incrementally updated schema that is wrong only in them is not detected. For example, MySQL
+     * reports the columns of the first UNIQUE NOT NULL index of a table without a primary key as primary key columns,
+     * which an update based on the statement text cannot know.
+     */
+    public String getStructure() {
+        StringBuilder sb = new StringBuilder();
+        for (A t : databaseTables.stream().sorted(Comparator.comparing(A::getName)).collect(Collectors.toList())) {
+            sb.append(t.getName());
+            sb.append(t.isView() ? " (view)" : "");
+            sb.append("\n");
+            t.getColumns().stream().map(c -> c.getName() + ": " + c.getType()).sorted()
+                    .forEach(c -> sb.append("\t").append(c).append("\n"));
+            t.getIndexes().stream().map(i -> i.getIndexName()).distinct().sorted()
+                    .forEach(i -> sb.append("\tindex ").append(i).append("\n"));
+        }
+        return sb.toString();
+    }
+
     public A getRandomTable() {
         return Randomly.fromList(getDatabaseTables());
     }
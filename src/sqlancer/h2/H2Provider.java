@@ -1,8 +1,18 @@
 package sqlancer.h2;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 import com.google.auto.service.AutoService;
 
@@ -13,13 +23,24 @@ import sqlancer.Randomly;
 import sqlancer.SQLConnection;
 import sqlancer.SQLGlobalState;
 import sqlancer.SQLProviderAdapter;
+import sqlancer.SnapshotCapableProvider;
 import sqlancer.StatementExecutor;
+import sqlancer.common.query.Query;
 import sqlancer.common.query.SQLQueryAdapter;
 import sqlancer.common.query.SQLQueryProvider;
 import sqlancer.h2.H2Provider.H2GlobalState;
 
 @AutoService(DatabaseProvider.class)
-public class H2Provider extends SQLProviderAdapter<H2GlobalState, H2Options> {
+public class H2Provider extends SQLProviderAdapter<H2GlobalState, H2Options>
+        implements SnapshotCapableProvider<H2GlobalState, SQLConnection> {
+
+    // statements whose effects are not written by SCRIPT and cannot be restored from a snapshot
+    private static final Pattern NOT_SNAPSHOTTABLE = Pattern.compile(
+            "^\\s*(BEGIN|START\\s+TRANSACTION|SAVEPOINT|RELEASE)\\b|\\bTEMP(ORARY)?\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern SETTING = Pattern.compile("^\\s*SET\\b", Pattern.CASE_INSENSITIVE);
+
+    // settings of the snapshot prefixes, which are executed again after a snapshot was restored
+    private final Map<String, List<Query<SQLConnection>>> snapshotSettings = new ConcurrentHashMap<>();
 
     public H2Provider() {
         super(H2GlobalState.class, H2Options.class);
@@ -99,7 +120,7 @@ public class H2Provider extends SQLProviderAdapter<H2GlobalState, H2Options> {
 
     @Override
     public SQLConnection createDatabase(H2GlobalState globalState) throws SQLException {
-        String connectionString = "jdbc:h2:~/" + globalState.getDatabaseName() + ";DB_CLOSE_ON_EXIT=FALSE";
+        String connectionString = getConnectionString(globalState.getDatabaseName());
         Connection connection = DriverManager.getConnection(connectionString, "sa", "");
         connection.createStatement().execute("DROP ALL OBJECTS DELETE FILES");
         connection.close();
@@ -107,6 +128,67 @@ public class H2Provider extends SQLProviderAdapter<H2GlobalState, H2Options> {
         return new SQLConnection(connection);
     }
 
+    private static String getConnectionString(String databaseName) {
+        return "jdbc:h2:~/" + databaseName + ";DB_CLOSE_ON_EXIT=FALSE";
+    }
+
+    private static File getSnapshotFile(String snapshotName) {
+        // next to the database files in the home directory
+        return new File(System.getProperty("user.home"), snapshotName + ".sql");
+    }
+
+    private static String quote(File file) {
+        return "'" + file.getAbsolutePath().replace("'", "''") + "'";
+    }
+
+    @Override
+    public boolean createSnapshot(H2GlobalState globalState, String snapshotName, List<Query<SQLConnection>> prefix)
+            throws SQLException {
+        List<Query<SQLConnection>> settings = new ArrayList<>();
+        for (Query<SQLConnection> query : prefix) {
+            if (NOT_SNAPSHOTTABLE.matcher(query.getQueryString()).find()) {
+                return false;
+            }
+            if (SETTING.matcher(query.getQueryString()).find()) {
+                settings.add(query);
+            }
+        }
+        try (Statement s = globalState.getConnection().createStatement()) {
+            s.execute("SCRIPT TO " + quote(getSnapshotFile(snapshotName)));
+        }
+        snapshotSettings.put(snapshotName, settings);
+        return true;
+    }
+
+    @Override
+    public SQLConnection restoreSnapshot(H2GlobalState globalState, String snapshotName) throws SQLException {
+        Connection connection = DriverManager.getConnection(getConnectionString(globalState.getDatabaseName()), "sa",
+                "");
+        try (Statement s = connection.createStatement()) {
+            s.execute("DROP ALL OBJECTS");
+            s.execute("RUNSCRIPT FROM " + quote(getSnapshotFile(snapshotName)));
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        SQLConnection con = new SQLConnection(connection);
+        globalState.setConnection(con);
+        for (Query<SQLConnection> setting : snapshotSettings.getOrDefault(snapshotName, Collections.emptyList())) {
+            try {
+                setting.execute(globalState);
+            } catch (Throwable ignoredException) {
+                // ignore, as when the statement was executed originally
+            }
+        }
+        return con;
+    }
+
+    @Override
+    public void dropSnapshot(H2GlobalState globalState, String snapshotName) throws IOException {
+        snapshotSettings.remove(snapshotName);
+        Files.deleteIfExists(getSnapshotFile(snapshotName).toPath());
+    }
+
     @Override
     public String getDBMSName() {
         return "h2";
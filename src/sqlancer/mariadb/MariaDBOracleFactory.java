@@ -19,7 +19,8 @@ public enum MariaDBOracleFactory implements OracleFactory<MariaDBProvider.MariaD
         @Override
         public TestOracle<MariaDBProvider.MariaDBGlobalState> create(MariaDBProvider.MariaDBGlobalState globalState)
                 throws SQLException {
-            MariaDBExpressionGenerator gen = new MariaDBExpressionGenerator(globalState.getRandomly());
+            MariaDBExpressionGenerator gen = new MariaDBExpressionGenerator(globalState.getRandomly())
+                    .setFeatureTracker(globalState.getFeatureTracker());
             ExpectedErrors errors = ExpectedErrors.newErrors().with(MariaDBErrors.getCommonErrors())
                     .with("is out of range").with("unmatched parentheses").with("nothing to repeat at offset")
                     .with("missing )").with("missing terminating ]").with("range out of order in character class")
@@ -40,7 +41,8 @@ public enum MariaDBOracleFactory implements OracleFactory<MariaDBProvider.MariaD
     TLP_WHERE {
         @Override
         public TestOracle<MariaDBProvider.MariaDBGlobalState> create(MariaDBProvider.MariaDBGlobalState globalState) throws SQLException {
-            MariaDBExpressionGenerator gen = new MariaDBExpressionGenerator(globalState.getRandomly() );
+            MariaDBExpressionGenerator gen = new MariaDBExpressionGenerator(globalState.getRandomly())
+                    .setFeatureTracker(globalState.getFeatureTracker());
             ExpectedErrors expectedErrors = ExpectedErrors.newErrors().with(MariaDBErrors.getCommonErrors())
                     .build();
 
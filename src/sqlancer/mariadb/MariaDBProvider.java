@@ -183,6 +183,9 @@ public class MariaDBProvider extends SQLProviderAdapter<MariaDBGlobalState, Mari
         if (port == MainOptions.NO_SET_PORT) {
             port = MariaDBOptions.DEFAULT_PORT;
         }
+        if (globalState.getAflMonitorPort() != MainOptions.NO_SET_PORT) {
+            port = globalState.getAflMonitorPort();
+        }
         String url = String.format("jdbc:mariadb://%s:%d", host, port);
         Connection con = DriverManager.getConnection(url, username, password);
         try (Statement s = con.createStatement()) {
@@ -7,7 +7,7 @@ import java.util.stream.Collectors;
 
 import sqlancer.BaseConfigurationGenerator;
 import sqlancer.ExpressionAction;
-import sqlancer.ParameteraAwareGenerator;
+import sqlancer.FeatureTracker;
 import sqlancer.Randomly;
 import sqlancer.common.gen.NoRECGenerator;
 import sqlancer.common.gen.TLPWhereGenerator;
@@ -24,7 +24,6 @@ import sqlancer.mariadb.ast.MariaDBSelectStatement.MariaDBSelectType;
 import sqlancer.mariadb.ast.MariaDBUnaryPrefixOperation.MariaDBUnaryPrefixOperator;
 
 
-import static sqlancer.ParameteraAwareGenerator.featureSet;
 
 public class MariaDBExpressionGenerator
         implements NoRECGenerator<MariaDBSelectStatement, MariaDBJoin, MariaDBExpression, MariaDBTable, MariaDBColumn>, TLPWhereGenerator<MariaDBSelectStatement, MariaDBJoin, MariaDBExpression, MariaDBTable, MariaDBColumn> {
@@ -32,11 +31,18 @@ public class MariaDBExpressionGenerator
     private final Randomly r;
     private List<MariaDBTable> targetTables = new ArrayList<>();
     private List<MariaDBColumn> columns = new ArrayList<>();
+    // 参数感知生成的特性状态；未设置时按均匀分布选择表达式类型
+    private FeatureTracker featureTracker;
 
     public MariaDBExpressionGenerator(Randomly r) {
         this.r = r;
     }
 
+    public MariaDBExpressionGenerator setFeatureTracker(FeatureTracker featureTracker) {
+        this.featureTracker = featureTracker;
+        return this;
+    }
+
     public static MariaDBConstant getRandomConstant(Randomly r) {
         MariaDBDataType option = Randomly.fromOptions(MariaDBDataType.values());
         return getRandomConstant(r, option);
@@ -79,15 +85,18 @@ public class MariaDBExpressionGenerator
         }
         if(BaseConfigurationGenerator.isTrainingPhase){
             ExpressionType actions = Randomly.fromList(expressionTypes);
-            featureSet.add(actions);
+            if (featureTracker != null) {
+                featureTracker.record(actions);
+            }
             return actions;
         } else {
+            double[] probabilities = featureTracker == null ? null : featureTracker.getProbabilities();
             double random = Randomly.getPercentage();
             double cumulativeProbability = 0.0;
 
             for(ExpressionType action : expressionTypes) {
 
-                cumulativeProbability += ParameteraAwareGenerator.comActionProbabilities[action.ordinal()];
+                cumulativeProbability += (probabilities == null ? 0 : probabilities[action.ordinal()]);
 
                 if (random <= cumulativeProbability) {
                     return action;
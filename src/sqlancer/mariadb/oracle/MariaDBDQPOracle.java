@@ -38,7 +38,8 @@ public class MariaDBDQPOracle implements TestOracle<MariaDBGlobalState> {
     @Override
     public void check() throws Exception {
         MariaDBTables tables = s.getRandomTableNonEmptyTables();
-        gen = new MariaDBExpressionGenerator(state.getRandomly()).setColumns(tables.getColumns());
+        gen = new MariaDBExpressionGenerator(state.getRandomly()).setFeatureTracker(state.getFeatureTracker())
+                .setColumns(tables.getColumns());
 
         List<MariaDBExpression> fetchColumns = new ArrayList<>();
         fetchColumns.addAll(Randomly.nonEmptySubset(tables.getColumns()).stream().map(c -> new MariaDBColumnName(c))
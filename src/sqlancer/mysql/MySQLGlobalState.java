@@ -4,6 +4,7 @@ package sqlancer.mysql;
 import java.sql.SQLException;
 
 import sqlancer.SQLGlobalState;
+import sqlancer.common.query.Query;
 
 public class MySQLGlobalState extends SQLGlobalState<MySQLOptions, MySQLSchema> {
 
@@ -12,6 +13,13 @@ public class MySQLGlobalState extends SQLGlobalState<MySQLOptions, MySQLSchema>
         return MySQLSchema.fromConnection(getConnection(), getDatabaseName());
     }
 
+    @Override
+    protected MySQLSchema applySchemaChange(MySQLSchema currentSchema, Query<?> q, boolean success)
+            throws SQLException {
+        return MySQLSchemaUpdater.apply(currentSchema, q.getQueryString(), success,
+                tableName -> MySQLSchema.readTable(getConnection(), tableName, getDatabaseName()));
+    }
+
     public boolean usesPQS() {
         return getDbmsSpecificOptions().oracles.stream().anyMatch(o -> o == MySQLOracleFactory.PQS);
     }
@@ -8,6 +8,7 @@ import java.util.List;
 import java.util.stream.Collectors;
 
 import com.google.auto.service.AutoService;
+import com.mysql.cj.jdbc.JdbcConnection;
 
 import sqlancer.*;
 import sqlancer.common.DBMSCommon;
@@ -202,12 +203,35 @@ public class MySQLProvider extends SQLProviderAdapter<MySQLGlobalState, MySQLOpt
         if (port == MainOptions.NO_SET_PORT) {
             port = MySQLOptions.DEFAULT_PORT;
         }
+        if (globalState.getAflMonitorPort() != MainOptions.NO_SET_PORT) {
+            port = globalState.getAflMonitorPort();
+        }
         String databaseName = globalState.getDatabaseName();
         globalState.getState().logStatement("DROP DATABASE IF EXISTS " + databaseName);
         globalState.getState().logStatement("CREATE DATABASE " + databaseName);
         globalState.getState().logStatement("USE " + databaseName);
         String url = String.format("jdbc:mysql://%s:%d?serverTimezone=UTC&useSSL=false&allowPublicKeyRetrieval=true",
                 host, port);
+        boolean multipleStatements = globalState.getOptions().pipelineTLPQueries();
+        if (multipleStatements) {
+            url += "&allowMultiQueries=true";
+        }
+        if (globalState.getOptions().poolConnections()) {
+            // resetting the session of a pooled connection (COM_CHANGE_USER) is cheaper than connecting again
+            SQLConnection pooled = SQLConnection.fromPool(url, username, password, multipleStatements,
+                    c -> c.unwrap(JdbcConnection.class).resetServerState());
+            try (Statement s = pooled.createStatement()) {
+                // sent as a single round trip if allowMultiQueries is set
+                s.addBatch("DROP DATABASE IF EXISTS " + databaseName);
+                s.addBatch("CREATE DATABASE " + databaseName);
+                s.addBatch("USE " + databaseName);
+                s.executeBatch();
+            } catch (SQLException e) {
+                pooled.close();
+                throw e;
+            }
+            return pooled;
+        }
         Connection con = DriverManager.getConnection(url, username, password);
         try (Statement s = con.createStatement()) {
             s.execute("DROP DATABASE IF EXISTS " + databaseName);
@@ -218,7 +242,7 @@ public class MySQLProvider extends SQLProviderAdapter<MySQLGlobalState, MySQLOpt
         try (Statement s = con.createStatement()) {
             s.execute("USE " + databaseName);
         }
-        return new SQLConnection(con);
+        return new SQLConnection(con, multipleStatements);
     }
 
     @Override
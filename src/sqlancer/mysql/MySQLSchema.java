@@ -132,7 +132,7 @@ public class MySQLSchema extends AbstractSchema<MySQLGlobalState, MySQLTable> {
 
     }
 
-    private static MySQLDataType getColumnType(String typeString) {
+    static MySQLDataType getColumnType(String typeString) {
         switch (typeString) {
         case "tinyint":
         case "smallint":
@@ -235,13 +235,7 @@ public class MySQLSchema extends AbstractSchema<MySQLGlobalState, MySQLTable> {
                             String tableName = rs.getString("TABLE_NAME");
                             String tableEngineStr = rs.getString("ENGINE");
                             MySQLEngine engine = MySQLEngine.get(tableEngineStr);
-                            List<MySQLColumn> databaseColumns = getTableColumns(con, tableName, databaseName);
-                            List<MySQLIndex> indexes = getIndexes(con, tableName, databaseName);
-                            MySQLTable t = new MySQLTable(tableName, databaseColumns, indexes, engine);
-                            for (MySQLColumn c : databaseColumns) {
-                                c.setTable(t);
-                            }
-                            databaseTables.add(t);
+                            databaseTables.add(readTable(con, tableName, engine, databaseName));
                         }
                     }
                 }
@@ -253,6 +247,36 @@ public class MySQLSchema extends AbstractSchema<MySQLGlobalState, MySQLTable> {
         throw new AssertionError(ex);
     }
 
+    /**
+     * Reads a single table, e.g., after a statement whose effect on the table is not known (see
+     * {@link MySQLSchemaUpdater}).
+     *
+     * @return the table, or null if it does not exist
+     */
+    public static MySQLTable readTable(SQLConnection con, String tableName, String databaseName)
+            throws SQLException {
+        try (Statement s = con.createStatement()) {
+            try (ResultSet rs = s.executeQuery("select ENGINE from information_schema.TABLES where table_schema = '"
+                    + databaseName + "' AND TABLE_NAME='" + tableName + "';")) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return readTable(con, tableName, MySQLEngine.get(rs.getString("ENGINE")), databaseName);
+            }
+        }
+    }
+
+    private static MySQLTable readTable(SQLConnection con, String tableName, MySQLEngine engine, String databaseName)
+            throws SQLException {
+        List<MySQLColumn> databaseColumns = getTableColumns(con, tableName, databaseName);
+        List<MySQLIndex> indexes = getIndexes(con, tableName, databaseName);
+        MySQLTable t = new MySQLTable(tableName, databaseColumns, indexes, engine);
+        for (MySQLColumn c : databaseColumns) {
+            c.setTable(t);
+        }
+        return t;
+    }
+
     private static List<MySQLIndex> getIndexes(SQLConnection con, String tableName, String databaseName)
             throws SQLException {
         List<MySQLIndex> indexes = new ArrayList<>();
@@ -0,0 +1,258 @@
+package sqlancer.mysql;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import sqlancer.mysql.MySQLSchema.MySQLColumn;
+import sqlancer.mysql.MySQLSchema.MySQLIndex;
+import sqlancer.mysql.MySQLSchema.MySQLTable;
+import sqlancer.mysql.MySQLSchema.MySQLTable.MySQLEngine;
+
+/**
+ * Applies the effect of the DDL statements generated for MySQL to a {@link MySQLSchema}, so that the schema does not
+ * have to be read from the database after each of them. Statements whose effect cannot be derived from their text
+ * reread only the affected table; unknown statements require reading the whole schema.
+ */
+public final class MySQLSchemaUpdater {
+
+    private static final Pattern CREATE_TABLE_LIKE = Pattern
+            .compile("CREATE TABLE (IF NOT EXISTS )?(\\w+) LIKE (\\w+);?", Pattern.CASE_INSENSITIVE);
+    private static final Pattern CREATE_TABLE = Pattern.compile("CREATE TABLE (IF NOT EXISTS )?(\\w+)\\((.*)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern ENGINE = Pattern.compile("\\bENGINE = (\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ALTER_TABLE = Pattern.compile("ALTER TABLE (\\w+) (.*)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern CREATE_INDEX = Pattern.compile(
+            "CREATE (UNIQUE )?INDEX (\\w+)( USING \\w+)? ON (\\w+)\\(.*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern DROP_INDEX = Pattern.compile("DROP INDEX (\\S+) ON (\\w+).*",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    /**
+     * Reads a single table from the database.
+     */
+    @FunctionalInterface
+    public interface TableReader {
+        /**
+         * @return the table, or null if it does not exist
+         */
+        MySQLTable read(String tableName) throws SQLException;
+    }
+
+    private MySQLSchemaUpdater() {
+    }
+
+    /**
+     * @param schema
+     *            the schema before the statement was executed
+     * @param statement
+     *            a statement that could have affected the schema
+     * @param success
+     *            whether the statement was executed successfully
+     * @param reader
+     *            reads tables whose new definition cannot be derived from the statement
+     *
+     * @return the new schema, schema itself if the statement did not change it, or null if the schema has to be read
+     *         from the database
+     */
+    public static MySQLSchema apply(MySQLSchema schema, String statement, boolean success, TableReader reader)
+            throws SQLException {
+        if (!success) {
+            // DDL statements are atomic
+            return schema;
+        }
+        String s = statement.trim();
+        Matcher m;
+        if ((m = CREATE_TABLE_LIKE.matcher(s)).matches()) {
+            MySQLTable source = schema.getDatabaseTable(m.group(3));
+            if (schema.getDatabaseTable(m.group(2)) != null) {
+                return m.group(1) == null ? null : schema;
+            }
+            if (source == null) {
+                return null;
+            }
+            return replace(schema, null, copy(source, m.group(2), source.getIndexes()));
+        } else if ((m = CREATE_TABLE.matcher(s)).matches()) {
+            if (schema.getDatabaseTable(m.group(2)) != null) {
+                return m.group(1) == null ? null : schema;
+            }
+            MySQLTable table = createTable(m.group(2), m.group(3));
+            return table == null ? null : replace(schema, null, table);
+        } else if ((m = ALTER_TABLE.matcher(s)).matches()) {
+            return alterTable(schema, m.group(1), m.group(2), reader);
+        } else if ((m = CREATE_INDEX.matcher(s)).matches()) {
+            MySQLTable table = schema.getDatabaseTable(m.group(4));
+            if (table == null) {
+                return null;
+            }
+            List<MySQLIndex> indexes = new ArrayList<>(table.getIndexes());
+            indexes.add(MySQLIndex.create(m.group(2)));
+            return replace(schema, table, copy(table, table.getName(), indexes));
+        } else if ((m = DROP_INDEX.matcher(s)).matches()) {
+            MySQLTable table = schema.getDatabaseTable(m.group(2));
+            if (table == null) {
+                return null;
+            }
+            String indexName = m.group(1);
+            if (indexName.equalsIgnoreCase("`PRIMARY`")) {
+                // also changes the columns
+                return reread(schema, table, table.getName(), reader);
+            }
+            List<MySQLIndex> indexes = table.getIndexes().stream().filter(i -> !i.getIndexName().equals(indexName))
+                    .collect(Collectors.toList());
+            return replace(schema, table, copy(table, table.getName(), indexes));
+        } else {
+            return null;
+        }
+    }
+
+    // CREATE TABLE name(column, ...) options
+    private static MySQLTable createTable(String tableName, String rest) {
+        int end = findClosingParenthesis(rest);
+        if (end == -1) {
+            return null;
+        }
+        List<MySQLColumn> columns = new ArrayList<>();
+        List<MySQLIndex> indexes = new ArrayList<>();
+        for (String definition : splitTopLevel(rest.substring(0, end))) {
+            String[] tokens = definition.trim().split("\\s+");
+            if (tokens.length < 2 || !tokens[0].matches("c\\d+")) {
+                // e.g., a table constraint
+                return null;
+            }
+            String upperCaseDefinition = definition.toUpperCase(Locale.ROOT);
+            boolean isPrimaryKey = upperCaseDefinition.contains(" PRIMARY KEY");
+            MySQLColumn column;
+            try {
+                column = new MySQLColumn(tokens[0],
+                        MySQLSchema.getColumnType(tokens[1].replaceAll("\\(.*", "").toLowerCase(Locale.ROOT)),
+                        isPrimaryKey, 0);
+            } catch (AssertionError e) {
+                return null;
+            }
+            columns.add(column);
+            if (isPrimaryKey) {
+                indexes.add(MySQLIndex.create("PRIMARY"));
+            }
+            if (upperCaseDefinition.contains(" UNIQUE")) {
+                indexes.add(MySQLIndex.create(tokens[0]));
+            }
+        }
+        Matcher engine = ENGINE.matcher(rest.substring(end));
+        MySQLTable table = new MySQLTable(tableName, columns, indexes,
+                engine.find() ? MySQLEngine.get(engine.group(1)) : MySQLEngine.INNO_DB);
+        for (MySQLColumn c : columns) {
+            c.setTable(table);
+        }
+        return table;
+    }
+
+    // ALTER TABLE name action, ... [ORDER BY column, ...]
+    private static MySQLSchema alterTable(MySQLSchema schema, String tableName, String actions, TableReader reader)
+            throws SQLException {
+        MySQLTable table = schema.getDatabaseTable(tableName);
+        if (table == null) {
+            return null;
+        }
+        String newName = tableName;
+        boolean columnsChanged = false;
+        int orderBy = actions.toUpperCase(Locale.ROOT).indexOf("ORDER BY");
+        for (String action : splitTopLevel(orderBy == -1 ? actions : actions.substring(0, orderBy))) {
+            String[] tokens = action.trim().split("\\s+");
+            switch (tokens[0].toUpperCase(Locale.ROOT)) {
+            case "RENAME":
+                newName = tokens[tokens.length - 1];
+                break;
+            case "DROP":
+                // a dropped column or primary key can also remove indexes
+                columnsChanged = true;
+                break;
+            case "ADD":
+            case "CHANGE":
+            case "MODIFY":
+            case "ALTER":
+                return null;
+            default:
+                // table options do not change the schema
+                break;
+            }
+        }
+        if (columnsChanged) {
+            return reread(schema, table, newName, reader);
+        } else if (!newName.equals(tableName)) {
+            return replace(schema, table, copy(table, newName, table.getIndexes()));
+        } else {
+            return schema;
+        }
+    }
+
+    private static MySQLSchema reread(MySQLSchema schema, MySQLTable oldTable, String tableName, TableReader reader)
+            throws SQLException {
+        MySQLTable table = reader.read(tableName);
+        return table == null ? null : replace(schema, oldTable, table);
+    }
+
+    private static MySQLTable copy(MySQLTable table, String tableName, List<MySQLIndex> indexes) {
+        List<MySQLColumn> columns = table.getColumns().stream()
+                .map(c -> new MySQLColumn(c.getName(), c.getType(), c.isPrimaryKey(), c.getPrecision()))
+                .collect(Collectors.toList());
+        MySQLTable copy = new MySQLTable(tableName, columns, indexes, table.getEngine());
+        for (MySQLColumn c : columns) {
+            c.setTable(copy);
+        }
+        return copy;
+    }
+
+    private static MySQLSchema replace(MySQLSchema schema, MySQLTable oldTable, MySQLTable newTable) {
+        List<MySQLTable> tables = new ArrayList<>(schema.getDatabaseTables());
+        tables.remove(oldTable);
+        tables.add(newTable);
+        return new MySQLSchema(tables);
+    }
+
+    private static int findClosingParenthesis(String s) {
+        int depth = 0;
+        boolean inString = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\'') {
+                inString = !inString;
+            } else if (!inString && c == '(') {
+                depth++;
+            } else if (!inString && c == ')') {
+                if (depth == 0) {
+                    return i;
+                }
+                depth--;
+            }
+        }
+        return -1;
+    }
+
+    // splits at the commas that are not enclosed in parentheses or string literals
+    private static List<String> splitTopLevel(String s) {
+        List<String> parts = new ArrayList<>();
+        int depth = 0;
+        boolean inString = false;
+        int start = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '\'') {
+                inString = !inString;
+            } else if (!inString && c == '(') {
+                depth++;
+            } else if (!inString && c == ')') {
+                depth--;
+            } else if (!inString && depth == 0 && c == ',') {
+                parts.add(s.substring(start, i));
+                start = i + 1;
+            }
+        }
+        parts.add(s.substring(start));
+        return parts;
+    }
+}
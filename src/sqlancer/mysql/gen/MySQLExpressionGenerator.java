@@ -45,7 +45,6 @@ import sqlancer.mysql.ast.MySQLUnaryPostfixOperation;
 import sqlancer.mysql.ast.MySQLUnaryPrefixOperation;
 import sqlancer.mysql.ast.MySQLUnaryPrefixOperation.MySQLUnaryPrefixOperator;
 
-import static sqlancer.ParameteraAwareGenerator.featureSet;
 
 
 public class MySQLExpressionGenerator extends UntypedExpressionGenerator<MySQLExpression, MySQLColumn>
@@ -74,15 +73,16 @@ public class MySQLExpressionGenerator extends UntypedExpressionGenerator<MySQLEx
     public  Actions selectAction(){
         if(BaseConfigurationGenerator.isTrainingPhase){
             Actions actions = Randomly.fromOptions(Actions.values());
-            featureSet.add(actions);
+            state.getFeatureTracker().record(actions);
             return actions;
         } else {
+            double[] probabilities = state.getFeatureTracker().getProbabilities();
             double random = Randomly.getPercentage();
             double cumulativeProbability = 0.0;
 
             for(Actions action : Actions.values()) {
 
-                cumulativeProbability += ParameteraAwareGenerator.comActionProbabilities[action.ordinal()];
+                cumulativeProbability += (probabilities == null ? 0 : probabilities[action.ordinal()]);
 
                 if (random <= cumulativeProbability) {
                     return action;
@@ -8,6 +8,7 @@ import java.util.*;
 import sqlancer.Randomly;
 import sqlancer.SQLConnection;
 import sqlancer.SQLGlobalState;
+import sqlancer.common.query.Query;
 
 public class PostgresGlobalState extends SQLGlobalState<PostgresOptions, PostgresSchema> {
 
@@ -126,6 +127,13 @@ public class PostgresGlobalState extends SQLGlobalState<PostgresOptions, Postgre
         return PostgresSchema.fromConnection(getConnection(), getDatabaseName());
     }
 
+    @Override
+    protected PostgresSchema applySchemaChange(PostgresSchema currentSchema, Query<?> q, boolean success)
+            throws SQLException {
+        return PostgresSchemaUpdater.apply(currentSchema, q.getQueryString(), success,
+                tableName -> PostgresSchema.readTable(getConnection(), tableName));
+    }
+
     public void addFunctionAndType(String functionName, Character functionType) {
         this.functionsAndTypes.put(functionName, functionType);
     }
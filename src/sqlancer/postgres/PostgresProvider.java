@@ -9,9 +9,13 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.databind.JsonNode;
@@ -20,6 +24,7 @@ import com.google.auto.service.AutoService;
 
 import sqlancer.*;
 import sqlancer.common.DBMSCommon;
+import sqlancer.common.query.Query;
 import sqlancer.common.query.SQLQueryAdapter;
 import sqlancer.common.query.SQLQueryProvider;
 import sqlancer.common.query.SQLancerResultSet;
@@ -28,7 +33,8 @@ import sqlancer.postgres.gen.*;
 // EXISTS
 // IN
 @AutoService(DatabaseProvider.class)
-public class PostgresProvider extends SQLProviderAdapter<PostgresGlobalState, PostgresOptions> {
+public class PostgresProvider extends SQLProviderAdapter<PostgresGlobalState, PostgresOptions>
+        implements SnapshotCapableProvider<PostgresGlobalState, SQLConnection> {
 
     /**
      * Generate only data types and expressions that are understood by PQS.
@@ -46,6 +52,15 @@ public class PostgresProvider extends SQLProviderAdapter<PostgresGlobalState, Po
     protected String createDatabaseCommand;
     protected String extensionsList;
 
+    // statements whose effects are not copied by CREATE DATABASE ... TEMPLATE
+    private static final Pattern NOT_SNAPSHOTTABLE = Pattern.compile(
+            "^\\s*(BEGIN|START\\s+TRANSACTION|SAVEPOINT|PREPARE|DECLARE|LISTEN|ALTER\\s+DATABASE)\\b|\\bTEMP(ORARY)?\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern SESSION_SETTING = Pattern.compile("^\\s*(SET|RESET)\\b", Pattern.CASE_INSENSITIVE);
+
+    // session settings of the snapshot prefixes, which are executed again on the connection to a restored snapshot
+    private final Map<String, List<Query<SQLConnection>>> snapshotSettings = new ConcurrentHashMap<>();
+
     public PostgresProvider() {
         super(PostgresGlobalState.class, PostgresOptions.class);
     }
@@ -213,6 +228,9 @@ public class PostgresProvider extends SQLProviderAdapter<PostgresGlobalState, Po
         password = globalState.getOptions().getPassword();
         host = globalState.getOptions().getHost();
         port = globalState.getOptions().getPort();
+        if (globalState.getAflMonitorPort() != MainOptions.NO_SET_PORT) {
+            port = globalState.getAflMonitorPort();
+        }
         entryPath = "/fuzzDatabase";
         entryURL = globalState.getDbmsSpecificOptions().connectionURL;
         // trim URL to exclude "jdbc:"
@@ -254,7 +272,10 @@ public class PostgresProvider extends SQLProviderAdapter<PostgresGlobalState, Po
         } catch (URISyntaxException e) {
             throw new AssertionError(e);
         }
-        Connection con = DriverManager.getConnection("jdbc:" + entryURL, username, password);
+        boolean pooled = globalState.getOptions().poolConnections();
+        // the connection to the entry database can be reused, as it only drops and creates databases
+        Connection con = pooled ? ConnectionPool.getConnection("jdbc:" + entryURL, username, password)
+                : DriverManager.getConnection("jdbc:" + entryURL, username, password);
         globalState.getState().logStatement(String.format("\\c %s;", entryDatabaseName));
 
         String dropCommand = "DROP DATABASE";
@@ -287,7 +308,11 @@ public class PostgresProvider extends SQLProviderAdapter<PostgresGlobalState, Po
         try (Statement s = con.createStatement()) {
             s.execute(createDatabaseCommand);
         }
-        con.close();
+        if (pooled) {
+            ConnectionPool.release("jdbc:" + entryURL, username, con, null);
+        } else {
+            con.close();
+        }
         int databaseIndex = entryURL.indexOf(entryDatabaseName);
         String preDatabaseName = entryURL.substring(0, databaseIndex);
         String postDatabaseName = entryURL.substring(databaseIndex + entryDatabaseName.length());
@@ -295,7 +320,68 @@ public class PostgresProvider extends SQLProviderAdapter<PostgresGlobalState, Po
         globalState.getState().logStatement(String.format("\\c %s;", databaseName));
 
         con = DriverManager.getConnection("jdbc:" + testURL, username, password);
-        return new SQLConnection(con);
+        // the driver sends statements separated by semicolons together
+        return new SQLConnection(con, true);
+    }
+
+    @Override
+    public boolean createSnapshot(PostgresGlobalState globalState, String snapshotName,
+            List<Query<SQLConnection>> prefix) throws SQLException {
+        List<Query<SQLConnection>> settings = new ArrayList<>();
+        for (Query<SQLConnection> query : prefix) {
+            if (NOT_SNAPSHOTTABLE.matcher(query.getQueryString()).find()) {
+                return false;
+            }
+            if (SESSION_SETTING.matcher(query.getQueryString()).find()) {
+                settings.add(query);
+            }
+        }
+        String database = globalState.getDatabaseName();
+        // a database can only be used as a template while nobody is connected to it
+        globalState.getConnection().close();
+        try (Connection con = DriverManager.getConnection("jdbc:" + entryURL, username, password);
+                Statement s = con.createStatement()) {
+            s.execute("DROP DATABASE IF EXISTS " + snapshotName);
+            s.execute("CREATE DATABASE " + snapshotName + " TEMPLATE " + database);
+        }
+        globalState.setConnection(connectTo(database));
+        snapshotSettings.put(snapshotName, settings);
+        return true;
+    }
+
+    @Override
+    public SQLConnection restoreSnapshot(PostgresGlobalState globalState, String snapshotName) throws SQLException {
+        String database = globalState.getDatabaseName();
+        try (Connection con = DriverManager.getConnection("jdbc:" + entryURL, username, password);
+                Statement s = con.createStatement()) {
+            s.execute("DROP DATABASE IF EXISTS " + database);
+            s.execute("CREATE DATABASE " + database + " TEMPLATE " + snapshotName);
+        }
+        SQLConnection con = connectTo(database);
+        globalState.setConnection(con);
+        for (Query<SQLConnection> setting : snapshotSettings.getOrDefault(snapshotName, Collections.emptyList())) {
+            try {
+                setting.execute(globalState);
+            } catch (Throwable ignoredException) {
+                // ignore, as when the statement was executed originally
+            }
+        }
+        return con;
+    }
+
+    @Override
+    public void dropSnapshot(PostgresGlobalState globalState, String snapshotName) throws SQLException {
+        snapshotSettings.remove(snapshotName);
+        try (Connection con = DriverManager.getConnection("jdbc:" + entryURL, username, password);
+                Statement s = con.createStatement()) {
+            s.execute("DROP DATABASE IF EXISTS " + snapshotName);
+        }
+    }
+
+    private SQLConnection connectTo(String database) throws SQLException {
+        // entryURL has the form scheme://host:port/entryDatabase
+        String url = entryURL.substring(0, entryURL.lastIndexOf('/') + 1) + database;
+        return new SQLConnection(DriverManager.getConnection("jdbc:" + url, username, password), true);
     }
 
     protected void readFunctions(PostgresGlobalState globalState) throws SQLException {
@@ -235,16 +235,7 @@ public class PostgresSchema extends AbstractSchema<PostgresGlobalState, Postgres
                         boolean isView = tableName.startsWith("v"); // tableTypeStr.contains("VIEW") ||
                                                                     // tableTypeStr.contains("LOCAL TEMPORARY") &&
                                                                     // !isInsertable;
-                        PostgresTable.TableType tableType = getTableType(tableTypeSchema);
-                        List<PostgresColumn> databaseColumns = getTableColumns(con, tableName);
-                        List<PostgresIndex> indexes = getIndexes(con, tableName);
-                        List<PostgresStatisticsObject> statistics = getStatistics(con);
-                        PostgresTable t = new PostgresTable(tableName, databaseColumns, indexes, tableType, statistics,
-                                isView, isInsertable);
-                        for (PostgresColumn c : databaseColumns) {
-                            c.setTable(t);
-                        }
-                        databaseTables.add(t);
+                        databaseTables.add(readTable(con, tableName, tableTypeSchema, isView, isInsertable));
                     }
                 }
             }
@@ -254,6 +245,39 @@ public class PostgresSchema extends AbstractSchema<PostgresGlobalState, Postgres
         }
     }
 
+    /**
+     * Reads a single table or view, e.g., after a statement that created it (see {@link PostgresSchemaUpdater}).
+     *
+     * @return the table, or null if it does not exist
+     */
+    public static PostgresTable readTable(SQLConnection con, String tableName) throws SQLException {
+        try (Statement s = con.createStatement()) {
+            try (ResultSet rs = s.executeQuery(
+                    "SELECT table_schema, is_insertable_into FROM information_schema.tables WHERE (table_schema='public' OR table_schema LIKE 'pg_temp_%') AND table_name='"
+                            + tableName + "';")) {
+                if (!rs.next()) {
+                    return null;
+                }
+                return readTable(con, tableName, rs.getString("table_schema"), tableName.startsWith("v"),
+                        rs.getBoolean("is_insertable_into"));
+            }
+        }
+    }
+
+    private static PostgresTable readTable(SQLConnection con, String tableName, String tableTypeSchema,
+            boolean isView, boolean isInsertable) throws SQLException {
+        PostgresTable.TableType tableType = getTableType(tableTypeSchema);
+        List<PostgresColumn> databaseColumns = getTableColumns(con, tableName);
+        List<PostgresIndex> indexes = getIndexes(con, tableName);
+        List<PostgresStatisticsObject> statistics = getStatistics(con);
+        PostgresTable t = new PostgresTable(tableName, databaseColumns, indexes, tableType, statistics, isView,
+                isInsertable);
+        for (PostgresColumn c : databaseColumns) {
+            c.setTable(t);
+        }
+        return t;
+    }
+
     protected static List<PostgresStatisticsObject> getStatistics(SQLConnection con) throws SQLException {
         List<PostgresStatisticsObject> statistics = new ArrayList<>();
         try (Statement s = con.createStatement()) {
@@ -0,0 +1,154 @@
+package sqlancer.postgres;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import sqlancer.common.DBMSCommon;
+import sqlancer.postgres.PostgresSchema.PostgresColumn;
+import sqlancer.postgres.PostgresSchema.PostgresIndex;
+import sqlancer.postgres.PostgresSchema.PostgresStatisticsObject;
+import sqlancer.postgres.PostgresSchema.PostgresTable;
+
+/**
+ * Applies the effect of the DDL statements generated for PostgreSQL to a {@link PostgresSchema}, so that the schema
+ * does not have to be read from the database after each of them. Created tables and views are read individually;
+ * statements whose effect is not known (e.g., ALTER TABLE, which also affects inheriting tables, or ROLLBACK) require
+ * reading the whole schema.
+ */
+public final class PostgresSchemaUpdater {
+
+    private static final int FLAGS = Pattern.CASE_INSENSITIVE | Pattern.DOTALL;
+    private static final Pattern CREATE_TABLE = Pattern
+            .compile("CREATE(\\s+(TEMPORARY|TEMP|UNLOGGED))?\\s+TABLE(\\s+IF NOT EXISTS)?\\s+(\\w+).*", FLAGS);
+    private static final Pattern CREATE_VIEW = Pattern.compile("CREATE\\s+[A-Z\\s]*VIEW\\s+(\\w+).*", FLAGS);
+    private static final Pattern CREATE_INDEX = Pattern
+            .compile("CREATE(\\s+UNIQUE)?\\s+INDEX\\s+(\\w+)\\s+ON\\s+(ONLY\\s+)?(\\w+).*", FLAGS);
+    private static final Pattern DROP_INDEX = Pattern
+            .compile("DROP\\s+INDEX(\\s+IF EXISTS)?\\s+([\\w\\s,]+?)(\\s+(CASCADE|RESTRICT))?;?", FLAGS);
+    private static final Pattern CREATE_STATISTICS = Pattern
+            .compile("CREATE\\s+STATISTICS(\\s+IF NOT EXISTS)?\\s+(\\w+).*", FLAGS);
+    private static final Pattern DROP_STATISTICS = Pattern.compile("DROP\\s+STATISTICS\\s+(\\w+);?", FLAGS);
+    private static final Pattern UNCHANGED = Pattern.compile("(BEGIN|ALTER\\s+STATISTICS|UPDATE)\\b.*", FLAGS);
+
+    /**
+     * Reads a single table from the database.
+     */
+    @FunctionalInterface
+    public interface TableReader {
+        /**
+         * @return the table, or null if it does not exist
+         */
+        PostgresTable read(String tableName) throws SQLException;
+    }
+
+    private PostgresSchemaUpdater() {
+    }
+
+    /**
+     * @param schema
+     *            the schema before the statement was executed
+     * @param statement
+     *            a statement that could have affected the schema
+     * @param success
+     *            whether the statement was executed successfully
+     * @param reader
+     *            reads tables that were created by the statement
+     *
+     * @return the new schema, schema itself if the statement did not change it, or null if the schema has to be read
+     *         from the database
+     */
+    public static PostgresSchema apply(PostgresSchema schema, String statement, boolean success, TableReader reader)
+            throws SQLException {
+        String s = statement.trim();
+        Matcher m;
+        if (!success) {
+            // statements are atomic, and a failed transaction is rolled back by its COMMIT, which rereads the schema
+            return schema;
+        } else if (UNCHANGED.matcher(s).matches()) {
+            return schema;
+        } else if ((m = CREATE_TABLE.matcher(s)).matches()) {
+            if (schema.getDatabaseTable(m.group(4)) != null) {
+                return m.group(3) == null ? null : schema;
+            }
+            return reread(schema, m.group(4), reader);
+        } else if ((m = CREATE_VIEW.matcher(s)).matches()) {
+            // materialized views are not part of the schema, so reading them can also result in no table
+            return reread(schema, m.group(1), reader);
+        } else if ((m = CREATE_INDEX.matcher(s)).matches()) {
+            String indexName = m.group(2);
+            PostgresTable table = schema.getDatabaseTable(m.group(4));
+            if (table == null) {
+                return null;
+            }
+            if (!DBMSCommon.matchesIndexName(indexName)) {
+                return schema;
+            }
+            List<PostgresIndex> indexes = new ArrayList<>(table.getIndexes());
+            indexes.add(PostgresIndex.create(indexName));
+            return replace(schema, table, copy(table, indexes, table.getStatistics()));
+        } else if ((m = DROP_INDEX.matcher(s)).matches()) {
+            // index names are unique within the database
+            List<String> names = Arrays.stream(m.group(2).split(",")).map(String::trim).collect(Collectors.toList());
+            return changeAllTables(schema, t -> t.getIndexes().stream().anyMatch(i -> names.contains(i.getIndexName()))
+                    ? copy(t, t.getIndexes().stream().filter(i -> !names.contains(i.getIndexName()))
+                            .collect(Collectors.toList()), t.getStatistics())
+                    : t);
+        } else if ((m = CREATE_STATISTICS.matcher(s)).matches()) {
+            String name = m.group(2);
+            if (schema.getDatabaseTables().stream()
+                    .anyMatch(t -> t.getStatistics().stream().anyMatch(o -> o.getName().equals(name)))) {
+                return schema;
+            }
+            return changeAllTables(schema, t -> {
+                List<PostgresStatisticsObject> statistics = new ArrayList<>(t.getStatistics());
+                statistics.add(new PostgresStatisticsObject(name));
+                return copy(t, t.getIndexes(), statistics);
+            });
+        } else if ((m = DROP_STATISTICS.matcher(s)).matches()) {
+            String name = m.group(1);
+            return changeAllTables(schema, t -> copy(t, t.getIndexes(),
+                    t.getStatistics().stream().filter(o -> !o.getName().equals(name)).collect(Collectors.toList())));
+        } else {
+            return null;
+        }
+    }
+
+    private static PostgresSchema reread(PostgresSchema schema, String tableName, TableReader reader)
+            throws SQLException {
+        PostgresTable table = reader.read(tableName);
+        List<PostgresTable> tables = new ArrayList<>(schema.getDatabaseTables());
+        tables.removeIf(t -> t.getName().equals(tableName));
+        if (table != null) {
+            tables.add(table);
+        }
+        return new PostgresSchema(tables, schema.getDatabaseName());
+    }
+
+    private static PostgresSchema changeAllTables(PostgresSchema schema,
+            Function<PostgresTable, PostgresTable> change) {
+        return new PostgresSchema(schema.getDatabaseTables().stream().map(change).collect(Collectors.toList()),
+                schema.getDatabaseName());
+    }
+
+    private static PostgresSchema replace(PostgresSchema schema, PostgresTable oldTable, PostgresTable newTable) {
+        return changeAllTables(schema, t -> t == oldTable ? newTable : t);
+    }
+
+    private static PostgresTable copy(PostgresTable table, List<PostgresIndex> indexes,
+            List<PostgresStatisticsObject> statistics) {
+        List<PostgresColumn> columns = table.getColumns().stream()
+                .map(c -> new PostgresColumn(c.getName(), c.getType())).collect(Collectors.toList());
+        PostgresTable copy = new PostgresTable(table.getName(), columns, indexes, table.getTableType(), statistics,
+                table.isView(), table.isInsertable());
+        for (PostgresColumn c : columns) {
+            c.setTable(copy);
+        }
+        return copy;
+    }
+}
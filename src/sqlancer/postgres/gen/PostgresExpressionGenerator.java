@@ -69,7 +69,6 @@ import sqlancer.postgres.ast.PostgresWindowFunction;
 import sqlancer.postgres.ast.PostgresWindowFunction.WindowFrame;
 import sqlancer.postgres.ast.PostgresWindowFunction.WindowSpecification;
 
-import static sqlancer.ParameteraAwareGenerator.featureSet;
 
 public class PostgresExpressionGenerator implements ExpressionGenerator<PostgresExpression>,
         NoRECGenerator<PostgresSelect, PostgresJoin, PostgresExpression, PostgresTable, PostgresColumn>,
@@ -132,15 +131,16 @@ public class PostgresExpressionGenerator implements ExpressionGenerator<Postgres
     private BooleanExpression selectAction(){
         if(BaseConfigurationGenerator.isTrainingPhase){
             BooleanExpression actions = Randomly.fromOptions(BooleanExpression.values());
-            featureSet.add(actions);
+            globalState.getFeatureTracker().record(actions);
             return actions;
         } else {
+            double[] probabilities = globalState.getFeatureTracker().getProbabilities();
             double random = Randomly.getPercentage();
             double cumulativeProbability = 0.0;
 
             for(BooleanExpression action : BooleanExpression.values()) {
 
-                cumulativeProbability += ParameteraAwareGenerator.comActionProbabilities[action.ordinal()];
+                cumulativeProbability += (probabilities == null ? 0 : probabilities[action.ordinal()]);
 
                 if (random <= cumulativeProbability) {
                     return action;
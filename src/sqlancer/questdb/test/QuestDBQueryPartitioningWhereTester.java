@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 import sqlancer.ComparatorHelper;
+import sqlancer.ResultSetDigest;
 import sqlancer.questdb.QuestDBErrors;
 import sqlancer.questdb.QuestDBProvider.QuestDBGlobalState;
 import sqlancer.questdb.QuestDBToStringVisitor;
@@ -21,7 +22,8 @@ public class QuestDBQueryPartitioningWhereTester extends QuestDBQueryPartitionin
         select.setWhereClause(null);
         String originalQueryString = QuestDBToStringVisitor.asString(select);
 
-        List<String> resultSet = ComparatorHelper.getResultSetFirstColumnAsString(originalQueryString, errors, state);
+        ResultSetDigest resultSet = ComparatorHelper.getResultSetFirstColumnDigest(originalQueryString, errors, state,
+                ComparatorHelper::canonicalizeResultValue);
 
         // Ignore OrderBy for now
 
@@ -33,9 +35,10 @@ public class QuestDBQueryPartitioningWhereTester extends QuestDBQueryPartitionin
         String thirdQueryString = QuestDBToStringVisitor.asString(select);
 
         List<String> combinedString = new ArrayList<>();
-        List<String> secondResultSet = ComparatorHelper.getCombinedResultSet(firstQueryString, secondQueryString,
-                thirdQueryString, combinedString, false, state, errors);
+        ResultSetDigest secondResultSet = ComparatorHelper.getCombinedResultSetDigest(firstQueryString,
+                secondQueryString, thirdQueryString, combinedString, false, state, errors,
+                ComparatorHelper::canonicalizeResultValue);
         ComparatorHelper.assumeResultSetsAreEqual(resultSet, secondResultSet, originalQueryString, combinedString,
-                state, ComparatorHelper::canonicalizeResultValue);
+                state, errors);
     }
 }
@@ -2,7 +2,6 @@ package sqlancer.sqlite3;
 
 import java.sql.SQLException;
 
-import sqlancer.AFLMonitor;
 import sqlancer.ExecutionTimer;
 import sqlancer.SQLConnection;
 import sqlancer.SQLGlobalState;
@@ -20,7 +19,7 @@ public class SQLite3GlobalState extends SQLGlobalState<SQLite3Options, SQLite3Sc
     @Override
     public boolean executeStatement(Query<SQLConnection> q, String... fills) throws Exception {
 
-        AFLMonitor.getInstance().executeSQLStatement(q.getQueryString());
+        getAflMonitor().executeSQLStatement(q.getQueryString());
         // 原有逻辑
 
         return super.executeStatement(q, fills);
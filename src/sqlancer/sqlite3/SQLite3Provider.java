@@ -2,11 +2,18 @@ package sqlancer.sqlite3;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import com.google.auto.service.AutoService;
@@ -14,6 +21,7 @@ import com.google.auto.service.AutoService;
 import sqlancer.*;
 import sqlancer.common.DBMSCommon;
 import sqlancer.common.query.ExpectedErrors;
+import sqlancer.common.query.Query;
 import sqlancer.common.query.SQLQueryAdapter;
 import sqlancer.common.query.SQLQueryProvider;
 import sqlancer.common.query.SQLancerResultSet;
@@ -34,11 +42,20 @@ import sqlancer.sqlite3.gen.dml.SQLite3UpdateGenerator;
 import sqlancer.sqlite3.schema.SQLite3Schema.SQLite3Table;
 
 @AutoService(DatabaseProvider.class)
-public class SQLite3Provider extends SQLProviderAdapter<SQLite3GlobalState, SQLite3Options> {
+public class SQLite3Provider extends SQLProviderAdapter<SQLite3GlobalState, SQLite3Options>
+        implements SnapshotCapableProvider<SQLite3GlobalState, SQLConnection> {
 
     public static boolean allowFloatingPointFp = true;
     public static boolean mustKnowResult;
 
+    // statements whose effects are not stored in the database file and cannot be restored from a snapshot
+    private static final Pattern NOT_SNAPSHOTTABLE = Pattern
+            .compile("^\\s*(ATTACH|DETACH|BEGIN|SAVEPOINT|RELEASE)\\b|\\bTEMP(ORARY)?\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PRAGMA = Pattern.compile("^\\s*PRAGMA\\b", Pattern.CASE_INSENSITIVE);
+
+    // pragmas of the snapshot prefixes, which are executed again on the connection to a restored snapshot
+    private final Map<String, List<Query<SQLConnection>>> snapshotPragmas = new ConcurrentHashMap<>();
+
     // PRAGMAS to achieve good performance
     private static final List<String> DEFAULT_PRAGMAS = Arrays.asList("PRAGMA cache_size = 50000;",
             "PRAGMA temp_store=MEMORY;", "PRAGMA synchronous=off;");
@@ -102,7 +119,7 @@ public class SQLite3Provider extends SQLProviderAdapter<SQLite3GlobalState, SQLi
         @Override
         public SQLQueryAdapter getQuery(SQLite3GlobalState state) throws Exception {
             SQLQueryAdapter query = sqlQueryProvider.getQuery(state);
-            AFLMonitor.getInstance().executeSQLStatement(query.getQueryString());
+            state.getAflMonitor().executeSQLStatement(query.getQueryString());
             return query;
         }
     }
@@ -186,7 +203,7 @@ public class SQLite3Provider extends SQLProviderAdapter<SQLite3GlobalState, SQLi
             do {
                 SQLQueryAdapter tableQuery = getTableQuery(globalState, i++);
                 globalState.executeStatement(tableQuery);
-                AFLMonitor.getInstance().executeSQLStatement(tableQuery.getQueryString());
+                globalState.getAflMonitor().executeSQLStatement(tableQuery.getQueryString());
             } while (globalState.getSchema().getDatabaseTables().size() < nrTablesToCreate);
             assert globalState.getSchema().getTables().getTables().size() == nrTablesToCreate;
             checkTablesForGeneratedColumnLoops(globalState);
@@ -194,7 +211,7 @@ public class SQLite3Provider extends SQLProviderAdapter<SQLite3GlobalState, SQLi
                 SQLQueryAdapter tableQuery = new SQLQueryAdapter(
                         "CREATE VIRTUAL TABLE IF NOT EXISTS stat USING dbstat(main)");
                 globalState.executeStatement(tableQuery);
-                AFLMonitor.getInstance().executeSQLStatement(tableQuery.getQueryString());
+                globalState.getAflMonitor().executeSQLStatement(tableQuery.getQueryString());
             }
             StatementExecutor<SQLite3GlobalState, Action> se = new StatementExecutor<>(globalState, Action.values(),
                     SQLite3Provider::mapActions, (q) -> {
@@ -206,11 +223,11 @@ public class SQLite3Provider extends SQLProviderAdapter<SQLite3GlobalState, SQLi
 
             SQLQueryAdapter query = SQLite3TransactionGenerator.generateCommit(globalState);
             globalState.executeStatement(query);
-            AFLMonitor.getInstance().executeSQLStatement(query.getQueryString());
+            globalState.getAflMonitor().executeSQLStatement(query.getQueryString());
             // also do an abort for DEFERRABLE INITIALLY DEFERRED
             query = SQLite3TransactionGenerator.generateRollbackTransaction(globalState);
             globalState.executeStatement(query);
-            AFLMonitor.getInstance().executeSQLStatement(query.getQueryString());
+            globalState.getAflMonitor().executeSQLStatement(query.getQueryString());
         }
     }
 
@@ -221,7 +238,7 @@ public class SQLite3Provider extends SQLProviderAdapter<SQLite3GlobalState, SQLi
                             "generated column loop", "integer overflow", "malformed JSON",
                             "JSON cannot hold BLOB values", "JSON path error", "labels must be TEXT",
                             "table does not support scanning"));
-            AFLMonitor.getInstance().executeSQLStatement(q.getQueryString());
+            globalState.getAflMonitor().executeSQLStatement(q.getQueryString());
             if (!q.execute(globalState)) {
                 throw new IgnoreMeException();
             }
@@ -273,27 +290,35 @@ public class SQLite3Provider extends SQLProviderAdapter<SQLite3GlobalState, SQLi
         }
         for (String s : pragmasToExecute) {
             globalState.executeStatement(new SQLQueryAdapter(s));
-            AFLMonitor.getInstance().executeSQLStatement(s);
+            globalState.getAflMonitor().executeSQLStatement(s);
         }
     }
 
     @Override
     public SQLConnection createDatabase(SQLite3GlobalState globalState) throws SQLException, IOException {
+        File dataBase = getDatabaseFile(globalState.getDatabaseName());
+        if (dataBase.exists() && ((SQLite3GlobalState) globalState).getDbmsSpecificOptions().deleteIfExists) {
+            dataBase.delete();
+        }
+        return openDatabase(globalState, dataBase);
+    }
+
+    private static File getDatabaseFile(String databaseName) {
         File dir = new File("." + File.separator + "databases");
         if (!dir.exists()) {
             dir.mkdir();
         }
-        File dataBase = new File(dir, globalState.getDatabaseName() + ".db");
-        if (dataBase.exists() && ((SQLite3GlobalState) globalState).getDbmsSpecificOptions().deleteIfExists) {
-            dataBase.delete();
-        }
-        File dataBaseAfl = new File(dir, globalState.getDatabaseName() + "Afl.db");
+        return new File(dir, databaseName + ".db");
+    }
+
+    private SQLConnection openDatabase(SQLite3GlobalState globalState, File dataBase) throws SQLException, IOException {
+        File dataBaseAfl = new File(dataBase.getParentFile(), globalState.getDatabaseName() + "Afl.db");
         if (dataBaseAfl.exists() && ((SQLite3GlobalState) globalState).getDbmsSpecificOptions().deleteIfExists) {
             dataBaseAfl.delete();
         }
         String url = "jdbc:sqlite:" + dataBase.getAbsolutePath();
         globalState.getState().logStatement(".open " + dataBaseAfl.getAbsolutePath());
-        AFLMonitor.getInstance().executeSQLStatement(".open " + dataBaseAfl.getAbsolutePath());
+        globalState.getAflMonitor().executeSQLStatement(".open " + dataBaseAfl.getAbsolutePath());
         return new SQLConnection(DriverManager.getConnection(url));
         //String url = "jdbc:sqlite:" + dataBase.getAbsolutePath();jdbc:sqlite:
         //return new SQLite3AFLConnection(dataBase.getAbsolutePath());
@@ -304,6 +329,54 @@ public class SQLite3Provider extends SQLProviderAdapter<SQLite3GlobalState, SQLi
         return "sqlite3";
     }
 
+    @Override
+    public boolean createSnapshot(SQLite3GlobalState globalState, String snapshotName,
+            List<Query<SQLConnection>> prefix) throws SQLException, IOException {
+        List<Query<SQLConnection>> pragmas = new ArrayList<>();
+        for (Query<SQLConnection> query : prefix) {
+            if (NOT_SNAPSHOTTABLE.matcher(query.getQueryString()).find()) {
+                return false;
+            }
+            if (PRAGMA.matcher(query.getQueryString()).find()) {
+                pragmas.add(query);
+            }
+        }
+        File snapshot = getDatabaseFile(snapshotName);
+        Files.deleteIfExists(snapshot.toPath());
+        try (Statement s = globalState.getConnection().createStatement()) {
+            s.execute("VACUUM INTO '" + snapshot.getAbsolutePath().replace("'", "''") + "'");
+        }
+        snapshotPragmas.put(snapshotName, pragmas);
+        return true;
+    }
+
+    @Override
+    public SQLConnection restoreSnapshot(SQLite3GlobalState globalState, String snapshotName)
+            throws SQLException, IOException {
+        File dataBase = getDatabaseFile(globalState.getDatabaseName());
+        Files.copy(getDatabaseFile(snapshotName).toPath(), dataBase.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        // a stale journal of the previous replay would be applied to the restored file
+        Files.deleteIfExists(new File(dataBase.getPath() + "-wal").toPath());
+        Files.deleteIfExists(new File(dataBase.getPath() + "-shm").toPath());
+        Files.deleteIfExists(new File(dataBase.getPath() + "-journal").toPath());
+        SQLConnection con = openDatabase(globalState, dataBase);
+        globalState.setConnection(con);
+        for (Query<SQLConnection> pragma : snapshotPragmas.getOrDefault(snapshotName, Collections.emptyList())) {
+            try {
+                pragma.execute(globalState);
+            } catch (Throwable ignoredException) {
+                // ignore, as when the statement was executed originally
+            }
+        }
+        return con;
+    }
+
+    @Override
+    public void dropSnapshot(SQLite3GlobalState globalState, String snapshotName) throws IOException {
+        snapshotPragmas.remove(snapshotName);
+        Files.deleteIfExists(getDatabaseFile(snapshotName).toPath());
+    }
+
     @Override
     public String getQueryPlan(String selectStr, SQLite3GlobalState globalState) throws Exception {
         String queryPlan = "";
@@ -371,7 +444,7 @@ public class SQLite3Provider extends SQLProviderAdapter<SQLite3GlobalState, SQLi
         int nrTries = 0;
         do {
             SQLQueryAdapter config = globalState.getConfigurationGenerator().generateConfigForParameter(action);
-            AFLMonitor.getInstance().executeSQLStatement(config.getQueryString());
+            globalState.getAflMonitor().executeSQLStatement(config.getQueryString());
             success =  globalState.executeStatement( config);
             System.out.println(config.getQueryString());
         } while (!success && nrTries++ < 100);
@@ -383,7 +456,7 @@ public class SQLite3Provider extends SQLProviderAdapter<SQLite3GlobalState, SQLi
         int nrTries = 0;
         do {
             SQLQueryAdapter config = globalState.getConfigurationGenerator().generateDefaultConfigForParameter(action);
-            AFLMonitor.getInstance().executeSQLStatement(config.getQueryString());
+            globalState.getAflMonitor().executeSQLStatement(config.getQueryString());
             success =  globalState.executeStatement( config);
             System.out.println(config.getQueryString());
         } while (!success && nrTries++ < 100);
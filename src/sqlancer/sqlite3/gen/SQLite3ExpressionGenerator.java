@@ -8,7 +8,6 @@ import java.util.stream.Collectors;
 
 import sqlancer.BaseConfigurationGenerator;
 import sqlancer.ExpressionAction;
-import sqlancer.ParameteraAwareGenerator;
 import sqlancer.Randomly;
 import sqlancer.common.gen.ExpressionGenerator;
 import sqlancer.common.gen.NoRECGenerator;
@@ -54,7 +53,6 @@ import sqlancer.sqlite3.schema.SQLite3Schema.SQLite3Column.SQLite3CollateSequenc
 import sqlancer.sqlite3.schema.SQLite3Schema.SQLite3RowValue;
 import sqlancer.sqlite3.schema.SQLite3Schema.SQLite3Table;
 
-import static sqlancer.ParameteraAwareGenerator.featureSet;
 
 public class SQLite3ExpressionGenerator implements ExpressionGenerator<SQLite3Expression>,
         NoRECGenerator<SQLite3Select, Join, SQLite3Expression, SQLite3Table, SQLite3Column>,
@@ -257,15 +255,16 @@ public class SQLite3ExpressionGenerator implements ExpressionGenerator<SQLite3Ex
 
         if(BaseConfigurationGenerator.isTrainingPhase){
             SQLite3ExpressionGenerator.ExpressionType actions = Randomly.fromList(list);
-            featureSet.add(actions);
+            globalState.getFeatureTracker().record(actions);
             return actions;
         } else {
+            double[] probabilities = globalState.getFeatureTracker().getProbabilities();
             double random = Randomly.getPercentage();
             double cumulativeProbability = 0.0;
 
             for(ExpressionType action : list) {
 
-                cumulativeProbability += ParameteraAwareGenerator.comActionProbabilities[action.ordinal()];
+                cumulativeProbability += (probabilities == null ? 0 : probabilities[action.ordinal()]);
 
                 if (random <= cumulativeProbability) {
                     return action;
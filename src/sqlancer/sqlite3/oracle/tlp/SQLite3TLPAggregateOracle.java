@@ -4,7 +4,6 @@ import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
 
-import sqlancer.AFLMonitor;
 import sqlancer.ComparatorHelper;
 import sqlancer.IgnoreMeException;
 import sqlancer.Randomly;
@@ -81,7 +80,7 @@ public class SQLite3TLPAggregateOracle implements TestOracle<SQLite3GlobalState>
         SQLQueryAdapter q = new SQLQueryAdapter(originalQuery, errors);
 
         try (SQLancerResultSet result = q.executeAndGet(state)) {
-            AFLMonitor.getInstance().executeSQLStatement(originalQuery);
+            state.getAflMonitor().executeSQLStatement(originalQuery);
             if (result == null) {
                 throw new IgnoreMeException();
             }
@@ -93,7 +92,7 @@ public class SQLite3TLPAggregateOracle implements TestOracle<SQLite3GlobalState>
 
         SQLQueryAdapter q2 = new SQLQueryAdapter(metamorphicText, errors);
         try (SQLancerResultSet result = q2.executeAndGet(state)) {
-            AFLMonitor.getInstance().executeSQLStatement(metamorphicText);
+            state.getAflMonitor().executeSQLStatement(metamorphicText);
             if (result == null) {
                 throw new IgnoreMeException();
             }
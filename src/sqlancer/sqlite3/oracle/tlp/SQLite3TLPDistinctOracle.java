@@ -5,7 +5,6 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 
-import sqlancer.AFLMonitor;
 import sqlancer.ComparatorHelper;
 import sqlancer.sqlite3.SQLite3GlobalState;
 import sqlancer.sqlite3.SQLite3Visitor;
@@ -27,7 +26,7 @@ public class SQLite3TLPDistinctOracle extends SQLite3TLPBase {
         String originalQueryString = SQLite3Visitor.asString(select);
         generatedQueryString = originalQueryString;
         try {
-            AFLMonitor.getInstance().executeSQLStatement(generatedQueryString);
+            state.getAflMonitor().executeSQLStatement(generatedQueryString);
             List<String> resultSet = ComparatorHelper.getResultSetFirstColumnAsString(originalQueryString, errors, state);
 
             select.setWhereClause(predicate);
@@ -6,7 +6,6 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import sqlancer.AFLMonitor;
 import sqlancer.ComparatorHelper;
 import sqlancer.Randomly;
 import sqlancer.sqlite3.SQLite3GlobalState;
@@ -30,7 +29,7 @@ public class SQLite3TLPGroupByOracle extends SQLite3TLPBase {
         String originalQueryString = SQLite3Visitor.asString(select);
         generatedQueryString = originalQueryString;
         try {
-            AFLMonitor.getInstance().executeSQLStatement( generatedQueryString);
+            state.getAflMonitor().executeSQLStatement( generatedQueryString);
             List<String> resultSet = ComparatorHelper.getResultSetFirstColumnAsString(originalQueryString, errors, state);
 
             select.setWhereClause(predicate);
@@ -43,7 +42,7 @@ public class SQLite3TLPGroupByOracle extends SQLite3TLPBase {
             List<String> secondResultSet = null;
             secondResultSet = ComparatorHelper.getCombinedResultSetNoDuplicates(firstQueryString,
                     secondQueryString, thirdQueryString, combinedString, true, state, errors);
-            AFLMonitor.getInstance().executeSQLStatement(combinedString.get(0));
+            state.getAflMonitor().executeSQLStatement(combinedString.get(0));
             ComparatorHelper.assumeResultSetsAreEqual(resultSet, secondResultSet, originalQueryString, combinedString,
                     state);
         } catch (IOException e) {
@@ -6,7 +6,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
-import sqlancer.AFLMonitor;
 import sqlancer.ComparatorHelper;
 import sqlancer.IgnoreMeException;
 import sqlancer.Randomly;
@@ -66,7 +65,7 @@ public class SQLite3TLPHavingOracle implements TestOracle<SQLite3GlobalState> {
         String originalQueryString = SQLite3Visitor.asString(select);
         generatedQueryString = originalQueryString;
         try {
-            AFLMonitor.getInstance().executeSQLStatement(generatedQueryString);
+            state.getAflMonitor().executeSQLStatement(generatedQueryString);
             List<String> resultSet = ComparatorHelper.getResultSetFirstColumnAsString(originalQueryString, errors, state);
 
             SQLite3Expression predicate = gen.getHavingClause();
@@ -80,7 +79,7 @@ public class SQLite3TLPHavingOracle implements TestOracle<SQLite3GlobalState> {
             if (combinedString.contains("EXIST")) {
                 throw new IgnoreMeException();
             }
-            AFLMonitor.getInstance().executeSQLStatement(combinedString);
+            state.getAflMonitor().executeSQLStatement(combinedString);
             List<String> secondResultSet = ComparatorHelper.getResultSetFirstColumnAsString(combinedString, errors, state);
             if (state.getOptions().logEachSelect()) {
                 state.getLogger().writeCurrent(originalQueryString);
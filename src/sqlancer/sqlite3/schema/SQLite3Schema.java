@@ -12,7 +12,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import sqlancer.AFLMonitor;
 import sqlancer.IgnoreMeException;
 import sqlancer.Randomly;
 import sqlancer.SQLConnection;
@@ -278,7 +277,7 @@ public class SQLite3Schema extends AbstractSchema<SQLite3GlobalState, SQLite3Tab
         try (Statement s = con.createStatement()) {
             try (ResultSet rs = s.executeQuery("SELECT name, type as category, sql FROM sqlite_master UNION "
                     + "SELECT name, 'temp_table' as category, sql FROM sqlite_temp_master WHERE type='table' UNION SELECT name, 'view' as category, sql FROM sqlite_temp_master WHERE type='view' GROUP BY name;")) {
-                AFLMonitor.getInstance().executeSQLStatement("SELECT name, type as category, sql FROM sqlite_master UNION "
+                globalState.getAflMonitor().executeSQLStatement("SELECT name, type as category, sql FROM sqlite_master UNION "
                         + "SELECT name, 'temp_table' as category, sql FROM sqlite_temp_master WHERE type='table' UNION SELECT name, 'view' as category, sql FROM sqlite_temp_master WHERE type='view' GROUP BY name;");
                 while (rs.next()) {
                     String tableName = rs.getString("name");
@@ -327,7 +326,7 @@ public class SQLite3Schema extends AbstractSchema<SQLite3GlobalState, SQLite3Tab
             }
             try (ResultSet rs = s.executeQuery(
                     "SELECT name FROM SQLite_master WHERE type = 'index' UNION SELECT name FROM sqlite_temp_master WHERE type='index'")) {
-                AFLMonitor.getInstance().executeSQLStatement("SELECT name FROM SQLite_master WHERE type = 'index' UNION SELECT name FROM sqlite_temp_master WHERE type='index'");
+                globalState.getAflMonitor().executeSQLStatement("SELECT name FROM SQLite_master WHERE type = 'index' UNION SELECT name FROM sqlite_temp_master WHERE type='index'");
                 while (rs.next()) {
                     String name = rs.getString(1);
                     if (name.contains("_autoindex")) {
@@ -1,5 +1,7 @@
 package sqlancer.transformations;
 
+import java.util.function.Function;
+
 import net.sf.jsqlparser.parser.CCJSqlParserUtil;
 import net.sf.jsqlparser.statement.Statement;
 
@@ -10,6 +12,7 @@ import net.sf.jsqlparser.statement.Statement;
 public class JSQLParserBasedTransformation extends Transformation {
 
     protected Statement statement;
+    private Function<String, Statement> parser = JSQLParserBasedTransformation::parse;
 
     public JSQLParserBasedTransformation(String desc) {
         super(desc);
@@ -25,12 +28,32 @@ public class JSQLParserBasedTransformation extends Transformation {
     @Override
     public boolean init(String sql) {
         this.current = sql;
+        statement = parser.apply(sql);
+        return statement != null;
+    }
+
+    /**
+     * Sets the function that parses the statements passed to {@link #init(String)}. It may return a statement that was
+     * parsed before, e.g., by another transformation; the transformation modifies it in place. The parser returns
+     * null for statements that cannot be parsed.
+     */
+    public void setParser(Function<String, Statement> parser) {
+        this.parser = parser;
+    }
+
+    /**
+     * @return the parsed statement, which matches the last statement passed to the statement changed callback
+     */
+    public Statement getStatement() {
+        return statement;
+    }
+
+    public static Statement parse(String sql) {
         try {
-            statement = CCJSqlParserUtil.parse(current);
+            return CCJSqlParserUtil.parse(sql);
         } catch (Exception e) {
-            return false;
+            return null;
         }
-        return true;
     }
 
 }
@@ -0,0 +1,41 @@
+package sqlancer.transformations;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.sf.jsqlparser.statement.Statement;
+
+/**
+ * Keeps the parsed statements of the AST-based reducer, so that the transformations applied to a statement one after
+ * another do not parse it again, and statements that JSQLParser cannot parse are only tried once.
+ *
+ * A statement taken from the cache belongs to the caller, since transformations modify it in place. After the
+ * transformation, the caller puts it back under the string it now represents.
+ */
+public class ParsedStatementCache {
+
+    private final Map<String, Statement> statements = new ConcurrentHashMap<>();
+    private final Set<String> unparseable = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @return the parsed statement, or null if it cannot be parsed
+     */
+    public Statement take(String sql) {
+        if (unparseable.contains(sql)) {
+            return null;
+        }
+        Statement statement = statements.remove(sql);
+        if (statement == null) {
+            statement = JSQLParserBasedTransformation.parse(sql);
+            if (statement == null) {
+                unparseable.add(sql);
+            }
+        }
+        return statement;
+    }
+
+    public void put(String sql, Statement statement) {
+        statements.put(sql, statement);
+    }
+}
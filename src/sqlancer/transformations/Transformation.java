@@ -2,6 +2,7 @@ package sqlancer.transformations;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -12,7 +13,10 @@ import java.util.function.Supplier;
 public class Transformation {
 
     private static Supplier<Boolean> bugJudgement;
-    private static long reduceSteps;
+    private static final AtomicLong REDUCE_STEPS = new AtomicLong();
+
+    // overrides the global bug judgement, so that transformations can be applied concurrently on separate databases
+    private Supplier<Boolean> judgement;
 
     protected boolean isChanged;
     protected String current;
@@ -32,6 +36,10 @@ public class Transformation {
         bugJudgement = judgement;
     }
 
+    public void setJudgement(Supplier<Boolean> judgement) {
+        this.judgement = judgement;
+    }
+
     @Override
     public String toString() {
         return desc;
@@ -50,7 +58,7 @@ public class Transformation {
             onStatementChanged();
             return false;
         }
-        reduceSteps++;
+        REDUCE_STEPS.incrementAndGet();
         isChanged = true;
         return true;
     }
@@ -63,7 +71,7 @@ public class Transformation {
             onStatementChanged();
             return false;
         }
-        reduceSteps++;
+        REDUCE_STEPS.incrementAndGet();
         isChanged = true;
         return true;
     }
@@ -86,7 +94,7 @@ public class Transformation {
             }
             isChanged |= observeChange;
             setter.accept(parent, elms);
-            reduceSteps++;
+            REDUCE_STEPS.incrementAndGet();
             onStatementChanged();
         } while (observeChange);
 
@@ -94,7 +102,7 @@ public class Transformation {
 
     public boolean bugStillTriggers() {
         try {
-            return Transformation.bugJudgement.get();
+            return judgement == null ? Transformation.bugJudgement.get() : judgement.get();
         } catch (Exception ignored) {
         }
         return false;
@@ -109,7 +117,7 @@ public class Transformation {
     }
 
     public static long getReduceSteps() {
-        return reduceSteps;
+        return REDUCE_STEPS.get();
     }
 
     protected void onStatementChanged() {
@@ -0,0 +1,57 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class TestAliasTable {
+
+    private static final int NR_SAMPLES = 200000;
+
+    private static int[] histogram(AliasTable table) {
+        int[] counts = new int[table.size()];
+        for (int i = 0; i < NR_SAMPLES; i++) {
+            counts[table.sample()]++;
+        }
+        return counts;
+    }
+
+    @Test
+    public void testSamplesProportionallyToWeights() {
+        double[] weights = { 1, 2, 3, 4, 0 };
+        int[] counts = histogram(new AliasTable(weights, weights.length));
+        for (int i = 0; i < weights.length; i++) {
+            double expected = weights[i] / 10 * NR_SAMPLES;
+            assertEquals(expected, counts[i], NR_SAMPLES * 0.01);
+        }
+    }
+
+    @Test
+    public void testHugeWeightsDoNotOverflow() {
+        double[] weights = { Double.MAX_VALUE, Double.MAX_VALUE, Double.MAX_VALUE / 2 };
+        int[] counts = histogram(new AliasTable(weights, weights.length));
+        assertEquals(NR_SAMPLES * 0.4, counts[0], NR_SAMPLES * 0.01);
+        assertEquals(NR_SAMPLES * 0.2, counts[2], NR_SAMPLES * 0.01);
+    }
+
+    @Test
+    public void testInfiniteWeightsTakePrecedence() {
+        double[] weights = { 1, Double.POSITIVE_INFINITY, 5 };
+        int[] counts = histogram(new AliasTable(weights, weights.length));
+        assertEquals(NR_SAMPLES, counts[1]);
+    }
+
+    @Test
+    public void testZeroWeightsFallBackToUniform() {
+        int[] counts = histogram(new AliasTable(new double[3], 3));
+        for (int count : counts) {
+            assertTrue(Math.abs(count - NR_SAMPLES / 3.0) < NR_SAMPLES * 0.01);
+        }
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(-1, new AliasTable(new double[0], 0).sample());
+    }
+}
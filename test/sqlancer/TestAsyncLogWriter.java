@@ -0,0 +1,70 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class TestAsyncLogWriter {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void testSyncWritesEverything() throws Exception {
+        File file = dir.resolve("cur.log").toFile();
+        AsyncLogWriter writer = new AsyncLogWriter(file, false);
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            String line = "SELECT " + i + ";\n";
+            writer.write(line);
+            writer.flush();
+            expected.append(line);
+        }
+        writer.sync();
+        assertEquals(expected.toString(), Files.readString(file.toPath()));
+        writer.close();
+        assertThrows(IOException.class, () -> writer.write("x"));
+    }
+
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        List<Thread> threads = new ArrayList<>();
+        List<AsyncLogWriter> writers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            AsyncLogWriter writer = new AsyncLogWriter(dir.resolve(t + ".log").toFile(), false);
+            writers.add(writer);
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 20000; i++) {
+                        writer.append(i + "\n");
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new AssertionError(e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int t = 0; t < 4; t++) {
+            writers.get(t).close();
+            List<String> lines = Files.readAllLines(dir.resolve(t + ".log"));
+            assertEquals(20000, lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                assertEquals(String.valueOf(i), lines.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class TestCheckPipeline {
+
+    private static final int NR_CHECKS = 200;
+    private static final long SEED = 42;
+
+    private static List<Long> run(int depth) throws Exception {
+        List<Long> checks = new ArrayList<>();
+        new Randomly(SEED);
+        try (CheckPipeline<Long> pipeline = new CheckPipeline<>(() -> Randomly.getNotCachedInteger(0, 1000), depth,
+                NR_CHECKS, SEED)) {
+            for (int i = 0; i < NR_CHECKS; i++) {
+                checks.add(pipeline.next());
+                // the execution of a check draws from the stream of the testing thread
+                Randomly.getNonCachedInteger();
+            }
+        }
+        return checks;
+    }
+
+    @Test
+    public void testSameChecksForEveryDepth() throws Exception {
+        List<Long> expected = run(0);
+        for (int depth : new int[] { 1, 2, 5, NR_CHECKS + 1 }) {
+            assertEquals(expected, run(depth), "depth " + depth);
+        }
+    }
+
+    @Test
+    public void testCallerStreamUnchanged() throws Exception {
+        new Randomly(SEED);
+        long first = Randomly.getNonCachedInteger();
+        new Randomly(SEED);
+        try (CheckPipeline<Long> pipeline = new CheckPipeline<>(Randomly::getNonCachedInteger, 0, 1, SEED + 1)) {
+            pipeline.next();
+        }
+        assertEquals(first, Randomly.getNonCachedInteger());
+    }
+
+    @Test
+    public void testGeneratesAtMostNrChecks() throws Exception {
+        AtomicInteger nrGenerated = new AtomicInteger();
+        try (CheckPipeline<Integer> pipeline = new CheckPipeline<>(nrGenerated::incrementAndGet, 10, 3, SEED)) {
+            for (int i = 1; i <= 3; i++) {
+                assertEquals(i, pipeline.next());
+            }
+        }
+        assertEquals(3, nrGenerated.get());
+    }
+
+    @Test
+    public void testGenerationException() throws Exception {
+        try (CheckPipeline<Integer> pipeline = new CheckPipeline<>(() -> {
+            throw new IgnoreMeException();
+        }, 2, 5, SEED)) {
+            assertThrows(IgnoreMeException.class, pipeline::next);
+        }
+    }
+}
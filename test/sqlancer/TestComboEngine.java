@@ -0,0 +1,77 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import sqlancer.BaseConfigurationGenerator.ConfigurationAction;
+import sqlancer.BaseConfigurationGenerator.GenericAction;
+import sqlancer.BaseConfigurationGenerator.Scope;
+
+public class TestComboEngine {
+
+    private static ConfigurationAction[] actions(int n) {
+        ConfigurationAction[] actions = new ConfigurationAction[n];
+        for (int i = 0; i < n; i++) {
+            actions[i] = new GenericAction("p" + i, r -> 0, Scope.GLOBAL);
+        }
+        return actions;
+    }
+
+    @Test
+    public void testSeedPairs() {
+        ComboIndex index = new ComboIndex(actions(10));
+        assertEquals(45, ComboEngine.seedPairs(index));
+        for (int id = 0; id < index.size(); id++) {
+            double weight = index.getWeight(id);
+            assertTrue(weight >= 1 && weight <= 100);
+        }
+    }
+
+    @Test
+    public void testSeedCoveringCoversEveryPair() {
+        int n = 20;
+        ComboIndex index = new ComboIndex(actions(n));
+        int combos = ComboEngine.seedCovering(index, 4);
+        assertTrue(combos < n * (n - 1) / 2);
+        boolean[][] covered = new boolean[n][n];
+        for (int id = 0; id < index.size(); id++) {
+            assertEquals(4, index.getComboSize(id));
+            for (ConfigurationAction a : index.getActions(id)) {
+                for (ConfigurationAction b : index.getActions(id)) {
+                    covered[index.getOrdinal(a)][index.getOrdinal(b)] = true;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                assertTrue(covered[i][j], "p" + i + ",p" + j);
+            }
+        }
+    }
+
+    @Test
+    public void testGrowPairsIntoTriples() {
+        ConfigurationAction[] a = actions(4);
+        ComboIndex index = new ComboIndex(a);
+        int ab = index.add(Arrays.asList(a[0], a[1]), 8);
+        int bc = index.add(Arrays.asList(a[1], a[2]), 4);
+        int cd = index.add(Arrays.asList(a[2], a[3]), 2);
+
+        int[] grown = ComboEngine.grow(index, new int[] { ab, bc, cd }, 3, 3, 10);
+        assertEquals(2, grown.length);
+        List<ConfigurationAction> abc = index.getActions(grown[0]);
+        assertEquals(Arrays.asList(a[0], a[1], a[2]), abc);
+        assertEquals(6.0, index.getWeight(grown[0]));
+        assertEquals(Arrays.asList(a[1], a[2], a[3]), index.getActions(grown[1]));
+
+        // triples are not grown beyond the maximum size, and existing combos are not added twice
+        assertArrayEquals(new int[0], ComboEngine.grow(index, grown, grown.length, 3, 10));
+        assertEquals(0, ComboEngine.grow(index, new int[] { ab, bc, cd }, 3, 3, 10).length);
+    }
+}
@@ -183,4 +183,23 @@ public class TestCommonSchema {
         assertEquals(3, tables.getColumns().size(), "Should detect 3 columns");
         assertTrue(!tables.isContained(table4), "Table4 should not be contained");
     }
+
+    @Test
+    void testStructure() {
+        TestTable t1 = createTestTable("t1", Arrays.asList(new TestIndex("i1"), new TestIndex("i0")), false, "c1",
+                "c0");
+        TestTable t0 = createTestTable("t0", Collections.emptyList(), false, "c0");
+        TestTable t1Reordered = createTestTable("t1",
+                Arrays.asList(new TestIndex("i0"), new TestIndex("i1"), new TestIndex("i0")), false, "c0", "c1");
+        TestTable t1WithoutIndex = createTestTable("t1", Arrays.asList(new TestIndex("i0")), false, "c0", "c1");
+
+        String structure = new TestSchema(Arrays.asList(t1, t0)).getStructure();
+        assertAll(
+                () -> assertEquals(structure, new TestSchema(Arrays.asList(t0, t1Reordered)).getStructure(),
+                        "The order of tables, columns and indexes should not matter"),
+                () -> assertNotEquals(structure, new TestSchema(Arrays.asList(t0, t1WithoutIndex)).getStructure(),
+                        "Missing indexes should be detected"),
+                () -> assertNotEquals(structure, new TestSchema(Arrays.asList(t1)).getStructure(),
+                        "Missing tables should be detected"));
+    }
 }
@@ -0,0 +1,51 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+public class TestConcurrentExecutors {
+
+    @Test
+    public void testAllDatabasesAreTested() throws InterruptedException {
+        Set<String> runs = ConcurrentHashMap.newKeySet();
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        ConcurrentExecutors executors = new ConcurrentExecutors(200, 4, 5, (executorId, databaseIndex) -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            runs.add(executorId + "/" + databaseIndex);
+            Thread.sleep(1);
+            inFlight.decrementAndGet();
+            return true;
+        });
+        assertTrue(executors.await(1, TimeUnit.MINUTES));
+        assertEquals(1000, runs.size());
+        assertTrue(maxInFlight.get() <= 4);
+    }
+
+    @Test
+    public void testStopRequest() throws InterruptedException {
+        AtomicInteger nrRuns = new AtomicInteger();
+        ConcurrentExecutors executors = new ConcurrentExecutors(10, 2, -1,
+                (executorId, databaseIndex) -> nrRuns.incrementAndGet() < 50);
+        assertTrue(executors.await(1, TimeUnit.MINUTES));
+        // the runs in progress when the stop was requested are completed
+        assertTrue(nrRuns.get() >= 50 && nrRuns.get() < 50 + 2, String.valueOf(nrRuns.get()));
+    }
+
+    @Test
+    public void testTimeout() throws InterruptedException {
+        ConcurrentExecutors executors = new ConcurrentExecutors(3, 3, -1, (executorId, databaseIndex) -> {
+            Thread.sleep(10);
+            return true;
+        });
+        assertFalse(executors.await(100, TimeUnit.MILLISECONDS));
+    }
+}
@@ -0,0 +1,118 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sqlancer.BaseConfigurationGenerator.ConfigurationAction;
+import sqlancer.BaseConfigurationGenerator.GenericAction;
+import sqlancer.BaseConfigurationGenerator.Scope;
+
+public class TestConfigurationWeightStore {
+
+    private static final ConfigurationAction A = new GenericAction("a", r -> 1, Scope.GLOBAL);
+    private static final ConfigurationAction B = new GenericAction("b", r -> 2, Scope.GLOBAL);
+    private static final ConfigurationAction C = new GenericAction("c", r -> 3, Scope.SESSION);
+
+    @TempDir
+    Path dir;
+
+    private static ConfigurationAction byName(String name) {
+        switch (name) {
+        case "a":
+            return A;
+        case "b":
+            return B;
+        case "c":
+            return C;
+        default:
+            return null;
+        }
+    }
+
+    private static Set<ConfigurationAction> combo(ConfigurationAction... actions) {
+        Set<ConfigurationAction> set = new HashSet<>();
+        for (ConfigurationAction action : actions) {
+            set.add(action);
+        }
+        return set;
+    }
+
+    private static ComboIndex index() {
+        ComboIndex index = new ComboIndex(A, B, C);
+        index.add(combo(A, B), 1.0);
+        index.add(combo(B, C), 1.0);
+        index.add(combo(A, C), 1.0);
+        return index;
+    }
+
+    @Test
+    public void testUpdatesSurviveReload() throws IOException {
+        String log = dir.resolve("weights.log").toString();
+        ComboIndex combos = index();
+        int ab = combos.indexOf(combo(A, B));
+        try (ConfigurationWeightStore store = new ConfigurationWeightStore(log)) {
+            assertEquals(0, store.load(combos, TestConfigurationWeightStore::byName));
+            store.append(ab, combos.multiplyWeight(ab, 2.5), combos);
+            store.append(ab, combos.multiplyWeight(ab, 2.0), combos);
+        }
+
+        ComboIndex reloaded = index();
+        try (ConfigurationWeightStore store = new ConfigurationWeightStore(log)) {
+            assertEquals(3, store.load(reloaded, TestConfigurationWeightStore::byName));
+        }
+        assertEquals(5.0, reloaded.getWeight(reloaded.indexOf(combo(A, B))));
+        assertEquals(1.0, reloaded.getWeight(reloaded.indexOf(combo(B, C))));
+    }
+
+    @Test
+    public void testTruncatedTailIsDropped() throws IOException {
+        Path log = dir.resolve("weights.log");
+        ComboIndex combos = index();
+        int ac = combos.indexOf(combo(A, C));
+        try (ConfigurationWeightStore store = new ConfigurationWeightStore(log.toString())) {
+            store.load(combos, TestConfigurationWeightStore::byName);
+            store.append(ac, 4.0, combos);
+            store.append(ac, 8.0, combos);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(log.toFile(), "rw")) {
+            file.setLength(Files.size(log) - 3);
+        }
+
+        ComboIndex reloaded = index();
+        try (ConfigurationWeightStore store = new ConfigurationWeightStore(log.toString())) {
+            store.load(reloaded, TestConfigurationWeightStore::byName);
+            assertEquals(4.0, reloaded.getWeight(ac));
+            reloaded.setWeight(ac, 16.0);
+            store.append(ac, 16.0, reloaded);
+        }
+        // records appended after the truncated tail must still be readable
+        ComboIndex fresh = index();
+        try (ConfigurationWeightStore store = new ConfigurationWeightStore(log.toString())) {
+            store.load(fresh, TestConfigurationWeightStore::byName);
+        }
+        assertEquals(16.0, fresh.getWeight(ac));
+    }
+
+    @Test
+    public void testComboIndexInterning() {
+        ComboIndex combos = index();
+        assertEquals(3, combos.size());
+        int bc = combos.indexOf(combo(C, B));
+        assertEquals(Arrays.asList(B, C), combos.getActions(bc));
+        assertTrue(combos.containsAction(bc, combos.getOrdinal(C)));
+        assertFalse(combos.containsAction(bc, combos.getOrdinal(A)));
+        assertEquals(-1, combos.indexOf(combo(A, B, C)));
+    }
+}
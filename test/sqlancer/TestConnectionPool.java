@@ -0,0 +1,137 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class TestConnectionPool {
+
+    private static final String URL = "jdbc:h2:mem:pooltest;DB_CLOSE_DELAY=-1";
+
+    @AfterEach
+    public void closeIdleConnections() {
+        ConnectionPool.closeIdleConnections();
+    }
+
+    @Test
+    public void testReuse() throws SQLException {
+        AtomicInteger nrResets = new AtomicInteger();
+        SQLConnection first = SQLConnection.fromPool(URL, "sa", "", false, c -> nrResets.incrementAndGet());
+        Connection physical;
+        try (Statement s = first.createStatement()) {
+            physical = s.getConnection();
+        }
+        Connection other = ConnectionPool.getConnection(URL, "sa", "");
+        first.close();
+        assertEquals(1, nrResets.get());
+        assertEquals(1, ConnectionPool.getNrIdleConnections(URL, "sa"));
+        Connection reused = ConnectionPool.getConnection(URL, "sa", "");
+        assertEquals(0, ConnectionPool.getNrIdleConnections(URL, "sa"));
+        assertSame(physical, reused);
+        assertNotSame(other, reused);
+        other.close();
+        reused.close();
+    }
+
+    @Test
+    public void testClosingTwiceReleasesOnce() throws SQLException {
+        AtomicInteger nrResets = new AtomicInteger();
+        SQLConnection pooled = SQLConnection.fromPool(URL, "sa", "", false, c -> nrResets.incrementAndGet());
+        pooled.close();
+        pooled.close();
+        assertEquals(1, nrResets.get());
+        assertEquals(1, ConnectionPool.getNrIdleConnections(URL, "sa"));
+
+        SQLConnection first = SQLConnection.fromPool(URL, "sa", "", false, null);
+        SQLConnection second = SQLConnection.fromPool(URL, "sa", "", false, null);
+        try (Statement s1 = first.createStatement(); Statement s2 = second.createStatement()) {
+            assertNotSame(s1.getConnection(), s2.getConnection());
+        }
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void testReleasingAnIdleConnectionAgain() throws SQLException {
+        Connection connection = ConnectionPool.getConnection(URL, "sa", "");
+        ConnectionPool.release(URL, "sa", connection, null);
+        ConnectionPool.release(URL, "sa", connection, null);
+        assertEquals(1, ConnectionPool.getNrIdleConnections(URL, "sa"));
+        Connection reused = ConnectionPool.getConnection(URL, "sa", "");
+        Connection other = ConnectionPool.getConnection(URL, "sa", "");
+        assertSame(connection, reused);
+        assertNotSame(connection, other);
+        reused.close();
+        other.close();
+    }
+
+    @Test
+    public void testTransactionIsRolledBack() throws SQLException {
+        Connection connection = ConnectionPool.getConnection(URL, "sa", "");
+        connection.setAutoCommit(false);
+        ConnectionPool.release(URL, "sa", connection, null);
+        Connection reused = ConnectionPool.getConnection(URL, "sa", "");
+        assertSame(connection, reused);
+        assertTrue(reused.getAutoCommit());
+        reused.close();
+    }
+
+    @Test
+    public void testInvalidConnectionsAreNotReused() throws SQLException {
+        Connection connection = ConnectionPool.getConnection(URL, "sa", "");
+        ConnectionPool.release(URL, "sa", connection, c -> {
+            throw new SQLException("reset failed");
+        });
+        assertTrue(connection.isClosed());
+        assertEquals(0, ConnectionPool.getNrIdleConnections(URL, "sa"));
+
+        Connection other = ConnectionPool.getConnection(URL, "sa", "");
+        ConnectionPool.release(URL, "sa", other, null);
+        other.close();
+        Connection reused = ConnectionPool.getConnection(URL, "sa", "");
+        assertNotSame(other, reused);
+        reused.close();
+    }
+
+    @Test
+    public void testIdleConnectionsAreClosedWhenTheThreadEnds() throws Exception {
+        List<Connection> released = new ArrayList<>();
+        Thread thread = new Thread(ConnectionPool.closingIdleConnections(() -> {
+            try {
+                Connection connection = ConnectionPool.getConnection(URL, "sa", "");
+                released.add(connection);
+                ConnectionPool.release(URL, "sa", connection, null);
+            } catch (SQLException e) {
+                throw new AssertionError(e);
+            }
+        }));
+        thread.start();
+        thread.join();
+        assertEquals(1, released.size());
+        assertTrue(released.get(0).isClosed());
+    }
+
+    @Test
+    public void testMaxIdleConnections() throws SQLException {
+        List<Connection> connections = new ArrayList<>();
+        for (int i = 0; i < ConnectionPool.MAX_IDLE_CONNECTIONS + 1; i++) {
+            connections.add(ConnectionPool.getConnection(URL, "sa", ""));
+        }
+        for (Connection connection : connections) {
+            ConnectionPool.release(URL, "sa", connection, null);
+        }
+        assertEquals(ConnectionPool.MAX_IDLE_CONNECTIONS, ConnectionPool.getNrIdleConnections(URL, "sa"));
+        assertTrue(connections.get(connections.size() - 1).isClosed());
+    }
+}
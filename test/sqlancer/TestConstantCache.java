@@ -0,0 +1,80 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+public class TestConstantCache {
+
+    @Test
+    public void testAddAndContains() {
+        ConstantCache.OfLong cache = new ConstantCache.OfLong(10);
+        assertTrue(cache.isEmpty());
+        assertTrue(cache.add(5));
+        assertFalse(cache.add(5));
+        assertTrue(cache.add(Long.MIN_VALUE));
+        assertEquals(2, cache.size());
+        assertTrue(cache.contains(5));
+        assertTrue(cache.contains(Long.MIN_VALUE));
+        assertFalse(cache.contains(6));
+    }
+
+    @Test
+    public void testEvictionKeepsLearning() {
+        ConstantCache.OfLong cache = new ConstantCache.OfLong(100);
+        for (long i = 0; i < 10000; i++) {
+            cache.add(i * 31);
+            assertTrue(cache.contains(i * 31));
+            assertEquals(Math.min(i + 1, 100), cache.size());
+        }
+        int present = 0;
+        for (long i = 0; i < 10000; i++) {
+            if (cache.contains(i * 31)) {
+                present++;
+            }
+        }
+        assertEquals(100, present);
+        Set<Long> sampled = new HashSet<>();
+        for (int i = 0; i < 10000; i++) {
+            long value = cache.sample();
+            assertTrue(cache.contains(value));
+            sampled.add(value);
+        }
+        assertEquals(100, sampled.size());
+    }
+
+    @Test
+    public void testRewardedConstantsSurviveAndArePreferred() {
+        ConstantCache.OfString cache = new ConstantCache.OfString(50);
+        cache.add("interesting");
+        cache.rewardRecent();
+        for (int i = 0; i < 48; i++) {
+            cache.add("s" + i);
+        }
+        int hits = 0;
+        for (int i = 0; i < 10000; i++) {
+            if ("interesting".equals(cache.sample())) {
+                hits++;
+            }
+        }
+        // uniform sampling would pick it in about 2% of the cases, preferring rewarded entries in about 4%
+        assertTrue(hits > 300, String.valueOf(hits));
+        for (int i = 0; i < 1000; i++) {
+            cache.add("t" + i);
+        }
+        assertFalse(cache.contains("s0"));
+        assertEquals(50, cache.size());
+    }
+
+    @Test
+    public void testZeroCapacity() {
+        ConstantCache.OfString cache = new ConstantCache.OfString(0);
+        assertFalse(cache.add("a"));
+        assertTrue(cache.isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.beust.jcommander.JCommander;
+
+import sqlancer.common.query.ExpectedErrors;
+import sqlancer.h2.H2Options;
+import sqlancer.h2.H2Provider;
+import sqlancer.h2.H2Schema;
+
+public class TestDigestComparison {
+
+    private SQLGlobalState<H2Options, H2Schema> state;
+
+    @BeforeEach
+    public void createState() throws SQLException {
+        MainOptions options = new MainOptions();
+        JCommander.newBuilder().addObject(options).build().parse("--log-each-select", "false",
+                "--validate-result-size-only", "false");
+        state = new SQLGlobalState<H2Options, H2Schema>() {
+
+            @Override
+            protected H2Schema readSchema() throws SQLException {
+                return H2Schema.fromConnection(getConnection(), getDatabaseName());
+            }
+        };
+        state.setMainOptions(options);
+        state.setState(new StateToReproduce("digesttest", new H2Provider()));
+        state.getState().createLocalState();
+        state.setConnection(new SQLConnection(DriverManager.getConnection("jdbc:h2:mem:digesttest", "sa", "")));
+    }
+
+    @AfterEach
+    public void closeConnection() throws SQLException {
+        state.getConnection().close();
+    }
+
+    private static ResultSetDigest digest(String query, String... values) {
+        ResultSetDigest digest = new ResultSetDigest();
+        for (String value : values) {
+            digest.add(value);
+        }
+        digest.addQuery(query);
+        return digest;
+    }
+
+    @Test
+    public void testContentMismatch() {
+        AssertionError e = assertThrows(AssertionError.class,
+                () -> ComparatorHelper.assumeResultSetsAreEqual(digest("SELECT 'a'", "a"),
+                        digest("SELECT 'b'", "b"), "SELECT 'a'", Arrays.asList("SELECT 'b'"), state,
+                        new ExpectedErrors()));
+        assertTrue(e.getMessage().contains("It misses: \"[a]\""), e.getMessage());
+    }
+
+    @Test
+    public void testSameValuesWhenExecutedAgain() {
+        // e.g., a nondeterministic query returned different values the first time
+        AssertionError e = assertThrows(AssertionError.class,
+                () -> ComparatorHelper.assumeResultSetsAreEqual(digest("SELECT 'a'", "x"),
+                        digest("SELECT 'a'", "a"), "SELECT 'a'", Arrays.asList("SELECT 'a'"), state,
+                        new ExpectedErrors()));
+        assertTrue(e.getMessage().contains("1 values"), e.getMessage());
+        assertFalse(e.getMessage().contains("It misses"), e.getMessage());
+    }
+
+    @Test
+    public void testExpectedErrorWhenExecutedAgain() {
+        ExpectedErrors errors = ExpectedErrors.from("not found");
+        assertThrows(IgnoreMeException.class,
+                () -> ComparatorHelper.assumeResultSetsAreEqual(digest("SELECT * FROM missing", "a"),
+                        digest("SELECT 'b'", "b"), "SELECT * FROM missing", Arrays.asList("SELECT 'b'"), state,
+                        errors));
+    }
+}
@@ -0,0 +1,94 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TestMutatorBandit {
+
+    private static final int NR_ROUNDS = 2000;
+
+    // mutator 2 finds new query plans most often
+    private static double reward(int mutator) {
+        return mutator == 2 ? 0.8 : 0.1;
+    }
+
+    private static int[] run(MutatorBandit.Policy policy, long seed) {
+        MutatorBandit bandit = new MutatorBandit(4);
+        Randomly r = new Randomly(seed);
+        int[] choices = new int[NR_ROUNDS];
+        for (int i = 0; i < NR_ROUNDS; i++) {
+            int mutator = bandit.select(policy, 0.1, r);
+            choices[i] = mutator;
+            bandit.update(mutator, reward(mutator), 0.25, 1000, 10);
+        }
+        return choices;
+    }
+
+    @Test
+    public void testPoliciesPreferTheBestMutator() {
+        for (MutatorBandit.Policy policy : MutatorBandit.Policy.values()) {
+            int[] counts = new int[4];
+            for (int mutator : run(policy, 1)) {
+                counts[mutator]++;
+            }
+            for (int i = 0; i < counts.length; i++) {
+                if (i != 2) {
+                    assertTrue(counts[2] > counts[i] * 3, policy + " " + counts[2] + " " + counts[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSameSeedSameChoices() {
+        for (MutatorBandit.Policy policy : MutatorBandit.Policy.values()) {
+            assertArrayEquals(run(policy, 42), run(policy, 42), policy.toString());
+        }
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws Exception {
+        MutatorBandit bandit = new MutatorBandit(3);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            long seed = t;
+            Thread thread = new Thread(() -> {
+                Randomly r = new Randomly(seed);
+                for (int i = 0; i < NR_ROUNDS; i++) {
+                    int mutator = bandit.select(MutatorBandit.Policy.UCB1, 0, r);
+                    bandit.addReward(mutator, 1);
+                    bandit.update(mutator, 0.5, 0.1, 10, 1);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long selections = 0;
+        long replanned = 0;
+        for (int i = 0; i < 3; i++) {
+            selections += bandit.getNrSelections(i);
+            replanned += bandit.getNrReplannedQueries(i);
+            assertEquals(bandit.getNrCompletions(i) * 10, bandit.getNanoTime(i));
+            assertEquals(0.5, bandit.getMeanReward(i), 1e-9);
+        }
+        assertEquals(4 * NR_ROUNDS, selections);
+        assertEquals(4 * NR_ROUNDS, replanned);
+    }
+
+    @Test
+    public void testOneBanditPerDBMS() {
+        MutatorBandit bandit = MutatorBandit.forDBMS("test_dbms", 5);
+        assertSame(bandit, MutatorBandit.forDBMS("test_dbms", 5));
+        assertEquals(5, bandit.getNrMutators());
+    }
+}
@@ -0,0 +1,176 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.beust.jcommander.JCommander;
+
+import sqlancer.common.query.ExpectedErrors;
+import sqlancer.h2.H2Options;
+import sqlancer.h2.H2Schema;
+
+public class TestPipelinedQueries {
+
+    /**
+     * A connection that answers each statement with the next of the given results, which are either the values of a
+     * result set or an update count. Executing a statement fails with {@code failure} if it is set.
+     */
+    private static class FakeConnection {
+        private final List<String> executed = new ArrayList<>();
+        private final Iterator<Object> results;
+        private SQLException failure;
+        private Object current;
+
+        FakeConnection(Object... results) {
+            this.results = Arrays.asList(results).iterator();
+        }
+
+        Connection create() {
+            return proxy(Connection.class, (method, args) -> {
+                if ("createStatement".equals(method)) {
+                    return createStatement();
+                }
+                return null;
+            });
+        }
+
+        private Statement createStatement() {
+            return proxy(Statement.class, (method, args) -> {
+                switch (method) {
+                case "execute":
+                case "executeQuery":
+                    executed.add((String) args[0]);
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    current = results.next();
+                    return "execute".equals(method) ? current instanceof String[] : createResultSet();
+                case "getMoreResults":
+                    current = results.hasNext() ? results.next() : null;
+                    return current instanceof String[];
+                case "getResultSet":
+                    return createResultSet();
+                default:
+                    return null;
+                }
+            });
+        }
+
+        private ResultSet createResultSet() {
+            Iterator<String> values = Arrays.asList((String[]) current).iterator();
+            String[] row = new String[1];
+            return proxy(ResultSet.class, (method, args) -> {
+                switch (method) {
+                case "next":
+                    if (!values.hasNext()) {
+                        return false;
+                    }
+                    row[0] = values.next();
+                    return true;
+                case "getString":
+                    return row[0];
+                case "isClosed":
+                    return false;
+                case "getStatement":
+                    return createStatement();
+                default:
+                    return null;
+                }
+            });
+        }
+    }
+
+    private interface Handler {
+        Object invoke(String method, Object[] args) throws SQLException;
+    }
+
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type },
+                (proxy, method, args) -> handler.invoke(method.getName(), args)));
+    }
+
+    private static SQLGlobalState<H2Options, H2Schema> createState(FakeConnection connection, String... options) {
+        MainOptions mainOptions = new MainOptions();
+        JCommander.newBuilder().addObject(mainOptions).build().parse(options);
+        SQLGlobalState<H2Options, H2Schema> state = new SQLGlobalState<H2Options, H2Schema>() {
+
+            @Override
+            protected H2Schema readSchema() throws SQLException {
+                throw new AssertionError();
+            }
+        };
+        state.setMainOptions(mainOptions);
+        state.setConnection(new SQLConnection(connection.create(), true));
+        return state;
+    }
+
+    private static List<ResultSetDigest> getDigests(SQLGlobalState<?, ?> state, ExpectedErrors errors)
+            throws SQLException {
+        return ComparatorHelper.getPipelinedResultSetDigests("SELECT c0 FROM t0", "SELECT c0 FROM t0 WHERE p",
+                "SELECT c0 FROM t0 WHERE NOT p", "SELECT c0 FROM t0 WHERE p IS NULL", new ArrayList<>(), false, state,
+                errors, null);
+    }
+
+    private static ResultSetDigest digest(String... values) {
+        ResultSetDigest digest = new ResultSetDigest();
+        for (String value : values) {
+            digest.add(value);
+        }
+        return digest;
+    }
+
+    @Test
+    public void testReadsEachResult() throws SQLException {
+        FakeConnection connection = new FakeConnection(new String[] { "1", "2", "3" }, new String[] { "1" },
+                new String[] {}, new String[] { "2", "3" });
+        List<ResultSetDigest> digests = getDigests(createState(connection, "--log-each-select", "false"),
+                new ExpectedErrors());
+        assertEquals(List.of("SELECT c0 FROM t0;\nSELECT c0 FROM t0 WHERE p;\nSELECT c0 FROM t0 WHERE NOT p;\n"
+                + "SELECT c0 FROM t0 WHERE p IS NULL;"), connection.executed);
+        assertTrue(digests.get(0).hasSameValues(digest("1", "2", "3")));
+        assertTrue(digests.get(1).hasSameValues(digest("1", "2", "3")));
+        assertEquals(3, digests.get(1).getQueries().size());
+    }
+
+    @Test
+    public void testUpdateCount() {
+        FakeConnection connection = new FakeConnection(new String[] { "1" }, 0);
+        assertThrows(IgnoreMeException.class,
+                () -> getDigests(createState(connection, "--log-each-select", "false"), new ExpectedErrors()));
+    }
+
+    @Test
+    public void testExpectedErrorInCause() {
+        FakeConnection connection = new FakeConnection();
+        connection.failure = new SQLException("batch failed", new SQLException("division by zero"));
+        SQLGlobalState<?, ?> state = createState(connection, "--log-each-select", "false");
+        assertThrows(IgnoreMeException.class,
+                () -> getDigests(state, ExpectedErrors.newErrors().with("division by zero").build()));
+        assertThrows(AssertionError.class, () -> getDigests(state, new ExpectedErrors()));
+    }
+
+    @Test
+    public void testWithoutCanonicalizedStrings() throws SQLException {
+        FakeConnection connection = new FakeConnection(new String[] { "1" }, new String[] { "1" }, new String[] {},
+                new String[] {});
+        List<ResultSetDigest> digests = getDigests(
+                createState(connection, "--log-each-select", "false", "--canonicalize-sql-strings", "false"),
+                new ExpectedErrors());
+        assertEquals(List.of("SELECT c0 FROM t0", "SELECT c0 FROM t0 WHERE p", "SELECT c0 FROM t0 WHERE NOT p",
+                "SELECT c0 FROM t0 WHERE p IS NULL"), connection.executed);
+        assertTrue(digests.get(0).hasSameValues(digests.get(1)));
+    }
+}
@@ -0,0 +1,71 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class TestQueryPlanPool {
+
+    @Test
+    public void testFingerprintNormalizesWhitespace() {
+        assertEquals(QueryPlanPool.fingerprint("SCAN t0;  SEARCH t1"),
+                QueryPlanPool.fingerprint(" SCAN t0;\n\tSEARCH t1\n"));
+        assertNotEquals(QueryPlanPool.fingerprint("SCAN t0;SEARCH t1"),
+                QueryPlanPool.fingerprint("SCAN t0; SEARCH t1"));
+        assertNotEquals(QueryPlanPool.fingerprint("SCAN t0"), QueryPlanPool.fingerprint("SCAN t1"));
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        QueryPlanPool pool = new QueryPlanPool(3);
+        assertTrue(pool.add("plan0", "q0"));
+        assertTrue(pool.add("plan1", "q1"));
+        assertTrue(pool.add("plan2", "q2"));
+        assertFalse(pool.add("plan0", "q3"));
+        assertTrue(pool.add("plan4", "q4"));
+        assertEquals(3, pool.size());
+        assertTrue(pool.contains("plan0"));
+        assertFalse(pool.contains("plan1"));
+        assertTrue(pool.contains("plan4"));
+    }
+
+    @Test
+    public void testRecheckInBatches() throws Exception {
+        QueryPlanPool pool = new QueryPlanPool(100);
+        Map<String, String> plans = new HashMap<>();
+        for (int i = 0; i < 10; i++) {
+            plans.put("q" + i, "plan" + i);
+            pool.add("plan" + i, "q" + i);
+        }
+        // the database changed: q0 is now invalid, q1 uses a new plan, and q2 uses the plan of q3
+        plans.put("q0", "");
+        plans.put("q1", "new plan");
+        plans.put("q2", "plan3");
+        List<String> replanned = new ArrayList<>();
+        QueryPlanPool.QueryPlanner planner = q -> {
+            replanned.add(q);
+            return plans.get(q);
+        };
+
+        assertEquals(1, pool.recheck(4, planner));
+        assertEquals(List.of("q0", "q1", "q2", "q3"), replanned);
+        assertFalse(pool.contains("plan0"));
+        assertFalse(pool.contains("plan1"));
+        assertFalse(pool.contains("plan2"));
+        assertTrue(pool.contains("new plan"));
+        assertEquals(8, pool.size());
+
+        // the next batch continues with the queries that were not re-checked
+        replanned.clear();
+        assertEquals(0, pool.recheck(4, planner));
+        assertEquals(List.of("q4", "q5", "q6", "q7"), replanned);
+    }
+}
@@ -0,0 +1,77 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class TestResultSetDigest {
+
+    private static ResultSetDigest digest(String... values) {
+        ResultSetDigest digest = new ResultSetDigest();
+        for (String value : values) {
+            digest.add(value);
+        }
+        return digest;
+    }
+
+    @Test
+    public void testOrderIndependent() {
+        assertTrue(digest("a", "b", null, "c").hasSameValues(digest("c", null, "a", "b")));
+        assertEquals(4, digest("a", "b", null, "c").size());
+    }
+
+    @Test
+    public void testDifferentValues() {
+        assertFalse(digest("a", "b", "c").hasSameValues(digest("a", "b", "d")));
+        assertFalse(digest("a", null).hasSameValues(digest("a", "")));
+        assertFalse(digest("ab").hasSameValues(digest("ba")));
+    }
+
+    @Test
+    public void testDuplicates() {
+        // equal as sets, but not as multisets
+        assertFalse(digest("a", "a", "b").hasSameValues(digest("a", "b", "b")));
+        assertFalse(digest("a", "a").hasSameValues(digest("a")));
+    }
+
+    @Test
+    public void testTrailingZeros() {
+        assertTrue(digest("1.000", "2", "0.0", "10").hasSameValues(digest("1", "2.0", "0", "10")));
+        assertFalse(digest("100").hasSameValues(digest("1")));
+        assertFalse(digest("1.50").hasSameValues(digest("1.5")));
+        assertEquals("1", ComparatorHelper.removeTrailingZeros("1.00"));
+        assertEquals("100", ComparatorHelper.removeTrailingZeros("100"));
+        assertEquals("1.50", ComparatorHelper.removeTrailingZeros("1.50"));
+        assertEquals("", ComparatorHelper.removeTrailingZeros(".0"));
+        assertNull(ComparatorHelper.removeTrailingZeros(null));
+    }
+
+    @Test
+    public void testCanonicalizationRule() {
+        ResultSetDigest first = new ResultSetDigest(ComparatorHelper::canonicalizeResultValue);
+        ResultSetDigest second = new ResultSetDigest(ComparatorHelper::canonicalizeResultValue);
+        first.add("-0.0");
+        second.add("0.0");
+        assertTrue(first.hasSameValues(second));
+    }
+
+    @Test
+    public void testAddAll() {
+        ResultSetDigest union = new ResultSetDigest();
+        ResultSetDigest first = digest("a", "b");
+        first.addQuery("SELECT 1");
+        ResultSetDigest second = digest("c");
+        second.addQuery("SELECT 2");
+        union.addAll(first);
+        union.addAll(second);
+        assertTrue(union.hasSameValues(digest("c", "b", "a")));
+        List<String> expectedQueries = Arrays.asList("SELECT 1", "SELECT 2");
+        assertEquals(expectedQueries, union.getQueries());
+    }
+}
@@ -106,4 +106,27 @@ public class TestStateToReproduce {
         assertEquals(2, result.getStatements().size());
         assertEquals("INSERT INTO test VALUES (1);", result.getStatements().get(1).getLogString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBinaryStatementLog() throws IOException {
+        SQLite3Provider provider = new SQLite3Provider();
+        StateToReproduce state = new StateToReproduce("test_binary", provider);
+        state.databaseVersion = "3.36.0";
+        state.seedValue = 12345L;
+        state.exception = "Test exception message";
+        state.logStatement("CREATE TABLE test (id INTEGER);");
+        state.logStatement("INSERT INTO test VALUES (1);");
+
+        Path file = tempDir.resolve("test_binary" + StatementLog.FILE_EXTENSION);
+        state.serialize(file);
+        StateToReproduce result = StateToReproduce.deserialize(file);
+
+        assertEquals("test_binary", result.getDatabaseName());
+        assertEquals("3.36.0", result.getDatabaseVersion());
+        assertEquals(12345L, result.getSeedValue());
+        assertEquals("Test exception message", result.getException());
+        assertEquals("sqlite3", result.getDatabaseProvider().getDBMSName());
+        assertEquals(2, result.getStatements().size());
+        assertEquals("INSERT INTO test VALUES (1);", result.getStatements().get(1).getLogString());
+    }
+}
@@ -0,0 +1,144 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import sqlancer.StatementLog.Kind;
+import sqlancer.StatementLog.Record;
+
+public class TestStatementLog {
+
+    private static final int NR_RECORDS = 50000;
+
+    @TempDir
+    Path dir;
+
+    private static String statement(int i) {
+        switch (i % 4) {
+        case 0:
+            return "CREATE TABLE t" + i % 10 + " (c0 INT, c1 TEXT);";
+        case 1:
+            return "INSERT INTO t" + i % 10 + " VALUES (" + i + ", 'value" + i + "');";
+        case 2:
+            return "SELECT * FROM t0 WHERE c0 > 3;";
+        default:
+            return "SELECT COUNT(*) FROM t" + i % 10 + " WHERE (c0 < " + i + ") OR (c1 IS NULL);";
+        }
+    }
+
+    private Path writeLog(String name) throws Exception {
+        Path path = dir.resolve(name + StatementLog.FILE_EXTENSION);
+        try (StatementLogWriter log = new StatementLogWriter(path, "sqlite3", "database0", "3.36.0", 42, null)) {
+            for (int i = 0; i < NR_RECORDS; i++) {
+                if (i % 2 == 0) {
+                    log.write(statement(i));
+                } else {
+                    log.write(Kind.of(statement(i)), StatementLog.HAS_SUCCESS | StatementLog.HAS_TIME
+                            | (i % 3 == 0 ? StatementLog.SUCCESS : 0), i % 100, statement(i));
+                }
+            }
+        }
+        return path;
+    }
+
+    private static void assertRecord(int i, Record record) {
+        assertEquals(statement(i), record.getStatement());
+        assertEquals(Kind.of(statement(i)), record.getKind());
+        if (i % 2 == 0) {
+            assertFalse(record.hasTime());
+            assertFalse(record.hasSuccess());
+        } else {
+            assertEquals(i % 100, record.getMillis());
+            assertTrue(record.hasSuccess());
+            assertEquals(i % 3 == 0, record.isSuccess());
+        }
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Path path = writeLog("roundtrip");
+        try (StatementLogReader reader = new StatementLogReader(path)) {
+            assertEquals("sqlite3", reader.getDBMSName());
+            assertEquals("database0", reader.getDatabaseName());
+            assertEquals("3.36.0", reader.getDatabaseVersion());
+            assertEquals(42, reader.getSeed());
+            assertNull(reader.getException());
+            assertEquals(NR_RECORDS, reader.getNrRecords());
+            for (int i = 0; i < NR_RECORDS; i++) {
+                assertRecord(i, reader.next());
+            }
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testSeek() throws Exception {
+        Path path = writeLog("seek");
+        try (StatementLogReader reader = new StatementLogReader(path)) {
+            for (int i : new int[] { 40000, 3, 0, NR_RECORDS - 1, 25001 }) {
+                reader.seek(i);
+                assertRecord(i, reader.next());
+            }
+            reader.seek(NR_RECORDS);
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testUnclosedLog() throws Exception {
+        Path path = writeLog("complete");
+        byte[] bytes = Files.readAllBytes(path);
+        // without the footer and with a partially written block, as after a crash
+        Path truncated = dir.resolve("truncated" + StatementLog.FILE_EXTENSION);
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length / 2));
+        try (StatementLogReader reader = new StatementLogReader(truncated)) {
+            long nrRecords = reader.getNrRecords();
+            assertTrue(nrRecords > 0 && nrRecords < NR_RECORDS);
+            for (int i = 0; i < nrRecords; i++) {
+                assertRecord(i, reader.next());
+            }
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    public void testSmallerThanTextLog() throws Exception {
+        Path path = writeLog("size");
+        long textSize = 0;
+        for (int i = 0; i < NR_RECORDS; i++) {
+            textSize += statement(i).length() + 1;
+        }
+        assertTrue(Files.size(path) * 10 < textSize, Files.size(path) + " " + textSize);
+    }
+
+    @Test
+    public void testConverter() throws Exception {
+        Path path = writeLog("convert");
+        StringWriter out = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(out)) {
+            StatementLogConverter.convert(path, writer, 2, 4);
+        }
+        assertEquals(statement(2) + System.lineSeparator() + statement(3) + " -- 3ms" + System.lineSeparator(),
+                out.toString());
+    }
+
+    @Test
+    public void testKinds() {
+        assertEquals(Kind.QUERY, Kind.of("  select 1;"));
+        assertEquals(Kind.DDL, Kind.of("CREATE INDEX i0 ON t0(c0);"));
+        assertEquals(Kind.DML, Kind.of("INSERT INTO t0 VALUES (1);"));
+        assertEquals(Kind.COMMENT, Kind.of("-- Time: 2024"));
+        assertEquals(Kind.OTHER, Kind.of("PRAGMA foreign_keys=ON;"));
+    }
+}
@@ -0,0 +1,73 @@
+package sqlancer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class TestXoshiro256Random {
+
+    private static final int NR_SAMPLES = 100000;
+
+    @Test
+    public void testSameSeedSameSequence() {
+        Xoshiro256Random a = new Xoshiro256Random(42);
+        Xoshiro256Random b = new Xoshiro256Random(42);
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(a.nextLong(), b.nextLong());
+        }
+        a.setSeed(7);
+        Xoshiro256Random c = new Xoshiro256Random(7);
+        assertEquals(c.nextLong(), a.nextLong());
+    }
+
+    @Test
+    public void testBoundedInt() {
+        Xoshiro256Random r = new Xoshiro256Random(1);
+        int[] counts = new int[7];
+        for (int i = 0; i < NR_SAMPLES * 7; i++) {
+            counts[r.nextInt(7)]++;
+        }
+        for (int count : counts) {
+            assertEquals(NR_SAMPLES, count, NR_SAMPLES * 0.02);
+        }
+        assertEquals(0, r.nextInt(1));
+        assertThrows(IllegalArgumentException.class, () -> r.nextInt(0));
+    }
+
+    @Test
+    public void testBoundedLong() {
+        Xoshiro256Random r = new Xoshiro256Random(2);
+        for (int i = 0; i < NR_SAMPLES; i++) {
+            long small = r.nextLong(-3, 5);
+            assertTrue(small >= -3 && small < 5);
+            long large = r.nextLong(0, Long.MAX_VALUE);
+            assertTrue(large >= 0);
+            long huge = r.nextLong(Long.MIN_VALUE + 1, Long.MAX_VALUE);
+            assertTrue(huge > Long.MIN_VALUE && huge < Long.MAX_VALUE);
+        }
+        assertThrows(IllegalArgumentException.class, () -> r.nextLong(5, 5));
+    }
+
+    @Test
+    public void testDoubleRange() {
+        Xoshiro256Random r = new Xoshiro256Random(3);
+        for (int i = 0; i < NR_SAMPLES; i++) {
+            double d = r.nextDouble();
+            assertTrue(d >= 0 && d < 1);
+        }
+    }
+
+    @Test
+    public void testSplit() {
+        assertEquals(123, Xoshiro256Random.split(123, 0));
+        long first = Xoshiro256Random.split(123, 1);
+        long second = Xoshiro256Random.split(123, 2);
+        assertNotEquals(first, second);
+        assertNotEquals(Xoshiro256Random.split(124, 1), first);
+        assertEquals(first, Xoshiro256Random.split(123, 1));
+        assertNotEquals(new Xoshiro256Random(first).nextLong(), new Xoshiro256Random(second).nextLong());
+    }
+}
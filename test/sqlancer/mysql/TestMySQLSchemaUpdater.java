@@ -0,0 +1,118 @@
+package sqlancer.mysql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import sqlancer.mysql.MySQLSchema.MySQLColumn;
+import sqlancer.mysql.MySQLSchema.MySQLDataType;
+import sqlancer.mysql.MySQLSchema.MySQLIndex;
+import sqlancer.mysql.MySQLSchema.MySQLTable;
+import sqlancer.mysql.MySQLSchema.MySQLTable.MySQLEngine;
+
+public class TestMySQLSchemaUpdater {
+
+    private static final MySQLSchemaUpdater.TableReader NO_READS = tableName -> {
+        throw new AssertionError("unexpected read of " + tableName);
+    };
+
+    private static MySQLTable table(String name, MySQLEngine engine, List<String> indexes, MySQLColumn... columns) {
+        MySQLTable table = new MySQLTable(name, Arrays.asList(columns),
+                indexes.stream().map(MySQLIndex::create).collect(Collectors.toList()), engine);
+        for (MySQLColumn c : columns) {
+            c.setTable(table);
+        }
+        return table;
+    }
+
+    private static MySQLSchema schema() {
+        return new MySQLSchema(new ArrayList<>(Arrays.asList(table("t0", MySQLEngine.INNO_DB,
+                Arrays.asList("PRIMARY", "i0"), new MySQLColumn("c0", MySQLDataType.INT, true, 10),
+                new MySQLColumn("c1", MySQLDataType.VARCHAR, false, 0)))));
+    }
+
+    private static MySQLSchema apply(MySQLSchema schema, String statement) throws SQLException {
+        return MySQLSchemaUpdater.apply(schema, statement, true, NO_READS);
+    }
+
+    @Test
+    public void testCreateTable() throws SQLException {
+        MySQLSchema schema = apply(schema(),
+                "CREATE TABLE t1(c0 DECIMAL(10, 2) UNSIGNED  NOT NULL UNIQUE KEY, c1 TINYTEXT  COMMENT 'asdf' , "
+                        + "c2 BIGINT(3)  PRIMARY KEY) ENGINE = MyISAM, CHECKSUM = 1 PARTITION BY KEY (c0, c2)");
+        MySQLTable t1 = schema.getDatabaseTable("t1");
+        assertEquals(2, schema.getDatabaseTables().size());
+        assertEquals(MySQLEngine.MY_ISAM, t1.getEngine());
+        assertEquals(Arrays.asList(MySQLDataType.DECIMAL, MySQLDataType.VARCHAR, MySQLDataType.INT),
+                t1.getColumns().stream().map(MySQLColumn::getType).collect(Collectors.toList()));
+        assertTrue(t1.getColumns().get(2).isPrimaryKey());
+        assertFalse(t1.getColumns().get(0).isPrimaryKey());
+        assertSame(t1, t1.getColumns().get(0).getTable());
+        assertEquals(Arrays.asList("`PRIMARY`", "c0"),
+                t1.getIndexes().stream().map(MySQLIndex::getIndexName).sorted().collect(Collectors.toList()));
+        assertEquals(MySQLEngine.INNO_DB,
+                apply(schema(), "CREATE TABLE t1(c0 INT)").getDatabaseTable("t1").getEngine());
+    }
+
+    @Test
+    public void testCreateTableLike() throws SQLException {
+        MySQLSchema original = schema();
+        MySQLSchema schema = apply(original, "CREATE TABLE IF NOT EXISTS t1 LIKE t0");
+        MySQLTable t1 = schema.getDatabaseTable("t1");
+        assertEquals(2, schema.getDatabaseTables().size());
+        assertEquals(original.getDatabaseTable("t0").getColumnsAsString(), t1.getColumnsAsString());
+        assertEquals(2, t1.getIndexes().size());
+        assertSame(t1, t1.getColumns().get(0).getTable());
+        // the unchanged table is kept
+        assertSame(original.getDatabaseTable("t0"), schema.getDatabaseTable("t0"));
+        assertSame(original, apply(original, "CREATE TABLE IF NOT EXISTS t0 LIKE t0"));
+    }
+
+    @Test
+    public void testIndexes() throws SQLException {
+        MySQLSchema schema = apply(schema(), "CREATE UNIQUE INDEX i1 USING HASH ON t0(c0 DESC, (c1 + 1)) INVISIBLE");
+        assertEquals(3, schema.getDatabaseTable("t0").getIndexes().size());
+        schema = apply(schema, "DROP INDEX i0 ON t0 ALGORITHM=COPY");
+        assertEquals(Arrays.asList("`PRIMARY`", "i1"), schema.getDatabaseTable("t0").getIndexes().stream()
+                .map(MySQLIndex::getIndexName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testAlterTable() throws SQLException {
+        MySQLSchema original = schema();
+        assertSame(original, apply(original, "ALTER TABLE t0 CHECKSUM 1, COMPRESSION 'ZLIB',  ORDER BY c0, c1"));
+        MySQLSchema renamed = apply(original, "ALTER TABLE t0 FORCE, RENAME TO t3");
+        assertNull(renamed.getDatabaseTable("t0"));
+        assertEquals(2, renamed.getDatabaseTable("t3").getColumns().size());
+
+        MySQLTable reread = table("t2", MySQLEngine.INNO_DB, Arrays.asList(),
+                new MySQLColumn("c1", MySQLDataType.VARCHAR, false, 0));
+        List<String> reads = new ArrayList<>();
+        MySQLSchema schema = MySQLSchemaUpdater.apply(original, "ALTER TABLE t0 DROP COLUMN c0, RENAME t2", true,
+                tableName -> {
+                    reads.add(tableName);
+                    return reread;
+                });
+        assertEquals(Arrays.asList("t2"), reads);
+        assertSame(reread, schema.getDatabaseTable("t2"));
+        assertEquals(1, schema.getDatabaseTables().size());
+    }
+
+    @Test
+    public void testUnknownAndFailedStatements() throws SQLException {
+        MySQLSchema original = schema();
+        assertNull(apply(original, "CREATE TABLE t1 AS SELECT * FROM t0"));
+        assertNull(apply(original, "CREATE INDEX i1 ON t5(c0)"));
+        assertSame(original, MySQLSchemaUpdater.apply(original, "CREATE TABLE t1(c0 INT)", false, NO_READS));
+    }
+}
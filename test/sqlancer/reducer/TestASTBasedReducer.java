@@ -264,4 +264,27 @@ public class TestASTBasedReducer {
         assertEquals("SELECT * FROM t0 WHERE 2.143 IS NULL;", TestEnvironment.getQueriesString(reducedResult));
     }
 
+    @Test
+    void testParallelTransformations() throws Exception {
+        String[] queriesStrs = {
+                "SELECT DISTINCT * FROM v0 WHERE ((v0.rowid || ( (v0.c + v0.d) < 200 && v0.c >= 100) || 114514)OR(((v0.c0)||(1529686005)))) UNION SELECT DISTINCT * FROM v0 WHERE (NOT ((v0.rowid)OR(((v0.c0)||(1529686005)))))",
+                "SELECT * FROM t0 WHERE (2.1427572639 IS NULL);" };
+        TestEnvironment env = TestEnvironment.getParallelASTBasedReducerEnv(4);
+        env.setInitialStatementsFromStrings(List.of(queriesStrs));
+        env.setBugInducingCondition(statements -> {
+            try {
+                for (Query<?> s : statements) {
+                    CCJSqlParserUtil.parse(s.getQueryString());
+                }
+            } catch (JSQLParserException e) {
+                return false;
+            }
+            String queriesString = TestEnvironment.getQueriesString(statements);
+            return queriesString.contains("&&") && queriesString.contains("t0");
+        });
+        env.runReduce();
+        assertEquals("SELECT * FROM v0 WHERE v0.c && v0.c;\nSELECT * FROM t0;",
+                TestEnvironment.getQueriesString(env.getReducedStatements()));
+    }
+
 }
@@ -37,14 +37,45 @@ public class TestEnvironment {
         }
     }
 
+    private TestEnvironment(int nrThreads) throws Exception {
+        setUpTestingEnvironment();
+        reducer = new StatementReducer<>(provider, nrThreads) {
+            @Override
+            protected VirtualDBGlobalState createWorkerState(VirtualDBGlobalState template, int workerId)
+                    throws Exception {
+                VirtualDBGlobalState worker = super.createWorkerState(template, workerId);
+                worker.setBugInducingCondition(template.getBugInducingCondition());
+                return worker;
+            }
+        };
+    }
+
     public static TestEnvironment getStatementReducerEnv() throws Exception {
         return new TestEnvironment(ReducerType.USING_STATEMENT_REDUCER);
     }
 
+    public static TestEnvironment getParallelStatementReducerEnv(int nrThreads) throws Exception {
+        return new TestEnvironment(nrThreads);
+    }
+
     public static TestEnvironment getASTBasedReducerEnv() throws Exception {
         return new TestEnvironment(ReducerType.USING_AST_BASED_REDUCER);
     }
 
+    public static TestEnvironment getParallelASTBasedReducerEnv(int nrThreads) throws Exception {
+        TestEnvironment env = new TestEnvironment(ReducerType.USING_AST_BASED_REDUCER);
+        env.reducer = new ASTBasedReducer<>(env.provider, nrThreads) {
+            @Override
+            protected VirtualDBGlobalState createWorkerState(VirtualDBGlobalState template, int workerId)
+                    throws Exception {
+                VirtualDBGlobalState worker = super.createWorkerState(template, workerId);
+                worker.setBugInducingCondition(template.getBugInducingCondition());
+                return worker;
+            }
+        };
+        return env;
+    }
+
     /**
      * @param queries:
      *            List of Query<?>
@@ -123,6 +154,12 @@ public class TestEnvironment {
         newGlobalState.setBugInducingCondition(bugInducingCondition);
     }
 
+    public void setMaxStatementReduceSteps(long steps) throws Exception {
+        Field field = options.getClass().getDeclaredField("maxStatementReduceSteps");
+        field.setAccessible(true);
+        field.set(options, steps);
+    }
+
     public void runReduce() throws Exception {
 
         Reproducer<VirtualDBGlobalState> reproducer = provider.generateAndTestDatabase(newGlobalState);
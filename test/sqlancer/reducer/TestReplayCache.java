@@ -0,0 +1,159 @@
+package sqlancer.reducer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import sqlancer.ReplayCache;
+import sqlancer.SQLConnection;
+import sqlancer.SnapshotCapableProvider;
+import sqlancer.common.query.Query;
+import sqlancer.reducer.VirtualDB.VirtualDBConnection;
+import sqlancer.reducer.VirtualDB.VirtualDBGlobalState;
+import sqlancer.reducer.VirtualDB.VirtualDBProvider;
+import sqlancer.reducer.VirtualDB.VirtualDBQuery;
+
+public class TestReplayCache {
+
+    /**
+     * A provider whose database is the list of executed statements.
+     */
+    private static class RecordingProvider extends VirtualDBProvider {
+        protected List<String> database = new ArrayList<>();
+        private int executed;
+
+        @Override
+        public SQLConnection createDatabase(VirtualDBGlobalState globalState) {
+            database = new ArrayList<>();
+            return new VirtualDBConnection(null);
+        }
+    }
+
+    private static class SnapshotProvider extends RecordingProvider
+            implements SnapshotCapableProvider<VirtualDBGlobalState, SQLConnection> {
+        private final Map<String, List<String>> snapshots = new HashMap<>();
+
+        @Override
+        public boolean createSnapshot(VirtualDBGlobalState globalState, String snapshotName,
+                List<Query<SQLConnection>> prefix) {
+            snapshots.put(snapshotName, new ArrayList<>(database));
+            return true;
+        }
+
+        @Override
+        public SQLConnection restoreSnapshot(VirtualDBGlobalState globalState, String snapshotName) {
+            database = new ArrayList<>(snapshots.get(snapshotName));
+            return new VirtualDBConnection(null);
+        }
+
+        @Override
+        public void dropSnapshot(VirtualDBGlobalState globalState, String snapshotName) {
+            snapshots.remove(snapshotName);
+        }
+    }
+
+    private static ReplayCache<VirtualDBGlobalState, ?, SQLConnection> createCache(RecordingProvider provider) {
+        VirtualDBGlobalState state = new VirtualDBGlobalState() {
+            private SQLConnection connection;
+
+            @Override
+            public SQLConnection getConnection() {
+                return connection;
+            }
+
+            @Override
+            public void setConnection(SQLConnection con) {
+                connection = con;
+            }
+
+            @Override
+            public boolean executeStatement(Query<SQLConnection> q, String... fills) {
+                provider.database.add(q.getQueryString());
+                provider.executed++;
+                return true;
+            }
+        };
+        state.setDatabaseName("virtual_db");
+        return new ReplayCache<>(provider, state);
+    }
+
+    private static List<Query<SQLConnection>> statements(int n) {
+        List<Query<SQLConnection>> statements = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            statements.add(new VirtualDBQuery("Statement_" + i + ";"));
+        }
+        return statements;
+    }
+
+    private static List<String> strings(List<Query<SQLConnection>> statements) {
+        List<String> strings = new ArrayList<>();
+        for (Query<SQLConnection> q : statements) {
+            strings.add(q.getQueryString());
+        }
+        return strings;
+    }
+
+    private static int replay(RecordingProvider provider, ReplayCache<VirtualDBGlobalState, ?, SQLConnection> cache,
+            List<Query<SQLConnection>> statements, int stablePrefix) throws Exception {
+        int before = provider.executed;
+        cache.replay(statements, stablePrefix).close();
+        assertEquals(strings(statements), provider.database);
+        return provider.executed - before;
+    }
+
+    @Test
+    public void testReplaysOnlyTheSuffix() throws Exception {
+        SnapshotProvider provider = new SnapshotProvider();
+        ReplayCache<VirtualDBGlobalState, ?, SQLConnection> cache = createCache(provider);
+        List<Query<SQLConnection>> base = statements(100);
+
+        assertEquals(100, replay(provider, cache, base, 50));
+
+        List<Query<SQLConnection>> candidate = new ArrayList<>(base);
+        candidate.subList(70, 80).clear();
+        assertEquals(40, replay(provider, cache, candidate, 70));
+
+        // the new snapshot covers the first 70 statements
+        List<Query<SQLConnection>> next = new ArrayList<>(base);
+        next.subList(80, 90).clear();
+        assertEquals(20, replay(provider, cache, next, 80));
+
+        // candidates that change the snapshotted prefix are replayed from scratch
+        List<Query<SQLConnection>> changed = new ArrayList<>(base);
+        changed.set(10, new VirtualDBQuery("Other;"));
+        assertEquals(100, replay(provider, cache, changed, 0));
+
+        cache.close();
+        assertEquals(0, provider.snapshots.size());
+    }
+
+    @Test
+    public void testWithoutSnapshotSupport() throws Exception {
+        SnapshotProvider provider = new SnapshotProvider() {
+            @Override
+            public boolean createSnapshot(VirtualDBGlobalState globalState, String snapshotName,
+                    List<Query<SQLConnection>> prefix) {
+                return false;
+            }
+        };
+        ReplayCache<VirtualDBGlobalState, ?, SQLConnection> cache = createCache(provider);
+        List<Query<SQLConnection>> base = statements(50);
+        assertEquals(50, replay(provider, cache, base, 40));
+        assertEquals(50, replay(provider, cache, base, 45));
+    }
+
+    @Test
+    public void testProviderWithoutSnapshots() throws Exception {
+        RecordingProvider provider = new RecordingProvider();
+        ReplayCache<VirtualDBGlobalState, ?, SQLConnection> cache = createCache(provider);
+        List<Query<SQLConnection>> base = statements(50);
+        assertEquals(50, replay(provider, cache, base, 40));
+        assertEquals(50, replay(provider, cache, base, 45));
+        cache.close();
+    }
+}
@@ -2,6 +2,7 @@ package sqlancer.reducer;
 
 import org.junit.jupiter.api.Test;
 import sqlancer.Main;
+import sqlancer.MainOptions;
 import sqlancer.common.query.Query;
 
 import java.util.ArrayList;
@@ -73,6 +74,28 @@ public class TestStatementReducer {
         assertEquals(queriesString, "Statement_2;\nStatement_318;\nStatement_990;");
     }
 
+    @Test
+    void testParallelDeltaDebuggingMatchesSerial() throws Exception {
+        String pattern = "(.*\\n)*(Statement_2;)\\n(.*\\n)*(Statement_318);\\n(.*\\n)*(Statement_990;)(.*\\n)*.*";
+        List<String> fakeStatements = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            fakeStatements.add("Statement_" + i + ";");
+        }
+        for (long maxSteps : new long[] { MainOptions.NO_REDUCE_LIMIT, 25 }) {
+            List<String> results = new ArrayList<>();
+            for (TestEnvironment env : List.of(TestEnvironment.getStatementReducerEnv(),
+                    TestEnvironment.getParallelStatementReducerEnv(4))) {
+                env.setMaxStatementReduceSteps(maxSteps);
+                env.setInitialStatementsFromStrings(fakeStatements);
+                env.setBugInducingCondition(queryList -> Pattern.matches(pattern,
+                        TestEnvironment.getQueriesString(queryList)));
+                env.runReduce();
+                results.add(TestEnvironment.getQueriesString(env.getReducedStatements()));
+            }
+            assertEquals(results.get(0), results.get(1));
+        }
+    }
+
     @Test
     void testSQLite3WithStatementReducer() {
         Main.executeMain(new String[] { "--random-seed", "0", "--use-reducer", "--timeout-seconds", "60",
@@ -33,9 +33,9 @@ public class VirtualDBProvider extends SQLProviderAdapter<VirtualDBGlobalState,
     @Override
     public Reproducer<VirtualDBGlobalState> generateAndTestDatabase(VirtualDBGlobalState globalState) throws Exception {
         return state -> {
-            if (globalState.getBugInducingCondition() == null)
+            if (state.getBugInducingCondition() == null)
                 return false;
-            return globalState.getBugInducingCondition().apply(globalState.getState().getStatements());
+            return state.getBugInducingCondition().apply(state.getState().getStatements());
         };
     }
 